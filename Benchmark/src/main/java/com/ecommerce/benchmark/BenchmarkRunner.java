@@ -0,0 +1,32 @@
+package com.ecommerce.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Titik masuk benchmark yang selalu mengaktifkan GC profiler
+ * 
+ * Argumen baris perintah sama dengan org.openjdk.jmh.Main, misalnya:
+ *   java -jar target/benchmarks.jar CodecBenchmark -f 1 -wi 3 -i 5
+ * Hasil juga ditulis sebagai JSON ke target/jmh-result.json untuk dibandingkan antar versi.
+ */
+public class BenchmarkRunner {
+    
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        
+        // Opsi dari baris perintah tetap berlaku, GC profiler dan file hasil hanya ditambahkan
+        Options options = new OptionsBuilder()
+            .parent(cmd)
+            .addProfiler(GCProfiler.class)
+            .resultFormat(cmd.getResultFormat().orElse(ResultFormatType.JSON))
+            .result(cmd.getResult().orElse("target/jmh-result.json"))
+            .build();
+        
+        new Runner(options).run();
+    }
+} 
\ No newline at end of file
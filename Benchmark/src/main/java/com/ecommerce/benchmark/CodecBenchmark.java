@@ -0,0 +1,142 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.pengiriman.model.DetailPengiriman;
+import com.ecommerce.pesanan.model.Pesanan;
+import com.ecommerce.pesanan.model.StatusPengiriman;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark konversi pesan antara objek dan body pesan
+ * 
+ * Mengukur throughput dan (dengan GC profiler) alokasi per operasi untuk JSONUtil di kedua layanan,
+ * serta perbandingan format JSON dan biner melalui CodecUtil.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecBenchmark {
+    // Pesanan contoh dengan ukuran field yang umum
+    private Pesanan pesanan;
+    
+    // Status pengiriman contoh yang dikirim LayananPengiriman
+    private DetailPengiriman pengiriman;
+    
+    // Body pesan yang sudah di-encode untuk benchmark decode
+    private String pesananJson;
+    private byte[] pesananJsonBytes;
+    private byte[] pengirimanJsonBytes;
+    
+    @Setup
+    public void setup() {
+        pesanan = new Pesanan(12345, "Budi Santoso", "Jl. Merdeka No. 17, Bandung", 1250000.5);
+        pesananJson = com.ecommerce.pesanan.util.JSONUtil.toJSON(pesanan);
+        pesananJsonBytes = com.ecommerce.pesanan.util.JSONUtil.toJSONBytes(pesanan);
+        
+        pengiriman = new DetailPengiriman(678, 12345, "Budi Santoso", "Jl. Merdeka No. 17, Bandung");
+        pengiriman.setStatusPengiriman("DIKIRIM");
+        pengiriman.setKurirPengiriman("JNE");
+        pengiriman.setNomorResi("JNE1234567890");
+        pengirimanJsonBytes = com.ecommerce.pengiriman.util.JSONUtil.toJSONBytes(pengiriman);
+        
+        periksaIdBesar();
+    }
+    
+    /**
+     * Memastikan ID 19 digit (GeneratorId setelah sekitar 2031) tidak kehilangan presisi lewat JSON,
+     * sehingga hasil benchmark decode tidak diukur pada parser yang salah
+     */
+    private static void periksaIdBesar() {
+        long id = Long.MAX_VALUE - 7;
+        Pesanan besar = new Pesanan(id, "Budi Santoso", "Jl. Merdeka No. 17, Bandung", 1250000.5);
+        byte[] json = com.ecommerce.pesanan.util.JSONUtil.toJSONBytes(besar);
+        long idPesanan = com.ecommerce.pesanan.util.JSONUtil.toPesanan(json).getId();
+        DetailPengiriman detail = com.ecommerce.pengiriman.util.JSONUtil.pesananToDetailPengiriman(json);
+        detail.setStatusPengiriman("DIKIRIM");
+        long idDiStatus = com.ecommerce.pesanan.util.JSONUtil.toStatusPengiriman(
+            com.ecommerce.pengiriman.util.JSONUtil.toJSONBytes(detail)).getIdPesanan();
+        if (idPesanan != id || detail.getIdPesanan() != id || idDiStatus != id) {
+            throw new IllegalStateException("ID " + id + " berubah setelah round-trip JSON: "
+                + idPesanan + ", " + detail.getIdPesanan() + ", " + idDiStatus);
+        }
+    }
+    
+    @Benchmark
+    public String pesananToJSON() {
+        return com.ecommerce.pesanan.util.JSONUtil.toJSON(pesanan);
+    }
+    
+    @Benchmark
+    public byte[] pesananToJSONBytes() {
+        return com.ecommerce.pesanan.util.JSONUtil.toJSONBytes(pesanan);
+    }
+    
+    @Benchmark
+    public Pesanan toPesananDariString() {
+        return com.ecommerce.pesanan.util.JSONUtil.toPesanan(pesananJson);
+    }
+    
+    @Benchmark
+    public Pesanan toPesananDariBytes() {
+        return com.ecommerce.pesanan.util.JSONUtil.toPesanan(pesananJsonBytes);
+    }
+    
+    @Benchmark
+    public DetailPengiriman pesananToDetailPengiriman() {
+        return com.ecommerce.pengiriman.util.JSONUtil.pesananToDetailPengiriman(pesananJsonBytes);
+    }
+    
+    @Benchmark
+    public StatusPengiriman toStatusPengiriman() {
+        return com.ecommerce.pesanan.util.JSONUtil.toStatusPengiriman(pengirimanJsonBytes);
+    }
+    
+    /**
+     * Body pesan per content-type untuk membandingkan format JSON dan biner
+     */
+    @State(Scope.Thread)
+    public static class PerContentType {
+        @Param({"application/json", "application/x-ecommerce-binary"})
+        public String contentType;
+        
+        private Pesanan pesanan;
+        private byte[] pesananBody;
+        private byte[] pengirimanBody;
+        
+        @Setup
+        public void setup(CodecBenchmark benchmark) {
+            pesanan = benchmark.pesanan;
+            pesananBody = com.ecommerce.pesanan.util.CodecUtil.encode(pesanan, contentType);
+            pengirimanBody = com.ecommerce.pengiriman.util.CodecUtil.encode(benchmark.pengiriman, contentType);
+        }
+    }
+    
+    @Benchmark
+    public byte[] encodePesanan(PerContentType state) {
+        return com.ecommerce.pesanan.util.CodecUtil.encode(state.pesanan, state.contentType);
+    }
+    
+    @Benchmark
+    public DetailPengiriman decodePesananBaru(PerContentType state) {
+        return com.ecommerce.pengiriman.util.CodecUtil.pesananToDetailPengiriman(state.pesananBody, state.contentType);
+    }
+    
+    @Benchmark
+    public StatusPengiriman decodeStatusPengiriman(PerContentType state) {
+        return com.ecommerce.pesanan.util.CodecUtil.decodeStatusPengiriman(state.pengirimanBody, state.contentType);
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,122 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.pengiriman.model.DetailPengiriman;
+import com.ecommerce.pengiriman.model.JejakPesan;
+import com.ecommerce.pengiriman.service.PesananConsumer;
+import com.ecommerce.pesanan.model.Pesanan;
+import com.ecommerce.pesanan.service.PesananStatusConsumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark perebutan lock pada daftar pesanan dan daftar pengiriman
+ * 
+ * Beberapa thread consumer memproses pesan bersamaan dengan thread aplikasi yang menambah atau
+ * membaca daftar, sama seperti saat layanan berjalan. Handler pesan pada consumer bersifat private,
+ * sehingga dipanggil melalui MethodHandle agar yang terukur adalah jalur kode yang sebenarnya.
+ * Consumer tidak dijalankan (run() tidak dipanggil), sehingga tidak ada transport yang terlibat.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class DaftarMapBenchmark {
+    // Jumlah ID pesanan berbeda yang diperebutkan
+    private static final int JUMLAH_ID = 4096;
+    
+    private static final String CONTENT_TYPE = com.ecommerce.pesanan.util.CodecUtil.CONTENT_TYPE_JSON;
+    
+    private PesananStatusConsumer statusConsumer;
+    private PesananConsumer pesananConsumer;
+    
+    // Handler private: processPengirimanStatus(byte[], String) dan processPesananBaru(byte[], String, JejakPesan)
+    private MethodHandle prosesStatus;
+    private MethodHandle prosesPesananBaru;
+    
+    // Body pesan yang sudah di-encode per ID
+    private byte[][] statusBody;
+    private byte[][] pesananBody;
+    private Pesanan[] pesanan;
+    
+    @Setup(Level.Trial)
+    public void setupPesan() throws Exception {
+        statusBody = new byte[JUMLAH_ID][];
+        pesananBody = new byte[JUMLAH_ID][];
+        pesanan = new Pesanan[JUMLAH_ID];
+        for (int i = 0; i < JUMLAH_ID; i++) {
+            pesanan[i] = new Pesanan(i + 1, "Pelanggan " + i, "Alamat " + i, 10000 + i);
+            pesananBody[i] = com.ecommerce.pesanan.util.JSONUtil.toJSONBytes(pesanan[i]);
+            
+            DetailPengiriman pengiriman = new DetailPengiriman(i + 1, i + 1, "Pelanggan " + i, "Alamat " + i);
+            pengiriman.setStatusPengiriman("DIKIRIM");
+            statusBody[i] = com.ecommerce.pengiriman.util.JSONUtil.toJSONBytes(pengiriman);
+        }
+        
+        MethodType tipeHandler = MethodType.methodType(void.class, byte[].class, String.class);
+        prosesStatus = MethodHandles.privateLookupIn(PesananStatusConsumer.class, MethodHandles.lookup())
+            .findVirtual(PesananStatusConsumer.class, "processPengirimanStatus", tipeHandler);
+        prosesPesananBaru = MethodHandles.privateLookupIn(PesananConsumer.class, MethodHandles.lookup())
+            .findVirtual(PesananConsumer.class, "processPesananBaru", tipeHandler.appendParameterTypes(JejakPesan.class));
+    }
+    
+    /**
+     * Consumer baru setiap iterasi agar ukuran daftar pengiriman tidak terus bertambah antar iterasi
+     */
+    @Setup(Level.Iteration)
+    public void setupConsumer() {
+        statusConsumer = new PesananStatusConsumer(new com.ecommerce.pesanan.util.InMemoryTransport());
+        pesananConsumer = new PesananConsumer(new com.ecommerce.pengiriman.util.InMemoryTransport());
+        for (Pesanan p : pesanan) {
+            statusConsumer.tambahkanPesanan(p);
+        }
+    }
+    
+    @Benchmark
+    @Group("daftarPesanan")
+    @GroupThreads(3)
+    public void updateStatus() throws Throwable {
+        int i = ThreadLocalRandom.current().nextInt(JUMLAH_ID);
+        prosesStatus.invoke(statusConsumer, statusBody[i], CONTENT_TYPE);
+    }
+    
+    @Benchmark
+    @Group("daftarPesanan")
+    @GroupThreads(1)
+    public void tambahPesanan() {
+        statusConsumer.tambahkanPesanan(pesanan[ThreadLocalRandom.current().nextInt(JUMLAH_ID)]);
+    }
+    
+    @Benchmark
+    @Group("daftarPengiriman")
+    @GroupThreads(3)
+    public void pesananBaru() throws Throwable {
+        int i = ThreadLocalRandom.current().nextInt(JUMLAH_ID);
+        prosesPesananBaru.invoke(pesananConsumer, pesananBody[i], CONTENT_TYPE, (JejakPesan) null);
+    }
+    
+    @Benchmark
+    @Group("daftarPengiriman")
+    @GroupThreads(1)
+    public DetailPengiriman cariPengiriman() {
+        return pesananConsumer.getPengirimanById(ThreadLocalRandom.current().nextInt(JUMLAH_ID) + 1);
+    }
+} 
\ No newline at end of file
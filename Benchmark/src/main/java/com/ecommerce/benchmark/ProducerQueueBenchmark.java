@@ -0,0 +1,159 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.pesanan.config.ProducerConfig;
+import com.ecommerce.pesanan.model.Pesanan;
+import com.ecommerce.pesanan.service.PesananProducer;
+import com.ecommerce.pesanan.util.InMemoryTransport;
+import com.ecommerce.pesanan.util.RabbitMQUtil;
+import com.ecommerce.pesanan.util.RingBuffer;
+import com.ecommerce.pesanan.util.TransportChannel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark serah terima pesanan dari thread aplikasi ke producer thread
+ * 
+ * Kelompok "handoff" dan "handoffBatch" mengukur queue lokal yang dapat dipakai producer,
+ * LinkedBlockingQueue tanpa batas atau RingBuffer berkapasitas tetap: satu per satu dengan take(),
+ * atau per batch dengan drainTo() seperti ambilBatch().
+ * Benchmark "tambahkanPesanan" mengukur PesananProducer sungguhan di atas InMemoryTransport,
+ * dengan consumer auto-ack yang langsung membuang pesan agar queue broker tidak membesar.
+ * Parameter kapasitasQueue 0 memakai LinkedBlockingQueue, selain itu RingBuffer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProducerQueueBenchmark {
+    
+    /**
+     * Queue lokal yang dipakai bersama oleh thread pengirim dan penerima dalam satu grup
+     */
+    @State(Scope.Group)
+    public static class QueueLokal {
+        @Param({"LinkedBlockingQueue", "RingBuffer"})
+        private String jenisQueue;
+        
+        private BlockingQueue<Pesanan> queue;
+        private final Pesanan pesanan = new Pesanan(1, "Budi Santoso", "Jl. Merdeka No. 17", 150000);
+        
+        @Setup(Level.Trial)
+        public void setup() {
+            queue = "RingBuffer".equals(jenisQueue)
+                ? new RingBuffer<>(65536, RingBuffer.StrategiTunggu.HIBRIDA)
+                : new LinkedBlockingQueue<>();
+        }
+        
+        @TearDown(Level.Iteration)
+        public void kosongkan() {
+            queue.clear();
+        }
+    }
+    
+    /**
+     * Penampung batch milik thread penerima
+     */
+    @State(Scope.Thread)
+    public static class PenampungBatch {
+        private final List<Pesanan> batch = new ArrayList<>(100);
+    }
+    
+    @Benchmark
+    @Group("handoff")
+    @GroupThreads(1)
+    public void kirim(QueueLokal state) throws InterruptedException {
+        state.queue.put(state.pesanan);
+    }
+    
+    @Benchmark
+    @Group("handoff")
+    @GroupThreads(1)
+    public Pesanan terima(QueueLokal state) throws InterruptedException {
+        // poll dengan batas waktu agar thread tidak macet di akhir iterasi
+        return state.queue.poll(10, TimeUnit.MILLISECONDS);
+    }
+    
+    @Benchmark
+    @Group("handoffBatch")
+    @GroupThreads(1)
+    public void kirimUntukBatch(QueueLokal state) throws InterruptedException {
+        state.queue.put(state.pesanan);
+    }
+    
+    @Benchmark
+    @Group("handoffBatch")
+    @GroupThreads(1)
+    public int terimaBatch(QueueLokal state, PenampungBatch penampung) throws InterruptedException {
+        List<Pesanan> batch = penampung.batch;
+        batch.clear();
+        Pesanan pertama = state.queue.poll(10, TimeUnit.MILLISECONDS);
+        if (pertama == null) {
+            return 0;
+        }
+        batch.add(pertama);
+        state.queue.drainTo(batch, 99);
+        return batch.size();
+    }
+    
+    /**
+     * PesananProducer dengan InMemoryTransport dan consumer yang membuang pesan
+     */
+    @State(Scope.Benchmark)
+    public static class ProducerMemori {
+        @Param({"0", "65536"})
+        private int kapasitasQueue;
+        
+        private InMemoryTransport transport;
+        private PesananProducer producer;
+        private Pesanan pesanan;
+        
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            transport = new InMemoryTransport();
+            try (TransportChannel channel = transport.createChannel()) {
+                RabbitMQUtil.initializeExchangesAndQueues(channel);
+            }
+            TransportChannel consumer = transport.createChannel();
+            for (int shard = 0; shard < RabbitMQUtil.getJumlahShard(); shard++) {
+                consumer.basicConsume(RabbitMQUtil.namaShard(RabbitMQUtil.QUEUE_PESANAN_BARU, shard), true, (tag, delivery) -> { });
+            }
+            
+            ProducerConfig config = new ProducerConfig();
+            config.setMaxBatchSize(100);
+            config.setKapasitasQueue(kapasitasQueue);
+            producer = new PesananProducer(transport, config);
+            pesanan = new Pesanan(1, "Budi Santoso", "Jl. Merdeka No. 17", 150000);
+        }
+        
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            producer.stop();
+            transport.close();
+        }
+    }
+    
+    @Benchmark
+    public void tambahkanPesanan(ProducerMemori state) {
+        state.producer.tambahkanPesanan(state.pesanan);
+    }
+} 
\ No newline at end of file
@@ -1,14 +1,23 @@
 package com.ecommerce.pengiriman;
 
+import com.ecommerce.pengiriman.config.ConsumerConfig;
+import com.ecommerce.pengiriman.config.PersistensiConfig;
+import com.ecommerce.pengiriman.config.ProducerConfig;
 import com.ecommerce.pengiriman.model.DetailPengiriman;
 import com.ecommerce.pengiriman.service.PesananConsumer;
 import com.ecommerce.pengiriman.service.PengirimanProducer;
-import com.rabbitmq.client.Channel;
-import com.rabbitmq.client.Connection;
+import com.ecommerce.pengiriman.util.EksekusiUtil;
+import com.ecommerce.pengiriman.util.GeneratorId;
+import com.ecommerce.pengiriman.util.JSONUtil;
+import com.ecommerce.pengiriman.util.PengelolaKoneksi;
+import com.ecommerce.pengiriman.util.PenyimpananPengiriman;
 import com.ecommerce.pengiriman.util.RabbitMQUtil;
+import com.ecommerce.pengiriman.util.TracingUtil;
+import com.ecommerce.pengiriman.util.TransportChannel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
 import java.util.Scanner;
 
 /**
@@ -16,25 +25,84 @@ import java.util.Scanner;
  */
 public class AplikasiLayananPengiriman {
     private static final Logger logger = LoggerFactory.getLogger(AplikasiLayananPengiriman.class);
-
+    
+    // Argumen untuk menandai setiap pesanan baru langsung TERKIRIM tanpa menu interaktif
+    private static final String ARG_OTOMATIS = "--otomatis";
+    
     public static void main(String[] args) {
         logger.info("Memulai Aplikasi Layanan Pengiriman");
         
         try {
-            // Membuat koneksi ke RabbitMQ
-            Connection connection = RabbitMQUtil.createConnection();
-            Channel channel = connection.createChannel();
+            // Memulihkan daftar pengiriman dari checkpoint dan jurnal di disk
+            // sehingga pengiriman yang sudah di-ack dari pesanan.baru tidak hilang setelah restart
+            PenyimpananPengiriman penyimpanan = PenyimpananPengiriman.buka(new PersistensiConfig());
             
-            // Inisialisasi exchange dan queue
+            // ID pengiriman bergaya Snowflake dengan nomor node dari konfigurasi atau sewa file lokal
+            GeneratorId generatorId = GeneratorId.dariKonfigurasi("pengiriman");
+            JSONUtil.setGeneratorId(generatorId);
+            JSONUtil.lanjutkanIdPengiriman(penyimpanan.getIdTerbesar());
+            
+            // Membuat koneksi publish dan consume ke RabbitMQ
+            // Flow control broker pada publisher tidak ikut menahan consumer pesanan baru
+            PengelolaKoneksi koneksi = PengelolaKoneksi.dariLingkungan("layanan-pengiriman");
+            TransportChannel channel = koneksi.getTransportConsume().createChannel();
+            
+            // Inisialisasi exchange dan queue lewat koneksi consume agar ikut dipulihkan sebelum consumer
             RabbitMQUtil.initializeExchangesAndQueues(channel);
             
             // Consumer untuk menangani pesanan baru
-            PesananConsumer pesananConsumer = new PesananConsumer(connection);
-            Thread consumerThread = new Thread(pesananConsumer);
+            // Satu channel dan satu worker per core CPU, prefetch dibatasi agar beban terbagi adil
+            int jumlahCore = Runtime.getRuntime().availableProcessors();
+            ConsumerConfig consumerConfig = new ConsumerConfig();
+            consumerConfig.setConsumerChannels(jumlahCore);
+            consumerConfig.setPrefetchCount(50);
+            consumerConfig.setWorkerThreads(jumlahCore);
+            PesananConsumer pesananConsumer = new PesananConsumer(koneksi.getTransportConsume(), consumerConfig, penyimpanan.getTabel());
+            // Pesanan yang gagal diproses dikirim ulang lewat koneksi publish
+            pesananConsumer.setTransportRetry(koneksi.getTransportPublish());
+            // Consumer thread hanya menunggu sampai dihentikan, pada mode VIRTUAL berupa virtual thread
+            Thread consumerThread = EksekusiUtil.buatThread(consumerConfig.getModeEksekusi(), "consumer-pesanan-baru",
+                pesananConsumer);
             consumerThread.start();
             
+            boolean otomatis = Arrays.asList(args).contains(ARG_OTOMATIS);
+            
             // Producer untuk mengirim status pengiriman
-            PengirimanProducer pengirimanProducer = new PengirimanProducer(connection);
+            // Status dikirim per batch dan dikonfirmasi broker satu kali untuk setiap batch
+            ProducerConfig producerConfig = new ProducerConfig();
+            producerConfig.setPublisherConfirms(true);
+            producerConfig.setMaxBatchSize(100);
+            producerConfig.setLingerMs(5);
+            // Status satu shard dalam satu batch dikirim sebagai satu amplop (satu pesan AMQP)
+            producerConfig.setMaksBytesAmplop(64 * 1024);
+            // Amplop dan status berukuran 1 KiB ke atas dikirim terkompresi (content-encoding deflate)
+            producerConfig.setAmbangKompresiBytes(1024);
+            // Queue lokal berkapasitas tetap: saat broker lambat pemanggil menunggu, bukan menumpuk di heap
+            producerConfig.setKapasitasQueue(65536);
+            producerConfig.setKebijakanPenuh(ProducerConfig.KebijakanPenuh.TUNGGU);
+            // Update status beruntun dari menu interaktif (misalnya DIKEMAS lalu DIKIRIM) digabung menjadi
+            // status terbaru; mode otomatis hanya mengirim satu status per pesanan sehingga tanpa jendela tunggu
+            producerConfig.setCoalescing(!otomatis);
+            PengirimanProducer pengirimanProducer = new PengirimanProducer(koneksi.getTransportPublish(), producerConfig);
+            
+            // Mode otomatis untuk generator beban LayananPesanan: setiap pesanan baru langsung dikirim
+            // sebagai TERKIRIM dan aplikasi berjalan sampai proses dihentikan
+            // Setiap baris dari stdin menampilkan statistik latensi saat ini
+            if (otomatis) {
+                logger.info("Mode otomatis aktif, setiap pesanan baru langsung ditandai TERKIRIM");
+                pesananConsumer.setPendengarPengirimanBaru(pengiriman -> {
+                    pengiriman.setStatusPengiriman("TERKIRIM");
+                    pesananConsumer.perbaruiPengiriman(pengiriman);
+                    pengirimanProducer.tambahkanPengiriman(pengiriman);
+                });
+                Scanner scanner = new Scanner(System.in);
+                while (scanner.hasNextLine()) {
+                    scanner.nextLine();
+                    TracingUtil.tampilkanStatistik();
+                }
+                consumerThread.join();
+                return;
+            }
             
             // Menu interaktif
             Scanner scanner = new Scanner(System.in);
@@ -51,6 +119,12 @@ public class AplikasiLayananPengiriman {
                     case 2:
                         updatePengirimanStatus(scanner, pesananConsumer, pengirimanProducer);
                         break;
+                    case 3:
+                        TracingUtil.tampilkanStatistik();
+                        break;
+                    case 4:
+                        cariPengiriman(scanner, pesananConsumer);
+                        break;
                     case 0:
                         running = false;
                         break;
@@ -64,8 +138,12 @@ public class AplikasiLayananPengiriman {
             pesananConsumer.stop();
             pengirimanProducer.stop();
             channel.close();
-            connection.close();
+            koneksi.close();
             
+            // Ditutup terakhir agar perubahan yang masih masuk ikut tercatat di checkpoint
+            penyimpanan.close();
+            generatorId.close();
+        
         } catch (Exception e) {
             logger.error("Terjadi kesalahan: {}", e.getMessage(), e);
         }
@@ -75,6 +153,8 @@ public class AplikasiLayananPengiriman {
         System.out.println("\n=== Aplikasi Layanan Pengiriman E-Commerce ===");
         System.out.println("1. Lihat Daftar Pesanan untuk Pengiriman");
         System.out.println("2. Update Status Pengiriman");
+        System.out.println("3. Lihat Statistik Latensi");
+        System.out.println("4. Cari Pengiriman");
         System.out.println("0. Keluar");
         System.out.print("Pilihan Anda: ");
     }
@@ -87,6 +167,39 @@ public class AplikasiLayananPengiriman {
         }
     }
     
+    private static void cariPengiriman(Scanner scanner, PesananConsumer pesananConsumer) {
+        System.out.println("\nCari Pengiriman Berdasarkan:");
+        System.out.println("1. Status");
+        System.out.println("2. Nama Pelanggan");
+        System.out.println("3. Kurir");
+        System.out.print("Pilihan Anda: ");
+        int pilihan = getUserChoice(scanner);
+        
+        switch (pilihan) {
+            case 1:
+                System.out.print("Masukkan Status (MENUNGGU_PENGIRIMAN, DIKEMAS, DIKIRIM, TERKIRIM): ");
+                String status = scanner.nextLine().trim().toUpperCase();
+                try {
+                    pesananConsumer.tampilkanPengiriman("Status " + status, pesananConsumer.getPengirimanByStatus(status));
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Status tidak dikenal: " + status);
+                }
+                break;
+            case 2:
+                System.out.print("Masukkan Nama Pelanggan: ");
+                String nama = scanner.nextLine();
+                pesananConsumer.tampilkanPengiriman("Pelanggan " + nama, pesananConsumer.getPengirimanByPelanggan(nama));
+                break;
+            case 3:
+                System.out.print("Masukkan Kurir: ");
+                String kurir = scanner.nextLine();
+                pesananConsumer.tampilkanPengiriman("Kurir " + kurir, pesananConsumer.getPengirimanByKurir(kurir));
+                break;
+            default:
+                System.out.println("Pilihan tidak valid!");
+        }
+    }
+    
     private static void updatePengirimanStatus(
             Scanner scanner, 
             PesananConsumer pesananConsumer, 
@@ -96,9 +209,9 @@ public class AplikasiLayananPengiriman {
         pesananConsumer.tampilkanDaftarPengiriman();
         
         System.out.print("\nMasukkan ID Pengiriman yang ingin diupdate: ");
-        int id;
+        long id;
         try {
-            id = Integer.parseInt(scanner.nextLine());
+            id = Long.parseLong(scanner.nextLine());
         } catch (NumberFormatException e) {
             System.out.println("ID tidak valid! Harap masukkan angka.");
             return;
@@ -144,11 +257,15 @@ public class AplikasiLayananPengiriman {
             
             pengiriman.setStatusPengiriman(newStatus);
             
-            // Tambahkan ke queue
+            // Simpan perubahan ke daftar pengiriman
+            pesananConsumer.perbaruiPengiriman(pengiriman);
+            
+            // Tambahkan ke queue, producer menyimpan salinan sehingga objek di daftar pengiriman
+            // boleh diubah lagi sebelum status ini selesai dikirim
             pengirimanProducer.tambahkanPengiriman(pengiriman);
             
             System.out.println("Status pengiriman berhasil diperbarui!");
-            
+        
         } catch (NumberFormatException e) {
             System.out.println("Input tidak valid!");
         }
@@ -0,0 +1,177 @@
+package com.ecommerce.pengiriman.config;
+
+import com.ecommerce.pengiriman.util.EksekusiUtil;
+import com.ecommerce.pengiriman.util.RabbitMQUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Kelas konfigurasi untuk PesananConsumer
+ * Menyimpan pengaturan jumlah channel, prefetch, worker thread, dan mode eksekusi beserta nilai default-nya
+ */
+public class ConsumerConfig {
+    // Satu channel consumer seperti perilaku awal aplikasi
+    public static final int DEFAULT_CONSUMER_CHANNELS = 1;
+
+    // Prefetch 0 berarti tidak dibatasi oleh broker
+    public static final int DEFAULT_PREFETCH_COUNT = 0;
+
+    // Worker 0 berarti pesan diproses langsung di thread dispatch milik RabbitMQ client
+    public static final int DEFAULT_WORKER_THREADS = 0;
+
+    // Mode dari eksekusi.properties hasil build atau property sistem eksekusi.mode
+    public static final EksekusiUtil.ModeEksekusi DEFAULT_MODE_EKSEKUSI = EksekusiUtil.getModeBawaan();
+
+    // Shard dari property sistem ecommerce.shardDikonsumsi atau ECOMMERCE_SHARD_DIKONSUMSI, kosong berarti semua shard
+    public static final List<Integer> DEFAULT_SHARD = Collections.unmodifiableList(RabbitMQUtil.getShardDikonsumsi());
+
+    // Jendela deduplikasi default 5 menit, cukup untuk redelivery setelah channel atau koneksi putus
+    public static final long DEFAULT_JENDELA_DEDUP_MS = 5 * 60 * 1000;
+
+    // Kapasitas default ID pesan per generasi (setengah jendela) deduplikasi
+    public static final int DEFAULT_KAPASITAS_DEDUP = 1 << 20;
+
+    // Percobaan default sebelum pesan dipindahkan ke queue parkir: pengiriman pertama dan empat kali
+    // percobaan ulang dengan tunda 1, 4, 16, dan 64 detik
+    public static final int DEFAULT_MAKS_PERCOBAAN = 5;
+
+    // Jumlah channel yang masing-masing mendaftar sebagai consumer pada queue yang sama
+    private int consumerChannels = DEFAULT_CONSUMER_CHANNELS;
+
+    // Jumlah maksimum pesan yang belum di-ack per channel (basicQos)
+    private int prefetchCount = DEFAULT_PREFETCH_COUNT;
+
+    // Jumlah thread pada executor khusus untuk memproses pesan, tidak dipakai pada mode VIRTUAL
+    private int workerThreads = DEFAULT_WORKER_THREADS;
+
+    // Jenis thread pemroses pesan: PLATFORM atau satu virtual thread per pesan (VIRTUAL)
+    private EksekusiUtil.ModeEksekusi modeEksekusi = DEFAULT_MODE_EKSEKUSI;
+
+    // Nomor shard queue yang dikonsumsi instance ini, membagi shard ke beberapa instance consumer
+    private List<Integer> shard = DEFAULT_SHARD;
+
+    // Lama (milidetik) ID pesan diingat untuk mendeteksi pesan duplikat, 0 untuk menonaktifkan deduplikasi
+    private long jendelaDedupMs = DEFAULT_JENDELA_DEDUP_MS;
+
+    // Jumlah ID pesan maksimum per generasi jendela deduplikasi, membatasi memori saat laju pesan tinggi
+    private int kapasitasDedup = DEFAULT_KAPASITAS_DEDUP;
+
+    // Jumlah percobaan pemrosesan satu pesan termasuk pengiriman pertama, 1 berarti pesan yang gagal
+    // langsung dipindahkan ke queue parkir
+    private int maksPercobaan = DEFAULT_MAKS_PERCOBAAN;
+
+    public ConsumerConfig() {
+    }
+
+    public int getConsumerChannels() {
+        return consumerChannels;
+    }
+
+    public void setConsumerChannels(int consumerChannels) {
+        if (consumerChannels < 1) {
+            throw new IllegalArgumentException("consumerChannels minimal 1");
+        }
+        this.consumerChannels = consumerChannels;
+    }
+
+    public int getPrefetchCount() {
+        return prefetchCount;
+    }
+
+    public void setPrefetchCount(int prefetchCount) {
+        if (prefetchCount < 0 || prefetchCount > 65535) {
+            throw new IllegalArgumentException("prefetchCount harus di antara 0 dan 65535");
+        }
+        this.prefetchCount = prefetchCount;
+    }
+
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    public void setWorkerThreads(int workerThreads) {
+        if (workerThreads < 0) {
+            throw new IllegalArgumentException("workerThreads tidak boleh negatif");
+        }
+        this.workerThreads = workerThreads;
+    }
+
+    public List<Integer> getShard() {
+        return shard;
+    }
+
+    public void setShard(List<Integer> shard) {
+        if (shard == null) {
+            throw new IllegalArgumentException("shard tidak boleh null, gunakan list kosong untuk semua shard");
+        }
+        for (Integer nomor : shard) {
+            if (nomor == null || nomor < 0 || nomor >= RabbitMQUtil.getJumlahShard()) {
+                throw new IllegalArgumentException("Nomor shard harus di antara 0 dan " + (RabbitMQUtil.getJumlahShard() - 1) + ": " + nomor);
+            }
+        }
+        this.shard = Collections.unmodifiableList(new ArrayList<>(shard));
+    }
+
+    public EksekusiUtil.ModeEksekusi getModeEksekusi() {
+        return modeEksekusi;
+    }
+
+    public void setModeEksekusi(EksekusiUtil.ModeEksekusi modeEksekusi) {
+        if (modeEksekusi == null) {
+            throw new IllegalArgumentException("modeEksekusi tidak boleh null");
+        }
+        if (modeEksekusi == EksekusiUtil.ModeEksekusi.VIRTUAL && !EksekusiUtil.isVirtualThreadTersedia()) {
+            throw new IllegalArgumentException("modeEksekusi VIRTUAL membutuhkan Java 21 atau lebih baru");
+        }
+        this.modeEksekusi = modeEksekusi;
+    }
+
+    public long getJendelaDedupMs() {
+        return jendelaDedupMs;
+    }
+
+    public void setJendelaDedupMs(long jendelaDedupMs) {
+        if (jendelaDedupMs < 0) {
+            throw new IllegalArgumentException("jendelaDedupMs tidak boleh negatif");
+        }
+        this.jendelaDedupMs = jendelaDedupMs;
+    }
+
+    public int getKapasitasDedup() {
+        return kapasitasDedup;
+    }
+
+    public void setKapasitasDedup(int kapasitasDedup) {
+        if (kapasitasDedup < 1 || kapasitasDedup > (1 << 24)) {
+            throw new IllegalArgumentException("kapasitasDedup harus antara 1 dan 2^24");
+        }
+        this.kapasitasDedup = kapasitasDedup;
+    }
+
+    public int getMaksPercobaan() {
+        return maksPercobaan;
+    }
+
+    public void setMaksPercobaan(int maksPercobaan) {
+        if (maksPercobaan < 1) {
+            throw new IllegalArgumentException("maksPercobaan minimal 1");
+        }
+        this.maksPercobaan = maksPercobaan;
+    }
+
+    @Override
+    public String toString() {
+        return "ConsumerConfig{" +
+                "consumerChannels=" + consumerChannels +
+                ", prefetchCount=" + prefetchCount +
+                ", workerThreads=" + workerThreads +
+                ", modeEksekusi=" + modeEksekusi +
+                ", shard=" + (shard.isEmpty() ? "semua" : shard) +
+                ", jendelaDedupMs=" + jendelaDedupMs +
+                ", kapasitasDedup=" + kapasitasDedup +
+                ", maksPercobaan=" + maksPercobaan +
+                '}';
+    }
+} 
\ No newline at end of file
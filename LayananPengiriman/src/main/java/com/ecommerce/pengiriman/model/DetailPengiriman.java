@@ -7,21 +7,23 @@ import java.util.Date;
  * Kelas model untuk merepresentasikan detail pengiriman pesanan
  */
 public class DetailPengiriman implements Serializable {
-    private int id;
-    private int idPesanan;
+    private long id;
+    private long idPesanan;
     private String namaPelanggan;
     private String alamatPengiriman;
     private Date tanggalPengiriman;
     private String statusPengiriman;
     private String kurirPengiriman;
     private String nomorResi;
+    // Data pelacakan latensi dari pesan pesanan, tidak ikut diserialisasi
+    private transient JejakPesan jejak;
 
     public DetailPengiriman() {
         this.tanggalPengiriman = new Date();
         this.statusPengiriman = "MENUNGGU_PENGIRIMAN";
     }
 
-    public DetailPengiriman(int id, int idPesanan, String namaPelanggan, String alamatPengiriman) {
+    public DetailPengiriman(long id, long idPesanan, String namaPelanggan, String alamatPengiriman) {
         this();
         this.id = id;
         this.idPesanan = idPesanan;
@@ -29,19 +31,38 @@ public class DetailPengiriman implements Serializable {
         this.alamatPengiriman = alamatPengiriman;
     }
 
-    public int getId() {
+    /**
+     * Konstruktor salinan, dipakai producer untuk menyimpan status pengiriman pada saat dikirim
+     * sehingga perubahan objek asal setelahnya tidak ikut terkirim
+     * @param lain Pengiriman yang disalin
+     */
+    public DetailPengiriman(DetailPengiriman lain) {
+        this.id = lain.id;
+        this.idPesanan = lain.idPesanan;
+        this.namaPelanggan = lain.namaPelanggan;
+        this.alamatPengiriman = lain.alamatPengiriman;
+        // Date dapat diubah, sehingga ikut disalin
+        this.tanggalPengiriman = lain.tanggalPengiriman != null ? new Date(lain.tanggalPengiriman.getTime()) : null;
+        this.statusPengiriman = lain.statusPengiriman;
+        this.kurirPengiriman = lain.kurirPengiriman;
+        this.nomorResi = lain.nomorResi;
+        // JejakPesan tidak dapat diubah, cukup dipakai bersama
+        this.jejak = lain.jejak;
+    }
+
+    public long getId() {
         return id;
     }
 
-    public void setId(int id) {
+    public void setId(long id) {
         this.id = id;
     }
 
-    public int getIdPesanan() {
+    public long getIdPesanan() {
         return idPesanan;
     }
 
-    public void setIdPesanan(int idPesanan) {
+    public void setIdPesanan(long idPesanan) {
         this.idPesanan = idPesanan;
     }
 
@@ -93,6 +114,14 @@ public class DetailPengiriman implements Serializable {
         this.nomorResi = nomorResi;
     }
 
+    public JejakPesan getJejak() {
+        return jejak;
+    }
+
+    public void setJejak(JejakPesan jejak) {
+        this.jejak = jejak;
+    }
+
     @Override
     public String toString() {
         return "DetailPengiriman{" +
@@ -0,0 +1,45 @@
+package com.ecommerce.pengiriman.model;
+
+/**
+ * Kelas model untuk waktu-waktu pelacakan yang dibawa header pesanan dari LayananPesanan
+ * Semua waktu dalam mikrodetik sejak epoch, 0 jika tidak diketahui
+ */
+public class JejakPesan {
+    private final String correlationId;
+    private final long waktuDibuat;
+    private final long waktuDikirim;
+    private final long waktuDiterima;
+
+    public JejakPesan(String correlationId, long waktuDibuat, long waktuDikirim, long waktuDiterima) {
+        this.correlationId = correlationId;
+        this.waktuDibuat = waktuDibuat;
+        this.waktuDikirim = waktuDikirim;
+        this.waktuDiterima = waktuDiterima;
+    }
+
+    public String getCorrelationId() {
+        return correlationId;
+    }
+
+    public long getWaktuDibuat() {
+        return waktuDibuat;
+    }
+
+    public long getWaktuDikirim() {
+        return waktuDikirim;
+    }
+
+    public long getWaktuDiterima() {
+        return waktuDiterima;
+    }
+
+    @Override
+    public String toString() {
+        return "JejakPesan{" +
+                "correlationId='" + correlationId + '\'' +
+                ", waktuDibuat=" + waktuDibuat +
+                ", waktuDikirim=" + waktuDikirim +
+                ", waktuDiterima=" + waktuDiterima +
+                '}';
+    }
+} 
\ No newline at end of file
@@ -1,16 +1,40 @@
 package com.ecommerce.pengiriman.service;
 
+import com.ecommerce.pengiriman.config.ProducerConfig;
 import com.ecommerce.pengiriman.model.DetailPengiriman;
-import com.ecommerce.pengiriman.util.JSONUtil;
+import com.ecommerce.pengiriman.model.JejakPesan;
+import com.ecommerce.pengiriman.util.AmplopBatch;
+import com.ecommerce.pengiriman.util.AntreanTumpahan;
+import com.ecommerce.pengiriman.util.BinaryUtil;
+import com.ecommerce.pengiriman.util.CodecUtil;
+import com.ecommerce.pengiriman.util.KompresiUtil;
 import com.ecommerce.pengiriman.util.RabbitMQUtil;
-import com.rabbitmq.client.Channel;
-import com.rabbitmq.client.Connection;
+import com.ecommerce.pengiriman.util.RingBuffer;
+import com.ecommerce.pengiriman.util.StatistikBatch;
+import com.ecommerce.pengiriman.util.TracingUtil;
+import com.ecommerce.pengiriman.util.Transport;
+import com.ecommerce.pengiriman.util.TransportChannel;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.ShutdownSignalException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Kelas Producer untuk mengirim status pengiriman ke queue
@@ -22,30 +46,102 @@ public class PengirimanProducer {
     // Logger untuk mencatat aktivitas producer
     private static final Logger logger = LoggerFactory.getLogger(PengirimanProducer.class);
     
-    // Koneksi ke server RabbitMQ
-    private final Connection connection;
+    // Jeda sebelum mencoba lagi ketika koneksi RabbitMQ sedang dipulihkan
+    private static final long JEDA_SAAT_PEMULIHAN_MS = 500;
+    
+    // Transport pesan (RabbitMQ atau di dalam proses)
+    private final Transport transport;
+    
+    // Pengaturan mode pengiriman producer
+    private final ProducerConfig config;
+    
+    // Properti AMQP yang sama untuk setiap pesan yang dikirim
+    private final AMQP.BasicProperties properties;
+    
+    // Properti AMQP untuk amplop batch, properti setiap status disimpan di dalam amplop
+    private final AMQP.BasicProperties propertiesAmplop;
+    
+    // Properti dasar dan properti amplop untuk body yang dikompresi (content-encoding deflate)
+    private final AMQP.BasicProperties propertiesTerkompresi;
+    private final AMQP.BasicProperties propertiesAmplopTerkompresi;
     
     // Queue lokal untuk menyimpan pengiriman sebelum dikirim ke RabbitMQ
     // BlockingQueue digunakan untuk komunikasi thread-safe antara thread utama dan producer thread
+    // RingBuffer berkapasitas tetap jika kapasitasQueue diatur, selain itu LinkedBlockingQueue tanpa batas
     private final BlockingQueue<DetailPengiriman> pengirimanQueue;
     
+    // Pengiriman kiriman ulang yang tidak muat di queue lokal, jumlahnya dibatasi satu batch
+    // Tidak memakai put() karena pengiriman dikembalikan dari producer thread yang mengosongkan queue
+    private final Queue<DetailPengiriman> antreanKirimUlang = new ConcurrentLinkedQueue<>();
+    
+    // File tumpahan untuk kebijakan TUMPAH, null jika tidak dipakai
+    private final AntreanTumpahan<DetailPengiriman> tumpahan;
+    
+    // Jumlah item file tumpahan dari proses sebelumnya yang belum dibaca, hanya diakses producer thread
+    // Item tersebut tidak memiliki update tertunda sehingga dikirim apa adanya
+    private long sisaTumpahanLama;
+    
+    // Update status terbaru per ID pengiriman pada mode coalescing, null jika tidak dipakai
+    // Setiap ID hanya memiliki satu penanda di queue lokal, antrean kiriman ulang, atau file tumpahan;
+    // saat penanda diambil producer thread, update terbaru untuk ID tersebut yang dikirim
+    private final ConcurrentHashMap<Long, UpdateTertunda> tertunda;
+    
+    // Jumlah update status yang digantikan update lebih baru sebelum sempat dikirim
+    private final AtomicLong jumlahDigabung = new AtomicLong();
+    
+    // Statistik ukuran batch yang dikirim ke RabbitMQ
+    private final StatistikBatch statistikBatch = new StatistikBatch();
+    
     // Flag untuk menandakan apakah producer thread masih berjalan
     private volatile boolean running = true;
     
     // Thread terpisah untuk mengirim pesan ke RabbitMQ
     private Thread producerThread;
     
+    /**
+     * Konstruktor untuk inisialisasi producer dengan pengaturan default
+     * @param transport Transport pesan yang sudah dibuat
+     */
+    public PengirimanProducer(Transport transport) {
+        this(transport, new ProducerConfig());
+    }
+    
     /**
      * Konstruktor untuk inisialisasi producer
-     * @param connection Koneksi RabbitMQ yang sudah dibuat
+     * @param transport Transport pesan yang sudah dibuat
+     * @param config Pengaturan mode pengiriman producer
      */
-    public PengirimanProducer(Connection connection) {
-        // Menyimpan koneksi RabbitMQ
-        this.connection = connection;
+    public PengirimanProducer(Transport transport, ProducerConfig config) {
+        // Menyimpan transport dan pengaturan producer
+        this.transport = transport;
+        this.config = config;
         
-        // Inisialisasi queue lokal dengan implementasi LinkedBlockingQueue
-        // LinkedBlockingQueue cocok untuk skenario producer-consumer karena thread-safe
-        this.pengirimanQueue = new LinkedBlockingQueue<>();
+        // Properti pesan: content-type untuk pemilihan decoder di consumer dan
+        // deliveryMode 2 (persistent) agar status yang sudah di-ack broker tetap ada setelah broker restart
+        this.properties = new AMQP.BasicProperties.Builder()
+            .contentType(config.getContentType())
+            .deliveryMode(config.isPublisherConfirms() ? 2 : 1)
+            .build();
+        this.propertiesAmplop = properties.builder()
+            .contentType(AmplopBatch.CONTENT_TYPE_AMPLOP)
+            .build();
+        this.propertiesTerkompresi = properties.builder()
+            .contentEncoding(KompresiUtil.CONTENT_ENCODING_DEFLATE)
+            .build();
+        this.propertiesAmplopTerkompresi = propertiesAmplop.builder()
+            .contentEncoding(KompresiUtil.CONTENT_ENCODING_DEFLATE)
+            .build();
+        
+        // Inisialisasi queue lokal: ring buffer MPSC yang dialokasikan di awal jika kapasitas diatur,
+        // selain itu LinkedBlockingQueue tanpa batas
+        if (config.getKapasitasQueue() > 0) {
+            this.pengirimanQueue = new RingBuffer<>(config.getKapasitasQueue(), config.getStrategiTunggu());
+        } else {
+            this.pengirimanQueue = new LinkedBlockingQueue<>();
+        }
+        this.tumpahan = bukaTumpahan(config);
+        this.sisaTumpahanLama = tumpahan != null ? tumpahan.getJumlah() : 0;
+        this.tertunda = config.isCoalescing() ? new ConcurrentHashMap<>() : null;
         
         // Memulai thread producer
         this.start();
@@ -61,7 +157,7 @@ public class PengirimanProducer {
             logger.info("Producer thread started");
             
             // try-with-resources untuk otomatis menutup channel ketika selesai
-            try (Channel channel = connection.createChannel()) {
+            try (TransportChannel channel = transport.createChannel()) {
                 logger.info("Channel RabbitMQ berhasil dibuat untuk producer thread");
                 
                 // Verifikasi semua queue tersedia sebelum mulai mengirim pesan
@@ -80,27 +176,83 @@ public class PengirimanProducer {
                 
                 logger.info("Semua queue tersedia, producer siap mengirim pesan");
                 
+                // Aktifkan mode confirm agar setiap batch dapat dikonfirmasi broker sekaligus
+                if (config.isPublisherConfirms()) {
+                    channel.confirmSelect();
+                }
+                
                 // Loop terus berjalan selama flag running bernilai true
                 while (running) {
+                    List<DetailPengiriman> batch = null;
+                    int terkirim = 0;
                     try {
-                        // Mengambil pengiriman dari queue local
-                        // take() akan memblokir thread jika queue kosong sampai ada item masuk
-                        DetailPengiriman pengiriman = pengirimanQueue.take();
+                        // Mengambil satu batch pengiriman dari queue local
+                        batch = ambilBatch();
+                        if (batch.isEmpty()) {
+                            // Semua penanda pada mode coalescing sudah tidak memiliki update tertunda
+                            continue;
+                        }
                         
-                        // Konversi pengiriman ke JSON untuk dikirim ke RabbitMQ
-                        String pengirimanJson = JSONUtil.toJSON(pengiriman);
+                        if (config.getMaksBytesAmplop() > 0) {
+                            // Mode amplop: status satu shard dikemas ke amplop batch sampai maksBytesAmplop
+                            // Urutan stabil sehingga urutan update di dalam satu shard tetap terjaga
+                            batch.sort(Comparator.comparingInt(pengiriman -> RabbitMQUtil.nomorShard(pengiriman.getIdPesanan())));
+                            RecordAmplop[] records = buatRecords(batch);
+                            while (terkirim < batch.size()) {
+                                AmplopBatch amplop = new AmplopBatch(config.getContentType(), config.getMaksBytesAmplop());
+                                int jumlah = isiAmplop(amplop, batch, records, terkirim);
+                                String routingKey = routingKey(batch.get(terkirim));
+                                byte[] body = amplop.toBytes();
+                                byte[] terkompresi = kompres(body);
+                                if (terkompresi != null) {
+                                    channel.basicPublish(RabbitMQUtil.EXCHANGE_PESANAN, routingKey,
+                                        propertiesAmplopTerkompresi, terkompresi);
+                                } else {
+                                    channel.basicPublish(RabbitMQUtil.EXCHANGE_PESANAN, routingKey, propertiesAmplop, body);
+                                }
+                                terkirim += jumlah;
+                                
+                                logger.debug("Amplop berisi {} status pengiriman ({} byte, {} byte dikirim) dikirim ke queue, routing key={}",
+                                    jumlah, amplop.getUkuran(), terkompresi != null ? terkompresi.length : body.length, routingKey);
+                            }
+                        } else {
+                            // Seluruh batch dikirim berturut-turut tanpa menunggu broker di antara pesan
+                            for (DetailPengiriman pengiriman : batch) {
+                                
+                                // Konversi pengiriman ke body pesan (JSON atau biner sesuai content-type)
+                                // lalu dikompresi jika melewati ambang kompresi
+                                byte[] body = CodecUtil.encode(pengiriman, config.getContentType());
+                                byte[] terkompresi = kompres(body);
+                                if (terkompresi != null) {
+                                    body = terkompresi;
+                                }
+                                
+                                // Mengirim pesan ke RabbitMQ exchange dengan routing key shard status milik pesanan ini
+                                // Properti pesan membawa content-type agar consumer memilih decoder yang sesuai
+                                // dan header pelacakan untuk pengukuran latensi di LayananPesanan
+                                channel.basicPublish(
+                                    RabbitMQUtil.EXCHANGE_PESANAN,
+                                    routingKey(pengiriman),
+                                    buatProperties(pengiriman, terkompresi != null),
+                                    body
+                                );
+                                terkirim++;
+                                
+                                logger.debug("Status pengiriman dikirim ke queue: ID={}, Status={}",
+                                    pengiriman.getId(), pengiriman.getStatusPengiriman());
+                            }
+                        }
                         
-                        // Mengirim pesan ke RabbitMQ exchange dengan routing key pengiriman.status
-                        // Parameter null adalah untuk properti pesan (tidak ada properti khusus)
-                        channel.basicPublish(
-                            RabbitMQUtil.EXCHANGE_PESANAN,
-                            RabbitMQUtil.ROUTING_KEY_PENGIRIMAN_STATUS,
-                            null,
-                            pengirimanJson.getBytes(StandardCharsets.UTF_8)
-                        );
+                        // Menunggu konfirmasi broker satu kali untuk seluruh batch
+                        if (config.isPublisherConfirms() && !tungguKonfirmasiBatch(channel)) {
+                            for (DetailPengiriman pengiriman : batch) {
+                                kembalikanKeQueue(pengiriman, "batch tidak dikonfirmasi broker");
+                            }
+                            continue;
+                        }
                         
-                        logger.info("Status pengiriman berhasil dikirim ke queue: ID={}, Status={}",
-                            pengiriman.getId(), pengiriman.getStatusPengiriman());
+                        statistikBatch.catat(terkirim);
+                        logger.debug("Batch berisi {} status pengiriman berhasil dikirim ke queue", terkirim);
                     } catch (InterruptedException e) {
                         // Menangani interupsi thread, misalnya ketika aplikasi ditutup
                         Thread.currentThread().interrupt();
@@ -108,6 +260,32 @@ public class PengirimanProducer {
                     } catch (Exception e) {
                         // Menangani error lain yang mungkin terjadi saat mengirim pengiriman
                         logger.error("Gagal mengirim status pengiriman ke queue: {}", e.getMessage(), e);
+                        
+                        // Dengan publisher confirms seluruh batch dikembalikan ke queue lokal karena
+                        // pengiriman yang sudah di-publish pun belum dikonfirmasi broker; tanpa confirms
+                        // mulai dari pesan yang publish-nya gagal
+                        if (batch != null) {
+                            int dari = config.isPublisherConfirms() ? 0 : terkirim;
+                            for (int i = dari; i < batch.size(); i++) {
+                                kembalikanKeQueue(batch.get(i), "batch terputus");
+                            }
+                        }
+                        
+                        // Channel yang sudah tertutup tidak dapat dipakai lagi, hentikan loop
+                        if (!channel.isOpen()) {
+                            logger.error("Channel producer tertutup, producer thread berhenti");
+                            break;
+                        }
+                        
+                        // Koneksi sedang dipulihkan, beri jeda agar batch tidak dicoba ulang terus-menerus
+                        if (e instanceof ShutdownSignalException) {
+                            try {
+                                Thread.sleep(JEDA_SAAT_PEMULIHAN_MS);
+                            } catch (InterruptedException ie) {
+                                Thread.currentThread().interrupt();
+                                break;
+                            }
+                        }
                     }
                 }
             } catch (Exception e) {
@@ -125,25 +303,362 @@ public class PengirimanProducer {
         producerThread.start();
     }
     
+    /**
+     * Mengambil batch pengiriman dari queue lokal
+     * Kiriman ulang dan isi file tumpahan diambil lebih dulu tanpa menunggu. Selain itu menunggu
+     * item pertama dengan take(), lalu mengambil item lain yang sudah ada dengan drainTo()
+     * dan menunggu paling lama lingerMs untuk melengkapi batch sampai maxBatchSize
+     * Pada mode coalescing setiap penanda diganti dengan update terbaru untuk ID pengirimannya
+     * @return Batch pengiriman yang siap dikirim, kosong jika semua penanda sudah tidak berlaku
+     */
+    private List<DetailPengiriman> ambilBatch() throws InterruptedException, IOException {
+        List<DetailPengiriman> batch = new ArrayList<>(Math.min(config.getMaxBatchSize(), 1024));
+        if (ambilTanpaMenunggu(batch)) {
+            return batch;
+        }
+        
+        // take() akan memblokir thread jika queue kosong sampai ada item masuk
+        DetailPengiriman pertama = pengirimanQueue.take();
+        if (tertunda != null) {
+            // Penanda pertama adalah yang terlama, tunggu sampai jendelanya berakhir agar update
+            // berikutnya untuk pengiriman yang sama sempat menggantikannya
+            tungguJendelaCoalescing(pertama);
+        }
+        batch.add(pertama);
+        
+        int maxBatchSize = config.getMaxBatchSize();
+        if (maxBatchSize > 1) {
+            pengirimanQueue.drainTo(batch, maxBatchSize - 1);
+            
+            long batasWaktu = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getLingerMs());
+            while (batch.size() < maxBatchSize) {
+                long sisa = batasWaktu - System.nanoTime();
+                if (sisa <= 0) {
+                    break;
+                }
+                DetailPengiriman berikutnya = pengirimanQueue.poll(sisa, TimeUnit.NANOSECONDS);
+                if (berikutnya == null) {
+                    break;
+                }
+                batch.add(berikutnya);
+                pengirimanQueue.drainTo(batch, maxBatchSize - batch.size());
+            }
+        }
+        if (tertunda != null) {
+            List<DetailPengiriman> terbaru = new ArrayList<>(batch.size());
+            for (DetailPengiriman penanda : batch) {
+                tambahkanTerbaru(terbaru, penanda);
+            }
+            return terbaru;
+        }
+        return batch;
+    }
+    
+    /**
+     * Menunggu sampai jendela coalescing update yang ditandai penanda berakhir
+     */
+    private void tungguJendelaCoalescing(DetailPengiriman penanda) throws InterruptedException {
+        UpdateTertunda update = tertunda.get(penanda.getId());
+        if (update == null) {
+            return;
+        }
+        long sisa = update.waktuMasukNanos + TimeUnit.MILLISECONDS.toNanos(config.getJendelaCoalescingMs())
+            - System.nanoTime();
+        if (sisa > 0) {
+            TimeUnit.NANOSECONDS.sleep(sisa);
+        }
+    }
+    
+    /**
+     * Menambahkan update terbaru untuk penanda dari queue lokal atau antrean kiriman ulang ke batch
+     * Tanpa coalescing penanda itu sendiri yang ditambahkan
+     */
+    private void tambahkanTerbaru(List<DetailPengiriman> batch, DetailPengiriman penanda) {
+        if (tertunda == null) {
+            batch.add(penanda);
+            return;
+        }
+        UpdateTertunda update = tertunda.remove(penanda.getId());
+        if (update != null) {
+            batch.add(update.terbaru);
+        }
+    }
+    
+    /**
+     * Mengkonversi setiap status dalam batch ke properti dan body record amplop
+     * Dilakukan sekali per status agar message-id dan pencatatan latensi tidak berulang
+     * ketika status berpindah ke amplop berikutnya
+     */
+    private RecordAmplop[] buatRecords(List<DetailPengiriman> batch) {
+        RecordAmplop[] records = new RecordAmplop[batch.size()];
+        for (int i = 0; i < records.length; i++) {
+            DetailPengiriman pengiriman = batch.get(i);
+            records[i] = new RecordAmplop(buatProperties(pengiriman, false), CodecUtil.encode(pengiriman, config.getContentType()));
+        }
+        return records;
+    }
+    
+    /**
+     * Mengisi amplop dengan status berurutan dari batch yang memiliki routing key yang sama
+     * @param amplop Amplop kosong
+     * @param batch Batch yang sudah diurutkan per shard
+     * @param records Properti dan body setiap status dalam batch
+     * @param dari Indeks status pertama
+     * @return Jumlah status yang masuk ke amplop, minimal satu
+     */
+    private static int isiAmplop(AmplopBatch amplop, List<DetailPengiriman> batch, RecordAmplop[] records, int dari) {
+        int shard = RabbitMQUtil.nomorShard(batch.get(dari).getIdPesanan());
+        int i = dari;
+        while (i < batch.size() && RabbitMQUtil.nomorShard(batch.get(i).getIdPesanan()) == shard
+                && amplop.tambahkan(records[i].properties, records[i].body)) {
+            i++;
+        }
+        return i - dari;
+    }
+    
+    /**
+     * Routing key shard status pengiriman, mengikuti shard pesanan asal
+     */
+    private static String routingKey(DetailPengiriman pengiriman) {
+        return RabbitMQUtil.namaShard(RabbitMQUtil.ROUTING_KEY_PENGIRIMAN_STATUS,
+            RabbitMQUtil.nomorShard(pengiriman.getIdPesanan()));
+    }
+    
+    /**
+     * Membuat properti pesan status dengan message-id, correlation id, dan header waktu dari
+     * pesanan asal ditambah waktu status dikirim
+     * @param pengiriman Pengiriman yang akan dikirim
+     * @param terkompresi true jika body dikompresi dan properti harus membawa content-encoding
+     * @return Properti pesan
+     */
+    private AMQP.BasicProperties buatProperties(DetailPengiriman pengiriman, boolean terkompresi) {
+        long statusDikirim = TracingUtil.sekarangMikro();
+        Map<String, Object> headers = new HashMap<>(8);
+        headers.put(TracingUtil.HEADER_WAKTU_STATUS, statusDikirim);
+        
+        String correlationId = String.valueOf(pengiriman.getIdPesanan());
+        JejakPesan jejak = pengiriman.getJejak();
+        if (jejak != null) {
+            if (jejak.getCorrelationId() != null) {
+                correlationId = jejak.getCorrelationId();
+            }
+            tambahkanWaktu(headers, TracingUtil.HEADER_WAKTU_DIBUAT, jejak.getWaktuDibuat());
+            tambahkanWaktu(headers, TracingUtil.HEADER_WAKTU_DIKIRIM, jejak.getWaktuDikirim());
+            tambahkanWaktu(headers, TracingUtil.HEADER_WAKTU_DITERIMA, jejak.getWaktuDiterima());
+            TracingUtil.catatSelisih(TracingUtil.TAHAP_PEMROSESAN, jejak.getWaktuDiterima(), statusDikirim);
+        }
+        return (terkompresi ? propertiesTerkompresi : properties).builder()
+            .messageId(idPesan(pengiriman))
+            .correlationId(correlationId)
+            .headers(headers)
+            .build();
+    }
+    
+    /**
+     * Message-id status pengiriman untuk deduplikasi di consumer, selalu sama untuk status yang sama
+     * dari pengiriman yang sama sehingga kiriman ulang setelah nack atau batas waktu konfirmasi juga
+     * dikenali sebagai duplikat
+     */
+    private static String idPesan(DetailPengiriman pengiriman) {
+        return "pengiriman-" + pengiriman.getId() + "-" + pengiriman.getStatusPengiriman();
+    }
+    
+    /**
+     * Mengompresi body pesan jika ukurannya mencapai ambangKompresiBytes
+     * @return Body terkompresi, atau null jika body dikirim apa adanya
+     */
+    private byte[] kompres(byte[] body) {
+        int ambang = config.getAmbangKompresiBytes();
+        if (ambang <= 0 || body.length < ambang) {
+            return null;
+        }
+        return KompresiUtil.kompres(body);
+    }
+    
+    private static void tambahkanWaktu(Map<String, Object> headers, String nama, long waktu) {
+        if (waktu > 0) {
+            headers.put(nama, waktu);
+        }
+    }
+    
+    /**
+     * Menunggu konfirmasi broker untuk seluruh pesan yang sudah dikirim pada channel
+     * @param channel Channel transport dengan mode confirm aktif
+     * @return true jika semua pesan di-ack broker, false jika ada nack atau waktu habis
+     */
+    private boolean tungguKonfirmasiBatch(TransportChannel channel) throws InterruptedException {
+        try {
+            return channel.waitForConfirms(config.getConfirmTimeoutMs());
+        } catch (TimeoutException e) {
+            logger.warn("Konfirmasi batch tidak diterima dalam {} ms", config.getConfirmTimeoutMs());
+            return false;
+        } catch (ShutdownSignalException e) {
+            // Koneksi putus sebelum konfirmasi datang, batch dikirim ulang setelah channel dipulihkan
+            logger.warn("Channel tertutup saat menunggu konfirmasi batch: {}", e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Mengisi batch dari kiriman ulang, queue lokal, dan file tumpahan tanpa menunggu
+     * Pengiriman di file tumpahan selalu lebih baru dari isi queue lokal
+     * @return true jika batch berisi paling sedikit satu pengiriman
+     */
+    private boolean ambilTanpaMenunggu(List<DetailPengiriman> batch) throws IOException {
+        int maxBatchSize = config.getMaxBatchSize();
+        DetailPengiriman pengiriman;
+        while (batch.size() < maxBatchSize && (pengiriman = antreanKirimUlang.poll()) != null) {
+            tambahkanTerbaru(batch, pengiriman);
+        }
+        if (tumpahan == null || tumpahan.isEmpty()) {
+            return !batch.isEmpty();
+        }
+        while (batch.size() < maxBatchSize && (pengiriman = pengirimanQueue.poll()) != null) {
+            tambahkanTerbaru(batch, pengiriman);
+        }
+        while (batch.size() < maxBatchSize && (pengiriman = tumpahan.ambil()) != null) {
+            if (sisaTumpahanLama > 0) {
+                sisaTumpahanLama--;
+                batch.add(pengiriman);
+            } else {
+                tambahkanTerbaru(batch, pengiriman);
+            }
+        }
+        return !batch.isEmpty();
+    }
+    
+    /**
+     * Membuka file tumpahan jika queue lokal berkapasitas tetap memakai kebijakan TUMPAH
+     */
+    private static AntreanTumpahan<DetailPengiriman> bukaTumpahan(ProducerConfig config) {
+        if (config.getKapasitasQueue() == 0 || config.getKebijakanPenuh() != ProducerConfig.KebijakanPenuh.TUMPAH) {
+            return null;
+        }
+        try {
+            return new AntreanTumpahan<>(Paths.get(config.getFileTumpahan()), BinaryUtil::toBinary,
+                BinaryUtil::toDetailPengiriman);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Gagal membuka file tumpahan " + config.getFileTumpahan(), e);
+        }
+    }
+    
+    /**
+     * Mengembalikan pengiriman ke queue lokal untuk dikirim ulang
+     * Jika queue lokal penuh, pengiriman disimpan di antrean kiriman ulang yang diambil lebih dulu
+     * Pada mode coalescing pengiriman tidak dikembalikan jika update yang lebih baru sudah menunggu
+     */
+    private void kembalikanKeQueue(DetailPengiriman pengiriman, String alasan) {
+        if (tertunda != null
+                && tertunda.putIfAbsent(pengiriman.getId(), new UpdateTertunda(pengiriman, System.nanoTime())) != null) {
+            jumlahDigabung.incrementAndGet();
+            logger.warn("Status pengiriman tidak dikirim ulang karena {}, update yang lebih baru sudah menunggu: ID={}",
+                alasan, pengiriman.getId());
+            return;
+        }
+        logger.warn("Status pengiriman dikirim ulang karena {}: ID={}", alasan, pengiriman.getId());
+        if (!pengirimanQueue.offer(pengiriman)) {
+            antreanKirimUlang.offer(pengiriman);
+        }
+    }
+    
     /**
      * Metode untuk menambahkan pengiriman ke queue lokal
      * Dipanggil oleh aplikasi utama untuk mengirim update status pengiriman
+     * Yang dikirim adalah salinan pengiriman pada saat metode ini dipanggil, sehingga objek boleh
+     * diubah lagi oleh pemanggil tanpa berpacu dengan serialisasi di producer thread
+     * Pada mode coalescing, jika update untuk ID pengiriman yang sama masih menunggu, update tersebut
+     * digantikan oleh salinan ini dan tidak ada item baru di queue lokal
+     * Jika queue lokal berkapasitas tetap penuh, tindakan mengikuti kebijakanPenuh pada ProducerConfig
      * @param pengiriman Objek DetailPengiriman yang akan dikirim
+     * @throws IllegalStateException jika queue lokal penuh dengan kebijakan TOLAK
+     * @throws UncheckedIOException jika pengiriman gagal ditulis ke file tumpahan
      */
     public void tambahkanPengiriman(DetailPengiriman pengiriman) {
+        DetailPengiriman salinan = new DetailPengiriman(pengiriman);
+        if (tertunda != null && !catatTertunda(salinan)) {
+            logger.debug("Pengiriman menggantikan update yang masih menunggu: ID={}, Status={}",
+                salinan.getId(), salinan.getStatusPengiriman());
+            return;
+        }
         try {
-            // put() akan menambahkan pengiriman ke queue
-            // Jika queue penuh, thread akan diblokir sampai ada ruang kosong
-            pengirimanQueue.put(pengiriman);
-            logger.info("Pengiriman telah ditambahkan ke queue local: ID={}, Status={}", 
-                pengiriman.getId(), pengiriman.getStatusPengiriman());
+            masukkanKeQueue(salinan);
+            logger.debug("Pengiriman telah ditambahkan ke queue local: ID={}, Status={}", 
+                salinan.getId(), salinan.getStatusPengiriman());
         } catch (InterruptedException e) {
             // Menangani interupsi thread
+            hapusTertunda(salinan);
             Thread.currentThread().interrupt();
             logger.error("Gagal menambahkan pengiriman ke queue: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            // Tanpa penanda di queue lokal, update tertunda tidak akan pernah diambil
+            hapusTertunda(salinan);
+            throw e;
         }
     }
     
+    /**
+     * Mencatat salinan sebagai update tertunda untuk ID pengirimannya
+     * Waktu masuk update pertama dipertahankan sehingga jendela coalescing tidak bergeser
+     * @return true jika belum ada update tertunda dan salinan harus dimasukkan ke queue lokal sebagai penanda,
+     *         false jika salinan menggantikan update yang sudah menunggu
+     */
+    private boolean catatTertunda(DetailPengiriman salinan) {
+        UpdateTertunda baru = new UpdateTertunda(salinan, System.nanoTime());
+        UpdateTertunda hasil = tertunda.merge(salinan.getId(), baru,
+            (lama, pengganti) -> new UpdateTertunda(pengganti.terbaru, lama.waktuMasukNanos));
+        if (hasil != baru) {
+            jumlahDigabung.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+    
+    private void hapusTertunda(DetailPengiriman salinan) {
+        if (tertunda != null) {
+            tertunda.remove(salinan.getId());
+        }
+    }
+    
+    private void masukkanKeQueue(DetailPengiriman pengiriman) throws InterruptedException {
+        switch (config.getKebijakanPenuh()) {
+            case TOLAK:
+                if (!pengirimanQueue.offer(pengiriman)) {
+                    throw new IllegalStateException("Queue lokal producer penuh, pengiriman ditolak: ID=" + pengiriman.getId());
+                }
+                break;
+            case TUMPAH:
+                // Selama file tumpahan berisi, pengiriman baru ikut ditumpahkan agar urutan tetap terjaga
+                if (tumpahan == null || (tumpahan.isEmpty() && pengirimanQueue.offer(pengiriman))) {
+                    break;
+                }
+                try {
+                    tumpahan.tambahkan(pengiriman);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Gagal menulis pengiriman ke file tumpahan: ID=" + pengiriman.getId(), e);
+                }
+                break;
+            default:
+                // put() akan menambahkan pengiriman ke queue
+                // Jika queue penuh, thread akan diblokir sampai ada ruang kosong
+                pengirimanQueue.put(pengiriman);
+        }
+    }
+    
+    /**
+     * Statistik ukuran batch yang sudah dikirim producer
+     * @return Objek statistik batch
+     */
+    public StatistikBatch getStatistikBatch() {
+        return statistikBatch;
+    }
+    
+    /**
+     * Jumlah update status yang digantikan update lebih baru untuk pengiriman yang sama pada mode coalescing
+     */
+    public long getJumlahDigabung() {
+        return jumlahDigabung.get();
+    }
+    
     /**
      * Metode untuk menghentikan producer thread
      * Dipanggil ketika aplikasi berakhir untuk mengakhiri thread dengan bersih
@@ -154,5 +669,50 @@ public class PengirimanProducer {
         
         // Mengirim interupsi ke producer thread (jika sedang memblokir di take())
         producerThread.interrupt();
+        
+        logger.info("Producer pengiriman berhenti, {}", statistikBatch);
+        if (tertunda != null) {
+            logger.info("{} update status digantikan update yang lebih baru", jumlahDigabung.get());
+        }
+        if (tumpahan != null) {
+            if (!tumpahan.isEmpty()) {
+                logger.warn("{} pengiriman tersisa di file tumpahan dan dikirim setelah producer dimulai lagi",
+                    tumpahan.getJumlah());
+            }
+            try {
+                tumpahan.close();
+            } catch (IOException e) {
+                logger.error("Gagal menutup file tumpahan: {}", e.getMessage(), e);
+            }
+        }
+    }
+    
+    /**
+     * Properti dan body satu status di dalam amplop batch
+     */
+    private static final class RecordAmplop {
+        private final AMQP.BasicProperties properties;
+        private final byte[] body;
+        
+        private RecordAmplop(AMQP.BasicProperties properties, byte[] body) {
+            this.properties = properties;
+            this.body = body;
+        }
+    }
+    
+    /**
+     * Update status yang menunggu dikirim pada mode coalescing
+     */
+    private static final class UpdateTertunda {
+        // Salinan status terbaru yang akan dikirim
+        private final DetailPengiriman terbaru;
+        
+        // Waktu update pertama untuk ID pengiriman ini masuk, awal jendela coalescing
+        private final long waktuMasukNanos;
+        
+        private UpdateTertunda(DetailPengiriman terbaru, long waktuMasukNanos) {
+            this.terbaru = terbaru;
+            this.waktuMasukNanos = waktuMasukNanos;
+        }
     }
 } 
\ No newline at end of file
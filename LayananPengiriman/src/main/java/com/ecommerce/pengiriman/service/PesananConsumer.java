@@ -1,19 +1,34 @@
 package com.ecommerce.pengiriman.service;
 
+import com.ecommerce.pengiriman.config.ConsumerConfig;
 import com.ecommerce.pengiriman.model.DetailPengiriman;
-import com.ecommerce.pengiriman.util.JSONUtil;
+import com.ecommerce.pengiriman.model.JejakPesan;
+import com.ecommerce.pengiriman.util.AmplopBatch;
+import com.ecommerce.pengiriman.util.CodecUtil;
+import com.ecommerce.pengiriman.util.EksekusiUtil;
+import com.ecommerce.pengiriman.util.JendelaDedup;
+import com.ecommerce.pengiriman.util.KompresiUtil;
+import com.ecommerce.pengiriman.util.PenanganGagal;
 import com.ecommerce.pengiriman.util.RabbitMQUtil;
-import com.rabbitmq.client.Channel;
-import com.rabbitmq.client.Connection;
+import com.ecommerce.pengiriman.util.TabelPengiriman;
+import com.ecommerce.pengiriman.util.TracingUtil;
+import com.ecommerce.pengiriman.util.Transport;
+import com.ecommerce.pengiriman.util.TransportChannel;
+import com.rabbitmq.client.AMQP;
 import com.rabbitmq.client.DeliverCallback;
+import com.rabbitmq.client.Delivery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * Kelas Consumer untuk menerima pesanan baru dari LayananPesanan
@@ -24,22 +39,63 @@ public class PesananConsumer implements Runnable {
     // Logger untuk mencatat aktivitas consumer
     private static final Logger logger = LoggerFactory.getLogger(PesananConsumer.class);
     
-    // Koneksi ke server RabbitMQ
-    private final Connection connection;
+    // Transport pesan (RabbitMQ atau di dalam proses)
+    private final Transport transport;
     
-    // Flag untuk menandakan apakah consumer thread masih berjalan
-    private volatile boolean running = true;
+    // Pengaturan jumlah channel, prefetch, dan worker thread
+    private final ConsumerConfig config;
     
-    // Map untuk menyimpan daftar pengiriman yang sedang diproses
-    // Menggunakan HashMap yang disinkronisasi secara manual untuk thread-safety
-    private final Map<Integer, DetailPengiriman> daftarPengiriman = new HashMap<>();
+    // Dilepas oleh stop() untuk mengakhiri consumer thread
+    private final CountDownLatch berhenti = new CountDownLatch(1);
+    
+    // Tabel untuk menyimpan daftar pengiriman yang sedang diproses
+    // Kunci long primitif dan kolom array primitif/off-heap agar jutaan pengiriman tidak membebani GC;
+    // penulis hanya mengunci satu segmen dan pembaca memakai optimistic read
+    private final TabelPengiriman daftarPengiriman;
+    
+    // ID pesan yang sudah diterima dalam jendela deduplikasi, null jika deduplikasi tidak aktif
+    // Tanpa deduplikasi, pesanan yang dikirim ulang broker akan membuat pengiriman kedua dengan ID baru
+    private final JendelaDedup dedup;
+    
+    // Transport untuk kiriman ulang pesan yang gagal diproses, null berarti memakai transport consumer
+    private volatile Transport transportRetry;
+    
+    // Penangan pesan yang gagal diproses (queue tunda dan queue parkir), dibuat saat consumer berjalan
+    private volatile PenanganGagal penanganGagal;
+    
+    // Pendengar yang dipanggil untuk setiap pengiriman baru, null jika tidak ada
+    private volatile Consumer<DetailPengiriman> pendengarPengirimanBaru;
+    
+    /**
+     * Konstruktor untuk inisialisasi consumer dengan pengaturan default
+     * @param transport Transport pesan yang sudah dibuat
+     */
+    public PesananConsumer(Transport transport) {
+        this(transport, new ConsumerConfig());
+    }
     
     /**
      * Konstruktor untuk inisialisasi consumer
-     * @param connection Koneksi RabbitMQ yang sudah dibuat
+     * @param transport Transport pesan yang sudah dibuat
+     * @param config Pengaturan jumlah channel, prefetch, dan worker thread
      */
-    public PesananConsumer(Connection connection) {
-        this.connection = connection;
+    public PesananConsumer(Transport transport, ConsumerConfig config) {
+        this(transport, config, new TabelPengiriman());
+    }
+    
+    /**
+     * Konstruktor untuk inisialisasi consumer dengan tabel pengiriman yang sudah ada
+     * @param transport Transport pesan yang sudah dibuat
+     * @param config Pengaturan jumlah channel, prefetch, dan worker thread
+     * @param daftarPengiriman Tabel pengiriman, misalnya dari PenyimpananPengiriman agar perubahan tersimpan di disk
+     */
+    public PesananConsumer(Transport transport, ConsumerConfig config, TabelPengiriman daftarPengiriman) {
+        this.transport = transport;
+        this.config = config;
+        this.daftarPengiriman = daftarPengiriman;
+        this.dedup = config.getJendelaDedupMs() > 0
+            ? new JendelaDedup(config.getJendelaDedupMs(), config.getKapasitasDedup())
+            : null;
     }
     
     /**
@@ -48,116 +104,403 @@ public class PesananConsumer implements Runnable {
      */
     @Override
     public void run() {
-        // try-with-resources untuk otomatis menutup channel ketika selesai
-        try (Channel channel = connection.createChannel()) {
-            // Membuat callback untuk menerima pesan
-            // DeliverCallback adalah functional interface dari RabbitMQ client
-            DeliverCallback deliverCallback = (consumerTag, delivery) -> {
-                // Mengkonversi body pesan dari byte array ke String
-                String message = new String(delivery.getBody(), StandardCharsets.UTF_8);
-                logger.info("Menerima pesanan baru: {}", message);
+        List<TransportChannel> channels = new ArrayList<>();
+        
+        // Executor khusus agar pemrosesan pesan tidak berjalan di thread dispatch RabbitMQ client
+        // Antrian executor (atau jumlah virtual thread) tidak perlu dibatasi karena jumlah pesan
+        // yang belum di-ack sudah dibatasi oleh consumerChannels x prefetchCount
+        ExecutorService workerExecutor = buatWorkerExecutor();
+        
+        penanganGagal = new PenanganGagal(transportRetry != null ? transportRetry : transport,
+            RabbitMQUtil.QUEUE_PESANAN_BARU_PARKIR, config.getMaksPercobaan());
+        
+        try {
+            logger.info("Memulai consumer pesanan baru dengan {}", config);
+            
+            // Setiap channel mendaftar sebagai consumer terpisah pada setiap shard queue pesanan baru
+            // sehingga broker membagi pesan ke semua channel (dan ke instance lain) secara adil
+            List<String> queues = RabbitMQUtil.namaShard(RabbitMQUtil.QUEUE_PESANAN_BARU, config.getShard());
+            for (int i = 0; i < config.getConsumerChannels(); i++) {
+                TransportChannel channel = transport.createChannel();
+                channels.add(channel);
                 
-                try {
-                    // Proses pesanan baru
-                    processPesananBaru(message);
-                } catch (Exception e) {
-                    // Menangani error yang mungkin terjadi saat memproses pesan
-                    logger.error("Gagal memproses pesan: {}", e.getMessage(), e);
-                } finally {
-                    // Konfirmasi pesan telah diproses (acknowledge)
-                    // Parameter false berarti hanya acknowledge satu pesan ini saja
-                    channel.basicAck(delivery.getEnvelope().getDeliveryTag(), false);
+                // Batasi jumlah pesan yang belum di-ack agar satu consumer lambat tidak menahan seluruh queue
+                // Pada RabbitMQ batas ini berlaku untuk setiap consumer, yaitu per shard pada channel ini
+                if (config.getPrefetchCount() > 0) {
+                    channel.basicQos(config.getPrefetchCount());
                 }
-            };
-            
-            // Mendaftar sebagai consumer untuk queue pesanan baru
-            // Parameter false = manual acknowledgment untuk memastikan pesan diproses
-            channel.basicConsume(RabbitMQUtil.QUEUE_PESANAN_BARU, false, deliverCallback, consumerTag -> {});
-            
-            // Tetap running sampai aplikasi di-stop
-            while (running) {
-                try {
-                    // Tidur 1 detik untuk mengurangi penggunaan CPU
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    // Menangani interupsi thread
-                    Thread.currentThread().interrupt();
-                    break;
+                
+                // Mendaftar sebagai consumer untuk setiap shard queue pesanan baru
+                // Parameter false = manual acknowledgment untuk memastikan pesan diproses
+                DeliverCallback deliverCallback = buatDeliverCallback(channel, workerExecutor);
+                for (String queue : queues) {
+                    channel.basicConsume(queue, false, deliverCallback);
                 }
             }
+            
+            // Tetap berjalan sampai aplikasi di-stop, thread menunggu tanpa bangun berkala
+            try {
+                berhenti.await();
+            } catch (InterruptedException e) {
+                // Menangani interupsi thread
+                Thread.currentThread().interrupt();
+            }
         } catch (Exception e) {
             // Menangani error pada consumer thread
             logger.error("Kesalahan pada consumer pesanan baru: {}", e.getMessage(), e);
+        } finally {
+            // Tutup semua channel, pesan yang belum di-ack akan dikembalikan broker ke queue
+            for (TransportChannel channel : channels) {
+                try {
+                    if (channel.isOpen()) {
+                        channel.close();
+                    }
+                } catch (Exception e) {
+                    logger.warn("Gagal menutup channel consumer: {}", e.getMessage());
+                }
+            }
+            if (workerExecutor != null) {
+                workerExecutor.shutdown();
+            }
+            penanganGagal.close();
+        }
+    }
+    
+    /**
+     * Membuat callback untuk menerima pesan pada satu channel
+     * DeliverCallback adalah functional interface dari RabbitMQ client, dipakai oleh semua transport
+     * @param channel Channel tempat pesan diterima dan di-ack
+     * @param workerExecutor Executor pemroses pesan, atau null untuk memproses langsung
+     * @return Callback yang akan didaftarkan ke basicConsume
+     */
+    private DeliverCallback buatDeliverCallback(TransportChannel channel, ExecutorService workerExecutor) {
+        return (consumerTag, delivery) -> {
+            // Waktu diterima dicatat sebelum diserahkan ke worker agar waktu antrean worker ikut terukur
+            long diterima = TracingUtil.sekarangMikro();
+            if (workerExecutor == null) {
+                prosesDelivery(channel, delivery, diterima);
+                return;
+            }
+            try {
+                workerExecutor.execute(() -> prosesDelivery(channel, delivery, diterima));
+            } catch (RejectedExecutionException e) {
+                // Executor sudah dihentikan, kembalikan pesan ke queue agar diproses consumer lain
+                channel.basicNack(delivery.getEnvelope().getDeliveryTag(), false, true);
+            }
+        };
+    }
+    
+    /**
+     * Memproses satu pesan dari queue lalu mengirim acknowledge ke broker
+     * Body dengan content-encoding deflate didekompresi lebih dulu. Amplop batch dibuka dan setiap
+     * pesanan di dalamnya diproses sebagai record tersendiri;
+     * amplop baru di-ack setelah semua record selesai diproses atau diteruskan ke queue tunda.
+     * Jika satu record tidak dapat diteruskan, amplop dikembalikan ke queue dengan nack dan record
+     * yang sudah selesai dikenali sebagai duplikat saat amplop diterima lagi
+     * @param channel Channel tempat pesan diterima
+     * @param delivery Pesan yang diterima dari transport
+     * @param diterima Waktu pesan diterima dalam mikrodetik sejak epoch
+     */
+    private void prosesDelivery(TransportChannel channel, Delivery delivery, long diterima) {
+        boolean ack = true;
+        try {
+            Delivery pesan = KompresiUtil.dekompres(delivery);
+            if (AmplopBatch.isAmplop(pesan.getProperties().getContentType())) {
+                for (Delivery record : AmplopBatch.buka(pesan)) {
+                    if (!prosesRecord(record, diterima)) {
+                        ack = false;
+                        break;
+                    }
+                }
+            } else {
+                ack = prosesRecord(pesan, diterima);
+            }
+        } catch (Exception e) {
+            // Body terkompresi atau amplop yang rusak tidak dapat dibuka, pesan asal dicoba lagi lalu diparkir
+            logger.error("Gagal membuka pesan: {}", e.getMessage(), e);
+            ack = penanganGagal.tangani(delivery, e);
+        } finally {
+            // Konfirmasi pesan telah diproses (acknowledge)
+            // Parameter false berarti hanya acknowledge satu pesan ini saja
+            try {
+                if (ack) {
+                    channel.basicAck(delivery.getEnvelope().getDeliveryTag(), false);
+                } else {
+                    channel.basicNack(delivery.getEnvelope().getDeliveryTag(), false, true);
+                }
+            } catch (Exception e) {
+                logger.error("Gagal mengirim acknowledge: {}", e.getMessage(), e);
+            }
+        }
+    }
+    
+    /**
+     * Memproses satu pesanan, baik pesan tunggal maupun record dari amplop batch
+     * Pesanan yang gagal diproses dikirim ke queue tunda atau queue parkir
+     * @param delivery Pesanan beserta properti dan header pelacakannya
+     * @param diterima Waktu pesan diterima dalam mikrodetik sejak epoch
+     * @return true jika pesanan selesai (diproses, duplikat, atau sudah diteruskan ke queue tunda),
+     *         false jika pesanan harus dikembalikan ke queue
+     */
+    private boolean prosesRecord(Delivery delivery, long diterima) {
+        // Body pesan di-parse langsung dari byte array sesuai content-type pesan
+        String contentType = delivery.getProperties().getContentType();
+        if (logger.isDebugEnabled() && !CodecUtil.isBinary(contentType)) {
+            logger.debug("Menerima pesanan baru: {}", new String(delivery.getBody(), StandardCharsets.UTF_8));
+        }
+        
+        try {
+            // Pesanan yang sudah pernah diterima hanya di-ack tanpa diproses lagi
+            if (isDuplikat(delivery)) {
+                return true;
+            }
+            
+            // Proses pesanan baru beserta data pelacakan dari header pesan
+            processPesananBaru(delivery.getBody(), contentType, buatJejak(delivery.getProperties(), diterima));
+            return true;
+        } catch (Exception e) {
+            // Menangani error yang mungkin terjadi saat memproses pesan
+            logger.error("Gagal memproses pesan: {}", e.getMessage(), e);
+            if (penanganGagal.tangani(delivery, e)) {
+                return true;
+            }
+            // Pesanan akan diterima lagi, ID dilepas dari jendela agar tidak dianggap duplikat
+            String kunci = kunciDedup(delivery);
+            if (kunci != null) {
+                dedup.lupakan(kunci);
+            }
+            return false;
+        }
+    }
+    
+    /**
+     * Memeriksa ID pesan terhadap jendela deduplikasi dan mencatatnya jika belum pernah diterima
+     * Pesan tanpa message-id selalu diproses. Kiriman ulang dari queue tunda dicatat dengan nomor
+     * percobaannya agar tidak dianggap duplikat pesan asal
+     * @param delivery Pesan yang diterima dari transport
+     * @return true jika pesan sudah pernah diterima dalam jendela deduplikasi
+     */
+    private boolean isDuplikat(Delivery delivery) {
+        String kunci = kunciDedup(delivery);
+        if (kunci == null || dedup.tandai(kunci)) {
+            return false;
+        }
+        logger.info("Pesanan duplikat diabaikan: messageId={}, redeliver={}",
+            delivery.getProperties().getMessageId(), delivery.getEnvelope().isRedeliver());
+        return true;
+    }
+    
+    /**
+     * Kunci jendela deduplikasi: message-id, ditambah nomor percobaan untuk kiriman ulang dari queue tunda
+     * @return Kunci deduplikasi, atau null jika deduplikasi tidak aktif atau pesan tanpa message-id
+     */
+    private String kunciDedup(Delivery delivery) {
+        String idPesan = delivery.getProperties().getMessageId();
+        if (dedup == null || idPesan == null) {
+            return null;
+        }
+        int percobaan = RabbitMQUtil.getPercobaan(delivery.getProperties());
+        return percobaan == 0 ? idPesan : idPesan + "#" + percobaan;
+    }
+    
+    /**
+     * Membaca header pelacakan pesanan dan mencatat latensi tahap sebelum pemrosesan
+     * @param properties Properti pesan pesanan baru
+     * @param diterima Waktu pesan diterima dalam mikrodetik sejak epoch
+     * @return Data pelacakan yang akan diteruskan ke pesan status pengiriman
+     */
+    private JejakPesan buatJejak(AMQP.BasicProperties properties, long diterima) {
+        long dikirim = TracingUtil.bacaWaktu(properties, TracingUtil.HEADER_WAKTU_DIKIRIM);
+        TracingUtil.catatSelisih(TracingUtil.TAHAP_PESANAN_DI_BROKER, dikirim, diterima);
+        TracingUtil.catatSelisih(TracingUtil.TAHAP_ANTREAN_WORKER, diterima, TracingUtil.sekarangMikro());
+        return new JejakPesan(properties.getCorrelationId(),
+            TracingUtil.bacaWaktu(properties, TracingUtil.HEADER_WAKTU_DIBUAT), dikirim, diterima);
+    }
+    
+    /**
+     * Membuat executor untuk worker thread pemroses pesan
+     * Pada mode VIRTUAL setiap pesan diproses di virtual thread sendiri sehingga operasi blocking
+     * (persistensi, menunggu slot queue producer) tidak menahan pesan lain
+     * @return Executor virtual thread, executor dengan jumlah thread sesuai pengaturan,
+     *         atau null jika workerThreads bernilai 0
+     */
+    private ExecutorService buatWorkerExecutor() {
+        if (config.getModeEksekusi() == EksekusiUtil.ModeEksekusi.VIRTUAL) {
+            return EksekusiUtil.buatExecutorVirtual("pesanan-vt-");
+        }
+        if (config.getWorkerThreads() <= 0) {
+            return null;
         }
+        AtomicInteger nomorThread = new AtomicInteger(1);
+        return Executors.newFixedThreadPool(config.getWorkerThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "pesanan-worker-" + nomorThread.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
     
     /**
      * Memproses pesanan baru yang diterima dari queue
-     * @param pesananJson Pesan JSON yang berisi informasi pesanan baru
+     * @param body Body pesan yang berisi informasi pesanan baru
+     * @param contentType Content-type pesan, menentukan format JSON atau biner
+     * @param jejak Data pelacakan dari header pesan, atau null jika tidak ada
      */
-    private void processPesananBaru(String pesananJson) {
-        // Konversi JSON pesanan ke DetailPengiriman menggunakan utility
-        // Utility ini akan men-deserialize JSON ke objek DetailPengiriman
-        DetailPengiriman pengiriman = JSONUtil.pesananToDetailPengiriman(pesananJson);
+    private void processPesananBaru(byte[] body, String contentType, JejakPesan jejak) {
+        // Konversi pesanan ke DetailPengiriman menggunakan utility
+        // Decoder dipilih berdasarkan content-type, JSON jika tidak ada content-type
+        long mulaiDecode = System.nanoTime();
+        DetailPengiriman pengiriman = CodecUtil.pesananToDetailPengiriman(body, contentType);
+        pengiriman.setJejak(jejak);
+        long mulaiUpdate = System.nanoTime();
+        TracingUtil.catat(TracingUtil.TAHAP_DESERIALISASI, (mulaiUpdate - mulaiDecode) / 1000);
         
         // Simpan ke daftar pengiriman
-        // synchronized untuk thread-safety karena daftarPengiriman dapat diakses dari thread lain
-        synchronized (daftarPengiriman) {
-            daftarPengiriman.put(pengiriman.getId(), pengiriman);
-        }
+        daftarPengiriman.simpan(pengiriman);
+        TracingUtil.catat(TracingUtil.TAHAP_UPDATE_DAFTAR, (System.nanoTime() - mulaiUpdate) / 1000);
         
         logger.info("Pesanan baru ditambahkan ke daftar pengiriman: ID={}", pengiriman.getId());
+        
+        // Pendengar menerima objek asli beserta data pelacakan, misalnya untuk memproses pengiriman secara otomatis
+        Consumer<DetailPengiriman> pendengar = pendengarPengirimanBaru;
+        if (pendengar != null) {
+            pendengar.accept(pengiriman);
+        }
     }
     
     /**
      * Menampilkan daftar pesanan yang perlu dikirim
      * Metode ini dapat dipanggil dari thread aplikasi utama
+     * Iterasi weakly consistent: tidak menahan pesanan baru yang sedang disimpan
      */
     public void tampilkanDaftarPengiriman() {
-        // synchronized untuk thread-safety saat membaca daftarPengiriman
-        synchronized (daftarPengiriman) {
-            // Konversi nilai map ke list untuk diproses
-            List<DetailPengiriman> pengirimanList = new ArrayList<>(daftarPengiriman.values());
-            
-            if (pengirimanList.isEmpty()) {
-                System.out.println("\nTidak ada pesanan yang perlu dikirim");
-                return;
-            }
-            
-            // Menampilkan informasi pengiriman dalam format yang mudah dibaca
-            System.out.println("\n=== Daftar Pesanan untuk Pengiriman ===");
-            for (DetailPengiriman pengiriman : pengirimanList) {
-                System.out.println("ID: " + pengiriman.getId());
-                System.out.println("ID Pesanan: " + pengiriman.getIdPesanan());
-                System.out.println("Pelanggan: " + pengiriman.getNamaPelanggan());
-                System.out.println("Alamat: " + pengiriman.getAlamatPengiriman());
-                System.out.println("Status: " + pengiriman.getStatusPengiriman());
-                
-                // Tampilkan informasi kurir jika sudah ada
-                if (pengiriman.getKurirPengiriman() != null) {
-                    System.out.println("Kurir: " + pengiriman.getKurirPengiriman());
-                }
-                
-                // Tampilkan nomor resi jika sudah ada
-                if (pengiriman.getNomorResi() != null) {
-                    System.out.println("No. Resi: " + pengiriman.getNomorResi());
-                }
-                
-                System.out.println("-------------------------");
-            }
+        if (daftarPengiriman.isEmpty()) {
+            System.out.println("\nTidak ada pesanan yang perlu dikirim");
+            return;
+        }
+        
+        // Menampilkan informasi pengiriman dalam format yang mudah dibaca
+        System.out.println("\n=== Daftar Pesanan untuk Pengiriman ===");
+        daftarPengiriman.forEach(PesananConsumer::cetakPengiriman);
+    }
+    
+    /**
+     * Menampilkan hasil pencarian pengiriman dengan format yang sama seperti daftar pengiriman
+     * @param judul Judul hasil pencarian
+     * @param hasil Pengiriman yang ditemukan
+     */
+    public void tampilkanPengiriman(String judul, List<DetailPengiriman> hasil) {
+        if (hasil.isEmpty()) {
+            System.out.println("\nTidak ada pengiriman untuk " + judul);
+            return;
         }
+        System.out.println("\n=== " + judul + " (" + hasil.size() + " pengiriman) ===");
+        hasil.forEach(PesananConsumer::cetakPengiriman);
+    }
+    
+    private static void cetakPengiriman(DetailPengiriman pengiriman) {
+        System.out.println("ID: " + pengiriman.getId());
+        System.out.println("ID Pesanan: " + pengiriman.getIdPesanan());
+        System.out.println("Pelanggan: " + pengiriman.getNamaPelanggan());
+        System.out.println("Alamat: " + pengiriman.getAlamatPengiriman());
+        System.out.println("Status: " + pengiriman.getStatusPengiriman());
+        
+        // Tampilkan informasi kurir jika sudah ada
+        if (pengiriman.getKurirPengiriman() != null) {
+            System.out.println("Kurir: " + pengiriman.getKurirPengiriman());
+        }
+        
+        // Tampilkan nomor resi jika sudah ada
+        if (pengiriman.getNomorResi() != null) {
+            System.out.println("No. Resi: " + pengiriman.getNomorResi());
+        }
+        
+        System.out.println("-------------------------");
     }
     
     /**
      * Mendapatkan detail pengiriman berdasarkan ID
      * @param id ID pengiriman yang dicari
-     * @return Objek DetailPengiriman atau null jika tidak ditemukan
+     * @return Salinan DetailPengiriman atau null jika tidak ditemukan,
+     *         perubahan disimpan kembali dengan perbaruiPengiriman()
      */
-    public DetailPengiriman getPengirimanById(int id) {
-        // synchronized untuk thread-safety saat membaca daftarPengiriman
-        synchronized (daftarPengiriman) {
-            return daftarPengiriman.get(id);
-        }
+    public DetailPengiriman getPengirimanById(long id) {
+        return daftarPengiriman.ambil(id);
+    }
+    
+    /**
+     * Mendapatkan pengiriman dengan status tertentu lewat indeks status, tanpa memindai seluruh daftar
+     * @param status Status pengiriman, misalnya "DIKEMAS"
+     * @return Salinan pengiriman tanpa urutan tertentu
+     * @throws IllegalArgumentException jika status tidak dikenal
+     */
+    public List<DetailPengiriman> getPengirimanByStatus(String status) {
+        return daftarPengiriman.cariBerdasarkanStatus(status);
+    }
+    
+    /**
+     * Mendapatkan pengiriman milik pelanggan lewat indeks nama pelanggan
+     * @param namaPelanggan Nama pelanggan yang sama persis
+     * @return Salinan pengiriman tanpa urutan tertentu
+     */
+    public List<DetailPengiriman> getPengirimanByPelanggan(String namaPelanggan) {
+        return daftarPengiriman.cariBerdasarkanPelanggan(namaPelanggan);
+    }
+    
+    /**
+     * Mendapatkan pengiriman yang ditangani kurir lewat indeks kurir
+     * @param kurirPengiriman Nama kurir yang sama persis, atau null untuk pengiriman yang belum memiliki kurir
+     * @return Salinan pengiriman tanpa urutan tertentu
+     */
+    public List<DetailPengiriman> getPengirimanByKurir(String kurirPengiriman) {
+        return daftarPengiriman.cariBerdasarkanKurir(kurirPengiriman);
+    }
+    
+    /**
+     * Jumlah pengiriman dengan status tertentu, untuk dashboard yang hanya membutuhkan angka
+     * @throws IllegalArgumentException jika status tidak dikenal
+     */
+    public int getJumlahPengirimanByStatus(String status) {
+        return daftarPengiriman.hitungBerdasarkanStatus(status);
+    }
+    
+    /**
+     * Menyimpan perubahan pengiriman (status, kurir, nomor resi) ke daftar pengiriman
+     * @param pengiriman Pengiriman yang sudah diubah
+     */
+    public void perbaruiPengiriman(DetailPengiriman pengiriman) {
+        daftarPengiriman.simpan(pengiriman);
+    }
+    
+    /**
+     * Mendaftarkan pendengar pengiriman baru
+     * @param pendengarPengirimanBaru Pendengar yang dipanggil setelah pengiriman disimpan, atau null untuk melepas
+     */
+    public void setPendengarPengirimanBaru(Consumer<DetailPengiriman> pendengarPengirimanBaru) {
+        this.pendengarPengirimanBaru = pendengarPengirimanBaru;
+    }
+    
+    /**
+     * Jumlah pesanan duplikat yang diabaikan consumer
+     */
+    public long getJumlahDuplikat() {
+        return dedup != null ? dedup.getJumlahDuplikat() : 0;
+    }
+    
+    /**
+     * Mengatur transport untuk kiriman ulang pesan yang gagal, sebaiknya transport publish
+     * Harus dipanggil sebelum consumer thread dijalankan
+     * @param transportRetry Transport kiriman ulang, atau null untuk memakai transport consumer
+     */
+    public void setTransportRetry(Transport transportRetry) {
+        this.transportRetry = transportRetry;
+    }
+    
+    /**
+     * Jumlah pesanan yang dipindahkan ke queue parkir setelah semua percobaan gagal
+     */
+    public long getJumlahDiparkir() {
+        PenanganGagal penangan = penanganGagal;
+        return penangan != null ? penangan.getJumlahDiparkir() : 0;
     }
     
     /**
@@ -165,7 +508,7 @@ public class PesananConsumer implements Runnable {
      * Dipanggil ketika aplikasi berakhir untuk mengakhiri thread dengan bersih
      */
     public void stop() {
-        // Mengubah flag running menjadi false, thread akan berakhir setelah iterasi berikutnya
-        this.running = false;
+        // Melepas consumer thread yang menunggu, channel lalu ditutup
+        berhenti.countDown();
     }
 } 
\ No newline at end of file
@@ -0,0 +1,217 @@
+package com.ecommerce.pengiriman.util;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Delivery;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Amplop batch: banyak record (pesanan baru atau status pengiriman) dalam satu pesan AMQP
+ *
+ * Biaya broker dihitung per pesan (routing, indeks queue, ack, confirm), sehingga saat lonjakan
+ * pesanan satu pesan berisi puluhan record jauh lebih murah daripada puluhan pesan kecil. Setiap
+ * record tetap membawa message-id, correlation id, dan header pelacakannya sendiri; consumer membuka
+ * amplop menjadi Delivery per record (dengan delivery tag amplop) sehingga deduplikasi, pelacakan
+ * latensi, dan retry tetap berlaku per record. Semua record dalam satu amplop harus memiliki routing
+ * key (shard) yang sama.
+ *
+ * Format body (big-endian): versi (1 byte), content-type record, jumlah record (int32), lalu setiap
+ * record: message-id, correlation id, jumlah header (1 byte) diikuti pasangan nama header dan nilai
+ * (int64), panjang body (int32) dan body record dalam format content-type record. String ditulis
+ * seperti BinaryUtil: panjang UTF-8 (uint16, 0xFFFF = null) diikuti isinya. Hanya header bernilai
+ * angka yang ikut disimpan. Format ini harus sama persis dengan AmplopBatch di LayananPesanan.
+ */
+public class AmplopBatch {
+    public static final String CONTENT_TYPE_AMPLOP = "application/x-ecommerce-batch";
+    public static final byte VERSI = 1;
+    
+    // Panjang string yang menandakan nilai null
+    private static final int PANJANG_NULL = 0xFFFF;
+    
+    // Posisi jumlah record di body, setelah byte versi dan content-type record
+    private final int posisiJumlah;
+    
+    // Batas ukuran body amplop dalam byte
+    private final int maksBytes;
+    
+    private ByteBuffer buffer;
+    private int jumlah;
+    
+    /**
+     * Membuat amplop kosong
+     * @param contentTypeRecord Content-type body setiap record (JSON atau biner)
+     * @param maksBytes Batas ukuran body amplop; record pertama selalu diterima walaupun lebih besar
+     */
+    public AmplopBatch(String contentTypeRecord, int maksBytes) {
+        this.maksBytes = maksBytes;
+        this.buffer = ByteBuffer.allocate(Math.min(Math.max(maksBytes, 256), 1 << 16));
+        buffer.put(VERSI);
+        tulisString(contentTypeRecord);
+        posisiJumlah = buffer.position();
+        buffer.putInt(0);
+    }
+    
+    /**
+     * Memeriksa apakah content-type menandakan amplop batch
+     */
+    public static boolean isAmplop(String contentType) {
+        return contentType != null && contentType.startsWith(CONTENT_TYPE_AMPLOP);
+    }
+    
+    /**
+     * Menambahkan satu record ke amplop
+     * @param properties Properti record: message-id, correlation id, dan header pelacakan
+     * @param body Body record
+     * @return true jika record masuk, false jika amplop akan melebihi maksBytes (amplop tidak berubah)
+     */
+    public boolean tambahkan(AMQP.BasicProperties properties, byte[] body) {
+        int awal = buffer.position();
+        while (true) {
+            try {
+                tulisString(properties.getMessageId());
+                tulisString(properties.getCorrelationId());
+                tulisHeaders(properties.getHeaders());
+                buffer.putInt(body.length);
+                buffer.put(body);
+                break;
+            } catch (BufferOverflowException e) {
+                ByteBuffer baru = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, awal + body.length + 1024));
+                baru.put(buffer.array(), 0, awal);
+                buffer = baru;
+            }
+        }
+        if (jumlah > 0 && buffer.position() > maksBytes) {
+            buffer.position(awal);
+            return false;
+        }
+        jumlah++;
+        return true;
+    }
+    
+    /**
+     * Jumlah record di dalam amplop
+     */
+    public int getJumlah() {
+        return jumlah;
+    }
+    
+    /**
+     * Ukuran body amplop saat ini dalam byte
+     */
+    public int getUkuran() {
+        return buffer.position();
+    }
+    
+    /**
+     * Body amplop yang siap dikirim
+     */
+    public byte[] toBytes() {
+        buffer.putInt(posisiJumlah, jumlah);
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+    
+    /**
+     * Membuka amplop menjadi Delivery per record
+     * Setiap record memakai envelope amplop (delivery tag dan routing key yang sama) dan properti
+     * amplop dengan content-type record, message-id, correlation id, dan header record
+     * @param amplop Pesan amplop yang diterima
+     * @return Record dalam urutan pengiriman
+     * @throws IllegalArgumentException jika versi tidak dikenal atau data terpotong
+     */
+    public static List<Delivery> buka(Delivery amplop) {
+        ByteBuffer data = ByteBuffer.wrap(amplop.getBody());
+        try {
+            if (data.get() != VERSI) {
+                throw new IllegalArgumentException("Versi amplop batch tidak didukung");
+            }
+            String contentTypeRecord = bacaString(data);
+            int jumlah = data.getInt();
+            if (jumlah < 0 || jumlah > data.remaining()) {
+                throw new IllegalArgumentException("Jumlah record amplop batch tidak valid: " + jumlah);
+            }
+            
+            AMQP.BasicProperties asal = amplop.getProperties();
+            List<Delivery> hasil = new ArrayList<>(jumlah);
+            for (int i = 0; i < jumlah; i++) {
+                String messageId = bacaString(data);
+                String correlationId = bacaString(data);
+                Map<String, Object> headers = asal.getHeaders() != null
+                    ? new HashMap<>(asal.getHeaders())
+                    : new HashMap<>();
+                int jumlahHeader = data.get() & 0xFF;
+                for (int h = 0; h < jumlahHeader; h++) {
+                    String nama = bacaString(data);
+                    headers.put(nama, data.getLong());
+                }
+                int panjang = data.getInt();
+                if (panjang < 0 || panjang > data.remaining()) {
+                    throw new IllegalArgumentException("Panjang record amplop batch tidak valid: " + panjang);
+                }
+                byte[] body = new byte[panjang];
+                data.get(body);
+                
+                AMQP.BasicProperties properties = asal.builder()
+                    .contentType(contentTypeRecord)
+                    .messageId(messageId)
+                    .correlationId(correlationId)
+                    .headers(headers)
+                    .build();
+                hasil.add(new Delivery(amplop.getEnvelope(), properties, body));
+            }
+            return hasil;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Data amplop batch terpotong", e);
+        }
+    }
+    
+    private void tulisHeaders(Map<String, Object> headers) {
+        int posisiJumlahHeader = buffer.position();
+        buffer.put((byte) 0);
+        if (headers == null) {
+            return;
+        }
+        int jumlahHeader = 0;
+        for (Map.Entry<String, Object> header : headers.entrySet()) {
+            if (header.getValue() instanceof Number && jumlahHeader < 0xFF) {
+                tulisString(header.getKey());
+                buffer.putLong(((Number) header.getValue()).longValue());
+                jumlahHeader++;
+            }
+        }
+        buffer.put(posisiJumlahHeader, (byte) jumlahHeader);
+    }
+    
+    private void tulisString(String nilai) {
+        if (nilai == null) {
+            buffer.putShort((short) PANJANG_NULL);
+            return;
+        }
+        byte[] bytes = nilai.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= PANJANG_NULL) {
+            throw new IllegalArgumentException("String terlalu panjang untuk amplop batch: " + bytes.length + " byte");
+        }
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+    
+    private static String bacaString(ByteBuffer data) {
+        int panjang = data.getShort() & 0xFFFF;
+        if (panjang == PANJANG_NULL) {
+            return null;
+        }
+        if (panjang > data.remaining()) {
+            throw new IllegalArgumentException("Data amplop batch terpotong");
+        }
+        String nilai = new String(data.array(), data.position(), panjang, StandardCharsets.UTF_8);
+        data.position(data.position() + panjang);
+        return nilai;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,191 @@
+package com.ecommerce.pengiriman.util;
+
+import com.ecommerce.pengiriman.model.DetailPengiriman;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Kelas utilitas untuk konversi objek ke/dari format biner ringkas
+ *
+ * Format (big-endian), diawali byte versi dan byte tipe record:
+ * - Pesanan: id (int64), tanggalPesanan (int64 epoch millis), status (1 byte kode),
+ *   totalHarga (float64), namaPelanggan, alamatPengiriman
+ * - DetailPengiriman: id (int64), idPesanan (int64), tanggalPengiriman (int64 epoch millis),
+ *   statusPengiriman (1 byte kode), namaPelanggan, alamatPengiriman, kurirPengiriman, nomorResi
+ * String ditulis sebagai panjang UTF-8 (uint16, 0xFFFF = null) diikuti isinya.
+ * Status yang tidak dikenal ditulis dengan kode KODE_STATUS_LAIN diikuti string status.
+ * Format ini harus sama persis dengan BinaryUtil di LayananPesanan.
+ */
+public class BinaryUtil {
+    public static final byte VERSI = 2;
+    public static final byte TIPE_PESANAN = 1;
+    public static final byte TIPE_DETAIL_PENGIRIMAN = 2;
+    
+    // Panjang string yang menandakan nilai null
+    private static final int PANJANG_NULL = 0xFFFF;
+    
+    // Kode untuk status di luar daftar, diikuti string status
+    private static final int KODE_STATUS_LAIN = 0xFF;
+    
+    // Kode status pesanan, indeks array = kode status
+    private static final String[] STATUS_PESANAN = {
+        null, "BARU", "DIPROSES", "SEDANG_DIKEMAS", "SEDANG_DIKIRIM", "SELESAI"
+    };
+    
+    // Kode status pengiriman, indeks array = kode status (dipakai juga oleh TabelPengiriman)
+    static final String[] STATUS_PENGIRIMAN = {
+        null, "MENUNGGU_PENGIRIMAN", "DIKEMAS", "DIKIRIM", "TERKIRIM"
+    };
+    
+    // Buffer tulis dipakai ulang per thread
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocate(512));
+    
+    /**
+     * Mengkonversi DetailPengiriman menjadi format biner
+     */
+    public static byte[] toBinary(DetailPengiriman pengiriman) {
+        ByteBuffer buffer = BUFFER.get();
+        while (true) {
+            try {
+                buffer.clear();
+                buffer.put(VERSI).put(TIPE_DETAIL_PENGIRIMAN);
+                buffer.putLong(pengiriman.getId());
+                buffer.putLong(pengiriman.getIdPesanan());
+                buffer.putLong(pengiriman.getTanggalPengiriman().getTime());
+                tulisStatus(buffer, pengiriman.getStatusPengiriman(), STATUS_PENGIRIMAN);
+                tulisString(buffer, pengiriman.getNamaPelanggan());
+                tulisString(buffer, pengiriman.getAlamatPengiriman());
+                tulisString(buffer, pengiriman.getKurirPengiriman());
+                tulisString(buffer, pengiriman.getNomorResi());
+                return Arrays.copyOf(buffer.array(), buffer.position());
+            } catch (BufferOverflowException e) {
+                buffer = perbesarBuffer(buffer);
+            }
+        }
+    }
+    
+    /**
+     * Mengkonversi data biner menjadi DetailPengiriman
+     */
+    public static DetailPengiriman toDetailPengiriman(byte[] data) {
+        ByteBuffer buffer = bukaRecord(data, TIPE_DETAIL_PENGIRIMAN);
+        try {
+            DetailPengiriman pengiriman = new DetailPengiriman();
+            pengiriman.setId(buffer.getLong());
+            pengiriman.setIdPesanan(buffer.getLong());
+            pengiriman.setTanggalPengiriman(new Date(buffer.getLong()));
+            pengiriman.setStatusPengiriman(bacaStatus(buffer, STATUS_PENGIRIMAN));
+            pengiriman.setNamaPelanggan(bacaString(buffer));
+            pengiriman.setAlamatPengiriman(bacaString(buffer));
+            pengiriman.setKurirPengiriman(bacaString(buffer));
+            pengiriman.setNomorResi(bacaString(buffer));
+            return pengiriman;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Data biner pengiriman terpotong", e);
+        }
+    }
+    
+    /**
+     * Mengkonversi pesan biner pesanan baru dari LayananPesanan menjadi DetailPengiriman
+     */
+    public static DetailPengiriman pesananToDetailPengiriman(byte[] data) {
+        ByteBuffer buffer = bukaRecord(data, TIPE_PESANAN);
+        try {
+            long idPesanan = buffer.getLong();
+            buffer.getLong(); // tanggalPesanan
+            bacaStatus(buffer, STATUS_PESANAN);
+            buffer.getDouble(); // totalHarga
+            String namaPelanggan = bacaString(buffer);
+            String alamatPengiriman = bacaString(buffer);
+            
+            return new DetailPengiriman(JSONUtil.idPengirimanBerikutnya(), idPesanan, namaPelanggan, alamatPengiriman);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Data biner pesanan terpotong", e);
+        }
+    }
+    
+    private static ByteBuffer bukaRecord(byte[] data, byte tipe) {
+        if (data.length < 2 || data[0] != VERSI) {
+            throw new IllegalArgumentException("Versi format biner tidak didukung");
+        }
+        if (data[1] != tipe) {
+            throw new IllegalArgumentException("Tipe record biner tidak sesuai: " + data[1]);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        buffer.position(2);
+        return buffer;
+    }
+    
+    private static void tulisStatus(ByteBuffer buffer, String status, String[] daftarStatus) {
+        for (int kode = 1; kode < daftarStatus.length; kode++) {
+            if (daftarStatus[kode].equals(status)) {
+                buffer.put((byte) kode);
+                return;
+            }
+        }
+        buffer.put((byte) KODE_STATUS_LAIN);
+        tulisString(buffer, status);
+    }
+    
+    private static String bacaStatus(ByteBuffer buffer, String[] daftarStatus) {
+        int kode = buffer.get() & 0xFF;
+        if (kode == KODE_STATUS_LAIN) {
+            return bacaString(buffer);
+        }
+        if (kode == 0 || kode >= daftarStatus.length) {
+            throw new IllegalArgumentException("Kode status tidak dikenal: " + kode);
+        }
+        return daftarStatus[kode];
+    }
+    
+    // Dipakai juga oleh JurnalPengiriman untuk format string yang sama
+    static void tulisString(ByteBuffer buffer, String teks) {
+        if (teks == null) {
+            buffer.putShort((short) PANJANG_NULL);
+            return;
+        }
+        // Jalur cepat untuk teks ASCII tanpa membuat array byte sementara
+        int panjang = teks.length();
+        boolean ascii = panjang < PANJANG_NULL;
+        for (int i = 0; ascii && i < panjang; i++) {
+            ascii = teks.charAt(i) < 0x80;
+        }
+        if (ascii) {
+            buffer.putShort((short) panjang);
+            for (int i = 0; i < panjang; i++) {
+                buffer.put((byte) teks.charAt(i));
+            }
+            return;
+        }
+        byte[] utf8 = teks.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length >= PANJANG_NULL) {
+            throw new IllegalArgumentException("String terlalu panjang untuk format biner: " + utf8.length + " byte");
+        }
+        buffer.putShort((short) utf8.length);
+        buffer.put(utf8);
+    }
+    
+    static String bacaString(ByteBuffer buffer) {
+        int panjang = buffer.getShort() & 0xFFFF;
+        if (panjang == PANJANG_NULL) {
+            return null;
+        }
+        if (panjang > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String teks = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), panjang, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + panjang);
+        return teks;
+    }
+    
+    private static ByteBuffer perbesarBuffer(ByteBuffer lama) {
+        ByteBuffer baru = ByteBuffer.allocate(lama.capacity() * 2);
+        BUFFER.set(baru);
+        return baru;
+    }
+} 
\ No newline at end of file
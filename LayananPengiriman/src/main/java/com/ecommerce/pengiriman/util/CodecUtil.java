@@ -0,0 +1,47 @@
+package com.ecommerce.pengiriman.util;
+
+import com.ecommerce.pengiriman.model.DetailPengiriman;
+
+/**
+ * Kelas utilitas untuk memilih format pesan berdasarkan content-type AMQP
+ * JSON tetap menjadi format default, termasuk untuk pesan tanpa content-type dari versi lama
+ */
+public class CodecUtil {
+    public static final String CONTENT_TYPE_JSON = "application/json";
+    public static final String CONTENT_TYPE_BINARY = "application/x-ecommerce-binary";
+    
+    /**
+     * Memeriksa apakah content-type menandakan format biner
+     * Parameter tambahan seperti "; charset=utf-8" diabaikan
+     */
+    public static boolean isBinary(String contentType) {
+        return contentType != null && contentType.startsWith(CONTENT_TYPE_BINARY);
+    }
+    
+    /**
+     * Memastikan content-type didukung untuk pengiriman pesan
+     * @return Content-type yang sudah divalidasi
+     */
+    public static String validasiContentType(String contentType) {
+        if (CONTENT_TYPE_JSON.equals(contentType) || CONTENT_TYPE_BINARY.equals(contentType)) {
+            return contentType;
+        }
+        throw new IllegalArgumentException("Content-type tidak didukung: " + contentType);
+    }
+    
+    /**
+     * Mengkonversi DetailPengiriman ke body pesan sesuai content-type
+     */
+    public static byte[] encode(DetailPengiriman pengiriman, String contentType) {
+        return isBinary(contentType) ? BinaryUtil.toBinary(pengiriman) : JSONUtil.toJSONBytes(pengiriman);
+    }
+    
+    /**
+     * Mengkonversi body pesan pesanan baru sesuai content-type yang dikirim producer
+     */
+    public static DetailPengiriman pesananToDetailPengiriman(byte[] body, String contentType) {
+        return isBinary(contentType)
+            ? BinaryUtil.pesananToDetailPengiriman(body)
+            : JSONUtil.pesananToDetailPengiriman(body);
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,226 @@
+package com.ecommerce.pengiriman.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generator ID 64-bit bergaya Snowflake yang tetap unik walaupun layanan berjalan di beberapa instance
+ *
+ * Susunan bit dari yang paling signifikan: 1 bit tanda (selalu 0), 41 bit milidetik sejak EPOCH
+ * (cukup sampai sekitar tahun 2093), 10 bit nomor node, dan 12 bit nomor urut di dalam milidetik
+ * yang sama. Dua node berbeda tidak pernah menghasilkan ID yang sama, dan ID dari satu node selalu
+ * naik sehingga ID terbesar di penyimpanan tetap berarti yang terbaru.
+ *
+ * Pembuatan ID bebas lock: milidetik dan nomor urut disimpan bersama dalam satu AtomicLong dan
+ * dimajukan dengan CAS. Jika 4096 nomor urut dalam satu milidetik habis, ID berikutnya meminjam
+ * milidetik setelahnya alih-alih menunggu, sehingga lonjakan di atas 4 juta ID per detik tidak
+ * menahan pemanggil; waktu di ID sementara berjalan lebih cepat dari jam dan kembali sejajar setelah
+ * laju turun. Jika jam mundur (misalnya koreksi NTP), generator melanjutkan dari waktu
+ * terakhir dan tidak pernah mengulang ID.
+ *
+ * Nomor node diambil dari property sistem ecommerce.nodeId atau variabel lingkungan
+ * ECOMMERCE_NODE_ID. Jika tidak diatur, generator menyewa nomor node pertama yang bebas di direktori
+ * sewa lokal dengan mengunci file node-NNNN.lease. Kunci dilepas saat close() atau saat proses
+ * berhenti, sehingga beberapa instance di satu mesin selalu mendapat nomor berbeda; instance di
+ * mesin yang berbeda harus diberi nomor node lewat konfigurasi.
+ */
+public class GeneratorId implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(GeneratorId.class);
+    
+    // Awal penghitungan waktu ID: 2024-01-01T00:00:00Z
+    public static final long EPOCH = 1704067200000L;
+    
+    public static final int BIT_NODE = 10;
+    public static final int BIT_URUTAN = 12;
+    public static final int MAKS_NODE = (1 << BIT_NODE) - 1;
+    
+    // Batas milidetik yang muat di 41 bit
+    private static final long MAKS_WAKTU = (1L << (63 - BIT_NODE - BIT_URUTAN)) - 1;
+    
+    // Pengaturan nomor node, nama yang sama dipakai kedua layanan
+    public static final String PROPERTI_NODE = "ecommerce.nodeId";
+    public static final String ENV_NODE = "ECOMMERCE_NODE_ID";
+    
+    // Direktori file sewa nomor node, default <java.io.tmpdir>/ecommerce-node/<layanan>
+    public static final String PROPERTI_DIREKTORI_SEWA = "ecommerce.direktoriSewaNode";
+    public static final String ENV_DIREKTORI_SEWA = "ECOMMERCE_DIREKTORI_SEWA_NODE";
+    
+    // File sewa yang sedang dipegang generator di JVM ini. Lock file berlaku per proses dan ikut
+    // terlepas jika channel lain ke file yang sama ditutup, sehingga file ini tidak boleh dibuka lagi
+    private static final Set<Path> SEWA_AKTIF = ConcurrentHashMap.newKeySet();
+    
+    private final int node;
+    
+    // Milidetik sejak EPOCH digeser BIT_URUTAN, ditambah nomor urut ID terakhir
+    private final AtomicLong keadaan = new AtomicLong();
+    
+    // Kunci file sewa nomor node, null jika nomor node berasal dari konfigurasi
+    private final Path pathSewa;
+    private final FileChannel fileSewa;
+    private final FileLock kunciSewa;
+    
+    /**
+     * @param node Nomor node antara 0 dan MAKS_NODE, harus berbeda untuk setiap instance yang berjalan
+     */
+    public GeneratorId(int node) {
+        this(node, null, null, null);
+    }
+    
+    private GeneratorId(int node, Path pathSewa, FileChannel fileSewa, FileLock kunciSewa) {
+        if (node < 0 || node > MAKS_NODE) {
+            throw new IllegalArgumentException("Nomor node harus antara 0 dan " + MAKS_NODE + ": " + node);
+        }
+        this.node = node;
+        this.pathSewa = pathSewa;
+        this.fileSewa = fileSewa;
+        this.kunciSewa = kunciSewa;
+    }
+    
+    /**
+     * Membuat generator dengan nomor node dari konfigurasi, atau dari sewa file lokal jika tidak diatur
+     * @param layanan Nama layanan, memisahkan direktori sewa default setiap layanan
+     * @return Generator yang harus ditutup saat aplikasi berhenti agar nomor node dapat dipakai ulang
+     */
+    public static GeneratorId dariKonfigurasi(String layanan) throws IOException {
+        String nilai = bacaPengaturan(PROPERTI_NODE, ENV_NODE);
+        if (nilai != null && !nilai.trim().isEmpty()) {
+            int node;
+            try {
+                node = Integer.parseInt(nilai.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(PROPERTI_NODE + " bukan angka: " + nilai);
+            }
+            logger.info("Nomor node ID {} dari konfigurasi", node);
+            return new GeneratorId(node);
+        }
+        
+        String direktori = bacaPengaturan(PROPERTI_DIREKTORI_SEWA, ENV_DIREKTORI_SEWA);
+        Path lokasi = direktori != null && !direktori.trim().isEmpty()
+            ? Paths.get(direktori.trim())
+            : Paths.get(System.getProperty("java.io.tmpdir"), "ecommerce-node", layanan);
+        return sewaNode(lokasi);
+    }
+    
+    /**
+     * Menyewa nomor node pertama yang file sewanya belum dikunci proses lain
+     * @param direktori Direktori file sewa, dibuat jika belum ada
+     * @return Generator yang memegang kunci sewa sampai ditutup
+     * @throws IOException jika semua nomor node sedang disewa
+     */
+    public static GeneratorId sewaNode(Path direktori) throws IOException {
+        Files.createDirectories(direktori);
+        for (int node = 0; node <= MAKS_NODE; node++) {
+            Path file = direktori.resolve(String.format("node-%04d.lease", node)).toAbsolutePath().normalize();
+            if (!SEWA_AKTIF.add(file)) {
+                // Sudah disewa generator lain di JVM yang sama
+                continue;
+            }
+            FileLock kunci = null;
+            FileChannel channel = null;
+            try {
+                channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                kunci = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                // Dikunci lewat channel lain di JVM ini, diperlakukan sebagai sedang disewa
+            } finally {
+                if (kunci == null) {
+                    SEWA_AKTIF.remove(file);
+                    if (channel != null) {
+                        channel.close();
+                    }
+                }
+            }
+            if (kunci != null) {
+                logger.info("Nomor node ID {} disewa lewat {}", node, file);
+                return new GeneratorId(node, file, channel, kunci);
+            }
+        }
+        throw new IOException("Semua " + (MAKS_NODE + 1) + " nomor node di " + direktori + " sedang disewa");
+    }
+    
+    /**
+     * Membuat ID berikutnya tanpa lock
+     * @return ID yang lebih besar dari semua ID sebelumnya dari generator ini
+     */
+    public long berikutnya() {
+        long sekarang = (System.currentTimeMillis() - EPOCH) << BIT_URUTAN;
+        long hasil = keadaan.accumulateAndGet(sekarang, (lama, waktu) -> Math.max(waktu, lama + 1));
+        if ((hasil >>> BIT_URUTAN) > MAKS_WAKTU) {
+            throw new IllegalStateException("Waktu ID melebihi 41 bit sejak epoch " + EPOCH);
+        }
+        return ((hasil >>> BIT_URUTAN) << (BIT_NODE + BIT_URUTAN))
+            | ((long) node << BIT_URUTAN)
+            | (hasil & ((1L << BIT_URUTAN) - 1));
+    }
+    
+    /**
+     * Memastikan ID berikutnya lebih besar dari ID yang sudah tersimpan, dipanggil setelah pemulihan
+     * Melindungi dari jam yang mundur di antara dua proses dan dari milidetik yang dipinjam proses
+     * sebelumnya; ID lama dari penghitung per proses selalu lebih kecil dari ID generator
+     * @param idTerbesar ID terbesar yang sudah tersimpan
+     */
+    public void lanjutkanSetelah(long idTerbesar) {
+        if (idTerbesar <= 0) {
+            return;
+        }
+        long waktu = (idTerbesar >>> (BIT_NODE + BIT_URUTAN)) + 1;
+        keadaan.accumulateAndGet(waktu << BIT_URUTAN, Math::max);
+    }
+    
+    public int getNode() {
+        return node;
+    }
+    
+    /**
+     * Waktu pembuatan ID dalam epoch millis
+     */
+    public static long waktuDari(long id) {
+        return (id >>> (BIT_NODE + BIT_URUTAN)) + EPOCH;
+    }
+    
+    /**
+     * Nomor node pembuat ID
+     */
+    public static int nodeDari(long id) {
+        return (int) (id >>> BIT_URUTAN) & MAKS_NODE;
+    }
+    
+    /**
+     * Melepas sewa nomor node, tidak berpengaruh jika nomor node berasal dari konfigurasi
+     */
+    @Override
+    public void close() throws IOException {
+        if (fileSewa == null) {
+            return;
+        }
+        try {
+            if (kunciSewa.isValid()) {
+                kunciSewa.release();
+            }
+        } finally {
+            fileSewa.close();
+            SEWA_AKTIF.remove(pathSewa);
+        }
+    }
+    
+    /**
+     * Membaca pengaturan dari property sistem, lalu dari variabel lingkungan
+     */
+    private static String bacaPengaturan(String properti, String env) {
+        String nilai = System.getProperty(properti);
+        return nilai != null ? nilai : System.getenv(env);
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,259 @@
+package com.ecommerce.pengiriman.util;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Indeks sekunder satu segmen TabelPengiriman: kode nilai kolom (kode status atau kode KamusString)
+ * ke ID pengiriman yang memiliki nilai tersebut
+ *
+ * Setiap pasangan (kode, ID) menempati satu slot open addressing (linear probing) pada array
+ * primitif, dan pasangan dengan kode yang sama dirangkai dengan tautan dua arah antar slot yang
+ * berawal di tabel kepala per kode. Menambah dan menghapus pasangan O(1) berapa pun jumlah ID per
+ * kode (status dan kurir memiliki sedikit nilai dengan sangat banyak ID, nama pelanggan sebaliknya),
+ * dan mencari ID satu kode hanya menelusuri rangkaiannya. Seperti tabel, tidak ada objek per
+ * pengiriman di heap.
+ *
+ * Slot yang dihapus ditandai bekas agar tautan slot lain tetap berlaku; indeks dibangun ulang saat
+ * slot terisi dan bekas melewati 3/4 kapasitas. Kelas ini tidak thread-safe, pemanggil memegang
+ * lock segmen.
+ */
+final class IndeksSekunder {
+    private static final byte KOSONG = 0;
+    private static final byte TERISI = 1;
+    private static final byte BEKAS = 2;
+    
+    // Tautan ke slot yang tidak ada (akhir rangkaian)
+    private static final int TIDAK_ADA = -1;
+    
+    private static final int KAPASITAS_AWAL = 16;
+    
+    // Pasangan (kode, ID) per slot beserta tautan ke slot sebelum dan berikutnya dengan kode yang sama
+    private int[] kode;
+    private long[] id;
+    private int[] sebelum;
+    private int[] berikut;
+    private byte[] keadaan;
+    private int terisi;
+    private int bekas;
+    
+    // Tabel kepala per kode: slot pertama rangkaian dan jumlah ID. Kode yang rangkaiannya sudah
+    // kosong tetap tercatat dengan jumlah 0 sampai tabel kepala dibangun ulang
+    private int[] kodeKepala;
+    private int[] kepala;
+    private int[] jumlahPerKode;
+    private boolean[] kepalaTerpakai;
+    private int jumlahKepala;
+    
+    IndeksSekunder() {
+        alokasiSlot(KAPASITAS_AWAL);
+        alokasiKepala(KAPASITAS_AWAL);
+    }
+    
+    /**
+     * Mencatat ID untuk kode; pemanggil menjamin pasangan ini belum tercatat
+     */
+    void tambah(int kodeNilai, long idPengiriman) {
+        if (terisi + bekas + 1 > kode.length * 3 / 4) {
+            bangunUlang();
+        }
+        tempatkan(kodeNilai, idPengiriman);
+    }
+    
+    /**
+     * Menghapus ID dari kode
+     * @return true jika pasangan ditemukan dan dihapus
+     */
+    boolean hapus(int kodeNilai, long idPengiriman) {
+        int mask = kode.length - 1;
+        int slot = sebar(kodeNilai, idPengiriman) & mask;
+        while (keadaan[slot] != KOSONG) {
+            if (keadaan[slot] == TERISI && id[slot] == idPengiriman && kode[slot] == kodeNilai) {
+                int k = slotKepala(kodeNilai);
+                if (sebelum[slot] != TIDAK_ADA) {
+                    berikut[sebelum[slot]] = berikut[slot];
+                } else {
+                    kepala[k] = berikut[slot];
+                }
+                if (berikut[slot] != TIDAK_ADA) {
+                    sebelum[berikut[slot]] = sebelum[slot];
+                }
+                jumlahPerKode[k]--;
+                keadaan[slot] = BEKAS;
+                terisi--;
+                bekas++;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+    
+    /**
+     * Jumlah ID yang tercatat untuk kode
+     */
+    int jumlah(int kodeNilai) {
+        int k = slotKepala(kodeNilai);
+        return k >= 0 ? jumlahPerKode[k] : 0;
+    }
+    
+    /**
+     * Memanggil aksi untuk setiap ID yang tercatat untuk kode, tanpa urutan tertentu
+     */
+    void forEach(int kodeNilai, LongConsumer aksi) {
+        int k = slotKepala(kodeNilai);
+        if (k < 0) {
+            return;
+        }
+        for (int slot = kepala[k]; slot != TIDAK_ADA; slot = berikut[slot]) {
+            aksi.accept(id[slot]);
+        }
+    }
+    
+    private void tempatkan(int kodeNilai, long idPengiriman) {
+        int mask = kode.length - 1;
+        int slot = sebar(kodeNilai, idPengiriman) & mask;
+        while (keadaan[slot] == TERISI) {
+            slot = (slot + 1) & mask;
+        }
+        if (keadaan[slot] == BEKAS) {
+            bekas--;
+        }
+        kode[slot] = kodeNilai;
+        id[slot] = idPengiriman;
+        keadaan[slot] = TERISI;
+        terisi++;
+        
+        // Pasangan baru menjadi awal rangkaian kodenya
+        int k = slotKepalaUntukDitulis(kodeNilai);
+        int pertama = kepala[k];
+        sebelum[slot] = TIDAK_ADA;
+        berikut[slot] = pertama;
+        if (pertama != TIDAK_ADA) {
+            sebelum[pertama] = slot;
+        }
+        kepala[k] = slot;
+        jumlahPerKode[k]++;
+    }
+    
+    /**
+     * Menyusun ulang semua pasangan ke array baru: membuang slot bekas, memperbesar atau memperkecil
+     * kapasitas sesuai jumlah pasangan, dan membuang kode yang rangkaiannya kosong
+     */
+    private void bangunUlang() {
+        int[] kodeLama = kode;
+        long[] idLama = id;
+        byte[] keadaanLama = keadaan;
+        int kapasitas = KAPASITAS_AWAL;
+        while ((terisi + 1) * 2 > kapasitas) {
+            kapasitas <<= 1;
+        }
+        alokasiSlot(kapasitas);
+        alokasiKepala(KAPASITAS_AWAL);
+        for (int i = 0; i < keadaanLama.length; i++) {
+            if (keadaanLama[i] == TERISI) {
+                tempatkan(kodeLama[i], idLama[i]);
+            }
+        }
+    }
+    
+    private void alokasiSlot(int kapasitas) {
+        kode = new int[kapasitas];
+        id = new long[kapasitas];
+        sebelum = new int[kapasitas];
+        berikut = new int[kapasitas];
+        keadaan = new byte[kapasitas];
+        terisi = 0;
+        bekas = 0;
+    }
+    
+    private void alokasiKepala(int kapasitas) {
+        kodeKepala = new int[kapasitas];
+        kepala = new int[kapasitas];
+        jumlahPerKode = new int[kapasitas];
+        kepalaTerpakai = new boolean[kapasitas];
+        jumlahKepala = 0;
+    }
+    
+    /**
+     * Slot tabel kepala untuk kode, atau -1 jika kode belum pernah tercatat
+     */
+    private int slotKepala(int kodeNilai) {
+        int mask = kodeKepala.length - 1;
+        int k = sebar(kodeNilai) & mask;
+        while (kepalaTerpakai[k]) {
+            if (kodeKepala[k] == kodeNilai) {
+                return k;
+            }
+            k = (k + 1) & mask;
+        }
+        return -1;
+    }
+    
+    private int slotKepalaUntukDitulis(int kodeNilai) {
+        int k = slotKepala(kodeNilai);
+        if (k >= 0) {
+            return k;
+        }
+        if (jumlahKepala + 1 > kodeKepala.length * 3 / 4) {
+            perbesarKepala();
+        }
+        int mask = kodeKepala.length - 1;
+        k = sebar(kodeNilai) & mask;
+        while (kepalaTerpakai[k]) {
+            k = (k + 1) & mask;
+        }
+        kepalaTerpakai[k] = true;
+        kodeKepala[k] = kodeNilai;
+        kepala[k] = TIDAK_ADA;
+        jumlahPerKode[k] = 0;
+        jumlahKepala++;
+        return k;
+    }
+    
+    /**
+     * Memindahkan kode yang masih memiliki ID ke tabel kepala baru; kapasitas digandakan
+     * hanya jika kode yang tersisa masih memenuhi setengah tabel
+     */
+    private void perbesarKepala() {
+        int[] kodeLama = kodeKepala;
+        int[] kepalaLama = kepala;
+        int[] jumlahLama = jumlahPerKode;
+        boolean[] terpakaiLama = kepalaTerpakai;
+        int aktif = 0;
+        for (int i = 0; i < terpakaiLama.length; i++) {
+            if (terpakaiLama[i] && jumlahLama[i] > 0) {
+                aktif++;
+            }
+        }
+        int kapasitas = KAPASITAS_AWAL;
+        while ((aktif + 1) * 2 > kapasitas) {
+            kapasitas <<= 1;
+        }
+        alokasiKepala(kapasitas);
+        int mask = kapasitas - 1;
+        for (int i = 0; i < terpakaiLama.length; i++) {
+            if (!terpakaiLama[i] || jumlahLama[i] == 0) {
+                continue;
+            }
+            int k = sebar(kodeLama[i]) & mask;
+            while (kepalaTerpakai[k]) {
+                k = (k + 1) & mask;
+            }
+            kepalaTerpakai[k] = true;
+            kodeKepala[k] = kodeLama[i];
+            kepala[k] = kepalaLama[i];
+            jumlahPerKode[k] = jumlahLama[i];
+            jumlahKepala++;
+        }
+    }
+    
+    private static int sebar(int kodeNilai) {
+        int hash = kodeNilai * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+    
+    private static int sebar(int kodeNilai, long idPengiriman) {
+        long hash = (idPengiriman + kodeNilai * 0xC2B2AE3D27D4EB4FL) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+} 
\ No newline at end of file
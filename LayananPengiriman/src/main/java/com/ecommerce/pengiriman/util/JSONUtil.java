@@ -1,65 +1,119 @@
 package com.ecommerce.pengiriman.util;
 
 import com.ecommerce.pengiriman.model.DetailPengiriman;
-import org.json.JSONObject;
 
-import java.util.concurrent.atomic.AtomicInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
 
 /**
  * Utilitas untuk konversi JSON
+ * Menggunakan JSONWriter dan JSONReader sehingga JSON ditulis langsung ke byte UTF-8
+ * dan dibaca langsung dari body pesan tanpa membangun pohon JSONObject
  */
 public class JSONUtil {
-    // Counter untuk ID pengiriman, menggunakan AtomicInteger untuk thread-safety
-    private static final AtomicInteger pengirimanCounter = new AtomicInteger(1);
+    // Generator ID pengiriman, diganti aplikasi lewat setGeneratorId() dengan nomor node dari konfigurasi
+    // Bawaan node 0 untuk pemakaian tertanam seperti benchmark dan transport di memori
+    private static volatile GeneratorId generatorId = new GeneratorId(0);
+    
+    // Writer dan reader dipakai ulang per thread agar tidak ada alokasi buffer per pesan
+    private static final ThreadLocal<JSONWriter> WRITER = ThreadLocal.withInitial(() -> new JSONWriter(256));
+    private static final ThreadLocal<JSONReader> READER = ThreadLocal.withInitial(JSONReader::new);
+    
+    // Nama field pesan DetailPengiriman, urutan sesuai konstanta indeks di bawahnya
+    private static final byte[][] FIELD_PENGIRIMAN = JSONReader.namaField(
+        "id", "idPesanan", "namaPelanggan", "alamatPengiriman", "statusPengiriman", "kurirPengiriman", "nomorResi");
+    private static final int PENGIRIMAN_ID = 0;
+    private static final int PENGIRIMAN_ID_PESANAN = 1;
+    private static final int PENGIRIMAN_NAMA = 2;
+    private static final int PENGIRIMAN_ALAMAT = 3;
+    private static final int PENGIRIMAN_STATUS = 4;
+    private static final int PENGIRIMAN_KURIR = 5;
+    private static final int PENGIRIMAN_RESI = 6;
+    
+    // Nama field pesan pesanan baru yang dibutuhkan LayananPengiriman
+    private static final byte[][] FIELD_PESANAN = JSONReader.namaField("id", "namaPelanggan", "alamatPengiriman");
+    private static final int PESANAN_ID = 0;
+    private static final int PESANAN_NAMA = 1;
+    private static final int PESANAN_ALAMAT = 2;
     
     /**
      * Mengkonversi DetailPengiriman ke string JSON
      */
     public static String toJSON(DetailPengiriman pengiriman) {
-        JSONObject json = new JSONObject();
-        
-        // Tambahkan properti dari DetailPengiriman ke JSON
-        json.put("id", pengiriman.getId());
-        json.put("idPesanan", pengiriman.getIdPesanan());
-        json.put("namaPelanggan", pengiriman.getNamaPelanggan());
-        json.put("alamatPengiriman", pengiriman.getAlamatPengiriman());
-        json.put("statusPengiriman", pengiriman.getStatusPengiriman());
-        
-        // Tambahkan properti opsional jika tidak null
-        if (pengiriman.getKurirPengiriman() != null) {
-            json.put("kurirPengiriman", pengiriman.getKurirPengiriman());
-        }
-        
-        if (pengiriman.getNomorResi() != null) {
-            json.put("nomorResi", pengiriman.getNomorResi());
-        }
-        
-        return json.toString();
+        JSONWriter writer = tulisPengiriman(pengiriman);
+        return new String(writer.buffer(), 0, writer.size(), StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Mengkonversi DetailPengiriman ke JSON dalam bentuk byte UTF-8 yang siap dikirim
+     */
+    public static byte[] toJSONBytes(DetailPengiriman pengiriman) {
+        return tulisPengiriman(pengiriman).toByteArray();
+    }
+    
+    private static JSONWriter tulisPengiriman(DetailPengiriman pengiriman) {
+        // Properti opsional (kurir dan nomor resi) otomatis dilewati jika null
+        return WRITER.get().reset()
+            .beginObject()
+            .field("id", pengiriman.getId())
+            .field("idPesanan", pengiriman.getIdPesanan())
+            .field("namaPelanggan", pengiriman.getNamaPelanggan())
+            .field("alamatPengiriman", pengiriman.getAlamatPengiriman())
+            .field("statusPengiriman", pengiriman.getStatusPengiriman())
+            .field("kurirPengiriman", pengiriman.getKurirPengiriman())
+            .field("nomorResi", pengiriman.getNomorResi())
+            .endObject();
     }
     
     /**
      * Mengkonversi string JSON ke DetailPengiriman
      */
     public static DetailPengiriman toDetailPengiriman(String jsonString) {
-        JSONObject json = new JSONObject(jsonString);
-        
-        int id = json.getInt("id");
-        int idPesanan = json.getInt("idPesanan");
-        String namaPelanggan = json.getString("namaPelanggan");
-        String alamatPengiriman = json.getString("alamatPengiriman");
-        String statusPengiriman = json.getString("statusPengiriman");
-        
-        DetailPengiriman pengiriman = new DetailPengiriman(id, idPesanan, namaPelanggan, alamatPengiriman);
-        pengiriman.setStatusPengiriman(statusPengiriman);
-        
-        if (json.has("kurirPengiriman")) {
-            pengiriman.setKurirPengiriman(json.getString("kurirPengiriman"));
-        }
+        return toDetailPengiriman(jsonString.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Mengkonversi JSON dalam bentuk byte UTF-8 ke DetailPengiriman
+     */
+    public static DetailPengiriman toDetailPengiriman(byte[] json) {
+        JSONReader reader = READER.get().reset(json);
+        DetailPengiriman pengiriman = new DetailPengiriman();
+        int fieldDitemukan = 0;
         
-        if (json.has("nomorResi")) {
-            pengiriman.setNomorResi(json.getString("nomorResi"));
+        reader.beginObject();
+        while (reader.hasNextField()) {
+            int field = reader.nextField(FIELD_PENGIRIMAN);
+            switch (field) {
+                case PENGIRIMAN_ID:
+                    pengiriman.setId(reader.nextLong());
+                    break;
+                case PENGIRIMAN_ID_PESANAN:
+                    pengiriman.setIdPesanan(reader.nextLong());
+                    break;
+                case PENGIRIMAN_NAMA:
+                    pengiriman.setNamaPelanggan(reader.nextString());
+                    break;
+                case PENGIRIMAN_ALAMAT:
+                    pengiriman.setAlamatPengiriman(reader.nextString());
+                    break;
+                case PENGIRIMAN_STATUS:
+                    pengiriman.setStatusPengiriman(reader.nextString());
+                    break;
+                case PENGIRIMAN_KURIR:
+                    pengiriman.setKurirPengiriman(reader.nextNull() ? null : reader.nextString());
+                    break;
+                case PENGIRIMAN_RESI:
+                    pengiriman.setNomorResi(reader.nextNull() ? null : reader.nextString());
+                    break;
+                default:
+                    reader.skipValue();
+                    continue;
+            }
+            fieldDitemukan |= 1 << field;
         }
         
+        periksaFieldWajib(fieldDitemukan, FIELD_PENGIRIMAN, PENGIRIMAN_ID, PENGIRIMAN_ID_PESANAN,
+            PENGIRIMAN_NAMA, PENGIRIMAN_ALAMAT, PENGIRIMAN_STATUS);
         return pengiriman;
     }
     
@@ -67,15 +121,76 @@ public class JSONUtil {
      * Mengkonversi JSON pesanan menjadi DetailPengiriman
      */
     public static DetailPengiriman pesananToDetailPengiriman(String jsonPesanan) {
-        JSONObject jsonObject = new JSONObject(jsonPesanan);
+        return pesananToDetailPengiriman(jsonPesanan.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Mengkonversi JSON pesanan dalam bentuk byte UTF-8 menjadi DetailPengiriman
+     */
+    public static DetailPengiriman pesananToDetailPengiriman(byte[] jsonPesanan) {
+        JSONReader reader = READER.get().reset(jsonPesanan);
+        long idPesanan = 0;
+        String namaPelanggan = null;
+        String alamatPengiriman = null;
+        int fieldDitemukan = 0;
         
-        int idPesanan = jsonObject.getInt("id");
-        String namaPelanggan = jsonObject.getString("namaPelanggan");
-        String alamatPengiriman = jsonObject.getString("alamatPengiriman");
+        reader.beginObject();
+        while (reader.hasNextField()) {
+            int field = reader.nextField(FIELD_PESANAN);
+            switch (field) {
+                case PESANAN_ID:
+                    idPesanan = reader.nextLong();
+                    break;
+                case PESANAN_NAMA:
+                    namaPelanggan = reader.nextString();
+                    break;
+                case PESANAN_ALAMAT:
+                    alamatPengiriman = reader.nextString();
+                    break;
+                default:
+                    reader.skipValue();
+                    continue;
+            }
+            fieldDitemukan |= 1 << field;
+        }
+        periksaFieldWajib(fieldDitemukan, FIELD_PESANAN, PESANAN_ID, PESANAN_NAMA, PESANAN_ALAMAT);
         
-        // Generate ID pengiriman baru dari counter lokal
-        int idPengiriman = pengirimanCounter.getAndIncrement();
+        // Generate ID pengiriman baru dari generator ID node ini
+        long idPengiriman = idPengirimanBerikutnya();
         
         return new DetailPengiriman(idPengiriman, idPesanan, namaPelanggan, alamatPengiriman);
     }
+    
+    /**
+     * Mengambil ID pengiriman baru dari generator ID
+     * Dipakai bersama oleh decoder JSON dan biner
+     */
+    static long idPengirimanBerikutnya() {
+        return generatorId.berikutnya();
+    }
+    
+    /**
+     * Memasang generator ID pengiriman, dipanggil aplikasi sebelum consumer mulai menerima pesan
+     * @param generator Generator dengan nomor node instance ini
+     */
+    public static void setGeneratorId(GeneratorId generator) {
+        generatorId = Objects.requireNonNull(generator, "generator");
+    }
+    
+    /**
+     * Melanjutkan penomoran ID pengiriman setelah restart agar ID yang tersimpan tidak dipakai ulang
+     * @param idTerbesar ID pengiriman terbesar yang sudah tersimpan
+     */
+    public static void lanjutkanIdPengiriman(long idTerbesar) {
+        generatorId.lanjutkanSetelah(idTerbesar);
+    }
+    
+    private static void periksaFieldWajib(int fieldDitemukan, byte[][] namaField, int... wajib) {
+        for (int field : wajib) {
+            if ((fieldDitemukan & (1 << field)) == 0) {
+                throw new IllegalArgumentException("Field JSON wajib tidak ditemukan: "
+                    + new String(namaField[field], StandardCharsets.UTF_8));
+            }
+        }
+    }
 } 
\ No newline at end of file
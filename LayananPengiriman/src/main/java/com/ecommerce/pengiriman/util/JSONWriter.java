@@ -0,0 +1,235 @@
+package com.ecommerce.pengiriman.util;
+
+import java.util.Arrays;
+
+/**
+ * Penulis JSON sederhana yang menulis UTF-8 langsung ke buffer byte yang dapat dipakai ulang
+ *
+ * Hanya mendukung objek datar (tanpa objek/array bersarang) karena itulah format pesan
+ * yang dipertukarkan antara LayananPesanan dan LayananPengiriman.
+ * Format angka dan string mengikuti keluaran org.json agar pesan tetap kompatibel.
+ * Instance tidak thread-safe, gunakan satu instance per thread.
+ */
+public final class JSONWriter {
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    
+    // Buffer penampung hasil tulisan, diperbesar otomatis jika penuh
+    private byte[] buffer;
+    
+    // Posisi tulis berikutnya di dalam buffer
+    private int posisi;
+    
+    // true jika belum ada field yang ditulis pada objek saat ini
+    private boolean fieldPertama;
+    
+    public JSONWriter(int kapasitasAwal) {
+        this.buffer = new byte[Math.max(16, kapasitasAwal)];
+    }
+    
+    /**
+     * Mengosongkan buffer agar writer dapat dipakai untuk pesan berikutnya
+     */
+    public JSONWriter reset() {
+        posisi = 0;
+        return this;
+    }
+    
+    public JSONWriter beginObject() {
+        tulisByte('{');
+        fieldPertama = true;
+        return this;
+    }
+    
+    public JSONWriter endObject() {
+        tulisByte('}');
+        return this;
+    }
+    
+    public JSONWriter field(String nama, int nilai) {
+        namaField(nama);
+        tulisLong(nilai);
+        return this;
+    }
+    
+    public JSONWriter field(String nama, long nilai) {
+        namaField(nama);
+        tulisLong(nilai);
+        return this;
+    }
+    
+    public JSONWriter field(String nama, double nilai) {
+        if (Double.isNaN(nilai) || Double.isInfinite(nilai)) {
+            throw new IllegalArgumentException("Nilai JSON tidak boleh NaN atau Infinity: " + nama);
+        }
+        namaField(nama);
+        tulisDouble(nilai);
+        return this;
+    }
+    
+    /**
+     * Menulis field string, field dilewati jika nilai null (sama seperti JSONObject.put)
+     */
+    public JSONWriter field(String nama, String nilai) {
+        if (nilai != null) {
+            namaField(nama);
+            tulisString(nilai);
+        }
+        return this;
+    }
+    
+    /**
+     * Jumlah byte yang sudah ditulis
+     */
+    public int size() {
+        return posisi;
+    }
+    
+    /**
+     * Buffer internal, hanya byte ke-0 sampai size()-1 yang berisi data
+     */
+    public byte[] buffer() {
+        return buffer;
+    }
+    
+    /**
+     * Salinan hasil tulisan dengan panjang yang pas
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, posisi);
+    }
+    
+    private void namaField(String nama) {
+        if (!fieldPertama) {
+            tulisByte(',');
+        }
+        fieldPertama = false;
+        tulisString(nama);
+        tulisByte(':');
+    }
+    
+    private void tulisLong(long nilai) {
+        if (nilai == Long.MIN_VALUE) {
+            tulisAscii(Long.toString(nilai));
+            return;
+        }
+        pastikanKapasitas(20);
+        if (nilai < 0) {
+            buffer[posisi++] = '-';
+            nilai = -nilai;
+        }
+        // Hitung jumlah digit lalu tulis dari belakang tanpa membuat String
+        int digit = 1;
+        for (long batas = 10; digit < 19 && nilai >= batas; batas *= 10) {
+            digit++;
+        }
+        int akhir = posisi + digit;
+        for (int i = akhir - 1; i >= posisi; i--) {
+            buffer[i] = (byte) ('0' + (nilai % 10));
+            nilai /= 10;
+        }
+        posisi = akhir;
+    }
+    
+    private void tulisDouble(double nilai) {
+        // Bilangan bulat ditulis tanpa ".0", sama seperti JSONObject.numberToString
+        if (nilai == (long) nilai && Math.abs(nilai) < 1e7 && (nilai != 0 || 1 / nilai > 0)) {
+            tulisLong((long) nilai);
+            return;
+        }
+        String teks = Double.toString(nilai);
+        if (teks.indexOf('.') > 0 && teks.indexOf('e') < 0 && teks.indexOf('E') < 0) {
+            int panjang = teks.length();
+            while (teks.charAt(panjang - 1) == '0') {
+                panjang--;
+            }
+            if (teks.charAt(panjang - 1) == '.') {
+                panjang--;
+            }
+            teks = teks.substring(0, panjang);
+        }
+        tulisAscii(teks);
+    }
+    
+    private void tulisAscii(String teks) {
+        pastikanKapasitas(teks.length());
+        for (int i = 0; i < teks.length(); i++) {
+            buffer[posisi++] = (byte) teks.charAt(i);
+        }
+    }
+    
+    private void tulisString(String teks) {
+        // Kasus terburuk: setiap karakter menjadi \\uXXXX (6 byte), ditambah dua tanda kutip
+        pastikanKapasitas(teks.length() * 6 + 2);
+        byte[] buf = buffer;
+        int pos = posisi;
+        buf[pos++] = '"';
+        for (int i = 0; i < teks.length(); i++) {
+            char c = teks.charAt(i);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\' && c != '/') {
+                buf[pos++] = (byte) c;
+            } else if (c == '/') {
+                // org.json menulis "</" sebagai "<\/"
+                if (i > 0 && teks.charAt(i - 1) == '<') {
+                    buf[pos++] = '\\';
+                }
+                buf[pos++] = '/';
+            } else if (c == '"' || c == '\\') {
+                buf[pos++] = '\\';
+                buf[pos++] = (byte) c;
+            } else if (c < 0x20) {
+                buf[pos++] = '\\';
+                switch (c) {
+                    case '\b': buf[pos++] = 'b'; break;
+                    case '\f': buf[pos++] = 'f'; break;
+                    case '\n': buf[pos++] = 'n'; break;
+                    case '\r': buf[pos++] = 'r'; break;
+                    case '\t': buf[pos++] = 't'; break;
+                    default: pos = tulisEscapeUnicode(buf, pos, c);
+                }
+            } else if ((c >= 0x80 && c < 0xA0) || (c >= 0x2000 && c < 0x2100)) {
+                // Rentang karakter yang juga di-escape oleh JSONObject.quote
+                buf[pos++] = '\\';
+                pos = tulisEscapeUnicode(buf, pos, c);
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xC0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < teks.length()
+                    && Character.isLowSurrogate(teks.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, teks.charAt(++i));
+                buf[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                buf[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buf[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Surrogate tanpa pasangan diganti '?' seperti String.getBytes(UTF_8)
+                buf[pos++] = '?';
+            } else {
+                buf[pos++] = (byte) (0xE0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        buf[pos++] = '"';
+        posisi = pos;
+    }
+    
+    private static int tulisEscapeUnicode(byte[] buf, int pos, char c) {
+        buf[pos++] = 'u';
+        buf[pos++] = HEX[(c >> 12) & 0xF];
+        buf[pos++] = HEX[(c >> 8) & 0xF];
+        buf[pos++] = HEX[(c >> 4) & 0xF];
+        buf[pos++] = HEX[c & 0xF];
+        return pos;
+    }
+    
+    private void tulisByte(char c) {
+        pastikanKapasitas(1);
+        buffer[posisi++] = (byte) c;
+    }
+    
+    private void pastikanKapasitas(int tambahan) {
+        if (posisi + tambahan > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, posisi + tambahan));
+        }
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,246 @@
+package com.ecommerce.pengiriman.util;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Jendela deduplikasi ID pesan (AMQP message-id) untuk consumer
+ *
+ * Mendeteksi pesan yang diterima lebih dari sekali, misalnya redelivery broker setelah channel
+ * putus atau kiriman ulang producer yang sebenarnya sudah sampai, tanpa menyimpan riwayat ID tanpa
+ * batas. ID disimpan sebagai sidik 64-bit dalam dua generasi yang bergiliran: generasi aktif
+ * menerima ID baru dan generasi sebelumnya hanya diperiksa. Generasi berganti setiap setengah
+ * jendela atau ketika generasi aktif mencapai kapasitas, sehingga ID diingat paling sedikit
+ * setengah jendela (lebih singkat jika laju pesan melebihi kapasitas) dan memori dibatasi dua
+ * generasi.
+ *
+ * Setiap generasi memiliki bloom filter berblok (satu word 64-bit per ID) di depan himpunan sidik.
+ * Hampir semua pesan adalah pesan baru, dan bloom filter yang kecil menjawab "pasti belum pernah"
+ * dengan satu akses memori. Himpunan sidik (open addressing pada long[] tanpa objek per ID)
+ * diperiksa hanya jika bloom filter menjawab "mungkin", sehingga false positive bloom filter tidak
+ * membuat pesan baru dibuang.
+ *
+ * Isi jendela hanya ada di memori, duplikat setelah proses restart tidak terdeteksi.
+ */
+public class JendelaDedup {
+    
+    // Ukuran awal tabel sidik per generasi, tabel membesar dua kali lipat sampai dua kali kapasitas
+    private static final int UKURAN_AWAL_TABEL = 1024;
+    
+    // Jumlah bit bloom filter per ID, dalam satu word sehingga cukup satu akses memori
+    private static final int JUMLAH_BIT_BLOOM = 4;
+    
+    // Rata-rata ID per word bloom filter pada kapasitas penuh (8 bit per ID)
+    private static final int ID_PER_WORD_BLOOM = 8;
+    
+    private final long jendelaNanos;
+    private final int kapasitas;
+    
+    private Generasi aktif;
+    private Generasi sebelumnya;
+    private long awalAktif;
+    
+    // Jumlah pesan duplikat yang terdeteksi, dibaca tanpa lock
+    private final AtomicLong jumlahDuplikat = new AtomicLong();
+    
+    /**
+     * @param jendelaMs Lama jendela deduplikasi dalam milidetik
+     * @param kapasitas Jumlah ID maksimum per generasi (setengah jendela)
+     */
+    public JendelaDedup(long jendelaMs, int kapasitas) {
+        if (jendelaMs <= 0) {
+            throw new IllegalArgumentException("Jendela deduplikasi harus lebih dari 0: " + jendelaMs);
+        }
+        if (kapasitas < 1 || kapasitas > (1 << 24)) {
+            throw new IllegalArgumentException("Kapasitas deduplikasi harus antara 1 dan 2^24: " + kapasitas);
+        }
+        this.jendelaNanos = TimeUnit.MILLISECONDS.toNanos(jendelaMs);
+        this.kapasitas = kapasitas;
+        this.aktif = new Generasi(kapasitas);
+        this.sebelumnya = new Generasi(kapasitas);
+        this.awalAktif = System.nanoTime();
+    }
+    
+    /**
+     * Mencatat ID pesan dan memeriksa apakah ID sudah pernah tercatat di dalam jendela
+     * @param idPesan ID pesan
+     * @return true jika ID baru dan pesan perlu diproses, false jika pesan duplikat
+     */
+    public boolean tandai(String idPesan) {
+        long sidik = sidik(idPesan);
+        synchronized (this) {
+            gantiGenerasiJikaPerlu(System.nanoTime());
+            if (aktif.mengandung(sidik) || sebelumnya.mengandung(sidik)) {
+                jumlahDuplikat.incrementAndGet();
+                return false;
+            }
+            aktif.tambahkan(sidik);
+            return true;
+        }
+    }
+    
+    /**
+     * Menghapus ID pesan dari jendela, misalnya karena pesan dikembalikan ke queue tanpa diproses
+     * sehingga kiriman berikutnya harus diproses dan bukan dianggap duplikat
+     * @param idPesan ID pesan yang sebelumnya dicatat dengan tandai()
+     */
+    public void lupakan(String idPesan) {
+        long sidik = sidik(idPesan);
+        synchronized (this) {
+            // Bit bloom filter tidak dapat dihapus, bloom filter hanya menjawab "mungkin" untuk ID ini
+            if (!aktif.hapus(sidik)) {
+                sebelumnya.hapus(sidik);
+            }
+        }
+    }
+    
+    /**
+     * Jumlah pesan duplikat yang sudah terdeteksi
+     */
+    public long getJumlahDuplikat() {
+        return jumlahDuplikat.get();
+    }
+    
+    private void gantiGenerasiJikaPerlu(long sekarang) {
+        long umur = sekarang - awalAktif;
+        if (umur >= jendelaNanos) {
+            // Kedua generasi sudah di luar jendela, misalnya setelah lama tidak ada pesan
+            aktif.kosongkan();
+            sebelumnya.kosongkan();
+            awalAktif = sekarang;
+        } else if (umur >= jendelaNanos / 2 || aktif.jumlah >= kapasitas) {
+            // Generasi tertua dibuang dan larik-lariknya dipakai ulang sebagai generasi aktif
+            Generasi tertua = sebelumnya;
+            tertua.kosongkan();
+            sebelumnya = aktif;
+            aktif = tertua;
+            awalAktif = sekarang;
+        }
+    }
+    
+    /**
+     * Sidik 64-bit ID pesan: FNV-1a per karakter lalu finaliser MurmurHash3 (fmix64)
+     * 0 dipakai sebagai slot kosong pada tabel sidik sehingga diganti 1
+     */
+    private static long sidik(String idPesan) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < idPesan.length(); i++) {
+            h = (h ^ idPesan.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h != 0 ? h : 1;
+    }
+    
+    /**
+     * Satu generasi: bloom filter berblok dan himpunan sidik
+     * Hanya diakses di dalam lock JendelaDedup
+     */
+    private static final class Generasi {
+        private final long[] bloom;
+        private final int maskBloom;
+        private long[] tabel = new long[UKURAN_AWAL_TABEL];
+        private int jumlah;
+        
+        private Generasi(int kapasitas) {
+            int jumlahWord = Math.max(64, Integer.highestOneBit(Math.max(1, kapasitas / ID_PER_WORD_BLOOM - 1)) << 1);
+            this.bloom = new long[jumlahWord];
+            this.maskBloom = jumlahWord - 1;
+        }
+        
+        private boolean mengandung(long sidik) {
+            long pola = polaBloom(sidik);
+            if ((bloom[indeksBloom(sidik)] & pola) != pola) {
+                return false;
+            }
+            int mask = tabel.length - 1;
+            for (int i = indeksTabel(sidik, mask); tabel[i] != 0; i = (i + 1) & mask) {
+                if (tabel[i] == sidik) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        private void tambahkan(long sidik) {
+            bloom[indeksBloom(sidik)] |= polaBloom(sidik);
+            if ((jumlah + 1) * 2 > tabel.length) {
+                perbesarTabel();
+            }
+            masukkanKeTabel(tabel, sidik);
+            jumlah++;
+        }
+        
+        /**
+         * Menghapus sidik dengan backward shift deletion agar rantai probing tetap utuh tanpa tombstone
+         * @return true jika sidik ditemukan dan dihapus
+         */
+        private boolean hapus(long sidik) {
+            int mask = tabel.length - 1;
+            int kosong = indeksTabel(sidik, mask);
+            while (tabel[kosong] != sidik) {
+                if (tabel[kosong] == 0) {
+                    return false;
+                }
+                kosong = (kosong + 1) & mask;
+            }
+            // Geser sidik berikutnya di rantai yang sama ke slot kosong jika slot asalnya tidak
+            // berada di antara slot kosong dan posisinya sekarang
+            for (int j = (kosong + 1) & mask; tabel[j] != 0; j = (j + 1) & mask) {
+                int asal = indeksTabel(tabel[j], mask);
+                if (((j - asal) & mask) >= ((j - kosong) & mask)) {
+                    tabel[kosong] = tabel[j];
+                    kosong = j;
+                }
+            }
+            tabel[kosong] = 0;
+            jumlah--;
+            return true;
+        }
+        
+        private void kosongkan() {
+            Arrays.fill(bloom, 0);
+            Arrays.fill(tabel, 0);
+            jumlah = 0;
+        }
+        
+        private void perbesarTabel() {
+            long[] baru = new long[tabel.length * 2];
+            for (long sidik : tabel) {
+                if (sidik != 0) {
+                    masukkanKeTabel(baru, sidik);
+                }
+            }
+            tabel = baru;
+        }
+        
+        private static void masukkanKeTabel(long[] tabel, long sidik) {
+            int mask = tabel.length - 1;
+            int i = indeksTabel(sidik, mask);
+            while (tabel[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            tabel[i] = sidik;
+        }
+        
+        private int indeksBloom(long sidik) {
+            return (int) (sidik >>> 40) & maskBloom;
+        }
+        
+        private static long polaBloom(long sidik) {
+            long pola = 0;
+            for (int i = 0; i < JUMLAH_BIT_BLOOM; i++) {
+                pola |= 1L << ((sidik >>> (i * 6)) & 63);
+            }
+            return pola;
+        }
+        
+        private static int indeksTabel(long sidik, int mask) {
+            return (int) (sidik ^ (sidik >>> 29)) & mask;
+        }
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,247 @@
+package com.ecommerce.pengiriman.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Jurnal append-only untuk perubahan daftar pengiriman, ditulis ke file segmen yang di-memory-map
+ *
+ * Setiap rekaman berformat panjang payload (int32), CRC32 payload (int32), lalu payload:
+ * - TIPE_SIMPAN: id (int64), idPesanan (int64), tanggalPengiriman (epoch millis), kode status,
+ *   nama, alamat, kurir, nomor resi
+ * Setiap rekaman berisi baris lengkap sehingga pemutaran ulang cukup menimpa baris di tabel.
+ * String memakai format yang sama dengan BinaryUtil. File segmen dibuat dengan ukuran tetap dan
+ * berisi nol, sehingga panjang 0 menandakan akhir data. Rekaman terakhir yang terpotong saat crash
+ * dikenali dari panjang atau CRC yang tidak cocok dan diabaikan saat pemutaran ulang.
+ * Menulis ke memory map hanya menyalin ke page cache, sehingga tetap aman jika proses crash;
+ * force() dipanggil berkala oleh PenyimpananPengiriman agar aman juga jika mesin mati.
+ */
+public class JurnalPengiriman implements Closeable {
+    static final byte TIPE_SIMPAN = 2;
+    
+    private static final String AWALAN_FILE = "jurnal-";
+    private static final String AKHIRAN_FILE = ".log";
+    
+    // Panjang header rekaman: panjang payload dan CRC32
+    private static final int PANJANG_HEADER = 8;
+    
+    // Payload terbesar: field tetap ditambah empat string terpanjang
+    private static final int MAKS_PAYLOAD = 64 + 4 * (2 + 0xFFFF);
+    
+    private final Path direktori;
+    private final int ukuranSegmen;
+    
+    // Segmen yang sedang ditulis
+    private long nomorSegmen;
+    private FileChannel fileSegmen;
+    private MappedByteBuffer peta;
+    
+    // Segmen sebelumnya yang belum di-force, di-force pada panggilan force() berikutnya
+    // agar pergantian segmen tidak menahan penulis selama force
+    private MappedByteBuffer petaBelumForce;
+    
+    // Buffer payload dan checksum dipakai ulang, hanya diakses di dalam lock
+    private final ByteBuffer payload = ByteBuffer.allocate(MAKS_PAYLOAD);
+    private final CRC32 crc = new CRC32();
+    
+    /**
+     * Membuka jurnal dan membuat segmen baru untuk ditulis
+     * @param direktori Direktori file segmen
+     * @param ukuranSegmen Ukuran satu file segmen dalam byte
+     * @param nomorSegmen Nomor segmen pertama yang ditulis, harus lebih besar dari segmen yang sudah ada
+     */
+    public JurnalPengiriman(Path direktori, int ukuranSegmen, long nomorSegmen) throws IOException {
+        if (ukuranSegmen < PANJANG_HEADER + MAKS_PAYLOAD) {
+            throw new IllegalArgumentException("Ukuran segmen jurnal terlalu kecil: " + ukuranSegmen);
+        }
+        this.direktori = direktori;
+        this.ukuranSegmen = ukuranSegmen;
+        bukaSegmen(nomorSegmen);
+    }
+    
+    /**
+     * Mencatat pengiriman yang disimpan atau diganti
+     */
+    public synchronized void catatSimpan(long id, long idPesanan, long tanggal, byte status,
+                                         String nama, String alamat, String kurir, String resi) {
+        payload.clear();
+        payload.put(TIPE_SIMPAN).putLong(id).putLong(idPesanan).putLong(tanggal).put(status);
+        BinaryUtil.tulisString(payload, nama);
+        BinaryUtil.tulisString(payload, alamat);
+        BinaryUtil.tulisString(payload, kurir);
+        BinaryUtil.tulisString(payload, resi);
+        tulisRekaman();
+    }
+    
+    /**
+     * Menutup segmen aktif dan mulai menulis ke segmen berikutnya
+     * Dipakai sebelum checkpoint: semua rekaman di segmen sebelumnya sudah tercakup checkpoint
+     * @return Nomor segmen baru
+     */
+    public synchronized long gulirkan() throws IOException {
+        bukaSegmen(nomorSegmen + 1);
+        return nomorSegmen;
+    }
+    
+    /**
+     * Memaksa isi segmen aktif ke disk
+     */
+    public void force() {
+        MappedByteBuffer aktif;
+        MappedByteBuffer sebelumnya;
+        synchronized (this) {
+            aktif = peta;
+            sebelumnya = petaBelumForce;
+            petaBelumForce = null;
+        }
+        if (sebelumnya != null) {
+            sebelumnya.force();
+        }
+        if (aktif != null) {
+            aktif.force();
+        }
+    }
+    
+    /**
+     * Menghapus file segmen dengan nomor lebih kecil dari batas
+     */
+    public void hapusSebelum(long batas) throws IOException {
+        for (Path segmen : daftarSegmen(direktori)) {
+            if (nomorSegmen(segmen) < batas) {
+                Files.deleteIfExists(segmen);
+            }
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        force();
+        synchronized (this) {
+            peta = null;
+            if (fileSegmen != null) {
+                fileSegmen.close();
+                fileSegmen = null;
+            }
+        }
+    }
+    
+    private void tulisRekaman() {
+        payload.flip();
+        int panjang = payload.remaining();
+        if (peta == null) {
+            throw new IllegalStateException("Jurnal pengiriman sudah ditutup");
+        }
+        if (peta.remaining() < PANJANG_HEADER + panjang) {
+            try {
+                bukaSegmen(nomorSegmen + 1);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Gagal membuat segmen jurnal baru", e);
+            }
+        }
+        crc.reset();
+        crc.update(payload.array(), 0, panjang);
+        peta.putInt(panjang).putInt((int) crc.getValue()).put(payload);
+    }
+    
+    private void bukaSegmen(long nomor) throws IOException {
+        Files.createDirectories(direktori);
+        FileChannel baru = FileChannel.open(fileSegmen(direktori, nomor),
+            StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer petaBaru = baru.map(FileChannel.MapMode.READ_WRITE, 0, ukuranSegmen);
+        if (fileSegmen != null) {
+            // Mapping tetap berlaku setelah channel ditutup
+            fileSegmen.close();
+        }
+        if (petaBelumForce != null) {
+            // Jarang terjadi: dua pergantian segmen di antara dua force berkala
+            petaBelumForce.force();
+        }
+        petaBelumForce = peta;
+        fileSegmen = baru;
+        peta = petaBaru;
+        nomorSegmen = nomor;
+    }
+    
+    /**
+     * Memutar ulang satu file segmen ke tabel pengiriman
+     * @param segmen File segmen jurnal
+     * @param tabel Tabel tujuan, jurnal pada tabel harus belum dipasang
+     * @return Jumlah rekaman yang diputar ulang
+     */
+    static long putarUlang(Path segmen, TabelPengiriman tabel) throws IOException {
+        ByteBuffer payload = ByteBuffer.allocate(MAKS_PAYLOAD);
+        CRC32 crc = new CRC32();
+        long jumlah = 0;
+        try (FileChannel file = FileChannel.open(segmen, StandardOpenOption.READ)) {
+            MappedByteBuffer peta = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+            while (peta.remaining() >= PANJANG_HEADER) {
+                int panjang = peta.getInt();
+                int checksum = peta.getInt();
+                if (panjang <= 0 || panjang > MAKS_PAYLOAD || panjang > peta.remaining()) {
+                    break;
+                }
+                payload.clear();
+                peta.get(payload.array(), 0, panjang);
+                crc.reset();
+                crc.update(payload.array(), 0, panjang);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                payload.limit(panjang);
+                terapkan(payload, tabel);
+                jumlah++;
+            }
+        }
+        return jumlah;
+    }
+    
+    private static void terapkan(ByteBuffer payload, TabelPengiriman tabel) {
+        byte tipe = payload.get();
+        if (tipe != TIPE_SIMPAN) {
+            throw new IllegalArgumentException("Tipe rekaman jurnal tidak dikenal: " + tipe);
+        }
+        long id = payload.getLong();
+        long idPesanan = payload.getLong();
+        long tanggal = payload.getLong();
+        byte status = payload.get();
+        tabel.simpanMentah(id, idPesanan, tanggal, status, BinaryUtil.bacaString(payload),
+            BinaryUtil.bacaString(payload), BinaryUtil.bacaString(payload), BinaryUtil.bacaString(payload));
+    }
+    
+    /**
+     * Daftar file segmen jurnal di direktori, diurutkan berdasarkan nomor segmen
+     */
+    static List<Path> daftarSegmen(Path direktori) throws IOException {
+        List<Path> hasil = new ArrayList<>();
+        if (!Files.isDirectory(direktori)) {
+            return hasil;
+        }
+        try (DirectoryStream<Path> isi = Files.newDirectoryStream(direktori, AWALAN_FILE + "*" + AKHIRAN_FILE)) {
+            for (Path file : isi) {
+                hasil.add(file);
+            }
+        }
+        hasil.sort((a, b) -> Long.compare(nomorSegmen(a), nomorSegmen(b)));
+        return hasil;
+    }
+    
+    static long nomorSegmen(Path segmen) {
+        String nama = segmen.getFileName().toString();
+        return Long.parseLong(nama.substring(AWALAN_FILE.length(), nama.length() - AKHIRAN_FILE.length()));
+    }
+    
+    private static Path fileSegmen(Path direktori, long nomor) {
+        return direktori.resolve(String.format("%s%016d%s", AWALAN_FILE, nomor, AKHIRAN_FILE));
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,243 @@
+package com.ecommerce.pengiriman.util;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Delivery;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Kelas utilitas untuk kompresi body pesan dengan Deflate (format zlib, java.util.zip)
+ *
+ * Body yang dikompresi ditandai dengan properti AMQP content-encoding "deflate"; content-type tetap
+ * menyatakan format body setelah didekompresi, sehingga consumer memilih decoder seperti biasa.
+ * Pesanan dan status (alamat, nama, terutama amplop batch) berulang-ulang sehingga ukurannya turun
+ * beberapa kali lipat, yang berarti memori, disk, dan jaringan broker lebih hemat saat queue menumpuk.
+ *
+ * Deflater, Inflater, dan buffer kerja dipakai ulang dari pool kecil yang dibagi semua thread, karena
+ * membuat Deflater baru untuk setiap pesan mahal (alokasi memori native yang baru dilepas Cleaner).
+ * Pool tidak terikat thread sehingga tetap berguna pada mode eksekusi VIRTUAL, di mana setiap pesan
+ * diproses di virtual thread baru. Instance di-reset saat dikembalikan, buffer yang membesar karena
+ * pesan besar dibuang, dan instance di luar kapasitas pool langsung dilepas dengan end().
+ * Hasil kompresi dan dekompresi selalu berupa array baru yang boleh disimpan pemanggil.
+ */
+public class KompresiUtil {
+    public static final String CONTENT_ENCODING_DEFLATE = "deflate";
+    
+    // Batas ukuran body hasil dekompresi, melindungi consumer dari pesan yang mengembang berlebihan
+    public static final int MAKS_UKURAN_DEKOMPRESI = 16 * 1024 * 1024;
+    
+    // Level kompresi tercepat: rasio pada JSON pesanan hampir sama dengan level default
+    private static final int LEVEL_KOMPRESI = Deflater.BEST_SPEED;
+    
+    // Ukuran awal buffer kerja, dan batas buffer yang masih disimpan saat instance kembali ke pool
+    private static final int UKURAN_BUFFER_AWAL = 8192;
+    private static final int MAKS_BUFFER_DISIMPAN = 64 * 1024;
+    
+    // Jumlah maksimum instance menganggur per pool
+    private static final int KAPASITAS_POOL = Math.max(2, Runtime.getRuntime().availableProcessors());
+    
+    private static final Pool<Kompresor> KOMPRESOR = new Pool<>(Kompresor::new);
+    private static final Pool<Dekompresor> DEKOMPRESOR = new Pool<>(Dekompresor::new);
+    
+    /**
+     * Memeriksa apakah content-encoding menandakan body terkompresi Deflate
+     */
+    public static boolean isDeflate(String contentEncoding) {
+        return CONTENT_ENCODING_DEFLATE.equalsIgnoreCase(contentEncoding);
+    }
+    
+    /**
+     * Mengompresi body pesan
+     * @param body Body pesan asli
+     * @return Body terkompresi, atau null jika hasilnya tidak lebih kecil dari body asli
+     */
+    public static byte[] kompres(byte[] body) {
+        Kompresor kompresor = KOMPRESOR.ambil();
+        try {
+            return kompresor.kompres(body);
+        } finally {
+            KOMPRESOR.kembalikan(kompresor);
+        }
+    }
+    
+    /**
+     * Mendekompresi body pesan sesuai content-encoding
+     * @param body Body yang diterima
+     * @param contentEncoding Content-encoding pesan, null jika body tidak dikompresi
+     * @return Body asli
+     * @throws IllegalArgumentException jika content-encoding tidak didukung atau data rusak
+     */
+    public static byte[] dekompres(byte[] body, String contentEncoding) {
+        if (contentEncoding == null || contentEncoding.isEmpty()) {
+            return body;
+        }
+        if (!isDeflate(contentEncoding)) {
+            throw new IllegalArgumentException("Content-encoding tidak didukung: " + contentEncoding);
+        }
+        Dekompresor dekompresor = DEKOMPRESOR.ambil();
+        try {
+            return dekompresor.dekompres(body);
+        } finally {
+            DEKOMPRESOR.kembalikan(dekompresor);
+        }
+    }
+    
+    /**
+     * Mendekompresi pesan yang diterima consumer
+     * Pesan hasil memakai envelope yang sama dan properti tanpa content-encoding, sehingga record
+     * amplop dan kiriman ulang ke queue tunda berisi body yang sudah didekompresi
+     * @param delivery Pesan yang diterima
+     * @return Pesan yang sama jika tidak dikompresi, selain itu pesan dengan body asli
+     * @throws IllegalArgumentException jika content-encoding tidak didukung atau data rusak
+     */
+    public static Delivery dekompres(Delivery delivery) {
+        AMQP.BasicProperties properties = delivery.getProperties();
+        String contentEncoding = properties.getContentEncoding();
+        if (contentEncoding == null || contentEncoding.isEmpty()) {
+            return delivery;
+        }
+        byte[] body = dekompres(delivery.getBody(), contentEncoding);
+        return new Delivery(delivery.getEnvelope(), properties.builder().contentEncoding(null).build(), body);
+    }
+    
+    /**
+     * Instance yang dapat disimpan di pool
+     */
+    private interface Pekerja {
+        /**
+         * Menyiapkan instance untuk dipakai ulang: reset state dan buang buffer yang terlalu besar
+         */
+        void bersihkan();
+        
+        /**
+         * Melepas memori native, instance tidak dipakai lagi
+         */
+        void tutup();
+    }
+    
+    /**
+     * Pool terbatas berisi instance yang menganggur
+     * Jika pool kosong, instance baru dibuat; jika pool penuh, instance yang dikembalikan ditutup
+     */
+    private static final class Pool<T extends Pekerja> {
+        private final Queue<T> menganggur = new ConcurrentLinkedQueue<>();
+        
+        // Jumlah instance di antrean, ConcurrentLinkedQueue.size() menelusuri seluruh antrean
+        private final AtomicInteger jumlah = new AtomicInteger();
+        
+        private final Supplier<T> pembuat;
+        
+        Pool(Supplier<T> pembuat) {
+            this.pembuat = pembuat;
+        }
+        
+        T ambil() {
+            T pekerja = menganggur.poll();
+            if (pekerja == null) {
+                return pembuat.get();
+            }
+            jumlah.decrementAndGet();
+            return pekerja;
+        }
+        
+        void kembalikan(T pekerja) {
+            pekerja.bersihkan();
+            if (jumlah.incrementAndGet() <= KAPASITAS_POOL) {
+                menganggur.offer(pekerja);
+            } else {
+                jumlah.decrementAndGet();
+                pekerja.tutup();
+            }
+        }
+    }
+    
+    /**
+     * Deflater dan buffer keluaran yang dipakai satu pemanggil pada satu waktu
+     */
+    private static final class Kompresor implements Pekerja {
+        private final Deflater deflater = new Deflater(LEVEL_KOMPRESI);
+        private byte[] buffer = new byte[UKURAN_BUFFER_AWAL];
+        
+        @Override
+        public void bersihkan() {
+            deflater.reset();
+            if (buffer.length > MAKS_BUFFER_DISIMPAN) {
+                buffer = new byte[UKURAN_BUFFER_AWAL];
+            }
+        }
+        
+        @Override
+        public void tutup() {
+            deflater.end();
+        }
+        
+        byte[] kompres(byte[] body) {
+            // Keluaran dibatasi sebesar body asli: jika belum selesai saat buffer penuh,
+            // kompresi tidak menguntungkan dan dihentikan lebih awal
+            if (buffer.length < body.length) {
+                buffer = new byte[Math.max(body.length, buffer.length * 2)];
+            }
+            deflater.setInput(body);
+            deflater.finish();
+            int panjang = 0;
+            while (!deflater.finished() && panjang < body.length) {
+                panjang += deflater.deflate(buffer, panjang, body.length - panjang);
+            }
+            if (!deflater.finished() || panjang >= body.length) {
+                return null;
+            }
+            return Arrays.copyOf(buffer, panjang);
+        }
+    }
+    
+    /**
+     * Inflater dan buffer keluaran yang dipakai satu pemanggil pada satu waktu
+     */
+    private static final class Dekompresor implements Pekerja {
+        private final Inflater inflater = new Inflater();
+        private byte[] buffer = new byte[UKURAN_BUFFER_AWAL];
+        
+        @Override
+        public void bersihkan() {
+            inflater.reset();
+            if (buffer.length > MAKS_BUFFER_DISIMPAN) {
+                buffer = new byte[UKURAN_BUFFER_AWAL];
+            }
+        }
+        
+        @Override
+        public void tutup() {
+            inflater.end();
+        }
+        
+        byte[] dekompres(byte[] body) {
+            inflater.setInput(body);
+            int panjang = 0;
+            try {
+                while (!inflater.finished()) {
+                    if (panjang == buffer.length) {
+                        if (buffer.length >= MAKS_UKURAN_DEKOMPRESI) {
+                            throw new IllegalArgumentException("Body hasil dekompresi melebihi " + MAKS_UKURAN_DEKOMPRESI + " byte");
+                        }
+                        buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, MAKS_UKURAN_DEKOMPRESI));
+                    }
+                    int n = inflater.inflate(buffer, panjang, buffer.length - panjang);
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        throw new IllegalArgumentException("Data deflate terpotong");
+                    }
+                    panjang += n;
+                }
+            } catch (DataFormatException e) {
+                throw new IllegalArgumentException("Data deflate rusak: " + e.getMessage(), e);
+            }
+            return Arrays.copyOf(buffer, panjang);
+        }
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,128 @@
+package com.ecommerce.pengiriman.util;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Pembaca file snapshot berurutan, pasangan dari PenulisSnapshot
+ * Byte yang sudah dibaca dimasukkan ke CRC32 untuk diperiksa di akhir file
+ */
+final class PembacaSnapshot implements Closeable {
+    private static final int UKURAN_BUFFER = 1024 * 1024;
+    
+    private final Path file;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(UKURAN_BUFFER);
+    private final CRC32 crc = new CRC32();
+    
+    PembacaSnapshot(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        buffer.flip();
+    }
+    
+    byte bacaByte() throws IOException {
+        butuh(1);
+        return buffer.get();
+    }
+    
+    int bacaInt() throws IOException {
+        butuh(4);
+        return buffer.getInt();
+    }
+    
+    long bacaLong() throws IOException {
+        butuh(8);
+        return buffer.getLong();
+    }
+    
+    void bacaArray(int[] data) throws IOException {
+        for (int i = 0; i < data.length; ) {
+            butuh(4);
+            int n = Math.min(buffer.remaining() / 4, data.length - i);
+            buffer.asIntBuffer().get(data, i, n);
+            buffer.position(buffer.position() + n * 4);
+            i += n;
+        }
+    }
+    
+    void bacaArray(long[] data) throws IOException {
+        for (int i = 0; i < data.length; ) {
+            butuh(8);
+            int n = Math.min(buffer.remaining() / 8, data.length - i);
+            buffer.asLongBuffer().get(data, i, n);
+            buffer.position(buffer.position() + n * 8);
+            i += n;
+        }
+    }
+    
+    void bacaArray(double[] data) throws IOException {
+        for (int i = 0; i < data.length; ) {
+            butuh(8);
+            int n = Math.min(buffer.remaining() / 8, data.length - i);
+            buffer.asDoubleBuffer().get(data, i, n);
+            buffer.position(buffer.position() + n * 8);
+            i += n;
+        }
+    }
+    
+    void bacaArray(byte[] data) throws IOException {
+        for (int i = 0; i < data.length; ) {
+            butuh(1);
+            int n = Math.min(buffer.remaining(), data.length - i);
+            buffer.get(data, i, n);
+            i += n;
+        }
+    }
+    
+    /**
+     * Mengisi buffer tujuan (misalnya direct ByteBuffer) dari posisi sampai limit
+     */
+    void bacaKe(ByteBuffer tujuan) throws IOException {
+        while (tujuan.hasRemaining()) {
+            butuh(1);
+            int n = Math.min(buffer.remaining(), tujuan.remaining());
+            ByteBuffer potongan = buffer.duplicate();
+            potongan.limit(potongan.position() + n);
+            tujuan.put(potongan);
+            buffer.position(buffer.position() + n);
+        }
+    }
+    
+    /**
+     * Membaca CRC32 di akhir file dan membandingkannya dengan isi yang sudah dibaca
+     */
+    void periksaChecksum() throws IOException {
+        crc.update(buffer.array(), 0, buffer.position());
+        int dihitung = (int) crc.getValue();
+        butuh(4);
+        if (buffer.getInt() != dihitung) {
+            throw new IOException("Checksum snapshot tidak cocok: " + file);
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+    
+    private void butuh(int jumlah) throws IOException {
+        if (buffer.remaining() >= jumlah) {
+            return;
+        }
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.compact();
+        while (buffer.position() < jumlah) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Snapshot terpotong: " + file);
+            }
+        }
+        buffer.flip();
+    }
+} 
\ No newline at end of file
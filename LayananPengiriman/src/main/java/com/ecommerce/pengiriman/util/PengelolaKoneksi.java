@@ -0,0 +1,96 @@
+package com.ecommerce.pengiriman.util;
+
+import com.ecommerce.pengiriman.config.RabbitMQConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Pengelola koneksi RabbitMQ dengan koneksi terpisah untuk publish dan consume
+ *
+ * Broker menerapkan flow control (connection.blocked) per koneksi. Jika producer dan consumer
+ * berbagi satu koneksi, consumer ikut tertahan ketika publisher ditahan, padahal consumer yang
+ * men-drain queue justru yang membuat broker pulih. Dengan dua koneksi ("<layanan>-publish" dan
+ * "<layanan>-consume") hanya koneksi publish yang tertahan.
+ *
+ * Setiap koneksi memakai pool channel berukuran tetap (RabbitMQTransport) dan pemulihan otomatis
+ * koneksi serta topologi dari RabbitMQ client. Inisialisasi exchange dan queue sebaiknya dilakukan
+ * lewat koneksi consume agar queue dideklarasikan ulang sebelum consumer-nya dipulihkan.
+ */
+public class PengelolaKoneksi implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(PengelolaKoneksi.class);
+    
+    private final RabbitMQTransport transportPublish;
+    private final RabbitMQTransport transportConsume;
+    
+    /**
+     * Membuka koneksi ke broker
+     * @param layanan Nama layanan, dipakai sebagai awalan nama koneksi di broker
+     * @param config Konfigurasi koneksi
+     */
+    public PengelolaKoneksi(String layanan, RabbitMQConfig config) throws Exception {
+        logger.info("Membuka koneksi RabbitMQ dengan {}", config);
+        if (!config.isKoneksiTerpisah()) {
+            transportPublish = buatTransport(config, layanan);
+            transportConsume = transportPublish;
+            return;
+        }
+        transportConsume = buatTransport(config, layanan + "-consume");
+        try {
+            transportPublish = buatTransport(config, layanan + "-publish");
+        } catch (Exception e) {
+            transportConsume.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Membuka koneksi dengan konfigurasi dari property sistem, variabel lingkungan, atau file properti
+     * @param layanan Nama layanan, dipakai sebagai awalan nama koneksi di broker
+     */
+    public static PengelolaKoneksi dariLingkungan(String layanan) throws Exception {
+        return new PengelolaKoneksi(layanan, RabbitMQConfig.dariLingkungan());
+    }
+    
+    private static RabbitMQTransport buatTransport(RabbitMQConfig config, String nama) throws Exception {
+        return new RabbitMQTransport(RabbitMQUtil.createConnection(config, nama), config.getMaksChannel(),
+            config.getTungguChannelMs());
+    }
+    
+    /**
+     * Transport untuk producer
+     */
+    public Transport getTransportPublish() {
+        return transportPublish;
+    }
+    
+    /**
+     * Transport untuk consumer dan inisialisasi topologi
+     */
+    public Transport getTransportConsume() {
+        return transportConsume;
+    }
+    
+    /**
+     * Memeriksa apakah kedua koneksi masih terbuka
+     */
+    public boolean isOpen() {
+        return transportPublish.isOpen() && transportConsume.isOpen();
+    }
+    
+    /**
+     * Menutup koneksi publish lalu koneksi consume beserta semua channel-nya
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            transportPublish.close();
+        } finally {
+            if (transportConsume != transportPublish) {
+                transportConsume.close();
+            }
+        }
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,128 @@
+package com.ecommerce.pengiriman.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Penulis file snapshot berurutan dengan buffer dan CRC32 untuk seluruh isi file
+ * Array primitif ditulis secara bulk (big-endian) tanpa konversi per elemen
+ */
+final class PenulisSnapshot implements Closeable {
+    private static final int UKURAN_BUFFER = 1024 * 1024;
+    
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(UKURAN_BUFFER);
+    private final CRC32 crc = new CRC32();
+    
+    PenulisSnapshot(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+    
+    void tulisByte(byte nilai) throws IOException {
+        sediakan(1);
+        buffer.put(nilai);
+    }
+    
+    void tulisInt(int nilai) throws IOException {
+        sediakan(4);
+        buffer.putInt(nilai);
+    }
+    
+    void tulisLong(long nilai) throws IOException {
+        sediakan(8);
+        buffer.putLong(nilai);
+    }
+    
+    void tulisArray(int[] data) throws IOException {
+        for (int i = 0; i < data.length; ) {
+            sediakan(4);
+            int n = Math.min(buffer.remaining() / 4, data.length - i);
+            buffer.asIntBuffer().put(data, i, n);
+            buffer.position(buffer.position() + n * 4);
+            i += n;
+        }
+    }
+    
+    void tulisArray(long[] data) throws IOException {
+        for (int i = 0; i < data.length; ) {
+            sediakan(8);
+            int n = Math.min(buffer.remaining() / 8, data.length - i);
+            buffer.asLongBuffer().put(data, i, n);
+            buffer.position(buffer.position() + n * 8);
+            i += n;
+        }
+    }
+    
+    void tulisArray(double[] data) throws IOException {
+        for (int i = 0; i < data.length; ) {
+            sediakan(8);
+            int n = Math.min(buffer.remaining() / 8, data.length - i);
+            buffer.asDoubleBuffer().put(data, i, n);
+            buffer.position(buffer.position() + n * 8);
+            i += n;
+        }
+    }
+    
+    void tulisArray(byte[] data) throws IOException {
+        for (int i = 0; i < data.length; ) {
+            sediakan(1);
+            int n = Math.min(buffer.remaining(), data.length - i);
+            buffer.put(data, i, n);
+            i += n;
+        }
+    }
+    
+    /**
+     * Menulis isi buffer sumber (misalnya direct ByteBuffer) dari posisi sampai limit
+     */
+    void tulisBuffer(ByteBuffer sumber) throws IOException {
+        while (sumber.hasRemaining()) {
+            sediakan(1);
+            int n = Math.min(buffer.remaining(), sumber.remaining());
+            ByteBuffer potongan = sumber.duplicate();
+            potongan.limit(potongan.position() + n);
+            buffer.put(potongan);
+            sumber.position(sumber.position() + n);
+        }
+    }
+    
+    /**
+     * Menulis CRC32 seluruh isi sebelumnya dan memaksa file ke disk
+     */
+    void selesai() throws IOException {
+        kosongkan();
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        channel.force(true);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+    
+    private void sediakan(int butuh) throws IOException {
+        if (buffer.remaining() < butuh) {
+            kosongkan();
+        }
+    }
+    
+    private void kosongkan() throws IOException {
+        buffer.flip();
+        crc.update(buffer.array(), 0, buffer.limit());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,365 @@
+package com.ecommerce.pengiriman.util;
+
+import com.ecommerce.pengiriman.config.PersistensiConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+/**
+ * Penyimpanan persisten untuk daftar pengiriman: TabelPengiriman di memori, jurnal perubahan yang
+ * di-memory-map, dan checkpoint inkremental berkala
+ *
+ * Isi direktori:
+ * - segmen-NN.dat: kolom mentah satu segmen TabelPengiriman, ditulis ulang hanya jika segmen berubah
+ * - kamus.dat: chunk KamusString pada offset nomor chunk * ukuran chunk; kamus hanya bertambah
+ *   sehingga checkpoint cukup menambahkan byte baru sejak checkpoint sebelumnya
+ * - checkpoint.dat: nomor segmen jurnal pertama yang belum tercakup, panjang dan CRC32 setiap chunk
+ *   kamus; file ini diganti secara atomik dan menjadi penanda checkpoint yang selesai
+ * - jurnal-*.log: rekaman JurnalPengiriman setelah checkpoint terakhir
+ *
+ * Checkpoint memulai segmen jurnal baru, menulis segmen tabel yang berubah (file sementara lalu
+ * rename atomik), menambahkan isi kamus yang baru, lalu mengganti checkpoint.dat dan menghapus
+ * segmen jurnal lama. Jika proses berhenti di tengah checkpoint, file segmen yang sudah diganti
+ * mungkin lebih baru dari checkpoint.dat; ini tetap benar karena semua perubahan sejak checkpoint
+ * sebelumnya masih ada di jurnal dan diputar ulang berurutan dengan baris lengkap.
+ *
+ * Saat dibuka, chunk kamus dibaca langsung ke direct buffer dan file segmen dibaca paralel dengan
+ * pembacaan bulk berurutan, kemudian ekor jurnal diputar ulang.
+ */
+public class PenyimpananPengiriman implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(PenyimpananPengiriman.class);
+    
+    private static final int MAGIC_CHECKPOINT = 0x50434B50;
+    private static final int MAGIC_SEGMEN = 0x50534731;
+    private static final byte VERSI = 2;
+    private static final String FILE_CHECKPOINT = "checkpoint.dat";
+    private static final String FILE_KAMUS = "kamus.dat";
+    private static final String AKHIRAN_SEMENTARA = ".tmp";
+    
+    private final PersistensiConfig config;
+    private final Path direktori;
+    private final TabelPengiriman tabel;
+    private final JurnalPengiriman jurnal;
+    private final FileChannel fileKamus;
+    private final ScheduledExecutorService penjadwal;
+    
+    // Panjang dan CRC32 setiap chunk kamus yang sudah tercatat di checkpoint.dat
+    private int[] panjangKamus;
+    private int[] crcKamus;
+    
+    private PenyimpananPengiriman(PersistensiConfig config, Path direktori, TabelPengiriman tabel,
+                                  JurnalPengiriman jurnal, FileChannel fileKamus, int[] panjangKamus, int[] crcKamus) {
+        this.config = config;
+        this.direktori = direktori;
+        this.tabel = tabel;
+        this.jurnal = jurnal;
+        this.fileKamus = fileKamus;
+        this.panjangKamus = panjangKamus;
+        this.crcKamus = crcKamus;
+        this.penjadwal = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "persistensi-pengiriman");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Membuka penyimpanan dan memulihkan daftar pengiriman dari checkpoint dan jurnal
+     * @param config Pengaturan direktori, ukuran segmen jurnal, dan interval checkpoint
+     * @return Penyimpanan yang siap dipakai
+     */
+    public static PenyimpananPengiriman buka(PersistensiConfig config) throws IOException {
+        long mulai = System.nanoTime();
+        Path direktori = Paths.get(config.getDirektori());
+        Files.createDirectories(direktori);
+        
+        // Baca checkpoint terakhir yang selesai
+        long segmenAwal = 0;
+        int[] panjangKamus = new int[0];
+        int[] crcKamus = new int[0];
+        Path checkpoint = direktori.resolve(FILE_CHECKPOINT);
+        if (Files.exists(checkpoint)) {
+            try (PembacaSnapshot in = new PembacaSnapshot(checkpoint)) {
+                int magic = in.bacaInt();
+                byte versi = in.bacaByte();
+                if (magic != MAGIC_CHECKPOINT || versi != VERSI) {
+                    throw new IOException("Format checkpoint tidak dikenal: " + checkpoint);
+                }
+                segmenAwal = in.bacaLong();
+                int jumlahChunk = in.bacaInt();
+                if (jumlahChunk < 0) {
+                    throw new IOException("Jumlah chunk kamus tidak valid: " + jumlahChunk);
+                }
+                panjangKamus = new int[jumlahChunk];
+                crcKamus = new int[jumlahChunk];
+                for (int i = 0; i < jumlahChunk; i++) {
+                    panjangKamus[i] = in.bacaInt();
+                    crcKamus[i] = in.bacaInt();
+                }
+                in.periksaChecksum();
+            }
+        }
+        
+        // Muat kamus lalu segmen tabel; tanpa checkpoint semua data berasal dari jurnal
+        FileChannel fileKamus = FileChannel.open(direktori.resolve(FILE_KAMUS),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        TabelPengiriman tabel;
+        try {
+            tabel = new TabelPengiriman(muatKamus(fileKamus, panjangKamus, crcKamus));
+            if (segmenAwal > 0) {
+                muatSegmen(direktori, tabel);
+            } else {
+                // Sisa checkpoint pertama yang tidak selesai, isinya akan dibangun ulang dari jurnal
+                for (int nomor = 0; nomor < tabel.getJumlahSegmen(); nomor++) {
+                    Files.deleteIfExists(direktori.resolve(namaSegmen(nomor)));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            fileKamus.close();
+            throw e;
+        }
+        int jumlahCheckpoint = tabel.getJumlah();
+        
+        // Putar ulang segmen jurnal setelah checkpoint, segmen lama sisa crash saat checkpoint dihapus
+        long jumlahJurnal = 0;
+        long segmenTerakhir = segmenAwal;
+        for (Path segmen : JurnalPengiriman.daftarSegmen(direktori)) {
+            long nomor = JurnalPengiriman.nomorSegmen(segmen);
+            if (nomor < segmenAwal) {
+                Files.deleteIfExists(segmen);
+                continue;
+            }
+            jumlahJurnal += JurnalPengiriman.putarUlang(segmen, tabel);
+            segmenTerakhir = nomor + 1;
+        }
+        
+        // Jurnal baru selalu ditulis ke segmen baru, ekor segmen lama yang terpotong tidak disentuh
+        JurnalPengiriman jurnal = new JurnalPengiriman(direktori, config.getUkuranSegmenJurnal(),
+            Math.max(1, segmenTerakhir));
+        tabel.setJurnal(jurnal);
+        
+        logger.info("Daftar pengiriman dipulihkan dari {}: {} pengiriman dari checkpoint, {} rekaman jurnal, "
+                + "{} pengiriman, {} ms", direktori.toAbsolutePath(), jumlahCheckpoint, jumlahJurnal,
+            tabel.getJumlah(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - mulai));
+        
+        PenyimpananPengiriman penyimpanan = new PenyimpananPengiriman(config, direktori, tabel, jurnal,
+            fileKamus, panjangKamus, crcKamus);
+        penyimpanan.mulaiPenjadwal();
+        return penyimpanan;
+    }
+    
+    /**
+     * Tabel pengiriman yang perubahannya dicatat ke jurnal
+     */
+    public TabelPengiriman getTabel() {
+        return tabel;
+    }
+    
+    /**
+     * ID pengiriman terbesar yang sudah tersimpan, untuk melanjutkan penomoran setelah restart
+     */
+    public long getIdTerbesar() {
+        return tabel.getIdTerbesar();
+    }
+    
+    /**
+     * Membuat checkpoint inkremental: hanya segmen tabel yang berubah dan chunk kamus yang bertambah
+     * yang ditulis, lalu segmen jurnal yang sudah tercakup dihapus
+     */
+    public synchronized void buatCheckpoint() throws IOException {
+        long mulai = System.nanoTime();
+        long segmenJurnal = jurnal.gulirkan();
+        
+        // Segmen tabel ditulis sebelum kamus agar semua kode string yang dirujuk ikut tersimpan
+        int segmenDitulis = 0;
+        for (int nomor = 0; nomor < tabel.getJumlahSegmen(); nomor++) {
+            if (tabel.isSegmenBerubah(nomor)) {
+                tulisSegmen(nomor, segmenJurnal);
+                segmenDitulis++;
+            }
+        }
+        
+        int[] panjangBaru = tabel.getKamus().panjangChunk();
+        int[] crcBaru = new int[panjangBaru.length];
+        long byteKamus = 0;
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < panjangBaru.length; i++) {
+            int tersimpan = i < panjangKamus.length ? panjangKamus[i] : 0;
+            if (panjangBaru[i] == tersimpan && i < crcKamus.length) {
+                crcBaru[i] = crcKamus[i];
+                continue;
+            }
+            ByteBuffer data = tabel.getKamus().lihatChunk(i);
+            data.limit(panjangBaru[i]);
+            crc.reset();
+            crc.update(data.duplicate());
+            
+            // Hanya byte setelah panjang yang sudah tersimpan yang ditulis
+            data.position(tersimpan);
+            long posisi = (long) i * data.capacity() + tersimpan;
+            while (data.hasRemaining()) {
+                posisi += fileKamus.write(data, posisi);
+            }
+            crcBaru[i] = (int) crc.getValue();
+            byteKamus += panjangBaru[i] - tersimpan;
+        }
+        fileKamus.force(false);
+        
+        Path sementara = direktori.resolve(FILE_CHECKPOINT + AKHIRAN_SEMENTARA);
+        try (PenulisSnapshot out = new PenulisSnapshot(sementara)) {
+            out.tulisInt(MAGIC_CHECKPOINT);
+            out.tulisByte(VERSI);
+            out.tulisLong(segmenJurnal);
+            out.tulisInt(panjangBaru.length);
+            for (int i = 0; i < panjangBaru.length; i++) {
+                out.tulisInt(panjangBaru[i]);
+                out.tulisInt(crcBaru[i]);
+            }
+            out.selesai();
+        }
+        Files.move(sementara, direktori.resolve(FILE_CHECKPOINT),
+            StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        panjangKamus = panjangBaru;
+        crcKamus = crcBaru;
+        
+        jurnal.hapusSebelum(segmenJurnal);
+        logger.info("Checkpoint daftar pengiriman: {} pengiriman, {} segmen tabel dan {} byte kamus ditulis, "
+                + "segmen jurnal {}, {} ms", tabel.getJumlah(), segmenDitulis, byteKamus, segmenJurnal,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - mulai));
+    }
+    
+    /**
+     * Menghentikan penjadwal, membuat checkpoint terakhir, dan menutup jurnal
+     * Perubahan tabel setelah ditutup hanya tersimpan di memori
+     */
+    @Override
+    public void close() throws IOException {
+        penjadwal.shutdown();
+        try {
+            penjadwal.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            buatCheckpoint();
+        } finally {
+            tabel.setJurnal(null);
+            jurnal.close();
+            fileKamus.close();
+        }
+    }
+    
+    private void mulaiPenjadwal() {
+        long intervalCheckpoint = config.getIntervalCheckpointDetik();
+        penjadwal.scheduleWithFixedDelay(() -> {
+            try {
+                buatCheckpoint();
+            } catch (Exception e) {
+                logger.error("Gagal membuat checkpoint daftar pengiriman: {}", e.getMessage(), e);
+            }
+        }, intervalCheckpoint, intervalCheckpoint, TimeUnit.SECONDS);
+        
+        if (config.getIntervalForceMs() > 0) {
+            penjadwal.scheduleWithFixedDelay(() -> {
+                try {
+                    jurnal.force();
+                } catch (Exception e) {
+                    logger.error("Gagal menulis jurnal pengiriman ke disk: {}", e.getMessage(), e);
+                }
+            }, config.getIntervalForceMs(), config.getIntervalForceMs(), TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    private void tulisSegmen(int nomor, long segmenJurnal) throws IOException {
+        Path sementara = direktori.resolve(namaSegmen(nomor) + AKHIRAN_SEMENTARA);
+        try (PenulisSnapshot out = new PenulisSnapshot(sementara)) {
+            out.tulisInt(MAGIC_SEGMEN);
+            out.tulisByte(VERSI);
+            out.tulisInt(nomor);
+            out.tulisLong(segmenJurnal);
+            tabel.tulisSegmenKe(nomor, out);
+            out.selesai();
+        }
+        Files.move(sementara, direktori.resolve(namaSegmen(nomor)),
+            StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    /**
+     * Membaca chunk kamus dari kamus.dat langsung ke direct buffer dan memeriksa CRC32 setiap chunk
+     * Byte setelah panjang yang tercatat (sisa checkpoint yang tidak selesai) diabaikan dan akan ditimpa
+     */
+    private static KamusString muatKamus(FileChannel fileKamus, int[] panjang, int[] crc) throws IOException {
+        ByteBuffer[] daftar = new ByteBuffer[panjang.length];
+        CRC32 hitung = new CRC32();
+        for (int i = 0; i < panjang.length; i++) {
+            daftar[i] = KamusString.chunkBaru();
+            if (panjang[i] < 0 || panjang[i] > daftar[i].capacity()) {
+                throw new IOException("Ukuran chunk kamus tidak valid: " + panjang[i]);
+            }
+            ByteBuffer data = daftar[i].duplicate();
+            data.limit(panjang[i]);
+            long posisi = (long) i * data.capacity();
+            while (data.hasRemaining()) {
+                int dibaca = fileKamus.read(data, posisi);
+                if (dibaca < 0) {
+                    throw new IOException("File kamus terpotong pada chunk " + i);
+                }
+                posisi += dibaca;
+            }
+            data.flip();
+            hitung.reset();
+            hitung.update(data);
+            if ((int) hitung.getValue() != crc[i]) {
+                throw new IOException("Checksum kamus tidak cocok pada chunk " + i);
+            }
+        }
+        return KamusString.dariChunk(daftar, panjang);
+    }
+    
+    /**
+     * Memuat semua file segmen secara paralel, segmen tanpa file berarti belum pernah berisi data
+     */
+    private static void muatSegmen(Path direktori, TabelPengiriman tabel) throws IOException {
+        try {
+            IntStream.range(0, tabel.getJumlahSegmen()).parallel().forEach(nomor -> {
+                Path file = direktori.resolve(namaSegmen(nomor));
+                if (!Files.exists(file)) {
+                    return;
+                }
+                try (PembacaSnapshot in = new PembacaSnapshot(file)) {
+                    int magic = in.bacaInt();
+                    byte versi = in.bacaByte();
+                    if (magic != MAGIC_SEGMEN || versi != VERSI || in.bacaInt() != nomor) {
+                        throw new IOException("Format file segmen tidak dikenal: " + file);
+                    }
+                    in.bacaLong();
+                    tabel.bacaSegmenDari(nomor, in);
+                    in.periksaChecksum();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+    
+    private static String namaSegmen(int nomor) {
+        return String.format("segmen-%02d.dat", nomor);
+    }
+} 
\ No newline at end of file
@@ -1,22 +1,63 @@
 package com.ecommerce.pengiriman.util;
 
-import com.rabbitmq.client.Channel;
+import com.ecommerce.pengiriman.config.RabbitMQConfig;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.BlockedListener;
 import com.rabbitmq.client.Connection;
 import com.rabbitmq.client.ConnectionFactory;
-import com.rabbitmq.client.AMQP.Queue.DeclareOk;
+import com.rabbitmq.client.Delivery;
+import com.rabbitmq.client.Recoverable;
+import com.rabbitmq.client.RecoveryListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * Kelas utilitas untuk mengelola koneksi RabbitMQ
+ *
+ * Setiap aliran pesan (pesanan baru dan status pengiriman) dapat dibagi menjadi beberapa shard:
+ * queue dan routing key "pesanan.baru.0" sampai "pesanan.baru.N-1". Nomor shard dihitung dari hash
+ * ID pesanan sehingga semua pesan milik satu pesanan selalu melewati queue yang sama dan urutannya
+ * terjaga, sementara beban tersebar ke beberapa proses queue di broker. Jumlah shard diatur lewat
+ * property sistem ecommerce.jumlahShard atau variabel lingkungan ECOMMERCE_JUMLAH_SHARD dan harus
+ * sama pada kedua layanan. Dengan satu shard (default) nama queue tetap "pesanan.baru" dan
+ * "pesanan.status" seperti sebelumnya.
+ *
+ * Alamat broker, kredensial, dan pengaturan koneksi lain dibaca dari RabbitMQConfig.dariLingkungan().
+ *
+ * Pesan yang gagal diproses tidak di-ack begitu saja, tetapi dikirim ulang lewat queue tunda
+ * bertingkat (kirimUlangAtauParkir). Setiap tingkat adalah exchange direct dan queue tanpa consumer
+ * dengan x-message-ttl tetap; setelah TTL habis broker memindahkan pesan lewat dead-letter ke
+ * EXCHANGE_PESANAN dengan routing key aslinya, sehingga pesan kembali ke queue shard asal. Karena
+ * semua pesan di satu queue tunda memiliki TTL yang sama, pesan terdepan selalu kedaluwarsa lebih
+ * dulu dan tidak ada pesan yang tertahan di belakang pesan lain. Lama tunda naik empat kali lipat
+ * setiap percobaan (1, 4, 16, lalu 64 detik) dan jumlah percobaan dibawa header x-percobaan. Pesan
+ * yang sudah mencapai batas percobaan dipindahkan ke queue parkir alirannya (misalnya
+ * "pesanan.baru.parkir") untuk diperiksa dan dikirim ulang secara manual.
  */
 public class RabbitMQUtil {
     private static final Logger logger = LoggerFactory.getLogger(RabbitMQUtil.class);
     
-    private static final String HOST = "localhost"; // Ganti dengan URL RabbitMQ server jika tidak berjalan secara lokal
-    private static final int PORT = 5672; // Port default RabbitMQ
-    private static final String USERNAME = "guest"; // Username default RabbitMQ
-    private static final String PASSWORD = "guest"; // Password default RabbitMQ
+    // Pengaturan jumlah shard, nama yang sama dipakai kedua layanan
+    public static final String PROPERTI_JUMLAH_SHARD = "ecommerce.jumlahShard";
+    public static final String ENV_JUMLAH_SHARD = "ECOMMERCE_JUMLAH_SHARD";
+    
+    // Shard yang dikonsumsi instance ini, dipisah koma (misalnya "0,2"); kosong berarti semua shard
+    public static final String PROPERTI_SHARD_DIKONSUMSI = "ecommerce.shardDikonsumsi";
+    public static final String ENV_SHARD_DIKONSUMSI = "ECOMMERCE_SHARD_DIKONSUMSI";
+    
+    // Batas jumlah shard agar topologi tetap wajar
+    public static final int MAKS_JUMLAH_SHARD = 256;
+    
+    private static final int JUMLAH_SHARD = bacaJumlahShard();
     
     // Nama-nama exchange dan queue (sama dengan yang digunakan oleh LayananPesanan)
     public static final String EXCHANGE_PESANAN = "ecommerce.pesanan";
@@ -24,31 +65,200 @@ public class RabbitMQUtil {
     public static final String QUEUE_PESANAN_STATUS = "pesanan.status"; // Perhatikan nama queue sama dengan LayananPesanan
     public static final String ROUTING_KEY_PESANAN_BARU = "pesanan.baru";
     public static final String ROUTING_KEY_PENGIRIMAN_STATUS = "pesanan.status"; // Perhatikan routing key sama dengan nama queue
-
+    
+    // Queue parkir setiap aliran, berisi pesan yang sudah mencapai batas percobaan
+    public static final String QUEUE_PESANAN_BARU_PARKIR = QUEUE_PESANAN_BARU + ".parkir";
+    public static final String QUEUE_PESANAN_STATUS_PARKIR = QUEUE_PESANAN_STATUS + ".parkir";
+    
+    // Header pipeline retry: jumlah percobaan yang sudah gagal, alasan kegagalan terakhir,
+    // dan routing key asal pesan di queue parkir
+    public static final String HEADER_PERCOBAAN = "x-percobaan";
+    public static final String HEADER_ALASAN_GAGAL = "x-alasan-gagal";
+    public static final String HEADER_ROUTING_KEY_ASAL = "x-routing-key-asal";
+    
+    // Lama tunda setiap tingkat retry, naik empat kali lipat; percobaan setelah tingkat terakhir
+    // memakai tingkat terakhir
+    private static final long[] TUNDA_RETRY_MS = {1000, 4000, 16000, 64000};
+    
+    // Panjang maksimum alasan kegagalan di header
+    private static final int MAKS_PANJANG_ALASAN = 256;
+    
+    // Routing key semua shard kedua aliran, pesan dengan routing key lain tidak dapat kembali dari queue tunda
+    private static final Set<String> ROUTING_KEY_ALIRAN = buatRoutingKeyAliran();
+    
     /**
-     * Membuat koneksi ke RabbitMQ server
+     * Membuat koneksi ke RabbitMQ server dengan konfigurasi dari property sistem dan variabel lingkungan
      */
     public static Connection createConnection() throws Exception {
+        return createConnection(RabbitMQConfig.dariLingkungan(), null);
+    }
+    
+    /**
+     * Membuat koneksi ke RabbitMQ server dengan pemulihan otomatis
+     * Setelah koneksi putus, client membuka koneksi baru setiap intervalPemulihanMs lalu memulihkan
+     * channel, exchange, queue, binding, dan consumer yang dibuat lewat koneksi ini
+     * @param config Konfigurasi koneksi
+     * @param nama Nama koneksi yang tampil di management UI broker, boleh null
+     */
+    public static Connection createConnection(RabbitMQConfig config, String nama) throws Exception {
         logger.info("Mencoba membuat koneksi ke RabbitMQ server...");
         ConnectionFactory factory = new ConnectionFactory();
-        factory.setHost(HOST);
-        factory.setPort(PORT);
-        factory.setUsername(USERNAME);
-        factory.setPassword(PASSWORD);
-        
-        // Timeout koneksi dalam milidetik (5 detik)
-        factory.setConnectionTimeout(5000);
+        factory.setHost(config.getHost());
+        factory.setPort(config.getPort());
+        factory.setUsername(config.getUsername());
+        factory.setPassword(config.getPassword());
+        factory.setVirtualHost(config.getVirtualHost());
+        factory.setConnectionTimeout(config.getTimeoutKoneksiMs());
+        factory.setRequestedHeartbeat(config.getHeartbeatDetik());
+        factory.setAutomaticRecoveryEnabled(true);
+        factory.setTopologyRecoveryEnabled(true);
+        factory.setNetworkRecoveryInterval(config.getIntervalPemulihanMs());
         
-        logger.info("Membuat koneksi ke RabbitMQ server di {}:{} dengan username: {}", HOST, PORT, USERNAME);
-        Connection connection = factory.newConnection();
+        logger.info("Membuat koneksi {} ke RabbitMQ server di {}:{}{} dengan username: {}", nama != null ? nama : "",
+            config.getHost(), config.getPort(), config.getVirtualHost(), config.getUsername());
+        Connection connection = factory.newConnection(nama);
+        pasangPemantau(connection);
         logger.info("Koneksi ke RabbitMQ berhasil dibuat");
         return connection;
     }
-
+    
+    /**
+     * Mencatat ke log saat broker menahan koneksi (flow control) dan saat koneksi dipulihkan
+     */
+    private static void pasangPemantau(Connection connection) {
+        String nama = connection.getClientProvidedName() != null ? connection.getClientProvidedName() : "RabbitMQ";
+        connection.addBlockedListener(new BlockedListener() {
+            @Override
+            public void handleBlocked(String alasan) {
+                logger.warn("Koneksi {} ditahan broker: {}", nama, alasan);
+            }
+            
+            @Override
+            public void handleUnblocked() {
+                logger.info("Koneksi {} tidak lagi ditahan broker", nama);
+            }
+        });
+        connection.addShutdownListener(alasan -> {
+            if (!alasan.isInitiatedByApplication()) {
+                logger.warn("Koneksi {} terputus: {}", nama, alasan.getMessage());
+            }
+        });
+        if (connection instanceof Recoverable) {
+            ((Recoverable) connection).addRecoveryListener(new RecoveryListener() {
+                @Override
+                public void handleRecoveryStarted(Recoverable recoverable) {
+                    logger.info("Memulihkan koneksi {}...", nama);
+                }
+                
+                @Override
+                public void handleRecovery(Recoverable recoverable) {
+                    logger.info("Koneksi {} beserta channel dan topologinya berhasil dipulihkan", nama);
+                }
+            });
+        }
+    }
+    
+    /**
+     * Membuat transport RabbitMQ yang dipakai oleh producer dan consumer
+     * Satu koneksi untuk publish dan consume; PengelolaKoneksi memisahkan keduanya
+     */
+    public static Transport createTransport() throws Exception {
+        RabbitMQConfig config = RabbitMQConfig.dariLingkungan();
+        return new RabbitMQTransport(createConnection(config, null), config.getMaksChannel(),
+            config.getTungguChannelMs());
+    }
+    
     /**
-     * Menginisialisasi exchange dan queue yang dibutuhkan
+     * Jumlah shard setiap aliran pesan
      */
-    public static void initializeExchangesAndQueues(Channel channel) throws Exception {
+    public static int getJumlahShard() {
+        return JUMLAH_SHARD;
+    }
+    
+    /**
+     * Nomor shard untuk satu pesanan, dihitung sama di kedua layanan
+     * @param idPesanan ID pesanan
+     * @return Nomor shard antara 0 dan jumlah shard - 1
+     */
+    public static int nomorShard(long idPesanan) {
+        return nomorShard(idPesanan, JUMLAH_SHARD);
+    }
+    
+    /**
+     * Nomor shard untuk satu pesanan dengan jumlah shard tertentu
+     * ID dilipat menjadi 32 bit lalu diacak dengan finalizer MurmurHash3 agar pola ID tidak membuat
+     * beban shard timpang; ID yang muat di int32 tetap masuk shard yang sama seperti sebelumnya
+     */
+    public static int nomorShard(long idPesanan, int jumlahShard) {
+        int hash = (int) (idPesanan ^ (idPesanan >>> 32));
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, jumlahShard);
+    }
+    
+    /**
+     * Nama queue atau routing key satu shard
+     * @param dasar Nama dasar, misalnya QUEUE_PESANAN_BARU
+     * @param shard Nomor shard
+     * @return Nama dasar jika hanya ada satu shard, selain itu nama dasar diikuti ".nomor"
+     */
+    public static String namaShard(String dasar, int shard) {
+        return JUMLAH_SHARD == 1 ? dasar : dasar + "." + shard;
+    }
+    
+    /**
+     * Nama queue untuk daftar shard
+     * @param dasar Nama dasar queue
+     * @param shard Nomor shard, kosong berarti semua shard
+     * @return Nama queue setiap shard
+     */
+    public static List<String> namaShard(String dasar, List<Integer> shard) {
+        List<String> nama = new ArrayList<>();
+        if (shard.isEmpty()) {
+            for (int i = 0; i < JUMLAH_SHARD; i++) {
+                nama.add(namaShard(dasar, i));
+            }
+        } else {
+            for (int nomor : shard) {
+                nama.add(namaShard(dasar, nomor));
+            }
+        }
+        return nama;
+    }
+    
+    /**
+     * Shard yang dikonsumsi instance ini dari ecommerce.shardDikonsumsi atau ECOMMERCE_SHARD_DIKONSUMSI
+     * @return Nomor shard, kosong berarti semua shard
+     */
+    public static List<Integer> getShardDikonsumsi() {
+        String nilai = bacaPengaturan(PROPERTI_SHARD_DIKONSUMSI, ENV_SHARD_DIKONSUMSI);
+        if (nilai == null || nilai.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Integer> shard = new ArrayList<>();
+        for (String bagian : nilai.split(",")) {
+            int nomor;
+            try {
+                nomor = Integer.parseInt(bagian.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(PROPERTI_SHARD_DIKONSUMSI + " tidak valid: " + nilai);
+            }
+            if (nomor < 0 || nomor >= JUMLAH_SHARD) {
+                throw new IllegalArgumentException(PROPERTI_SHARD_DIKONSUMSI + " berisi shard di luar 0 sampai "
+                    + (JUMLAH_SHARD - 1) + ": " + nomor);
+            }
+            shard.add(nomor);
+        }
+        return shard;
+    }
+    
+    /**
+     * Menginisialisasi exchange dan queue yang dibutuhkan untuk setiap shard
+     */
+    public static void initializeExchangesAndQueues(TransportChannel channel) throws Exception {
         logger.info("Mulai inisialisasi exchange dan queue RabbitMQ...");
         
         try {
@@ -57,47 +267,165 @@ public class RabbitMQUtil {
             channel.exchangeDeclare(EXCHANGE_PESANAN, "direct", true);
             logger.info("Exchange {} berhasil dibuat", EXCHANGE_PESANAN);
             
-            // Membuat queue pesanan baru dan binding
-            logger.info("Membuat queue: {}, durable: true", QUEUE_PESANAN_BARU);
-            channel.queueDeclare(QUEUE_PESANAN_BARU, true, false, false, null);
-            logger.info("Queue {} berhasil dibuat", QUEUE_PESANAN_BARU);
-            
-            logger.info("Binding queue {} ke exchange {} dengan routing key {}", 
-                QUEUE_PESANAN_BARU, EXCHANGE_PESANAN, ROUTING_KEY_PESANAN_BARU);
-            channel.queueBind(QUEUE_PESANAN_BARU, EXCHANGE_PESANAN, ROUTING_KEY_PESANAN_BARU);
-            logger.info("Binding untuk queue {} berhasil dibuat", QUEUE_PESANAN_BARU);
-            
-            // Membuat queue status pesanan dan binding
-            logger.info("Membuat queue: {}, durable: true", QUEUE_PESANAN_STATUS);
-            channel.queueDeclare(QUEUE_PESANAN_STATUS, true, false, false, null);
-            logger.info("Queue {} berhasil dibuat", QUEUE_PESANAN_STATUS);
+            // Membuat queue pesanan baru dan status pesanan beserta binding untuk setiap shard
+            // Routing key setiap shard sama dengan nama queue-nya
+            for (int shard = 0; shard < JUMLAH_SHARD; shard++) {
+                deklarasiDanBind(channel, namaShard(QUEUE_PESANAN_BARU, shard), namaShard(ROUTING_KEY_PESANAN_BARU, shard));
+                deklarasiDanBind(channel, namaShard(QUEUE_PESANAN_STATUS, shard), namaShard(ROUTING_KEY_PENGIRIMAN_STATUS, shard));
+            }
             
-            logger.info("Binding queue {} ke exchange {} dengan routing key {}", 
-                QUEUE_PESANAN_STATUS, EXCHANGE_PESANAN, ROUTING_KEY_PENGIRIMAN_STATUS);
-            channel.queueBind(QUEUE_PESANAN_STATUS, EXCHANGE_PESANAN, ROUTING_KEY_PENGIRIMAN_STATUS);
-            logger.info("Binding untuk queue {} berhasil dibuat", QUEUE_PESANAN_STATUS);
+            // Queue tunda bertingkat dan queue parkir untuk pesan yang gagal diproses
+            inisialisasiRetry(channel);
             
-            logger.info("Exchange dan Queue RabbitMQ telah berhasil diinisialisasi");
+            logger.info("Exchange dan Queue RabbitMQ telah berhasil diinisialisasi dengan {} shard", JUMLAH_SHARD);
         } catch (Exception e) {
             logger.error("Gagal menginisialisasi exchange dan queue: {}", e.getMessage(), e);
             throw e;
         }
     }
-
+    
+    private static void deklarasiDanBind(TransportChannel channel, String queue, String routingKey) throws Exception {
+        logger.info("Membuat queue: {}, durable: true", queue);
+        channel.queueDeclare(queue, true, false, false, null);
+        logger.info("Queue {} berhasil dibuat", queue);
+        
+        logger.info("Binding queue {} ke exchange {} dengan routing key {}", queue, EXCHANGE_PESANAN, routingKey);
+        channel.queueBind(queue, EXCHANGE_PESANAN, routingKey);
+        logger.info("Binding untuk queue {} berhasil dibuat", queue);
+    }
+    
+    /**
+     * Menginisialisasi exchange dan queue tunda setiap tingkat retry beserta queue parkir
+     * Queue tunda di-bind dengan routing key setiap shard kedua aliran sehingga routing key asal
+     * pesan tetap terbawa saat dead-letter kembali ke EXCHANGE_PESANAN
+     */
+    private static void inisialisasiRetry(TransportChannel channel) throws Exception {
+        for (int tingkat = 0; tingkat < TUNDA_RETRY_MS.length; tingkat++) {
+            String exchange = namaExchangeTunda(tingkat);
+            String queue = namaQueueTunda(tingkat);
+            channel.exchangeDeclare(exchange, "direct", true);
+            
+            Map<String, Object> argumen = new HashMap<>();
+            argumen.put("x-message-ttl", TUNDA_RETRY_MS[tingkat]);
+            argumen.put("x-dead-letter-exchange", EXCHANGE_PESANAN);
+            channel.queueDeclare(queue, true, false, false, argumen);
+            for (String routingKey : ROUTING_KEY_ALIRAN) {
+                channel.queueBind(queue, exchange, routingKey);
+            }
+            logger.info("Queue tunda {} ({} ms) berhasil dibuat", queue, TUNDA_RETRY_MS[tingkat]);
+        }
+        channel.queueDeclare(QUEUE_PESANAN_BARU_PARKIR, true, false, false, null);
+        channel.queueDeclare(QUEUE_PESANAN_STATUS_PARKIR, true, false, false, null);
+        logger.info("Queue parkir {} dan {} berhasil dibuat", QUEUE_PESANAN_BARU_PARKIR, QUEUE_PESANAN_STATUS_PARKIR);
+    }
+    
+    /**
+     * Nama exchange tunda satu tingkat retry, misalnya "ecommerce.pesanan.tunda.4s"
+     */
+    public static String namaExchangeTunda(int tingkat) {
+        return EXCHANGE_PESANAN + ".tunda." + (TUNDA_RETRY_MS[tingkat] / 1000) + "s";
+    }
+    
+    /**
+     * Nama queue tunda satu tingkat retry, misalnya "pesanan.tunda.4s"
+     */
+    public static String namaQueueTunda(int tingkat) {
+        return "pesanan.tunda." + (TUNDA_RETRY_MS[tingkat] / 1000) + "s";
+    }
+    
+    /**
+     * Jumlah tingkat queue tunda
+     */
+    public static int getJumlahTingkatTunda() {
+        return TUNDA_RETRY_MS.length;
+    }
+    
+    /**
+     * Lama tunda sebelum percobaan berikutnya
+     * @param percobaan Jumlah percobaan yang sudah gagal, minimal 1
+     * @return Lama tunda dalam milidetik
+     */
+    public static long getTundaRetryMs(int percobaan) {
+        return TUNDA_RETRY_MS[tingkatTunda(percobaan)];
+    }
+    
+    private static int tingkatTunda(int percobaan) {
+        return Math.min(Math.max(percobaan, 1), TUNDA_RETRY_MS.length) - 1;
+    }
+    
+    /**
+     * Jumlah percobaan yang sudah gagal dari header x-percobaan
+     * @return 0 untuk pesan yang belum pernah gagal
+     */
+    public static int getPercobaan(AMQP.BasicProperties properties) {
+        Map<String, Object> headers = properties.getHeaders();
+        Object nilai = headers != null ? headers.get(HEADER_PERCOBAAN) : null;
+        return nilai instanceof Number ? ((Number) nilai).intValue() : 0;
+    }
+    
+    /**
+     * Mengirim pesan yang gagal diproses ke queue tunda berikutnya, atau ke queue parkir jika
+     * percobaan sudah mencapai batas. Pesan asal di-ack pemanggil setelah kiriman ini dikonfirmasi
+     * broker, sehingga pesan tidak hilang dan tidak diulang terus-menerus di queue utama.
+     * Properti pesan (message-id, content-type, header pelacakan) ikut dibawa.
+     * @param channel Channel untuk publish, sebaiknya dalam mode confirm
+     * @param delivery Pesan yang gagal diproses
+     * @param queueParkir Queue parkir aliran pesan ini
+     * @param maksPercobaan Jumlah percobaan maksimum termasuk pengiriman pertama
+     * @param penyebab Kegagalan pemrosesan
+     * @return Nama queue tujuan (queue tunda atau queue parkir)
+     */
+    public static String kirimUlangAtauParkir(TransportChannel channel, Delivery delivery, String queueParkir,
+                                              int maksPercobaan, Exception penyebab) throws IOException {
+        AMQP.BasicProperties asal = delivery.getProperties();
+        String routingKey = delivery.getEnvelope().getRoutingKey();
+        int percobaan = getPercobaan(asal) + 1;
+        
+        Map<String, Object> headers = asal.getHeaders() != null ? new HashMap<>(asal.getHeaders()) : new HashMap<>();
+        headers.put(HEADER_PERCOBAAN, percobaan);
+        headers.put(HEADER_ALASAN_GAGAL, alasan(penyebab));
+        
+        if (percobaan < maksPercobaan && ROUTING_KEY_ALIRAN.contains(routingKey)) {
+            int tingkat = tingkatTunda(percobaan);
+            channel.basicPublish(namaExchangeTunda(tingkat), routingKey, asal.builder().headers(headers).build(),
+                delivery.getBody());
+            return namaQueueTunda(tingkat);
+        }
+        
+        // Routing key asal disimpan agar pesan dapat dikirim ulang secara manual ke queue shard yang benar
+        headers.put(HEADER_ROUTING_KEY_ASAL, routingKey);
+        channel.basicPublish("", queueParkir, asal.builder().headers(headers).build(), delivery.getBody());
+        return queueParkir;
+    }
+    
+    private static String alasan(Exception penyebab) {
+        String alasan = penyebab.getClass().getSimpleName() + ": " + penyebab.getMessage();
+        return alasan.length() > MAKS_PANJANG_ALASAN ? alasan.substring(0, MAKS_PANJANG_ALASAN) : alasan;
+    }
+    
+    private static Set<String> buatRoutingKeyAliran() {
+        Set<String> routingKey = new HashSet<>();
+        for (int shard = 0; shard < JUMLAH_SHARD; shard++) {
+            routingKey.add(namaShard(ROUTING_KEY_PESANAN_BARU, shard));
+            routingKey.add(namaShard(ROUTING_KEY_PENGIRIMAN_STATUS, shard));
+        }
+        return Collections.unmodifiableSet(routingKey);
+    }
+    
     /**
      * Memeriksa apakah queue sudah ada dan berfungsi
-     * @param channel Channel RabbitMQ yang akan digunakan
+     * @param channel Channel transport yang akan digunakan
      * @param queueName Nama queue yang akan diperiksa
      * @return true jika queue ada dan berfungsi
      */
-    public static boolean verifyQueueExists(Channel channel, String queueName) {
+    public static boolean verifyQueueExists(TransportChannel channel, String queueName) {
         try {
             logger.info("Memeriksa keberadaan queue: {}", queueName);
-            // Metode queueDeclarePassive akan menghasilkan exception jika queue tidak ada
+            // Metode messageCount akan menghasilkan exception jika queue tidak ada
             // Ini cara yang lebih aman untuk memeriksa keberadaan queue tanpa membuatnya
-            DeclareOk response = channel.queueDeclarePassive(queueName);
+            long jumlahPesan = channel.messageCount(queueName);
             logger.info("Queue {} ditemukan dengan {} pesan yang menunggu", 
-                queueName, response.getMessageCount());
+                queueName, jumlahPesan);
             return true;
         } catch (Exception e) {
             logger.warn("Queue {} tidak ditemukan atau tidak berfungsi: {}", queueName, e.getMessage());
@@ -107,23 +435,33 @@ public class RabbitMQUtil {
     
     /**
      * Memeriksa semua queue yang dibutuhkan
-     * @param channel Channel RabbitMQ yang akan digunakan
+     * @param channel Channel transport yang akan digunakan
      * @return true jika semua queue ada dan berfungsi
      */
-    public static boolean verifyAllQueues(Channel channel) {
+    public static boolean verifyAllQueues(TransportChannel channel) {
         try {
             logger.info("Memeriksa semua queue yang dibutuhkan...");
-            boolean pesananBaruExists = verifyQueueExists(channel, QUEUE_PESANAN_BARU);
-            boolean pesananStatusExists = verifyQueueExists(channel, QUEUE_PESANAN_STATUS);
+            boolean pesananBaruExists = true;
+            boolean pesananStatusExists = true;
+            for (int shard = 0; shard < JUMLAH_SHARD; shard++) {
+                pesananBaruExists &= verifyQueueExists(channel, namaShard(QUEUE_PESANAN_BARU, shard));
+                pesananStatusExists &= verifyQueueExists(channel, namaShard(QUEUE_PESANAN_STATUS, shard));
+            }
+            
+            boolean retryExists = verifyQueueExists(channel, QUEUE_PESANAN_BARU_PARKIR)
+                & verifyQueueExists(channel, QUEUE_PESANAN_STATUS_PARKIR);
+            for (int tingkat = 0; tingkat < TUNDA_RETRY_MS.length; tingkat++) {
+                retryExists &= verifyQueueExists(channel, namaQueueTunda(tingkat));
+            }
             
-            boolean allQueuesExist = pesananBaruExists && pesananStatusExists;
+            boolean allQueuesExist = pesananBaruExists && pesananStatusExists && retryExists;
             
             if (allQueuesExist) {
                 logger.info("Semua queue yang dibutuhkan ada dan berfungsi");
             } else {
                 logger.warn("Beberapa queue tidak ditemukan atau tidak berfungsi. " +
-                           "pesanan.baru: {}, pesanan.status: {}", 
-                           pesananBaruExists, pesananStatusExists);
+                           "pesanan.baru: {}, pesanan.status: {}, retry: {}", 
+                           pesananBaruExists, pesananStatusExists, retryExists);
             }
             
             return allQueuesExist;
@@ -132,4 +470,29 @@ public class RabbitMQUtil {
             return false;
         }
     }
+    
+    private static int bacaJumlahShard() {
+        String nilai = bacaPengaturan(PROPERTI_JUMLAH_SHARD, ENV_JUMLAH_SHARD);
+        if (nilai == null || nilai.trim().isEmpty()) {
+            return 1;
+        }
+        int jumlah;
+        try {
+            jumlah = Integer.parseInt(nilai.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(PROPERTI_JUMLAH_SHARD + " bukan angka: " + nilai);
+        }
+        if (jumlah < 1 || jumlah > MAKS_JUMLAH_SHARD) {
+            throw new IllegalArgumentException(PROPERTI_JUMLAH_SHARD + " harus antara 1 dan " + MAKS_JUMLAH_SHARD + ": " + jumlah);
+        }
+        return jumlah;
+    }
+    
+    /**
+     * Membaca pengaturan dari property sistem, lalu dari variabel lingkungan
+     */
+    private static String bacaPengaturan(String properti, String env) {
+        String nilai = System.getProperty(properti);
+        return nilai != null ? nilai : System.getenv(env);
+    }
 } 
\ No newline at end of file
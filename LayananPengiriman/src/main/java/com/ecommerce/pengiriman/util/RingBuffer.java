@@ -0,0 +1,328 @@
+package com.ecommerce.pengiriman.util;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ring buffer berkapasitas tetap untuk banyak penulis dan satu pembaca (MPSC)
+ *
+ * Semua slot dialokasikan di awal sehingga tidak ada node per item seperti LinkedBlockingQueue
+ * dan pemakaian memori tetap walaupun pembaca tertinggal. Penulis memesan slot dengan CAS pada
+ * posisi ekor, lalu menerbitkan item dengan menulis nomor urut slot; pembaca tidak memakai lock
+ * maupun CAS. Setiap slot membawa nomor urut (algoritma Vyukov) sehingga pembaca hanya melihat
+ * item yang sudah selesai ditulis.
+ *
+ * Hanya satu thread yang boleh mengambil item (poll, take, drainTo). Pembaca yang menunggu
+ * memakai StrategiTunggu; penulis yang menunggu slot kosong pada put() memakai backoff spin,
+ * yield, lalu park singkat. Iterator berisi salinan isi saat dibuat dan tidak mendukung remove().
+ *
+ * @param <E> Tipe item
+ */
+public class RingBuffer<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+    
+    /**
+     * Cara pembaca menunggu item ketika ring buffer kosong
+     */
+    public enum StrategiTunggu {
+        // Terus berputar dengan Thread.onSpinWait(): latensi serah terima terendah, memakai satu core penuh
+        SPIN,
+        // Berputar sebentar, lalu yield, lalu park sampai dibangunkan penulis: latensi rendah tanpa membakar CPU saat sepi
+        HIBRIDA,
+        // Langsung park sampai dibangunkan penulis: hemat CPU, latensi mengikuti waktu bangun thread
+        PARK
+    }
+    
+    // Jumlah putaran spin dan yield sebelum park pada strategi HIBRIDA dan pada put()
+    private static final int PUTARAN_SPIN = 100;
+    private static final int PUTARAN_YIELD = 100;
+    
+    // Lama park maksimum, batas atas jika sinyal bangun terlewat
+    private static final long MAKS_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    
+    // Lama park penulis yang menunggu slot kosong
+    private static final long PARK_PENULIS_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    
+    private final int kapasitas;
+    private final int mask;
+    private final AtomicReferenceArray<E> elemen;
+    
+    // Nomor urut setiap slot: sama dengan posisi berarti kosong untuk penulis pada posisi itu,
+    // posisi + 1 berarti berisi item untuk pembaca pada posisi itu
+    private final AtomicLongArray urutan;
+    
+    // Posisi berikutnya yang akan dipesan penulis
+    private final AtomicLong ekor = new AtomicLong();
+    
+    // Posisi berikutnya yang akan dibaca, hanya diubah oleh pembaca
+    private final AtomicLong kepala = new AtomicLong();
+    
+    private final StrategiTunggu strategiTunggu;
+    
+    // Thread pembaca yang sedang park, dibangunkan oleh penulis setelah menerbitkan item
+    private volatile Thread pembacaMenunggu;
+    
+    /**
+     * @param kapasitas Jumlah slot minimum, dibulatkan ke atas menjadi pangkat dua
+     * @param strategiTunggu Cara pembaca menunggu item
+     */
+    public RingBuffer(int kapasitas, StrategiTunggu strategiTunggu) {
+        if (kapasitas < 1 || kapasitas > (1 << 30)) {
+            throw new IllegalArgumentException("Kapasitas ring buffer harus antara 1 dan 2^30: " + kapasitas);
+        }
+        this.kapasitas = kapasitas == 1 ? 1 : Integer.highestOneBit(kapasitas - 1) << 1;
+        this.mask = this.kapasitas - 1;
+        this.elemen = new AtomicReferenceArray<>(this.kapasitas);
+        this.urutan = new AtomicLongArray(this.kapasitas);
+        for (int i = 0; i < this.kapasitas; i++) {
+            urutan.set(i, i);
+        }
+        this.strategiTunggu = Objects.requireNonNull(strategiTunggu, "strategiTunggu");
+    }
+    
+    /**
+     * Menambahkan item tanpa menunggu
+     * @return false jika ring buffer penuh
+     */
+    @Override
+    public boolean offer(E item) {
+        Objects.requireNonNull(item, "item");
+        long posisi = ekor.get();
+        while (true) {
+            int slot = (int) posisi & mask;
+            long selisih = urutan.get(slot) - posisi;
+            if (selisih == 0) {
+                if (ekor.compareAndSet(posisi, posisi + 1)) {
+                    elemen.lazySet(slot, item);
+                    // Tulis volatile agar pembaca yang baru mendaftar sebagai penunggu pasti melihat item ini
+                    urutan.set(slot, posisi + 1);
+                    bangunkanPembaca();
+                    return true;
+                }
+                posisi = ekor.get();
+            } else if (selisih < 0) {
+                // Slot masih berisi item satu putaran sebelumnya
+                return false;
+            } else {
+                // Penulis lain sudah memesan posisi ini
+                posisi = ekor.get();
+            }
+        }
+    }
+    
+    /**
+     * Menambahkan item, menunggu sampai ada slot kosong
+     */
+    @Override
+    public void put(E item) throws InterruptedException {
+        int putaran = 0;
+        while (!offer(item)) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            putaran = tungguSlot(putaran);
+        }
+    }
+    
+    @Override
+    public boolean offer(E item, long timeout, TimeUnit unit) throws InterruptedException {
+        long batas = System.nanoTime() + unit.toNanos(timeout);
+        int putaran = 0;
+        while (!offer(item)) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (batas - System.nanoTime() <= 0) {
+                return false;
+            }
+            putaran = tungguSlot(putaran);
+        }
+        return true;
+    }
+    
+    /**
+     * Mengambil item tanpa menunggu, hanya boleh dipanggil oleh satu thread pembaca
+     * @return Item terlama, atau null jika kosong
+     */
+    @Override
+    public E poll() {
+        long posisi = kepala.get();
+        int slot = (int) posisi & mask;
+        if (urutan.get(slot) != posisi + 1) {
+            return null;
+        }
+        E item = elemen.get(slot);
+        elemen.lazySet(slot, null);
+        urutan.lazySet(slot, posisi + kapasitas);
+        kepala.lazySet(posisi + 1);
+        return item;
+    }
+    
+    @Override
+    public E take() throws InterruptedException {
+        int putaran = 0;
+        while (true) {
+            E item = poll();
+            if (item != null) {
+                return item;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            putaran = tungguItem(putaran, MAKS_PARK_NANOS);
+        }
+    }
+    
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long batas = System.nanoTime() + unit.toNanos(timeout);
+        int putaran = 0;
+        while (true) {
+            E item = poll();
+            if (item != null) {
+                return item;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            long sisa = batas - System.nanoTime();
+            if (sisa <= 0) {
+                return null;
+            }
+            putaran = tungguItem(putaran, Math.min(sisa, MAKS_PARK_NANOS));
+        }
+    }
+    
+    @Override
+    public E peek() {
+        long posisi = kepala.get();
+        int slot = (int) posisi & mask;
+        return urutan.get(slot) == posisi + 1 ? elemen.get(slot) : null;
+    }
+    
+    @Override
+    public int drainTo(Collection<? super E> tujuan) {
+        return drainTo(tujuan, Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public int drainTo(Collection<? super E> tujuan, int maksimum) {
+        int jumlah = 0;
+        while (jumlah < maksimum) {
+            E item = poll();
+            if (item == null) {
+                break;
+            }
+            tujuan.add(item);
+            jumlah++;
+        }
+        return jumlah;
+    }
+    
+    /**
+     * Perkiraan jumlah item, termasuk slot yang sudah dipesan tetapi belum selesai ditulis
+     */
+    @Override
+    public int size() {
+        long jumlah = ekor.get() - kepala.get();
+        return (int) Math.max(0, Math.min(jumlah, kapasitas));
+    }
+    
+    @Override
+    public int remainingCapacity() {
+        return kapasitas - size();
+    }
+    
+    /**
+     * Kapasitas sebenarnya setelah dibulatkan ke pangkat dua
+     */
+    public int getKapasitas() {
+        return kapasitas;
+    }
+    
+    @Override
+    public Iterator<E> iterator() {
+        List<E> salinan = new ArrayList<>();
+        long akhir = ekor.get();
+        for (long posisi = kepala.get(); posisi < akhir; posisi++) {
+            int slot = (int) posisi & mask;
+            E item = elemen.get(slot);
+            if (item != null && urutan.get(slot) == posisi + 1) {
+                salinan.add(item);
+            }
+        }
+        return Collections.unmodifiableList(salinan).iterator();
+    }
+    
+    private void bangunkanPembaca() {
+        Thread pembaca = pembacaMenunggu;
+        if (pembaca != null) {
+            LockSupport.unpark(pembaca);
+        }
+    }
+    
+    private boolean adaItem() {
+        long posisi = kepala.get();
+        return urutan.get((int) posisi & mask) == posisi + 1;
+    }
+    
+    /**
+     * Satu langkah tunggu pembaca sesuai strategi
+     * @return Jumlah putaran berikutnya
+     */
+    private int tungguItem(int putaran, long maksParkNanos) {
+        switch (strategiTunggu) {
+            case SPIN:
+                Thread.onSpinWait();
+                return putaran;
+            case HIBRIDA:
+                if (putaran < PUTARAN_SPIN) {
+                    Thread.onSpinWait();
+                    return putaran + 1;
+                }
+                if (putaran < PUTARAN_SPIN + PUTARAN_YIELD) {
+                    Thread.yield();
+                    return putaran + 1;
+                }
+                park(maksParkNanos);
+                return putaran;
+            default:
+                park(maksParkNanos);
+                return putaran;
+        }
+    }
+    
+    private void park(long nanos) {
+        pembacaMenunggu = Thread.currentThread();
+        // Periksa ulang setelah mendaftar agar item yang terbit di antaranya tidak terlewat
+        if (!adaItem()) {
+            LockSupport.parkNanos(this, nanos);
+        }
+        pembacaMenunggu = null;
+    }
+    
+    /**
+     * Satu langkah backoff penulis yang menunggu slot kosong
+     */
+    private static int tungguSlot(int putaran) {
+        if (putaran < PUTARAN_SPIN) {
+            Thread.onSpinWait();
+        } else if (putaran < PUTARAN_SPIN + PUTARAN_YIELD) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_PENULIS_NANOS);
+            return putaran;
+        }
+        return putaran + 1;
+    }
+} 
\ No newline at end of file
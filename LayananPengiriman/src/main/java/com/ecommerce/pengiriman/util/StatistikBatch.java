@@ -0,0 +1,56 @@
+package com.ecommerce.pengiriman.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Kelas utilitas untuk mencatat statistik ukuran batch yang dikirim producer
+ * Aman dipanggil dari beberapa thread sekaligus
+ */
+public class StatistikBatch {
+    // Jumlah batch yang sudah dikirim
+    private final AtomicLong jumlahBatch = new AtomicLong();
+    
+    // Jumlah total pesan di seluruh batch
+    private final AtomicLong jumlahPesan = new AtomicLong();
+    
+    // Ukuran batch terbesar yang pernah dikirim
+    private final LongAccumulator ukuranMaksimum = new LongAccumulator(Math::max, 0);
+    
+    /**
+     * Mencatat satu batch yang sudah dikirim
+     * @param ukuran Jumlah pesan di dalam batch
+     */
+    public void catat(int ukuran) {
+        jumlahBatch.incrementAndGet();
+        jumlahPesan.addAndGet(ukuran);
+        ukuranMaksimum.accumulate(ukuran);
+    }
+    
+    public long getJumlahBatch() {
+        return jumlahBatch.get();
+    }
+    
+    public long getJumlahPesan() {
+        return jumlahPesan.get();
+    }
+    
+    public long getUkuranMaksimum() {
+        return ukuranMaksimum.get();
+    }
+    
+    /**
+     * Menghitung rata-rata ukuran batch
+     * @return Rata-rata jumlah pesan per batch, 0 jika belum ada batch
+     */
+    public double getRataRataUkuran() {
+        long batch = jumlahBatch.get();
+        return batch == 0 ? 0 : (double) jumlahPesan.get() / batch;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("StatistikBatch{jumlahBatch=%d, jumlahPesan=%d, rataRata=%.2f, maksimum=%d}",
+            getJumlahBatch(), getJumlahPesan(), getRataRataUkuran(), getUkuranMaksimum());
+    }
+} 
\ No newline at end of file
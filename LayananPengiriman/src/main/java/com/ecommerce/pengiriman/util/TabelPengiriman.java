@@ -0,0 +1,548 @@
+package com.ecommerce.pengiriman.util;
+
+import com.ecommerce.pengiriman.model.DetailPengiriman;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Tabel pengiriman dengan kunci long primitif untuk jutaan pengiriman yang sedang berjalan
+ *
+ * Field berukuran tetap (id, idPesanan, tanggalPengiriman, kode status) disimpan dalam array
+ * primitif per kolom, sedangkan nama pelanggan, alamat, kurir, dan nomor resi disimpan sebagai
+ * kode KamusString (UTF-8 off-heap). Tidak ada objek per pengiriman di heap sehingga GC hanya
+ * melihat beberapa array besar, bukan jutaan Integer, DetailPengiriman, Date, dan String.
+ *
+ * Tabel dibagi menjadi beberapa segmen open addressing (linear probing) dengan StampedLock
+ * masing-masing. Penulis hanya mengunci segmen dari ID yang diubah, pembaca memakai optimistic
+ * read dan hanya mengambil read lock jika bertabrakan dengan penulis. Objek DetailPengiriman
+ * yang dikembalikan adalah salinan tanpa data pelacakan; perubahan harus disimpan kembali lewat simpan().
+ *
+ * Setiap segmen memiliki indeks sekunder (IndeksSekunder) untuk status, nama pelanggan, dan kurir
+ * yang diperbarui di dalam write lock yang sama dengan barisnya, sehingga pencarian berdasarkan
+ * kolom tersebut tidak perlu memindai seluruh tabel dan selalu sesuai dengan isi segmen. Indeks
+ * tidak ikut ditulis ke snapshot; indeks dibangun ulang saat segmen dimuat.
+ *
+ * Jika jurnal dipasang, setiap perubahan dicatat ke jurnal di dalam lock segmen sebelum tabel
+ * diubah. Setiap segmen juga menandai dirinya berubah sehingga checkpoint hanya perlu menulis
+ * ulang segmen yang berubah sejak checkpoint sebelumnya.
+ */
+public class TabelPengiriman {
+    // Jumlah segmen = 2^BIT_SEGMEN
+    private static final int BIT_SEGMEN = 6;
+    
+    // Kode status 0 menandakan slot kosong
+    private static final byte SLOT_KOSONG = 0;
+    
+    private final Segmen[] segmen;
+    private final KamusString kamus;
+    
+    // ID pengiriman terbesar yang pernah disimpan, untuk melanjutkan penomoran setelah restart
+    private final AtomicLong idTerbesar = new AtomicLong();
+    
+    // Jurnal perubahan, null jika tabel hanya di memori
+    private volatile JurnalPengiriman jurnal;
+    
+    public TabelPengiriman() {
+        this(1024);
+    }
+    
+    /**
+     * @param kapasitasAwal Perkiraan jumlah pengiriman, dibagi rata ke semua segmen
+     */
+    public TabelPengiriman(int kapasitasAwal) {
+        this(kapasitasAwal, new KamusString());
+    }
+    
+    /**
+     * Tabel kosong yang memakai kamus yang sudah dimuat, segmen diisi lewat bacaSegmenDari()
+     */
+    TabelPengiriman(KamusString kamus) {
+        this(1024, kamus);
+    }
+    
+    private TabelPengiriman(int kapasitasAwal, KamusString kamus) {
+        this.kamus = kamus;
+        int perSegmen = Math.max(16, (kapasitasAwal >> BIT_SEGMEN) * 4 / 3 + 1);
+        int kapasitasSegmen = Integer.highestOneBit(perSegmen - 1) << 1;
+        this.segmen = new Segmen[1 << BIT_SEGMEN];
+        for (int i = 0; i < segmen.length; i++) {
+            segmen[i] = new Segmen(kapasitasSegmen);
+        }
+    }
+    
+    /**
+     * Menyimpan atau mengganti pengiriman
+     * @param pengiriman Pengiriman dengan status yang dikenal BinaryUtil
+     */
+    public void simpan(DetailPengiriman pengiriman) {
+        long tanggal = pengiriman.getTanggalPengiriman() != null ? pengiriman.getTanggalPengiriman().getTime() : 0;
+        simpanMentah(pengiriman.getId(), pengiriman.getIdPesanan(), tanggal,
+            kodeStatus(pengiriman.getStatusPengiriman()), pengiriman.getNamaPelanggan(),
+            pengiriman.getAlamatPengiriman(), pengiriman.getKurirPengiriman(), pengiriman.getNomorResi());
+    }
+    
+    void simpanMentah(long id, long idPesanan, long tanggal, byte status, String namaPelanggan,
+                      String alamatPengiriman, String kurirPengiriman, String nomorResi) {
+        int nama = kamus.simpan(namaPelanggan);
+        int alamat = kamus.simpan(alamatPengiriman);
+        int kurir = kamus.simpan(kurirPengiriman);
+        int resi = kamus.simpan(nomorResi);
+        
+        int hash = sebar(id);
+        Segmen seg = segmen[hash >>> (32 - BIT_SEGMEN)];
+        long stamp = seg.kunci.writeLock();
+        try {
+            JurnalPengiriman j = jurnal;
+            if (j != null) {
+                j.catatSimpan(id, idPesanan, tanggal, status, namaPelanggan, alamatPengiriman,
+                    kurirPengiriman, nomorResi);
+            }
+            int slot = seg.slotUntukDitulis(id, hash);
+            seg.perbaruiIndeks(id, slot, status, nama, kurir);
+            Blok blok = seg.blok;
+            blok.idPesanan[slot] = idPesanan;
+            blok.tanggal[slot] = tanggal;
+            blok.nama[slot] = nama;
+            blok.alamat[slot] = alamat;
+            blok.kurir[slot] = kurir;
+            blok.resi[slot] = resi;
+            blok.status[slot] = status;
+            seg.berubah = true;
+        } finally {
+            seg.kunci.unlockWrite(stamp);
+        }
+        idTerbesar.accumulateAndGet(id, Math::max);
+    }
+    
+    /**
+     * Mengambil salinan pengiriman
+     * @param id ID pengiriman
+     * @return Salinan pengiriman, atau null jika tidak ada
+     */
+    public DetailPengiriman ambil(long id) {
+        int hash = sebar(id);
+        Segmen seg = segmen[hash >>> (32 - BIT_SEGMEN)];
+        Baris baris = new Baris();
+        
+        long stamp = seg.kunci.tryOptimisticRead();
+        Blok blok = seg.blok;
+        boolean ada = baris.baca(blok, seg.cari(blok, id, hash));
+        if (!seg.kunci.validate(stamp)) {
+            stamp = seg.kunci.readLock();
+            try {
+                blok = seg.blok;
+                ada = baris.baca(blok, seg.cari(blok, id, hash));
+            } finally {
+                seg.kunci.unlockRead(stamp);
+            }
+        }
+        return ada ? baris.toDetailPengiriman(id) : null;
+    }
+    
+    /**
+     * Iterasi weakly consistent atas semua pengiriman, tidak menahan penulis selama callback berjalan
+     * Pengiriman yang berubah selama iterasi mungkin tampil dengan nilai lama atau baru
+     * @param aksi Callback untuk salinan setiap pengiriman
+     */
+    public void forEach(Consumer<DetailPengiriman> aksi) {
+        Baris baris = new Baris();
+        for (Segmen seg : segmen) {
+            Blok blok = seg.blok;
+            for (int slot = 0; slot < blok.id.length; slot++) {
+                long stamp = seg.kunci.tryOptimisticRead();
+                long id = blok.id[slot];
+                boolean ada = baris.baca(blok, slot);
+                if (!seg.kunci.validate(stamp)) {
+                    stamp = seg.kunci.readLock();
+                    try {
+                        id = blok.id[slot];
+                        ada = baris.baca(blok, slot);
+                    } finally {
+                        seg.kunci.unlockRead(stamp);
+                    }
+                }
+                if (ada) {
+                    aksi.accept(baris.toDetailPengiriman(id));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Mencari pengiriman dengan status tertentu lewat indeks status
+     * @param status Status pengiriman, misalnya "DIKEMAS"
+     * @return Salinan pengiriman tanpa urutan tertentu, list kosong jika tidak ada
+     * @throws IllegalArgumentException jika status tidak dikenal
+     */
+    public List<DetailPengiriman> cariBerdasarkanStatus(String status) {
+        return cari(seg -> seg.indeksStatus, kodeStatus(status));
+    }
+    
+    /**
+     * Mencari pengiriman milik pelanggan lewat indeks nama pelanggan
+     * @param namaPelanggan Nama pelanggan yang sama persis
+     * @return Salinan pengiriman tanpa urutan tertentu, list kosong jika tidak ada
+     */
+    public List<DetailPengiriman> cariBerdasarkanPelanggan(String namaPelanggan) {
+        int kode = kamus.cari(namaPelanggan);
+        return kode != KamusString.KODE_TIDAK_ADA ? cari(seg -> seg.indeksNama, kode) : new ArrayList<>();
+    }
+    
+    /**
+     * Mencari pengiriman yang ditangani kurir lewat indeks kurir
+     * @param kurirPengiriman Nama kurir yang sama persis, atau null untuk pengiriman yang belum memiliki kurir
+     * @return Salinan pengiriman tanpa urutan tertentu, list kosong jika tidak ada
+     */
+    public List<DetailPengiriman> cariBerdasarkanKurir(String kurirPengiriman) {
+        int kode = kamus.cari(kurirPengiriman);
+        return kode != KamusString.KODE_TIDAK_ADA ? cari(seg -> seg.indeksKurir, kode) : new ArrayList<>();
+    }
+    
+    /**
+     * Jumlah pengiriman dengan status tertentu, dihitung dari indeks tanpa menyalin baris
+     * @throws IllegalArgumentException jika status tidak dikenal
+     */
+    public int hitungBerdasarkanStatus(String status) {
+        byte kode = kodeStatus(status);
+        int total = 0;
+        for (Segmen seg : segmen) {
+            long stamp = seg.kunci.readLock();
+            try {
+                total += seg.indeksStatus.jumlah(kode);
+            } finally {
+                seg.kunci.unlockRead(stamp);
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * Menyalin baris yang tercatat di indeks untuk kode, satu segmen per read lock
+     * Hasil per segmen selalu sesuai isi segmen; perubahan di segmen lain selama pencarian
+     * mungkin tampil atau tidak, seperti pada forEach()
+     */
+    private List<DetailPengiriman> cari(Function<Segmen, IndeksSekunder> indeks, int kode) {
+        List<DetailPengiriman> hasil = new ArrayList<>();
+        Baris baris = new Baris();
+        for (Segmen seg : segmen) {
+            long stamp = seg.kunci.readLock();
+            try {
+                Blok blok = seg.blok;
+                indeks.apply(seg).forEach(kode, id -> {
+                    if (baris.baca(blok, seg.cari(blok, id, sebar(id)))) {
+                        hasil.add(baris.toDetailPengiriman(id));
+                    }
+                });
+            } finally {
+                seg.kunci.unlockRead(stamp);
+            }
+        }
+        return hasil;
+    }
+    
+    /**
+     * Jumlah pengiriman di dalam tabel
+     */
+    public int getJumlah() {
+        int total = 0;
+        for (Segmen seg : segmen) {
+            total += seg.jumlah;
+        }
+        return total;
+    }
+    
+    public boolean isEmpty() {
+        return getJumlah() == 0;
+    }
+    
+    /**
+     * ID pengiriman terbesar yang pernah disimpan, 0 jika tabel kosong
+     */
+    public long getIdTerbesar() {
+        return idTerbesar.get();
+    }
+    
+    /**
+     * Memasang jurnal yang mencatat setiap perubahan berikutnya
+     * @param jurnal Jurnal perubahan, atau null untuk berhenti mencatat
+     */
+    void setJurnal(JurnalPengiriman jurnal) {
+        this.jurnal = jurnal;
+    }
+    
+    int getJumlahSegmen() {
+        return segmen.length;
+    }
+    
+    /**
+     * Apakah segmen berubah sejak terakhir ditulis dengan tulisSegmenKe()
+     */
+    boolean isSegmenBerubah(int nomor) {
+        return segmen[nomor].berubah;
+    }
+    
+    /**
+     * Menulis kolom mentah satu segmen di bawah read lock lalu menandainya tidak berubah
+     * Kode string yang dirujuk harus ikut disimpan dari kamus setelah pemanggilan ini
+     */
+    void tulisSegmenKe(int nomor, PenulisSnapshot out) throws IOException {
+        Segmen seg = segmen[nomor];
+        long stamp = seg.kunci.readLock();
+        try {
+            Blok blok = seg.blok;
+            out.tulisInt(blok.id.length);
+            out.tulisInt(seg.jumlah);
+            out.tulisArray(blok.id);
+            out.tulisArray(blok.idPesanan);
+            out.tulisArray(blok.tanggal);
+            out.tulisArray(blok.nama);
+            out.tulisArray(blok.alamat);
+            out.tulisArray(blok.kurir);
+            out.tulisArray(blok.resi);
+            out.tulisArray(blok.status);
+            seg.berubah = false;
+        } finally {
+            seg.kunci.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * Memuat satu segmen yang ditulis tulisSegmenKe() dengan pembacaan bulk per kolom
+     * Hanya dipanggil sebelum tabel dipakai bersama thread lain
+     */
+    void bacaSegmenDari(int nomor, PembacaSnapshot in) throws IOException {
+        int kapasitas = in.bacaInt();
+        int jumlah = in.bacaInt();
+        if (kapasitas < 16 || Integer.bitCount(kapasitas) != 1 || jumlah < 0 || jumlah > kapasitas * 3 / 4) {
+            throw new IOException("Ukuran segmen tidak valid: " + kapasitas + "/" + jumlah);
+        }
+        Segmen seg = new Segmen(kapasitas);
+        Blok blok = seg.blok;
+        in.bacaArray(blok.id);
+        in.bacaArray(blok.idPesanan);
+        in.bacaArray(blok.tanggal);
+        in.bacaArray(blok.nama);
+        in.bacaArray(blok.alamat);
+        in.bacaArray(blok.kurir);
+        in.bacaArray(blok.resi);
+        in.bacaArray(blok.status);
+        seg.jumlah = jumlah;
+        
+        long idMaks = 0;
+        for (int slot = 0; slot < kapasitas; slot++) {
+            if (blok.status[slot] != SLOT_KOSONG) {
+                idMaks = Math.max(idMaks, blok.id[slot]);
+                seg.tambahIndeks(blok.id[slot], blok.status[slot], blok.nama[slot], blok.kurir[slot]);
+            }
+        }
+        idTerbesar.accumulateAndGet(idMaks, Math::max);
+        segmen[nomor] = seg;
+    }
+    
+    /**
+     * Kamus string untuk nama, alamat, kurir, dan nomor resi, misalnya untuk memantau pemakaian memori off-heap
+     */
+    public KamusString getKamus() {
+        return kamus;
+    }
+    
+    private static byte kodeStatus(String status) {
+        for (int kode = 1; kode < BinaryUtil.STATUS_PENGIRIMAN.length; kode++) {
+            if (BinaryUtil.STATUS_PENGIRIMAN[kode].equals(status)) {
+                return (byte) kode;
+            }
+        }
+        throw new IllegalArgumentException("Status pengiriman tidak dikenal: " + status);
+    }
+    
+    /**
+     * ID dilipat menjadi 32 bit sebelum diacak; file segmen menyimpan posisi slot apa adanya, sehingga
+     * fungsi ini tidak boleh berubah tanpa menaikkan versi file segmen
+     */
+    private static int sebar(long id) {
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+    
+    /**
+     * Kolom-kolom satu segmen, diganti seluruhnya saat segmen diperbesar
+     */
+    private static final class Blok {
+        final long[] id;
+        final long[] idPesanan;
+        final long[] tanggal;
+        final int[] nama;
+        final int[] alamat;
+        final int[] kurir;
+        final int[] resi;
+        final byte[] status;
+        
+        Blok(int kapasitas) {
+            id = new long[kapasitas];
+            idPesanan = new long[kapasitas];
+            tanggal = new long[kapasitas];
+            nama = new int[kapasitas];
+            alamat = new int[kapasitas];
+            kurir = new int[kapasitas];
+            resi = new int[kapasitas];
+            status = new byte[kapasitas];
+        }
+    }
+    
+    private static final class Segmen {
+        final StampedLock kunci = new StampedLock();
+        volatile Blok blok;
+        volatile int jumlah;
+        
+        // Ditandai oleh penulis, dihapus saat segmen ditulis ke checkpoint
+        volatile boolean berubah;
+        
+        // Indeks sekunder segmen, hanya diakses di bawah lock segmen
+        final IndeksSekunder indeksStatus = new IndeksSekunder();
+        final IndeksSekunder indeksNama = new IndeksSekunder();
+        final IndeksSekunder indeksKurir = new IndeksSekunder();
+        
+        Segmen(int kapasitas) {
+            blok = new Blok(kapasitas);
+        }
+        
+        /**
+         * Mencari slot ID, aman dipanggil tanpa lock karena jumlah probe dibatasi kapasitas blok
+         * @return Indeks slot, atau -1 jika tidak ada
+         */
+        int cari(Blok b, long id, int hash) {
+            int mask = b.id.length - 1;
+            int slot = hash & mask;
+            for (int i = 0; i <= mask && b.status[slot] != SLOT_KOSONG; i++) {
+                if (b.id[slot] == id) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+        
+        /**
+         * Mencari slot ID atau menyiapkan slot kosong untuknya, dipanggil dengan write lock
+         * Slot baru sudah berisi ID, status diisi terakhir oleh pemanggil
+         */
+        int slotUntukDitulis(long id, int hash) {
+            int slot = cari(blok, id, hash);
+            if (slot >= 0) {
+                return slot;
+            }
+            if (jumlah + 1 > blok.id.length * 3 / 4) {
+                perbesar();
+            }
+            Blok b = blok;
+            int mask = b.id.length - 1;
+            slot = hash & mask;
+            while (b.status[slot] != SLOT_KOSONG) {
+                slot = (slot + 1) & mask;
+            }
+            b.id[slot] = id;
+            jumlah++;
+            return slot;
+        }
+        
+        /**
+         * Memperbarui indeks sekunder untuk nilai baru baris, dipanggil dengan write lock sebelum
+         * kolom baris ditulis; baris baru dikenali dari statusnya yang masih kosong
+         */
+        void perbaruiIndeks(long id, int slot, byte status, int nama, int kurir) {
+            Blok b = blok;
+            if (b.status[slot] == SLOT_KOSONG) {
+                tambahIndeks(id, status, nama, kurir);
+                return;
+            }
+            if (b.status[slot] != status) {
+                indeksStatus.hapus(b.status[slot], id);
+                indeksStatus.tambah(status, id);
+            }
+            if (b.nama[slot] != nama) {
+                indeksNama.hapus(b.nama[slot], id);
+                indeksNama.tambah(nama, id);
+            }
+            if (b.kurir[slot] != kurir) {
+                indeksKurir.hapus(b.kurir[slot], id);
+                indeksKurir.tambah(kurir, id);
+            }
+        }
+        
+        /**
+         * Mencatat baris baru ke semua indeks sekunder
+         */
+        void tambahIndeks(long id, byte status, int nama, int kurir) {
+            indeksStatus.tambah(status, id);
+            indeksNama.tambah(nama, id);
+            indeksKurir.tambah(kurir, id);
+        }
+        
+        private void perbesar() {
+            Blok lama = blok;
+            Blok baru = new Blok(lama.id.length * 2);
+            int mask = baru.id.length - 1;
+            for (int i = 0; i < lama.id.length; i++) {
+                if (lama.status[i] == SLOT_KOSONG) {
+                    continue;
+                }
+                int slot = sebar(lama.id[i]) & mask;
+                while (baru.status[slot] != SLOT_KOSONG) {
+                    slot = (slot + 1) & mask;
+                }
+                baru.id[slot] = lama.id[i];
+                baru.idPesanan[slot] = lama.idPesanan[i];
+                baru.tanggal[slot] = lama.tanggal[i];
+                baru.nama[slot] = lama.nama[i];
+                baru.alamat[slot] = lama.alamat[i];
+                baru.kurir[slot] = lama.kurir[i];
+                baru.resi[slot] = lama.resi[i];
+                baru.status[slot] = lama.status[i];
+            }
+            blok = baru;
+        }
+    }
+    
+    /**
+     * Penampung nilai mentah satu baris; string baru di-decode setelah bacaan tervalidasi
+     */
+    private final class Baris {
+        long idPesanan;
+        long tanggal;
+        int nama;
+        int alamat;
+        int kurir;
+        int resi;
+        byte status;
+        
+        boolean baca(Blok blok, int slot) {
+            if (slot < 0 || blok.status[slot] == SLOT_KOSONG) {
+                return false;
+            }
+            idPesanan = blok.idPesanan[slot];
+            tanggal = blok.tanggal[slot];
+            nama = blok.nama[slot];
+            alamat = blok.alamat[slot];
+            kurir = blok.kurir[slot];
+            resi = blok.resi[slot];
+            status = blok.status[slot];
+            return true;
+        }
+        
+        DetailPengiriman toDetailPengiriman(long id) {
+            DetailPengiriman pengiriman = new DetailPengiriman(id, idPesanan, kamus.ambil(nama), kamus.ambil(alamat));
+            pengiriman.setTanggalPengiriman(new Date(tanggal));
+            pengiriman.setKurirPengiriman(kamus.ambil(kurir));
+            pengiriman.setNomorResi(kamus.ambil(resi));
+            pengiriman.setStatusPengiriman(BinaryUtil.STATUS_PENGIRIMAN[status]);
+            return pengiriman;
+        }
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.ecommerce.pengiriman.util;
+
+import java.io.IOException;
+
+/**
+ * Abstraksi transport pesan yang dipakai oleh producer dan consumer
+ * 
+ * Service tidak lagi bergantung langsung pada com.rabbitmq.client.Connection sehingga
+ * transport dapat diganti, misalnya RabbitMQTransport untuk broker sungguhan atau
+ * InMemoryTransport untuk menjalankan LayananPesanan dan LayananPengiriman dalam satu JVM.
+ */
+public interface Transport extends AutoCloseable {
+    
+    /**
+     * Membuat channel baru pada transport ini
+     * Seperti channel RabbitMQ, satu channel sebaiknya hanya dipakai oleh satu thread untuk publish
+     * @return Channel yang siap dipakai
+     */
+    TransportChannel createChannel() throws IOException;
+    
+    /**
+     * Memeriksa apakah transport masih terbuka
+     * @return true jika transport masih dapat dipakai
+     */
+    boolean isOpen();
+    
+    /**
+     * Menutup transport beserta semua channel yang masih terbuka
+     */
+    @Override
+    void close() throws IOException;
+} 
\ No newline at end of file
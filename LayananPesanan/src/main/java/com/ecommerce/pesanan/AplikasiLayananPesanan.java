@@ -1,17 +1,25 @@
 package com.ecommerce.pesanan;
 
+import com.ecommerce.pesanan.config.ConsumerConfig;
+import com.ecommerce.pesanan.config.GeneratorConfig;
+import com.ecommerce.pesanan.config.PersistensiConfig;
+import com.ecommerce.pesanan.config.ProducerConfig;
 import com.ecommerce.pesanan.model.Pesanan;
+import com.ecommerce.pesanan.service.GeneratorBeban;
 import com.ecommerce.pesanan.service.PesananProducer;
 import com.ecommerce.pesanan.service.PesananStatusConsumer;
-import com.rabbitmq.client.Channel;
-import com.rabbitmq.client.Connection;
+import com.ecommerce.pesanan.util.EksekusiUtil;
+import com.ecommerce.pesanan.util.GeneratorId;
+import com.ecommerce.pesanan.util.PengelolaKoneksi;
+import com.ecommerce.pesanan.util.PenyimpananPesanan;
 import com.ecommerce.pesanan.util.RabbitMQUtil;
+import com.ecommerce.pesanan.util.TracingUtil;
+import com.ecommerce.pesanan.util.TransportChannel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Scanner;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Aplikasi utama untuk layanan pesanan
@@ -19,25 +27,44 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class AplikasiLayananPesanan {
     private static final Logger logger = LoggerFactory.getLogger(AplikasiLayananPesanan.class);
     
-    // Counter untuk ID pesanan, menggunakan AtomicInteger untuk thread-safety
-    private static final AtomicInteger pesananCounter = new AtomicInteger(1);
-
+    // Generator ID pesanan bergaya Snowflake, unik di antara semua instance layanan
+    // Dilanjutkan dari ID terbesar yang tersimpan agar ID tidak dipakai ulang setelah restart
+    private static GeneratorId generatorId;
+    
     public static void main(String[] args) {
         logger.info("Memulai Aplikasi Layanan Pesanan");
         
-        Connection connection = null;
-        Channel channel = null;
+        // Argumen --beban menjalankan generator beban tanpa menu interaktif
+        GeneratorConfig generatorConfig;
+        try {
+            generatorConfig = GeneratorConfig.dariArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            printPenggunaan();
+            return;
+        }
+        
+        PengelolaKoneksi koneksi = null;
+        TransportChannel channel = null;
         PesananStatusConsumer statusConsumer = null;
         PesananProducer pesananProducer = null;
+        PenyimpananPesanan penyimpanan = null;
         
         try {
-            // Membuat koneksi ke RabbitMQ
+            // Memulihkan daftar pesanan dari snapshot dan jurnal di disk
+            logger.info("Memulihkan daftar pesanan...");
+            penyimpanan = PenyimpananPesanan.buka(new PersistensiConfig());
+            generatorId = GeneratorId.dariKonfigurasi("pesanan");
+            generatorId.lanjutkanSetelah(penyimpanan.getIdTerbesar());
+            
+            // Membuat koneksi publish dan consume ke RabbitMQ
+            // Topologi dideklarasikan lewat koneksi consume agar ikut dipulihkan sebelum consumer
             logger.info("Menghubungkan ke RabbitMQ server...");
-            connection = RabbitMQUtil.createConnection();
-            channel = connection.createChannel();
+            koneksi = PengelolaKoneksi.dariLingkungan("layanan-pesanan");
+            channel = koneksi.getTransportConsume().createChannel();
             
             // Verifikasi koneksi telah terbentuk
-            if (!connection.isOpen()) {
+            if (!koneksi.isOpen()) {
                 throw new Exception("Koneksi RabbitMQ tidak terbuka");
             }
             
@@ -57,13 +84,41 @@ public class AplikasiLayananPesanan {
             
             // Consumer untuk menerima update status pengiriman
             logger.info("Memulai consumer untuk status pengiriman...");
-            statusConsumer = new PesananStatusConsumer(connection);
-            Thread consumerThread = new Thread(statusConsumer);
+            // Ack digabung setiap 50 pesan atau 100 ms, prefetch lebih besar dari ukuran gabungan ack
+            ConsumerConfig consumerConfig = new ConsumerConfig();
+            consumerConfig.setPrefetchCount(200);
+            consumerConfig.setAckBatchSize(50);
+            consumerConfig.setAckIntervalMs(100);
+            statusConsumer = new PesananStatusConsumer(koneksi.getTransportConsume(), consumerConfig, penyimpanan.getTabel());
+            // Status yang gagal diproses dikirim ulang lewat koneksi publish
+            statusConsumer.setTransportRetry(koneksi.getTransportPublish());
+            // Consumer thread hanya menunggu sampai dihentikan, pada mode VIRTUAL berupa virtual thread
+            Thread consumerThread = EksekusiUtil.buatThread(consumerConfig.getModeEksekusi(), "consumer-status-pengiriman",
+                statusConsumer);
             consumerThread.start();
             
             // Producer untuk mengirim pesanan baru
+            // Publisher confirms asinkronus memastikan setiap pesanan tersimpan di broker (at-least-once)
             logger.info("Memulai producer untuk pesanan baru...");
-            pesananProducer = new PesananProducer(connection);
+            ProducerConfig producerConfig = new ProducerConfig();
+            producerConfig.setPublisherConfirms(true);
+            producerConfig.setMaxBatchSize(100);
+            producerConfig.setLingerMs(5);
+            // Pesanan satu shard dalam satu batch dikirim sebagai satu amplop (satu pesan AMQP)
+            producerConfig.setMaksBytesAmplop(64 * 1024);
+            // Amplop dan pesanan berukuran 1 KiB ke atas dikirim terkompresi (content-encoding deflate)
+            producerConfig.setAmbangKompresiBytes(1024);
+            // Queue lokal berkapasitas tetap: saat broker lambat pemanggil menunggu, bukan menumpuk di heap
+            producerConfig.setKapasitasQueue(65536);
+            producerConfig.setKebijakanPenuh(ProducerConfig.KebijakanPenuh.TUNGGU);
+            pesananProducer = new PesananProducer(koneksi.getTransportPublish(), producerConfig);
+            
+            // Mode generator beban: pesanan sintetis dikirim sampai durasi/jumlah tercapai lalu aplikasi selesai
+            if (generatorConfig != null) {
+                new GeneratorBeban(generatorConfig, pesananProducer, statusConsumer,
+                    generatorId::berikutnya).jalankan();
+                return;
+            }
             
             // Menu interaktif
             Scanner scanner = new Scanner(System.in);
@@ -76,13 +131,15 @@ public class AplikasiLayananPesanan {
                 switch (pilihan) {
                     case 1:
                         try {
-                            // Verifikasi sekali lagi bahwa queue aktif
-                            if (!RabbitMQUtil.verifyQueueExists(channel, RabbitMQUtil.QUEUE_PESANAN_BARU)) {
+                            Pesanan pesanan = createNewOrder(scanner);
+                            
+                            // Verifikasi sekali lagi bahwa queue shard pesanan ini aktif
+                            String queueShard = RabbitMQUtil.namaShard(RabbitMQUtil.QUEUE_PESANAN_BARU,
+                                RabbitMQUtil.nomorShard(pesanan.getId()));
+                            if (!RabbitMQUtil.verifyQueueExists(channel, queueShard)) {
                                 logger.warn("Queue pesanan baru tidak tersedia, mencoba reinisialisasi...");
                                 RabbitMQUtil.initializeExchangesAndQueues(channel);
                             }
-                            
-                            Pesanan pesanan = createNewOrder(scanner);
                             // Simpan pesanan ke daftar sebelum mengirim ke queue
                             statusConsumer.tambahkanPesanan(pesanan);
                             pesananProducer.tambahkanPesanan(pesanan);
@@ -95,6 +152,9 @@ public class AplikasiLayananPesanan {
                     case 2:
                         statusConsumer.tampilkanDaftarPesanan();
                         break;
+                    case 3:
+                        TracingUtil.tampilkanStatistik();
+                        break;
                     case 0:
                         running = false;
                         break;
@@ -105,7 +165,7 @@ public class AplikasiLayananPesanan {
             
             // Tutup koneksi
             logger.info("Menutup aplikasi...");
-            
+        
         } catch (Exception e) {
             logger.error("Terjadi kesalahan fatal: {}", e.getMessage(), e);
             System.out.println("Aplikasi terhenti karena kesalahan: " + e.getMessage());
@@ -127,10 +187,21 @@ public class AplikasiLayananPesanan {
                     logger.info("Channel RabbitMQ ditutup");
                 }
                 
-                if (connection != null && connection.isOpen()) {
-                    connection.close();
+                if (koneksi != null) {
+                    koneksi.close();
                     logger.info("Koneksi RabbitMQ ditutup");
                 }
+                
+                // Ditutup terakhir agar update status yang masih masuk ikut tercatat di snapshot
+                if (penyimpanan != null) {
+                    penyimpanan.close();
+                    logger.info("Daftar pesanan disimpan");
+                }
+                
+                // Melepas sewa nomor node agar dapat dipakai instance berikutnya
+                if (generatorId != null) {
+                    generatorId.close();
+                }
             } catch (Exception e) {
                 logger.error("Kesalahan saat menutup resource: {}", e.getMessage(), e);
             }
@@ -141,10 +212,20 @@ public class AplikasiLayananPesanan {
         System.out.println("\n=== Aplikasi Layanan Pesanan E-Commerce ===");
         System.out.println("1. Buat Pesanan Baru");
         System.out.println("2. Lihat Daftar Pesanan");
+        System.out.println("3. Lihat Statistik Latensi");
         System.out.println("0. Keluar");
         System.out.print("Pilihan Anda: ");
     }
     
+    private static void printPenggunaan() {
+        System.out.println("Penggunaan mode generator beban:");
+        System.out.println("  --beban [--mode=terbuka|tertutup] [--laju=N] [--konkurensi=N]");
+        System.out.println("          [--durasi=DETIK] [--jumlah=N] [--tunggu=DETIK]");
+        System.out.println("  terbuka  : kirim N pesanan per detik (--laju) tanpa menunggu pesanan selesai");
+        System.out.println("  tertutup : jaga paling banyak N pesanan belum SELESAI (--konkurensi)");
+        System.out.println("LayananPengiriman harus dijalankan dengan argumen --otomatis");
+    }
+    
     private static int getUserChoice(Scanner scanner) {
         try {
             return Integer.parseInt(scanner.nextLine());
@@ -156,8 +237,8 @@ public class AplikasiLayananPesanan {
     private static Pesanan createNewOrder(Scanner scanner) {
         System.out.println("\n=== Buat Pesanan Baru ===");
         
-        // Generate ID pesanan baru menggunakan counter lokal
-        int idPesanan = pesananCounter.getAndIncrement();
+        // Generate ID pesanan baru dari generator ID node ini
+        long idPesanan = generatorId.berikutnya();
         
         System.out.print("Nama Pelanggan: ");
         String namaPelanggan = scanner.nextLine();
@@ -170,8 +251,8 @@ public class AplikasiLayananPesanan {
         
         return new Pesanan(idPesanan, namaPelanggan, alamatPengiriman, totalHarga);
     }
-
-    private static void tampilkanDaftarPesanan(Map<Integer, Pesanan> daftarPesanan) {
+    
+    private static void tampilkanDaftarPesanan(Map<Long, Pesanan> daftarPesanan) {
         System.out.println("\n=== Daftar Pesanan ===");
         System.out.println("ID\tNama Pelanggan\t\tStatus");
         System.out.println("----------------------------------------");
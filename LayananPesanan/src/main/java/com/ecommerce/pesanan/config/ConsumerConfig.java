@@ -0,0 +1,177 @@
+package com.ecommerce.pesanan.config;
+
+import com.ecommerce.pesanan.util.EksekusiUtil;
+import com.ecommerce.pesanan.util.RabbitMQUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Kelas konfigurasi untuk PesananStatusConsumer
+ * Menyimpan pengaturan prefetch, penggabungan acknowledge, dan mode eksekusi beserta nilai default-nya
+ */
+public class ConsumerConfig {
+    // Prefetch 0 berarti tidak dibatasi oleh broker
+    public static final int DEFAULT_PREFETCH_COUNT = 0;
+
+    // Ukuran 1 berarti setiap pesan di-ack sendiri seperti perilaku awal aplikasi
+    public static final int DEFAULT_ACK_BATCH_SIZE = 1;
+
+    // Interval default pengiriman ack gabungan yang tertunda
+    public static final long DEFAULT_ACK_INTERVAL_MS = 100;
+
+    // Mode dari eksekusi.properties hasil build atau property sistem eksekusi.mode
+    public static final EksekusiUtil.ModeEksekusi DEFAULT_MODE_EKSEKUSI = EksekusiUtil.getModeBawaan();
+
+    // Shard dari property sistem ecommerce.shardDikonsumsi atau ECOMMERCE_SHARD_DIKONSUMSI, kosong berarti semua shard
+    public static final List<Integer> DEFAULT_SHARD = Collections.unmodifiableList(RabbitMQUtil.getShardDikonsumsi());
+
+    // Jendela deduplikasi default 5 menit, cukup untuk redelivery setelah channel atau koneksi putus
+    public static final long DEFAULT_JENDELA_DEDUP_MS = 5 * 60 * 1000;
+
+    // Kapasitas default ID pesan per generasi (setengah jendela) deduplikasi
+    public static final int DEFAULT_KAPASITAS_DEDUP = 1 << 20;
+
+    // Percobaan default sebelum pesan dipindahkan ke queue parkir: pengiriman pertama dan empat kali
+    // percobaan ulang dengan tunda 1, 4, 16, dan 64 detik
+    public static final int DEFAULT_MAKS_PERCOBAAN = 5;
+
+    // Jumlah maksimum pesan yang belum di-ack per channel (basicQos)
+    private int prefetchCount = DEFAULT_PREFETCH_COUNT;
+
+    // Jumlah pesan selesai yang dikumpulkan sebelum dikirim sebagai satu ack multiple
+    private int ackBatchSize = DEFAULT_ACK_BATCH_SIZE;
+
+    // Lama maksimum (milidetik) pesan yang sudah selesai menunggu ack gabungan
+    private long ackIntervalMs = DEFAULT_ACK_INTERVAL_MS;
+
+    // Jenis thread pemroses pesan: PLATFORM atau satu virtual thread per pesan (VIRTUAL)
+    private EksekusiUtil.ModeEksekusi modeEksekusi = DEFAULT_MODE_EKSEKUSI;
+
+    // Nomor shard queue yang dikonsumsi instance ini, membagi shard ke beberapa instance consumer
+    private List<Integer> shard = DEFAULT_SHARD;
+
+    // Lama (milidetik) ID pesan diingat untuk mendeteksi pesan duplikat, 0 untuk menonaktifkan deduplikasi
+    private long jendelaDedupMs = DEFAULT_JENDELA_DEDUP_MS;
+
+    // Jumlah ID pesan maksimum per generasi jendela deduplikasi, membatasi memori saat laju pesan tinggi
+    private int kapasitasDedup = DEFAULT_KAPASITAS_DEDUP;
+
+    // Jumlah percobaan pemrosesan satu pesan termasuk pengiriman pertama, 1 berarti pesan yang gagal
+    // langsung dipindahkan ke queue parkir
+    private int maksPercobaan = DEFAULT_MAKS_PERCOBAAN;
+
+    public ConsumerConfig() {
+    }
+
+    public int getPrefetchCount() {
+        return prefetchCount;
+    }
+
+    public void setPrefetchCount(int prefetchCount) {
+        if (prefetchCount < 0 || prefetchCount > 65535) {
+            throw new IllegalArgumentException("prefetchCount harus di antara 0 dan 65535");
+        }
+        this.prefetchCount = prefetchCount;
+    }
+
+    public int getAckBatchSize() {
+        return ackBatchSize;
+    }
+
+    public void setAckBatchSize(int ackBatchSize) {
+        if (ackBatchSize < 1) {
+            throw new IllegalArgumentException("ackBatchSize minimal 1");
+        }
+        this.ackBatchSize = ackBatchSize;
+    }
+
+    public long getAckIntervalMs() {
+        return ackIntervalMs;
+    }
+
+    public void setAckIntervalMs(long ackIntervalMs) {
+        if (ackIntervalMs <= 0) {
+            throw new IllegalArgumentException("ackIntervalMs harus lebih dari 0");
+        }
+        this.ackIntervalMs = ackIntervalMs;
+    }
+
+    public List<Integer> getShard() {
+        return shard;
+    }
+
+    public void setShard(List<Integer> shard) {
+        if (shard == null) {
+            throw new IllegalArgumentException("shard tidak boleh null, gunakan list kosong untuk semua shard");
+        }
+        for (Integer nomor : shard) {
+            if (nomor == null || nomor < 0 || nomor >= RabbitMQUtil.getJumlahShard()) {
+                throw new IllegalArgumentException("Nomor shard harus di antara 0 dan " + (RabbitMQUtil.getJumlahShard() - 1) + ": " + nomor);
+            }
+        }
+        this.shard = Collections.unmodifiableList(new ArrayList<>(shard));
+    }
+
+    public EksekusiUtil.ModeEksekusi getModeEksekusi() {
+        return modeEksekusi;
+    }
+
+    public void setModeEksekusi(EksekusiUtil.ModeEksekusi modeEksekusi) {
+        if (modeEksekusi == null) {
+            throw new IllegalArgumentException("modeEksekusi tidak boleh null");
+        }
+        if (modeEksekusi == EksekusiUtil.ModeEksekusi.VIRTUAL && !EksekusiUtil.isVirtualThreadTersedia()) {
+            throw new IllegalArgumentException("modeEksekusi VIRTUAL membutuhkan Java 21 atau lebih baru");
+        }
+        this.modeEksekusi = modeEksekusi;
+    }
+
+    public long getJendelaDedupMs() {
+        return jendelaDedupMs;
+    }
+
+    public void setJendelaDedupMs(long jendelaDedupMs) {
+        if (jendelaDedupMs < 0) {
+            throw new IllegalArgumentException("jendelaDedupMs tidak boleh negatif");
+        }
+        this.jendelaDedupMs = jendelaDedupMs;
+    }
+
+    public int getKapasitasDedup() {
+        return kapasitasDedup;
+    }
+
+    public void setKapasitasDedup(int kapasitasDedup) {
+        if (kapasitasDedup < 1 || kapasitasDedup > (1 << 24)) {
+            throw new IllegalArgumentException("kapasitasDedup harus antara 1 dan 2^24");
+        }
+        this.kapasitasDedup = kapasitasDedup;
+    }
+
+    public int getMaksPercobaan() {
+        return maksPercobaan;
+    }
+
+    public void setMaksPercobaan(int maksPercobaan) {
+        if (maksPercobaan < 1) {
+            throw new IllegalArgumentException("maksPercobaan minimal 1");
+        }
+        this.maksPercobaan = maksPercobaan;
+    }
+
+    @Override
+    public String toString() {
+        return "ConsumerConfig{" +
+                "prefetchCount=" + prefetchCount +
+                ", ackBatchSize=" + ackBatchSize +
+                ", ackIntervalMs=" + ackIntervalMs +
+                ", modeEksekusi=" + modeEksekusi +
+                ", shard=" + (shard.isEmpty() ? "semua" : shard) +
+                ", jendelaDedupMs=" + jendelaDedupMs +
+                ", kapasitasDedup=" + kapasitasDedup +
+                ", maksPercobaan=" + maksPercobaan +
+                '}';
+    }
+} 
\ No newline at end of file
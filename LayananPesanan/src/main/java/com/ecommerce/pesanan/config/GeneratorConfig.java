@@ -0,0 +1,193 @@
+package com.ecommerce.pesanan.config;
+
+/**
+ * Kelas konfigurasi untuk mode generator beban (tanpa menu interaktif)
+ * Dibaca dari argumen baris perintah dengan format --nama=nilai
+ */
+public class GeneratorConfig {
+    // Argumen yang mengaktifkan mode generator beban
+    public static final String ARG_AKTIF = "--beban";
+
+    // Open-loop: pesanan dikirim dengan laju tetap tanpa menunggu pesanan sebelumnya selesai
+    public static final String MODE_TERBUKA = "terbuka";
+
+    // Closed-loop: jumlah pesanan yang belum selesai dibatasi oleh konkurensi
+    public static final String MODE_TERTUTUP = "tertutup";
+
+    public static final String DEFAULT_MODE = MODE_TERBUKA;
+
+    // Laju default open-loop dalam pesanan per detik
+    public static final int DEFAULT_LAJU = 100;
+
+    // Jumlah default pesanan yang belum selesai pada closed-loop
+    public static final int DEFAULT_KONKURENSI = 32;
+
+    // Durasi default pengiriman pesanan dalam detik
+    public static final int DEFAULT_DURASI_DETIK = 60;
+
+    // Waktu default menunggu pesanan yang belum selesai setelah pengiriman berhenti
+    public static final int DEFAULT_TUNGGU_DETIK = 30;
+
+    private String mode = DEFAULT_MODE;
+
+    // Target laju pengiriman untuk open-loop (pesanan per detik)
+    private int laju = DEFAULT_LAJU;
+
+    // Jumlah maksimum pesanan yang belum SELESAI untuk closed-loop
+    private int konkurensi = DEFAULT_KONKURENSI;
+
+    // Lama pengiriman pesanan dalam detik
+    private int durasiDetik = DEFAULT_DURASI_DETIK;
+
+    // Jumlah pesanan yang dikirim, 0 berarti dibatasi durasi saja
+    private int jumlahPesanan = 0;
+
+    // Lama menunggu pesanan yang belum SELESAI sebelum laporan dicetak
+    private int tungguDetik = DEFAULT_TUNGGU_DETIK;
+
+    public GeneratorConfig() {
+    }
+
+    /**
+     * Membaca konfigurasi generator dari argumen baris perintah
+     * Contoh: --beban --mode=terbuka --laju=500 --durasi=120
+     * @param args Argumen dari main()
+     * @return Konfigurasi generator, atau null jika argumen --beban tidak ada
+     */
+    public static GeneratorConfig dariArgs(String[] args) {
+        GeneratorConfig config = null;
+        for (String arg : args) {
+            if (ARG_AKTIF.equals(arg)) {
+                config = new GeneratorConfig();
+            }
+        }
+        if (config == null) {
+            return null;
+        }
+
+        for (String arg : args) {
+            if (ARG_AKTIF.equals(arg)) {
+                continue;
+            }
+            int pemisah = arg.indexOf('=');
+            if (!arg.startsWith("--") || pemisah < 0) {
+                throw new IllegalArgumentException("Argumen tidak valid: " + arg);
+            }
+            String nama = arg.substring(2, pemisah);
+            String nilai = arg.substring(pemisah + 1);
+            switch (nama) {
+                case "mode":
+                    config.setMode(nilai);
+                    break;
+                case "laju":
+                    config.setLaju(parseAngka(nama, nilai));
+                    break;
+                case "konkurensi":
+                    config.setKonkurensi(parseAngka(nama, nilai));
+                    break;
+                case "durasi":
+                    config.setDurasiDetik(parseAngka(nama, nilai));
+                    break;
+                case "jumlah":
+                    config.setJumlahPesanan(parseAngka(nama, nilai));
+                    break;
+                case "tunggu":
+                    config.setTungguDetik(parseAngka(nama, nilai));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Argumen tidak dikenal: " + arg);
+            }
+        }
+        return config;
+    }
+
+    private static int parseAngka(String nama, String nilai) {
+        try {
+            return Integer.parseInt(nilai);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(nama + " harus berupa angka: " + nilai);
+        }
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        if (!MODE_TERBUKA.equals(mode) && !MODE_TERTUTUP.equals(mode)) {
+            throw new IllegalArgumentException("mode harus " + MODE_TERBUKA + " atau " + MODE_TERTUTUP);
+        }
+        this.mode = mode;
+    }
+
+    public boolean isOpenLoop() {
+        return MODE_TERBUKA.equals(mode);
+    }
+
+    public int getLaju() {
+        return laju;
+    }
+
+    public void setLaju(int laju) {
+        if (laju < 1) {
+            throw new IllegalArgumentException("laju minimal 1 pesanan per detik");
+        }
+        this.laju = laju;
+    }
+
+    public int getKonkurensi() {
+        return konkurensi;
+    }
+
+    public void setKonkurensi(int konkurensi) {
+        if (konkurensi < 1) {
+            throw new IllegalArgumentException("konkurensi minimal 1");
+        }
+        this.konkurensi = konkurensi;
+    }
+
+    public int getDurasiDetik() {
+        return durasiDetik;
+    }
+
+    public void setDurasiDetik(int durasiDetik) {
+        if (durasiDetik < 1) {
+            throw new IllegalArgumentException("durasi minimal 1 detik");
+        }
+        this.durasiDetik = durasiDetik;
+    }
+
+    public int getJumlahPesanan() {
+        return jumlahPesanan;
+    }
+
+    public void setJumlahPesanan(int jumlahPesanan) {
+        if (jumlahPesanan < 0) {
+            throw new IllegalArgumentException("jumlah tidak boleh negatif");
+        }
+        this.jumlahPesanan = jumlahPesanan;
+    }
+
+    public int getTungguDetik() {
+        return tungguDetik;
+    }
+
+    public void setTungguDetik(int tungguDetik) {
+        if (tungguDetik < 0) {
+            throw new IllegalArgumentException("tunggu tidak boleh negatif");
+        }
+        this.tungguDetik = tungguDetik;
+    }
+
+    @Override
+    public String toString() {
+        return "GeneratorConfig{" +
+                "mode='" + mode + '\'' +
+                ", laju=" + laju +
+                ", konkurensi=" + konkurensi +
+                ", durasiDetik=" + durasiDetik +
+                ", jumlahPesanan=" + jumlahPesanan +
+                ", tungguDetik=" + tungguDetik +
+                '}';
+    }
+} 
\ No newline at end of file
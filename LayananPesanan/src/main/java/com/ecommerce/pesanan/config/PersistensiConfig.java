@@ -0,0 +1,92 @@
+package com.ecommerce.pesanan.config;
+
+/**
+ * Kelas konfigurasi untuk PenyimpananPesanan
+ * Menyimpan pengaturan jurnal dan snapshot daftar pesanan beserta nilai default-nya
+ */
+public class PersistensiConfig {
+    // Direktori default untuk file jurnal dan snapshot, relatif terhadap direktori kerja
+    public static final String DEFAULT_DIREKTORI = "data-pesanan";
+
+    // Ukuran default satu segmen jurnal yang di-memory-map (64 MiB)
+    public static final int DEFAULT_UKURAN_SEGMEN_JURNAL = 64 * 1024 * 1024;
+
+    // Ukuran minimum segmen jurnal, cukup untuk satu rekaman dengan string terpanjang
+    public static final int MIN_UKURAN_SEGMEN_JURNAL = 1024 * 1024;
+
+    // Interval default pembuatan snapshot (5 menit)
+    public static final long DEFAULT_INTERVAL_SNAPSHOT_DETIK = 300;
+
+    // Interval default memaksa isi jurnal ke disk
+    public static final long DEFAULT_INTERVAL_FORCE_MS = 1000;
+
+    // Direktori file jurnal dan snapshot
+    private String direktori = DEFAULT_DIREKTORI;
+
+    // Ukuran satu file segmen jurnal dalam byte
+    private int ukuranSegmenJurnal = DEFAULT_UKURAN_SEGMEN_JURNAL;
+
+    // Interval (detik) pembuatan snapshot, setelah itu segmen jurnal lama dihapus
+    private long intervalSnapshotDetik = DEFAULT_INTERVAL_SNAPSHOT_DETIK;
+
+    // Interval (milidetik) force jurnal ke disk; 0 berarti hanya mengandalkan page cache sistem operasi
+    // (tetap aman jika proses crash, tetapi tidak jika mesin mati mendadak)
+    private long intervalForceMs = DEFAULT_INTERVAL_FORCE_MS;
+
+    public PersistensiConfig() {
+    }
+
+    public String getDirektori() {
+        return direktori;
+    }
+
+    public void setDirektori(String direktori) {
+        if (direktori == null || direktori.trim().isEmpty()) {
+            throw new IllegalArgumentException("direktori tidak boleh kosong");
+        }
+        this.direktori = direktori;
+    }
+
+    public int getUkuranSegmenJurnal() {
+        return ukuranSegmenJurnal;
+    }
+
+    public void setUkuranSegmenJurnal(int ukuranSegmenJurnal) {
+        if (ukuranSegmenJurnal < MIN_UKURAN_SEGMEN_JURNAL) {
+            throw new IllegalArgumentException("ukuranSegmenJurnal minimal " + MIN_UKURAN_SEGMEN_JURNAL + " byte");
+        }
+        this.ukuranSegmenJurnal = ukuranSegmenJurnal;
+    }
+
+    public long getIntervalSnapshotDetik() {
+        return intervalSnapshotDetik;
+    }
+
+    public void setIntervalSnapshotDetik(long intervalSnapshotDetik) {
+        if (intervalSnapshotDetik <= 0) {
+            throw new IllegalArgumentException("intervalSnapshotDetik harus lebih dari 0");
+        }
+        this.intervalSnapshotDetik = intervalSnapshotDetik;
+    }
+
+    public long getIntervalForceMs() {
+        return intervalForceMs;
+    }
+
+    public void setIntervalForceMs(long intervalForceMs) {
+        if (intervalForceMs < 0) {
+            throw new IllegalArgumentException("intervalForceMs tidak boleh negatif");
+        }
+        this.intervalForceMs = intervalForceMs;
+    }
+
+    @Override
+    public String toString() {
+        return "PersistensiConfig{" +
+                "direktori='" + direktori + '\'' +
+                ", ukuranSegmenJurnal=" + ukuranSegmenJurnal +
+                ", intervalSnapshotDetik=" + intervalSnapshotDetik +
+                ", intervalForceMs=" + intervalForceMs +
+                '}';
+    }
+} 
\ No newline at end of file
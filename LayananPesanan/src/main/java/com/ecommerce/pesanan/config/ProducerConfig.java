@@ -0,0 +1,225 @@
+package com.ecommerce.pesanan.config;
+
+import com.ecommerce.pesanan.util.CodecUtil;
+import com.ecommerce.pesanan.util.RingBuffer;
+
+/**
+ * Kelas konfigurasi untuk PesananProducer
+ * Menyimpan pengaturan mode pengiriman pesan ke RabbitMQ beserta nilai default-nya
+ */
+public class ProducerConfig {
+
+    /**
+     * Tindakan ketika queue lokal berkapasitas tetap penuh
+     */
+    public enum KebijakanPenuh {
+        // Pemanggil menunggu sampai producer thread mengosongkan slot (backpressure)
+        TUNGGU,
+        // Pemanggil langsung menerima IllegalStateException, pesanan tidak disimpan
+        TOLAK,
+        // Pesanan ditulis ke file tumpahan dan dikirim setelah queue lokal kosong
+        TUMPAH
+    }
+    // Batas waktu default menunggu konfirmasi broker sebelum pesanan dikirim ulang (30 detik)
+    public static final long DEFAULT_CONFIRM_TIMEOUT_MS = 30000;
+
+    // Ukuran batch default 1 berarti setiap pesanan dikirim satu per satu
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1;
+
+    // Waktu tunggu default untuk melengkapi batch (0 = kirim apa yang sudah ada di queue)
+    public static final long DEFAULT_LINGER_MS = 0;
+
+    // Format pesan default adalah JSON agar kompatibel dengan consumer versi lama
+    public static final String DEFAULT_CONTENT_TYPE = CodecUtil.CONTENT_TYPE_JSON;
+
+    // Kapasitas default 0 berarti queue lokal tidak dibatasi (LinkedBlockingQueue)
+    public static final int DEFAULT_KAPASITAS_QUEUE = 0;
+
+    // Kebijakan default ketika queue lokal penuh
+    public static final KebijakanPenuh DEFAULT_KEBIJAKAN_PENUH = KebijakanPenuh.TUNGGU;
+
+    // Strategi tunggu default producer thread pada ring buffer
+    public static final RingBuffer.StrategiTunggu DEFAULT_STRATEGI_TUNGGU = RingBuffer.StrategiTunggu.HIBRIDA;
+
+    // Ukuran amplop default 0 berarti setiap pesanan dikirim sebagai pesan AMQP sendiri
+    public static final int DEFAULT_MAKS_BYTES_AMPLOP = 0;
+
+    // Batas ukuran amplop batch, di bawah frame_max default broker (128 KiB) agar satu amplop satu frame
+    public static final int MAKS_BYTES_AMPLOP = 120 * 1024;
+
+    // Ambang kompresi default 0 berarti body pesanan tidak pernah dikompresi
+    public static final int DEFAULT_AMBANG_KOMPRESI_BYTES = 0;
+
+    // File tumpahan default untuk kebijakan TUMPAH, relatif terhadap direktori kerja
+    public static final String DEFAULT_FILE_TUMPAHAN = "data-pesanan/tumpahan-producer.dat";
+
+    // Jika true, channel producer memakai publisher confirms asinkronus
+    private boolean publisherConfirms;
+
+    // Lama maksimum (milidetik) sebuah pesanan boleh menunggu konfirmasi dari broker
+    private long confirmTimeoutMs = DEFAULT_CONFIRM_TIMEOUT_MS;
+
+    // Jumlah maksimum pesanan yang diambil dari queue lokal dan dikirim berturut-turut
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+    // Lama maksimum (milidetik) producer menunggu pesanan tambahan sebelum batch dikirim
+    private long lingerMs = DEFAULT_LINGER_MS;
+
+    // Content-type pesan yang dikirim, menentukan format JSON atau biner
+    private String contentType = DEFAULT_CONTENT_TYPE;
+
+    // Jumlah slot ring buffer queue lokal (dibulatkan ke pangkat dua); 0 untuk queue tanpa batas
+    private int kapasitasQueue = DEFAULT_KAPASITAS_QUEUE;
+
+    // Tindakan ketika ring buffer penuh
+    private KebijakanPenuh kebijakanPenuh = DEFAULT_KEBIJAKAN_PENUH;
+
+    // Cara producer thread menunggu pesanan baru di ring buffer
+    private RingBuffer.StrategiTunggu strategiTunggu = DEFAULT_STRATEGI_TUNGGU;
+
+    // Lokasi file tumpahan untuk kebijakan TUMPAH
+    private String fileTumpahan = DEFAULT_FILE_TUMPAHAN;
+
+    // Batas ukuran body amplop batch (AmplopBatch) dalam byte; 0 berarti tanpa amplop
+    // Amplop diisi dari satu batch (maxBatchSize dan lingerMs) per routing key sampai batas ini
+    private int maksBytesAmplop = DEFAULT_MAKS_BYTES_AMPLOP;
+
+    // Ukuran body minimum (byte) yang dikompresi Deflate dengan content-encoding "deflate"; 0 berarti
+    // tanpa kompresi. Berlaku untuk pesan tunggal maupun amplop batch, body yang tidak mengecil tetap dikirim apa adanya
+    private int ambangKompresiBytes = DEFAULT_AMBANG_KOMPRESI_BYTES;
+
+    public ProducerConfig() {
+    }
+
+    public boolean isPublisherConfirms() {
+        return publisherConfirms;
+    }
+
+    public void setPublisherConfirms(boolean publisherConfirms) {
+        this.publisherConfirms = publisherConfirms;
+    }
+
+    public long getConfirmTimeoutMs() {
+        return confirmTimeoutMs;
+    }
+
+    public void setConfirmTimeoutMs(long confirmTimeoutMs) {
+        if (confirmTimeoutMs <= 0) {
+            throw new IllegalArgumentException("confirmTimeoutMs harus lebih dari 0");
+        }
+        this.confirmTimeoutMs = confirmTimeoutMs;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize minimal 1");
+        }
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public long getLingerMs() {
+        return lingerMs;
+    }
+
+    public void setLingerMs(long lingerMs) {
+        if (lingerMs < 0) {
+            throw new IllegalArgumentException("lingerMs tidak boleh negatif");
+        }
+        this.lingerMs = lingerMs;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = CodecUtil.validasiContentType(contentType);
+    }
+
+    public int getKapasitasQueue() {
+        return kapasitasQueue;
+    }
+
+    public void setKapasitasQueue(int kapasitasQueue) {
+        if (kapasitasQueue < 0 || kapasitasQueue > (1 << 30)) {
+            throw new IllegalArgumentException("kapasitasQueue harus antara 0 dan 2^30");
+        }
+        this.kapasitasQueue = kapasitasQueue;
+    }
+
+    public KebijakanPenuh getKebijakanPenuh() {
+        return kebijakanPenuh;
+    }
+
+    public void setKebijakanPenuh(KebijakanPenuh kebijakanPenuh) {
+        if (kebijakanPenuh == null) {
+            throw new IllegalArgumentException("kebijakanPenuh tidak boleh null");
+        }
+        this.kebijakanPenuh = kebijakanPenuh;
+    }
+
+    public RingBuffer.StrategiTunggu getStrategiTunggu() {
+        return strategiTunggu;
+    }
+
+    public void setStrategiTunggu(RingBuffer.StrategiTunggu strategiTunggu) {
+        if (strategiTunggu == null) {
+            throw new IllegalArgumentException("strategiTunggu tidak boleh null");
+        }
+        this.strategiTunggu = strategiTunggu;
+    }
+
+    public String getFileTumpahan() {
+        return fileTumpahan;
+    }
+
+    public void setFileTumpahan(String fileTumpahan) {
+        if (fileTumpahan == null || fileTumpahan.trim().isEmpty()) {
+            throw new IllegalArgumentException("fileTumpahan tidak boleh kosong");
+        }
+        this.fileTumpahan = fileTumpahan;
+    }
+
+    public int getMaksBytesAmplop() {
+        return maksBytesAmplop;
+    }
+
+    public void setMaksBytesAmplop(int maksBytesAmplop) {
+        if (maksBytesAmplop < 0 || maksBytesAmplop > MAKS_BYTES_AMPLOP) {
+            throw new IllegalArgumentException("maksBytesAmplop harus antara 0 dan " + MAKS_BYTES_AMPLOP);
+        }
+        this.maksBytesAmplop = maksBytesAmplop;
+    }
+
+    public int getAmbangKompresiBytes() {
+        return ambangKompresiBytes;
+    }
+
+    public void setAmbangKompresiBytes(int ambangKompresiBytes) {
+        if (ambangKompresiBytes < 0) {
+            throw new IllegalArgumentException("ambangKompresiBytes tidak boleh negatif");
+        }
+        this.ambangKompresiBytes = ambangKompresiBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "ProducerConfig{" +
+                "publisherConfirms=" + publisherConfirms +
+                ", confirmTimeoutMs=" + confirmTimeoutMs +
+                ", maxBatchSize=" + maxBatchSize +
+                ", lingerMs=" + lingerMs +
+                ", contentType='" + contentType + '\'' +
+                ", kapasitasQueue=" + kapasitasQueue +
+                ", kebijakanPenuh=" + kebijakanPenuh +
+                ", strategiTunggu=" + strategiTunggu +
+                ", fileTumpahan='" + fileTumpahan + '\'' +
+                ", maksBytesAmplop=" + maksBytesAmplop +
+                ", ambangKompresiBytes=" + ambangKompresiBytes +
+                '}';
+    }
+} 
\ No newline at end of file
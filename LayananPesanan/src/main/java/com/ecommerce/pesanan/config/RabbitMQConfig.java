@@ -0,0 +1,309 @@
+package com.ecommerce.pesanan.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * Kelas konfigurasi koneksi RabbitMQ untuk PengelolaKoneksi
+ *
+ * Setiap pengaturan dibaca dari property sistem ecommerce.rabbitmq.<nama>, lalu dari variabel
+ * lingkungan ECOMMERCE_RABBITMQ_<NAMA>, lalu dari file properti yang ditunjuk ecommerce.rabbitmq.file
+ * atau ECOMMERCE_RABBITMQ_FILE (dengan kunci yang sama seperti property sistem). Pengaturan yang tidak
+ * ditemukan memakai nilai default, yang sama dengan konstanta lama di RabbitMQUtil.
+ */
+public class RabbitMQConfig {
+    // Awalan nama property sistem dan variabel lingkungan
+    public static final String AWALAN_PROPERTI = "ecommerce.rabbitmq.";
+    public static final String AWALAN_ENV = "ECOMMERCE_RABBITMQ_";
+
+    // Lokasi file properti opsional
+    public static final String PROPERTI_FILE = AWALAN_PROPERTI + "file";
+    public static final String ENV_FILE = AWALAN_ENV + "FILE";
+
+    public static final String DEFAULT_HOST = "localhost";
+    public static final int DEFAULT_PORT = 5672;
+    public static final String DEFAULT_USERNAME = "guest";
+    public static final String DEFAULT_PASSWORD = "guest";
+    public static final String DEFAULT_VIRTUAL_HOST = "/";
+
+    // Timeout default membuka koneksi (5 detik)
+    public static final int DEFAULT_TIMEOUT_KONEKSI_MS = 5000;
+
+    // Interval default heartbeat (sama dengan default RabbitMQ client), koneksi yang putus tanpa FIN
+    // terdeteksi dalam dua kali interval ini
+    public static final int DEFAULT_HEARTBEAT_DETIK = 60;
+
+    // Jeda default di antara percobaan pemulihan koneksi
+    public static final long DEFAULT_INTERVAL_PEMULIHAN_MS = 5000;
+
+    // Jumlah default channel terbuka per koneksi
+    public static final int DEFAULT_MAKS_CHANNEL = 256;
+
+    // Lama default menunggu channel dari pool yang sedang penuh
+    public static final long DEFAULT_TUNGGU_CHANNEL_MS = 10000;
+
+    // Batas channel per koneksi, di bawah channel_max default broker (2047)
+    public static final int MAKS_CHANNEL = 2000;
+
+    private String host = DEFAULT_HOST;
+
+    private int port = DEFAULT_PORT;
+
+    private String username = DEFAULT_USERNAME;
+
+    private String password = DEFAULT_PASSWORD;
+
+    private String virtualHost = DEFAULT_VIRTUAL_HOST;
+
+    // Timeout (milidetik) membuka koneksi TCP dan handshake AMQP
+    private int timeoutKoneksiMs = DEFAULT_TIMEOUT_KONEKSI_MS;
+
+    // Interval heartbeat yang diminta ke broker dalam detik, 0 berarti tanpa heartbeat
+    private int heartbeatDetik = DEFAULT_HEARTBEAT_DETIK;
+
+    // Jeda (milidetik) di antara percobaan pemulihan koneksi dan topologi setelah koneksi putus
+    private long intervalPemulihanMs = DEFAULT_INTERVAL_PEMULIHAN_MS;
+
+    // Jumlah maksimum channel yang terbuka bersamaan pada satu koneksi (ukuran pool)
+    private int maksChannel = DEFAULT_MAKS_CHANNEL;
+
+    // Lama (milidetik) menunggu channel dikembalikan ke pool sebelum createChannel() gagal
+    private long tungguChannelMs = DEFAULT_TUNGGU_CHANNEL_MS;
+
+    // true: publish dan consume memakai koneksi terpisah agar flow control broker pada publisher
+    // tidak ikut menahan consumer; false: satu koneksi untuk keduanya
+    private boolean koneksiTerpisah = true;
+
+    public RabbitMQConfig() {
+    }
+
+    /**
+     * Membaca konfigurasi dari property sistem, variabel lingkungan, dan file properti
+     * @return Konfigurasi koneksi, nilai default untuk pengaturan yang tidak diatur
+     * @throws IllegalArgumentException jika ada pengaturan yang tidak valid atau file tidak dapat dibaca
+     */
+    public static RabbitMQConfig dariLingkungan() {
+        Properties file = bacaFile();
+        RabbitMQConfig config = new RabbitMQConfig();
+        String nilai;
+        if ((nilai = baca(file, "host", "HOST")) != null) {
+            config.setHost(nilai);
+        }
+        if ((nilai = baca(file, "port", "PORT")) != null) {
+            config.setPort(parseAngka("port", nilai));
+        }
+        if ((nilai = baca(file, "username", "USERNAME")) != null) {
+            config.setUsername(nilai);
+        }
+        if ((nilai = baca(file, "password", "PASSWORD")) != null) {
+            config.setPassword(nilai);
+        }
+        if ((nilai = baca(file, "virtualHost", "VIRTUAL_HOST")) != null) {
+            config.setVirtualHost(nilai);
+        }
+        if ((nilai = baca(file, "timeoutKoneksiMs", "TIMEOUT_KONEKSI_MS")) != null) {
+            config.setTimeoutKoneksiMs(parseAngka("timeoutKoneksiMs", nilai));
+        }
+        if ((nilai = baca(file, "heartbeatDetik", "HEARTBEAT_DETIK")) != null) {
+            config.setHeartbeatDetik(parseAngka("heartbeatDetik", nilai));
+        }
+        if ((nilai = baca(file, "intervalPemulihanMs", "INTERVAL_PEMULIHAN_MS")) != null) {
+            config.setIntervalPemulihanMs(parseAngka("intervalPemulihanMs", nilai));
+        }
+        if ((nilai = baca(file, "maksChannel", "MAKS_CHANNEL")) != null) {
+            config.setMaksChannel(parseAngka("maksChannel", nilai));
+        }
+        if ((nilai = baca(file, "tungguChannelMs", "TUNGGU_CHANNEL_MS")) != null) {
+            config.setTungguChannelMs(parseAngka("tungguChannelMs", nilai));
+        }
+        if ((nilai = baca(file, "koneksiTerpisah", "KONEKSI_TERPISAH")) != null) {
+            config.setKoneksiTerpisah(parseBoolean("koneksiTerpisah", nilai));
+        }
+        return config;
+    }
+
+    /**
+     * Membaca satu pengaturan: property sistem, variabel lingkungan, lalu file properti
+     * @return Nilai tanpa spasi di tepi, atau null jika tidak diatur
+     */
+    private static String baca(Properties file, String nama, String namaEnv) {
+        String nilai = System.getProperty(AWALAN_PROPERTI + nama);
+        if (nilai == null) {
+            nilai = System.getenv(AWALAN_ENV + namaEnv);
+        }
+        if (nilai == null) {
+            nilai = file.getProperty(AWALAN_PROPERTI + nama);
+        }
+        return nilai == null || nilai.trim().isEmpty() ? null : nilai.trim();
+    }
+
+    private static Properties bacaFile() {
+        Properties properti = new Properties();
+        String lokasi = System.getProperty(PROPERTI_FILE);
+        if (lokasi == null) {
+            lokasi = System.getenv(ENV_FILE);
+        }
+        if (lokasi == null || lokasi.trim().isEmpty()) {
+            return properti;
+        }
+        try (InputStream in = Files.newInputStream(Paths.get(lokasi.trim()))) {
+            properti.load(in);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Gagal membaca file konfigurasi RabbitMQ " + lokasi + ": " + e.getMessage(), e);
+        }
+        return properti;
+    }
+
+    private static int parseAngka(String nama, String nilai) {
+        try {
+            return Integer.parseInt(nilai);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(nama + " harus berupa angka: " + nilai);
+        }
+    }
+
+    private static boolean parseBoolean(String nama, String nilai) {
+        if (!"true".equalsIgnoreCase(nilai) && !"false".equalsIgnoreCase(nilai)) {
+            throw new IllegalArgumentException(nama + " harus true atau false: " + nilai);
+        }
+        return Boolean.parseBoolean(nilai);
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public void setHost(String host) {
+        if (host == null || host.trim().isEmpty()) {
+            throw new IllegalArgumentException("host tidak boleh kosong");
+        }
+        this.host = host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        if (port < 1 || port > 65535) {
+            throw new IllegalArgumentException("port harus antara 1 dan 65535");
+        }
+        this.port = port;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        if (username == null || username.isEmpty()) {
+            throw new IllegalArgumentException("username tidak boleh kosong");
+        }
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        if (password == null) {
+            throw new IllegalArgumentException("password tidak boleh null");
+        }
+        this.password = password;
+    }
+
+    public String getVirtualHost() {
+        return virtualHost;
+    }
+
+    public void setVirtualHost(String virtualHost) {
+        if (virtualHost == null || virtualHost.isEmpty()) {
+            throw new IllegalArgumentException("virtualHost tidak boleh kosong");
+        }
+        this.virtualHost = virtualHost;
+    }
+
+    public int getTimeoutKoneksiMs() {
+        return timeoutKoneksiMs;
+    }
+
+    public void setTimeoutKoneksiMs(int timeoutKoneksiMs) {
+        if (timeoutKoneksiMs < 0) {
+            throw new IllegalArgumentException("timeoutKoneksiMs tidak boleh negatif");
+        }
+        this.timeoutKoneksiMs = timeoutKoneksiMs;
+    }
+
+    public int getHeartbeatDetik() {
+        return heartbeatDetik;
+    }
+
+    public void setHeartbeatDetik(int heartbeatDetik) {
+        if (heartbeatDetik < 0) {
+            throw new IllegalArgumentException("heartbeatDetik tidak boleh negatif");
+        }
+        this.heartbeatDetik = heartbeatDetik;
+    }
+
+    public long getIntervalPemulihanMs() {
+        return intervalPemulihanMs;
+    }
+
+    public void setIntervalPemulihanMs(long intervalPemulihanMs) {
+        if (intervalPemulihanMs < 1) {
+            throw new IllegalArgumentException("intervalPemulihanMs minimal 1 ms");
+        }
+        this.intervalPemulihanMs = intervalPemulihanMs;
+    }
+
+    public int getMaksChannel() {
+        return maksChannel;
+    }
+
+    public void setMaksChannel(int maksChannel) {
+        if (maksChannel < 1 || maksChannel > MAKS_CHANNEL) {
+            throw new IllegalArgumentException("maksChannel harus antara 1 dan " + MAKS_CHANNEL);
+        }
+        this.maksChannel = maksChannel;
+    }
+
+    public long getTungguChannelMs() {
+        return tungguChannelMs;
+    }
+
+    public void setTungguChannelMs(long tungguChannelMs) {
+        if (tungguChannelMs < 0) {
+            throw new IllegalArgumentException("tungguChannelMs tidak boleh negatif");
+        }
+        this.tungguChannelMs = tungguChannelMs;
+    }
+
+    public boolean isKoneksiTerpisah() {
+        return koneksiTerpisah;
+    }
+
+    public void setKoneksiTerpisah(boolean koneksiTerpisah) {
+        this.koneksiTerpisah = koneksiTerpisah;
+    }
+
+    @Override
+    public String toString() {
+        // Password tidak ikut dicetak ke log
+        return "RabbitMQConfig{" +
+                "host='" + host + '\'' +
+                ", port=" + port +
+                ", username='" + username + '\'' +
+                ", virtualHost='" + virtualHost + '\'' +
+                ", timeoutKoneksiMs=" + timeoutKoneksiMs +
+                ", heartbeatDetik=" + heartbeatDetik +
+                ", intervalPemulihanMs=" + intervalPemulihanMs +
+                ", maksChannel=" + maksChannel +
+                ", tungguChannelMs=" + tungguChannelMs +
+                ", koneksiTerpisah=" + koneksiTerpisah +
+                '}';
+    }
+} 
\ No newline at end of file
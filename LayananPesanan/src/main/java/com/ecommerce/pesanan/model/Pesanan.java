@@ -7,19 +7,20 @@ import java.util.Date;
  * Kelas model untuk merepresentasikan pesanan pelanggan
  */
 public class Pesanan implements Serializable {
-    private int id;
+    private long id;
     private String namaPelanggan;
     private String alamatPengiriman;
     private double totalHarga;
     private Date tanggalPesanan;
-    private String status;
+    // volatile agar status terbaru terlihat oleh thread pembaca daftar pesanan
+    private volatile String status;
 
     public Pesanan() {
         this.tanggalPesanan = new Date();
         this.status = "BARU";
     }
 
-    public Pesanan(int id, String namaPelanggan, String alamatPengiriman, double totalHarga) {
+    public Pesanan(long id, String namaPelanggan, String alamatPengiriman, double totalHarga) {
         this();
         this.id = id;
         this.namaPelanggan = namaPelanggan;
@@ -27,11 +28,11 @@ public class Pesanan implements Serializable {
         this.totalHarga = totalHarga;
     }
 
-    public int getId() {
+    public long getId() {
         return id;
     }
 
-    public void setId(int id) {
+    public void setId(long id) {
         this.id = id;
     }
 
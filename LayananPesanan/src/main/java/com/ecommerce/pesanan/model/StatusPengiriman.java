@@ -0,0 +1,56 @@
+package com.ecommerce.pesanan.model;
+
+/**
+ * Kelas model untuk merepresentasikan pesan update status pengiriman dari LayananPengiriman
+ */
+public class StatusPengiriman {
+    private long idPesanan;
+    private String statusPengiriman;
+    private String namaPelanggan;
+    private String alamatPengiriman;
+
+    public StatusPengiriman() {
+    }
+
+    public long getIdPesanan() {
+        return idPesanan;
+    }
+
+    public void setIdPesanan(long idPesanan) {
+        this.idPesanan = idPesanan;
+    }
+
+    public String getStatusPengiriman() {
+        return statusPengiriman;
+    }
+
+    public void setStatusPengiriman(String statusPengiriman) {
+        this.statusPengiriman = statusPengiriman;
+    }
+
+    public String getNamaPelanggan() {
+        return namaPelanggan;
+    }
+
+    public void setNamaPelanggan(String namaPelanggan) {
+        this.namaPelanggan = namaPelanggan;
+    }
+
+    public String getAlamatPengiriman() {
+        return alamatPengiriman;
+    }
+
+    public void setAlamatPengiriman(String alamatPengiriman) {
+        this.alamatPengiriman = alamatPengiriman;
+    }
+
+    @Override
+    public String toString() {
+        return "StatusPengiriman{" +
+                "idPesanan=" + idPesanan +
+                ", statusPengiriman='" + statusPengiriman + '\'' +
+                ", namaPelanggan='" + namaPelanggan + '\'' +
+                ", alamatPengiriman='" + alamatPengiriman + '\'' +
+                '}';
+    }
+} 
\ No newline at end of file
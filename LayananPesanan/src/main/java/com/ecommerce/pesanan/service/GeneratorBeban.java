@@ -0,0 +1,178 @@
+package com.ecommerce.pesanan.service;
+
+import com.ecommerce.pesanan.config.GeneratorConfig;
+import com.ecommerce.pesanan.model.Pesanan;
+import com.ecommerce.pesanan.util.LatencyHistogram;
+import com.ecommerce.pesanan.util.TracingUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Generator beban untuk mengukur kapasitas LayananPesanan dan LayananPengiriman
+ * 
+ * Membuat pesanan sintetis dan mengirimkannya lewat PesananProducer, lalu mengukur latensi
+ * sampai status pesanan menjadi SELESAI melalui PesananStatusConsumer. LayananPengiriman harus
+ * berjalan dengan argumen --otomatis agar setiap pesanan langsung ditandai TERKIRIM.
+ * 
+ * Pada mode open-loop, latensi dihitung dari waktu kirim yang dijadwalkan (bukan waktu kirim
+ * sebenarnya) agar keterlambatan generator sendiri ikut terukur dan tidak menyembunyikan antrean.
+ */
+public class GeneratorBeban {
+    private static final Logger logger = LoggerFactory.getLogger(GeneratorBeban.class);
+    
+    private final GeneratorConfig config;
+    private final PesananProducer producer;
+    private final PesananStatusConsumer statusConsumer;
+    
+    // Sumber ID pesanan baru
+    private final LongSupplier idPesanan;
+    
+    // Waktu mulai (System.nanoTime) pesanan yang belum SELESAI, berdasarkan ID pesanan
+    private final ConcurrentMap<Long, Long> waktuMulai = new ConcurrentHashMap<>();
+    
+    // Latensi pesanan sampai SELESAI dalam mikrodetik
+    private final LatencyHistogram latensi = new LatencyHistogram();
+    
+    // Slot pesanan yang boleh belum selesai pada mode closed-loop, null untuk open-loop
+    private final Semaphore slotKonkurensi;
+    
+    // Waktu pesanan terakhir menjadi SELESAI, untuk menghitung throughput
+    private final AtomicLong waktuSelesaiTerakhir = new AtomicLong();
+    
+    /**
+     * Konstruktor GeneratorBeban
+     * @param config Pengaturan laju, mode, dan durasi generator
+     * @param producer Producer untuk mengirim pesanan baru
+     * @param statusConsumer Consumer yang menerima update status pengiriman
+     * @param idPesanan Sumber ID pesanan baru
+     */
+    public GeneratorBeban(GeneratorConfig config, PesananProducer producer,
+                          PesananStatusConsumer statusConsumer, LongSupplier idPesanan) {
+        this.config = config;
+        this.producer = producer;
+        this.statusConsumer = statusConsumer;
+        this.idPesanan = idPesanan;
+        this.slotKonkurensi = config.isOpenLoop() ? null : new Semaphore(config.getKonkurensi());
+    }
+    
+    /**
+     * Menjalankan generator sampai durasi atau jumlah pesanan tercapai,
+     * menunggu pesanan yang belum selesai, lalu mencetak laporan
+     * @return Histogram latensi pesanan sampai SELESAI dalam mikrodetik
+     */
+    public LatencyHistogram jalankan() throws InterruptedException {
+        logger.info("Generator beban dimulai dengan {}", config);
+        statusConsumer.setPendengarStatus(this::tanganiStatus);
+        
+        long mulai = System.nanoTime();
+        long batasKirim = mulai + TimeUnit.SECONDS.toNanos(config.getDurasiDetik());
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.getLaju();
+        int terkirim = 0;
+        
+        try {
+            while (config.getJumlahPesanan() == 0 || terkirim < config.getJumlahPesanan()) {
+                long waktuRencana;
+                if (slotKonkurensi == null) {
+                    // Open-loop: jadwal tetap, pesanan yang tertinggal dikirim secepatnya untuk mengejar jadwal
+                    waktuRencana = mulai + terkirim * intervalNanos;
+                    if (waktuRencana >= batasKirim) {
+                        break;
+                    }
+                    tungguSampai(waktuRencana);
+                } else {
+                    // Closed-loop: tunggu sampai ada pesanan yang selesai
+                    long sisa = batasKirim - System.nanoTime();
+                    if (sisa <= 0 || !slotKonkurensi.tryAcquire(sisa, TimeUnit.NANOSECONDS)) {
+                        break;
+                    }
+                    waktuRencana = System.nanoTime();
+                }
+                kirimPesanan(waktuRencana);
+                terkirim++;
+            }
+            long selesaiKirim = System.nanoTime();
+            
+            // Tunggu pesanan yang masih dalam perjalanan
+            long batasTunggu = selesaiKirim + TimeUnit.SECONDS.toNanos(config.getTungguDetik());
+            while (!waktuMulai.isEmpty() && System.nanoTime() < batasTunggu) {
+                Thread.sleep(10);
+            }
+            
+            cetakLaporan(terkirim, selesaiKirim - mulai, mulai);
+        } finally {
+            statusConsumer.setPendengarStatus(null);
+        }
+        return latensi;
+    }
+    
+    /**
+     * Membuat satu pesanan sintetis dan mengirimkannya
+     * @param waktuRencana Waktu kirim yang dijadwalkan (System.nanoTime)
+     */
+    private void kirimPesanan(long waktuRencana) {
+        long id = idPesanan.getAsLong();
+        double totalHarga = ThreadLocalRandom.current().nextInt(10_000, 5_000_000);
+        Pesanan pesanan = new Pesanan(id, "Pelanggan " + id, "Alamat Uji " + (id % 1000), totalHarga);
+        
+        // Dicatat sebelum dikirim karena status SELESAI bisa kembali sangat cepat
+        waktuMulai.put(id, waktuRencana);
+        statusConsumer.tambahkanPesanan(pesanan);
+        producer.tambahkanPesanan(pesanan);
+    }
+    
+    /**
+     * Dipanggil oleh PesananStatusConsumer setiap kali status pesanan berubah
+     */
+    private void tanganiStatus(Pesanan pesanan) {
+        if (!"SELESAI".equals(pesanan.getStatus())) {
+            return;
+        }
+        Long mulai = waktuMulai.remove(pesanan.getId());
+        if (mulai == null) {
+            return;
+        }
+        long sekarang = System.nanoTime();
+        latensi.catat(TimeUnit.NANOSECONDS.toMicros(sekarang - mulai));
+        waktuSelesaiTerakhir.accumulateAndGet(sekarang, Math::max);
+        if (slotKonkurensi != null) {
+            slotKonkurensi.release();
+        }
+    }
+    
+    private void cetakLaporan(int terkirim, long lamaKirimNanos, long mulai) {
+        long selesai = latensi.getJumlah();
+        double detikKirim = lamaKirimNanos / 1e9;
+        double detikSelesai = selesai == 0 ? 0 : (waktuSelesaiTerakhir.get() - mulai) / 1e9;
+        
+        System.out.println("\n=== Hasil Generator Beban ===");
+        System.out.println("Mode: " + config.getMode()
+            + (config.isOpenLoop() ? " (laju " + config.getLaju() + "/detik)" : " (konkurensi " + config.getKonkurensi() + ")"));
+        System.out.printf("Pesanan dikirim: %d dalam %.1f detik (%.1f pesanan/detik)%n",
+            terkirim, detikKirim, detikKirim == 0 ? 0 : terkirim / detikKirim);
+        System.out.printf("Pesanan SELESAI: %d (%.1f pesanan/detik), belum selesai: %d%n",
+            selesai, detikSelesai == 0 ? 0 : selesai / detikSelesai, waktuMulai.size());
+        System.out.printf("Latensi pesanan -> SELESAI (ms): p50=%.3f, p90=%.3f, p99=%.3f, p99.9=%.3f, maks=%.3f%n",
+            latensi.getPersentil(50) / 1000.0, latensi.getPersentil(90) / 1000.0,
+            latensi.getPersentil(99) / 1000.0, latensi.getPersentil(99.9) / 1000.0,
+            latensi.getMaksimum() / 1000.0);
+        
+        // Rincian per tahap untuk mencari sumber latensi
+        TracingUtil.tampilkanStatistik();
+    }
+    
+    private static void tungguSampai(long waktuNanos) {
+        long sisa;
+        while ((sisa = waktuNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(sisa);
+        }
+    }
+} 
\ No newline at end of file
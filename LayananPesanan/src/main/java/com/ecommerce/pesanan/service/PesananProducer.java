@@ -1,16 +1,39 @@
 package com.ecommerce.pesanan.service;
 
+import com.ecommerce.pesanan.config.ProducerConfig;
 import com.ecommerce.pesanan.model.Pesanan;
-import com.ecommerce.pesanan.util.JSONUtil;
+import com.ecommerce.pesanan.util.AmplopBatch;
+import com.ecommerce.pesanan.util.AntreanTumpahan;
+import com.ecommerce.pesanan.util.BinaryUtil;
+import com.ecommerce.pesanan.util.CodecUtil;
+import com.ecommerce.pesanan.util.KompresiUtil;
 import com.ecommerce.pesanan.util.RabbitMQUtil;
-import com.rabbitmq.client.Channel;
-import com.rabbitmq.client.Connection;
+import com.ecommerce.pesanan.util.RingBuffer;
+import com.ecommerce.pesanan.util.StatistikBatch;
+import com.ecommerce.pesanan.util.TracingUtil;
+import com.ecommerce.pesanan.util.Transport;
+import com.ecommerce.pesanan.util.TransportChannel;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.ShutdownSignalException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Kelas Producer untuk mengirim pesanan ke queue
@@ -22,30 +45,98 @@ public class PesananProducer {
     // Logger untuk mencatat aktivitas producer
     private static final Logger logger = LoggerFactory.getLogger(PesananProducer.class);
     
-    // Koneksi ke server RabbitMQ
-    private final Connection connection;
+    // Interval pemeriksaan konfirmasi yang kedaluwarsa ketika publisher confirms aktif
+    private static final long INTERVAL_PERIKSA_CONFIRM_MS = 1000;
+    
+    // Jeda sebelum mencoba lagi ketika koneksi RabbitMQ sedang dipulihkan
+    private static final long JEDA_SAAT_PEMULIHAN_MS = 500;
+    
+    // Transport pesan (RabbitMQ atau di dalam proses)
+    private final Transport transport;
+    
+    // Pengaturan mode pengiriman producer
+    private final ProducerConfig config;
+    
+    // Properti AMQP dasar untuk setiap pesan, header pelacakan ditambahkan per pesan
+    private final AMQP.BasicProperties properties;
+    
+    // Properti AMQP untuk amplop batch, properti setiap pesanan disimpan di dalam amplop
+    private final AMQP.BasicProperties propertiesAmplop;
+    
+    // Properti dasar dan properti amplop untuk body yang dikompresi (content-encoding deflate)
+    private final AMQP.BasicProperties propertiesTerkompresi;
+    private final AMQP.BasicProperties propertiesAmplopTerkompresi;
     
     // Queue lokal untuk menyimpan pesanan sebelum dikirim ke RabbitMQ
     // BlockingQueue digunakan untuk komunikasi thread-safe antara thread utama dan producer thread
+    // RingBuffer berkapasitas tetap jika kapasitasQueue diatur, selain itu LinkedBlockingQueue tanpa batas
     private final BlockingQueue<Pesanan> pesananQueue;
     
+    // Pesanan kiriman ulang yang tidak muat di queue lokal, jumlahnya dibatasi pesanan yang sedang dikirim
+    // Tidak memakai put() karena pesanan dikembalikan juga dari producer thread yang mengosongkan queue
+    private final Queue<Pesanan> antreanKirimUlang = new ConcurrentLinkedQueue<>();
+    
+    // File tumpahan untuk kebijakan TUMPAH, null jika tidak dipakai
+    private final AntreanTumpahan<Pesanan> tumpahan;
+    
+    // Pesanan yang sudah dikirim tetapi belum dikonfirmasi broker, diurutkan berdasarkan delivery tag
+    // ConcurrentSkipListMap dipakai karena callback confirm berjalan di thread milik koneksi RabbitMQ
+    private final ConcurrentNavigableMap<Long, PesananTertunda> outstandingConfirms = new ConcurrentSkipListMap<>();
+    
+    // Delivery tag terakhir yang dipakai, hanya diakses producer thread
+    private long tagTerakhir;
+    
+    // Statistik ukuran batch yang dikirim ke RabbitMQ
+    private final StatistikBatch statistikBatch = new StatistikBatch();
+    
     // Flag untuk menandakan apakah producer thread masih berjalan
     private volatile boolean running = true;
     
     // Thread terpisah untuk mengirim pesan ke RabbitMQ
     private Thread producerThread;
     
+    /**
+     * Konstruktor untuk inisialisasi producer dengan pengaturan default
+     * @param transport Transport pesan yang sudah dibuat
+     */
+    public PesananProducer(Transport transport) {
+        this(transport, new ProducerConfig());
+    }
+    
     /**
      * Konstruktor untuk inisialisasi producer
-     * @param connection Koneksi RabbitMQ yang sudah dibuat
+     * @param transport Transport pesan yang sudah dibuat
+     * @param config Pengaturan mode pengiriman producer
      */
-    public PesananProducer(Connection connection) {
-        // Menyimpan koneksi RabbitMQ
-        this.connection = connection;
+    public PesananProducer(Transport transport, ProducerConfig config) {
+        // Menyimpan transport dan pengaturan producer
+        this.transport = transport;
+        this.config = config;
         
-        // Inisialisasi queue lokal dengan implementasi LinkedBlockingQueue
-        // LinkedBlockingQueue cocok untuk skenario producer-consumer karena thread-safe
-        this.pesananQueue = new LinkedBlockingQueue<>();
+        // Properti pesan: content-type untuk pemilihan decoder di consumer dan
+        // deliveryMode 2 (persistent) agar pesanan yang sudah di-ack broker tetap ada setelah broker restart
+        this.properties = new AMQP.BasicProperties.Builder()
+            .contentType(config.getContentType())
+            .deliveryMode(config.isPublisherConfirms() ? 2 : 1)
+            .build();
+        this.propertiesAmplop = properties.builder()
+            .contentType(AmplopBatch.CONTENT_TYPE_AMPLOP)
+            .build();
+        this.propertiesTerkompresi = properties.builder()
+            .contentEncoding(KompresiUtil.CONTENT_ENCODING_DEFLATE)
+            .build();
+        this.propertiesAmplopTerkompresi = propertiesAmplop.builder()
+            .contentEncoding(KompresiUtil.CONTENT_ENCODING_DEFLATE)
+            .build();
+        
+        // Inisialisasi queue lokal: ring buffer MPSC yang dialokasikan di awal jika kapasitas diatur,
+        // selain itu LinkedBlockingQueue tanpa batas
+        if (config.getKapasitasQueue() > 0) {
+            this.pesananQueue = new RingBuffer<>(config.getKapasitasQueue(), config.getStrategiTunggu());
+        } else {
+            this.pesananQueue = new LinkedBlockingQueue<>();
+        }
+        this.tumpahan = bukaTumpahan(config);
         
         // Memulai thread producer
         this.start();
@@ -61,7 +152,7 @@ public class PesananProducer {
             logger.info("Producer thread started dengan channel RabbitMQ");
             
             // try-with-resources untuk otomatis menutup channel ketika selesai
-            try (Channel channel = connection.createChannel()) {
+            try (TransportChannel channel = transport.createChannel()) {
                 logger.info("Channel RabbitMQ berhasil dibuat untuk producer thread");
                 
                 // Verifikasi semua queue tersedia sebelum mulai mengirim pesan
@@ -78,34 +169,90 @@ public class PesananProducer {
                     }
                 }
                 
+                // Aktifkan publisher confirms asinkronus jika diminta
+                if (config.isPublisherConfirms()) {
+                    aktifkanPublisherConfirms(channel);
+                }
+                
                 logger.info("Semua queue tersedia, producer siap mengirim pesan");
                 
                 // Loop terus berjalan selama flag running bernilai true
                 while (running) {
+                    List<Pesanan> batch = null;
+                    int terkirim = 0;
                     try {
-                        // Mengambil pesanan dari queue local
-                        // take() akan memblokir thread jika queue kosong sampai ada item masuk
-                        logger.debug("Menunggu pesanan dari queue local...");
-                        Pesanan pesanan = pesananQueue.take();
-                        logger.info("Pesanan diambil dari queue local: ID={}", pesanan.getId());
+                        // Mengambil satu batch pesanan dari queue local
+                        batch = ambilBatch();
+                        if (config.isPublisherConfirms()) {
+                            kirimUlangConfirmKedaluwarsa();
+                        }
+                        if (batch.isEmpty()) {
+                            continue;
+                        }
                         
-                        // Konversi pesanan ke JSON untuk dikirim ke RabbitMQ
-                        String pesananJson = JSONUtil.toJSON(pesanan);
-                        logger.debug("Pesanan telah dikonversi ke JSON: {}", pesananJson);
+                        // Mode amplop: pesanan satu shard dikemas ke amplop batch sampai maksBytesAmplop,
+                        // satu pesan AMQP (dan satu konfirmasi broker) untuk banyak pesanan
+                        if (config.getMaksBytesAmplop() > 0) {
+                            // Urutan stabil sehingga urutan pesanan di dalam satu shard tetap terjaga
+                            batch.sort(Comparator.comparingInt(pesanan -> RabbitMQUtil.nomorShard(pesanan.getId())));
+                            RecordAmplop[] records = buatRecords(batch);
+                            while (terkirim < batch.size()) {
+                                AmplopBatch amplop = new AmplopBatch(config.getContentType(), config.getMaksBytesAmplop());
+                                int jumlah = isiAmplop(amplop, batch, records, terkirim);
+                                List<Pesanan> isi = new ArrayList<>(batch.subList(terkirim, terkirim + jumlah));
+                                String routingKey = routingKey(batch.get(terkirim));
+                                byte[] body = amplop.toBytes();
+                                byte[] terkompresi = kompres(body);
+                                AMQP.BasicProperties props = propertiesAmplop;
+                                if (terkompresi != null) {
+                                    body = terkompresi;
+                                    props = propertiesAmplopTerkompresi;
+                                }
+                                logger.debug("Mengirim amplop berisi {} pesanan ({} byte, {} byte dikirim), routing key={}",
+                                    jumlah, amplop.getUkuran(), body.length, routingKey);
+                                
+                                if (config.isPublisherConfirms()) {
+                                    kirimDenganConfirm(channel, isi, routingKey, props, body);
+                                } else {
+                                    channel.basicPublish(RabbitMQUtil.EXCHANGE_PESANAN, routingKey, props, body);
+                                }
+                                terkirim += jumlah;
+                            }
+                            statistikBatch.catat(terkirim);
+                            logger.debug("Batch berisi {} pesanan berhasil dikirim ke RabbitMQ dalam amplop", terkirim);
+                            continue;
+                        }
                         
-                        // Mengirim pesan ke RabbitMQ exchange dengan routing key pesanan.baru
-                        // Parameter null adalah untuk properti pesan (tidak ada properti khusus)
-                        logger.info("Mengirim pesanan ke RabbitMQ, exchange={}, routing key={}", 
-                            RabbitMQUtil.EXCHANGE_PESANAN, RabbitMQUtil.ROUTING_KEY_PESANAN_BARU);
+                        // Seluruh batch dikirim berturut-turut tanpa menunggu broker di antara pesan
+                        for (Pesanan pesanan : batch) {
+                            // Konversi pesanan ke body pesan (JSON atau biner sesuai content-type)
+                            // lalu dikompresi jika melewati ambang kompresi
+                            byte[] body = CodecUtil.encode(pesanan, config.getContentType());
+                            byte[] terkompresi = kompres(body);
+                            if (terkompresi != null) {
+                                body = terkompresi;
+                            }
+                            AMQP.BasicProperties props = buatProperties(pesanan, terkompresi != null);
+                            String routingKey = routingKey(pesanan);
+                            logger.debug("Mengirim pesanan ke RabbitMQ, exchange={}, routing key={}, ID={}",
+                                RabbitMQUtil.EXCHANGE_PESANAN, routingKey, pesanan.getId());
                             
-                        channel.basicPublish(
-                            RabbitMQUtil.EXCHANGE_PESANAN,
-                            RabbitMQUtil.ROUTING_KEY_PESANAN_BARU,
-                            null,
-                            pesananJson.getBytes(StandardCharsets.UTF_8)
-                        );
+                            if (config.isPublisherConfirms()) {
+                                kirimDenganConfirm(channel, Collections.singletonList(pesanan), routingKey, props, body);
+                            } else {
+                                // Properti pesan membawa content-type agar consumer memilih decoder yang sesuai
+                                channel.basicPublish(
+                                    RabbitMQUtil.EXCHANGE_PESANAN,
+                                    routingKey,
+                                    props,
+                                    body
+                                );
+                            }
+                            terkirim++;
+                        }
                         
-                        logger.info("Pesanan berhasil dikirim ke RabbitMQ queue: ID={}", pesanan.getId());
+                        statistikBatch.catat(terkirim);
+                        logger.debug("Batch berisi {} pesanan berhasil dikirim ke RabbitMQ", terkirim);
                     } catch (InterruptedException e) {
                         // Menangani interupsi thread, misalnya ketika aplikasi ditutup
                         logger.info("Producer thread diinterupsi");
@@ -114,6 +261,31 @@ public class PesananProducer {
                     } catch (Exception e) {
                         // Menangani error lain yang mungkin terjadi saat mengirim pesanan
                         logger.error("Gagal mengirim pesanan ke queue RabbitMQ: {}", e.getMessage(), e);
+                        
+                        // Pesanan dalam batch yang belum sempat dikirim, termasuk pesanan atau amplop yang
+                        // publish-nya gagal, dikembalikan ke queue lokal; pesanan sebelumnya sudah dicatat
+                        // di outstandingConfirms atau sudah diserahkan ke broker tanpa confirms
+                        if (batch != null) {
+                            for (int i = terkirim; i < batch.size(); i++) {
+                                kembalikanKeQueue(batch.get(i), "batch terputus");
+                            }
+                        }
+                        
+                        // Channel yang sudah tertutup tidak dapat dipakai lagi, hentikan loop
+                        if (!channel.isOpen()) {
+                            logger.error("Channel producer tertutup, producer thread berhenti");
+                            break;
+                        }
+                        
+                        // Koneksi sedang dipulihkan, beri jeda agar batch tidak dicoba ulang terus-menerus
+                        if (e instanceof ShutdownSignalException) {
+                            try {
+                                Thread.sleep(JEDA_SAAT_PEMULIHAN_MS);
+                            } catch (InterruptedException ie) {
+                                Thread.currentThread().interrupt();
+                                break;
+                            }
+                        }
                     }
                 }
             } catch (Exception e) {
@@ -132,27 +304,322 @@ public class PesananProducer {
         logger.info("Producer thread berhasil dimulai dengan ID: {}", producerThread.getId());
     }
     
+    /**
+     * Mengambil batch pesanan dari queue lokal
+     * Menunggu pesanan pertama, lalu mengambil pesanan lain yang sudah ada dengan drainTo()
+     * dan menunggu paling lama lingerMs untuk melengkapi batch sampai maxBatchSize
+     * @return Batch pesanan, kosong jika tidak ada pesanan dalam interval pemeriksaan confirm
+     */
+    private List<Pesanan> ambilBatch() throws InterruptedException, IOException {
+        List<Pesanan> batch = new ArrayList<>(Math.min(config.getMaxBatchSize(), 1024));
+        
+        // Kiriman ulang, isi queue lokal, lalu isi file tumpahan diambil tanpa menunggu
+        // Pesanan di file tumpahan selalu lebih baru dari isi queue lokal
+        if (ambilTanpaMenunggu(batch)) {
+            return batch;
+        }
+        
+        // take() akan memblokir thread jika queue kosong sampai ada item masuk
+        // Dengan publisher confirms, thread tidak boleh memblokir selamanya
+        // karena harus memeriksa pesanan yang konfirmasinya kedaluwarsa
+        Pesanan pertama = config.isPublisherConfirms()
+            ? pesananQueue.poll(INTERVAL_PERIKSA_CONFIRM_MS, TimeUnit.MILLISECONDS)
+            : pesananQueue.take();
+        if (pertama == null) {
+            return batch;
+        }
+        batch.add(pertama);
+        
+        int maxBatchSize = config.getMaxBatchSize();
+        if (maxBatchSize > 1) {
+            pesananQueue.drainTo(batch, maxBatchSize - 1);
+            
+            long batasWaktu = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getLingerMs());
+            while (batch.size() < maxBatchSize) {
+                long sisa = batasWaktu - System.nanoTime();
+                if (sisa <= 0) {
+                    break;
+                }
+                Pesanan berikutnya = pesananQueue.poll(sisa, TimeUnit.NANOSECONDS);
+                if (berikutnya == null) {
+                    break;
+                }
+                batch.add(berikutnya);
+                pesananQueue.drainTo(batch, maxBatchSize - batch.size());
+            }
+        }
+        return batch;
+    }
+    
+    /**
+     * Mengisi batch dari kiriman ulang, queue lokal, dan file tumpahan tanpa menunggu
+     * @return true jika batch berisi paling sedikit satu pesanan
+     */
+    private boolean ambilTanpaMenunggu(List<Pesanan> batch) throws IOException {
+        int maxBatchSize = config.getMaxBatchSize();
+        Pesanan pesanan;
+        while (batch.size() < maxBatchSize && (pesanan = antreanKirimUlang.poll()) != null) {
+            batch.add(pesanan);
+        }
+        if (tumpahan == null || tumpahan.isEmpty()) {
+            return !batch.isEmpty();
+        }
+        pesananQueue.drainTo(batch, maxBatchSize - batch.size());
+        while (batch.size() < maxBatchSize && (pesanan = tumpahan.ambil()) != null) {
+            batch.add(pesanan);
+        }
+        return !batch.isEmpty();
+    }
+    
+    /**
+     * Membuka file tumpahan jika queue lokal berkapasitas tetap memakai kebijakan TUMPAH
+     */
+    private static AntreanTumpahan<Pesanan> bukaTumpahan(ProducerConfig config) {
+        if (config.getKapasitasQueue() == 0 || config.getKebijakanPenuh() != ProducerConfig.KebijakanPenuh.TUMPAH) {
+            return null;
+        }
+        try {
+            return new AntreanTumpahan<>(Paths.get(config.getFileTumpahan()), BinaryUtil::toBinary, BinaryUtil::toPesanan);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Gagal membuka file tumpahan " + config.getFileTumpahan(), e);
+        }
+    }
+    
+    /**
+     * Mengkonversi setiap pesanan dalam batch ke properti dan body record amplop
+     * Dilakukan sekali per pesanan agar pencatatan latensi antrean producer tidak berulang
+     * ketika pesanan berpindah ke amplop berikutnya
+     */
+    private RecordAmplop[] buatRecords(List<Pesanan> batch) {
+        RecordAmplop[] records = new RecordAmplop[batch.size()];
+        for (int i = 0; i < records.length; i++) {
+            Pesanan pesanan = batch.get(i);
+            records[i] = new RecordAmplop(buatProperties(pesanan, false), CodecUtil.encode(pesanan, config.getContentType()));
+        }
+        return records;
+    }
+    
+    /**
+     * Mengisi amplop dengan pesanan berurutan dari batch yang memiliki routing key yang sama
+     * @param amplop Amplop kosong
+     * @param batch Batch yang sudah diurutkan per shard
+     * @param records Properti dan body setiap pesanan dalam batch
+     * @param dari Indeks pesanan pertama
+     * @return Jumlah pesanan yang masuk ke amplop, minimal satu
+     */
+    private static int isiAmplop(AmplopBatch amplop, List<Pesanan> batch, RecordAmplop[] records, int dari) {
+        int shard = RabbitMQUtil.nomorShard(batch.get(dari).getId());
+        int i = dari;
+        while (i < batch.size() && RabbitMQUtil.nomorShard(batch.get(i).getId()) == shard
+                && amplop.tambahkan(records[i].properties, records[i].body)) {
+            i++;
+        }
+        return i - dari;
+    }
+    
+    /**
+     * Routing key shard pesanan baru, semua pesan satu pesanan masuk ke queue shard yang sama
+     */
+    private static String routingKey(Pesanan pesanan) {
+        return RabbitMQUtil.namaShard(RabbitMQUtil.ROUTING_KEY_PESANAN_BARU, RabbitMQUtil.nomorShard(pesanan.getId()));
+    }
+    
+    /**
+     * Message-id pesanan untuk deduplikasi di consumer, selalu sama untuk pesanan yang sama sehingga
+     * kiriman ulang setelah nack atau batas waktu konfirmasi juga dikenali sebagai duplikat
+     */
+    private static String idPesan(Pesanan pesanan) {
+        return "pesanan-" + pesanan.getId();
+    }
+    
+    /**
+     * Membuat properti pesan dengan message-id, correlation id, dan header waktu untuk pelacakan latensi
+     * Waktu dikirim dicap ulang setiap kali pesanan dikirim ulang
+     * @param pesanan Pesanan yang akan dikirim
+     * @param terkompresi true jika body dikompresi dan properti harus membawa content-encoding
+     * @return Properti pesan
+     */
+    private AMQP.BasicProperties buatProperties(Pesanan pesanan, boolean terkompresi) {
+        long dibuat = TimeUnit.MILLISECONDS.toMicros(pesanan.getTanggalPesanan().getTime());
+        long dikirim = TracingUtil.sekarangMikro();
+        TracingUtil.catatSelisih(TracingUtil.TAHAP_ANTREAN_PRODUCER, dibuat, dikirim);
+        
+        Map<String, Object> headers = new HashMap<>(4);
+        headers.put(TracingUtil.HEADER_WAKTU_DIBUAT, dibuat);
+        headers.put(TracingUtil.HEADER_WAKTU_DIKIRIM, dikirim);
+        return (terkompresi ? propertiesTerkompresi : properties).builder()
+            .messageId(idPesan(pesanan))
+            .correlationId(String.valueOf(pesanan.getId()))
+            .headers(headers)
+            .build();
+    }
+    
+    /**
+     * Mengompresi body pesan jika ukurannya mencapai ambangKompresiBytes
+     * @return Body terkompresi, atau null jika body dikirim apa adanya
+     */
+    private byte[] kompres(byte[] body) {
+        int ambang = config.getAmbangKompresiBytes();
+        if (ambang <= 0 || body.length < ambang) {
+            return null;
+        }
+        return KompresiUtil.kompres(body);
+    }
+    
+    /**
+     * Mengaktifkan publisher confirms pada channel producer
+     * Konfirmasi dari broker diproses secara asinkronus melalui ConfirmListener,
+     * sehingga producer tidak perlu menunggu round-trip untuk setiap pesan
+     * @param channel Channel RabbitMQ milik producer thread
+     */
+    private void aktifkanPublisherConfirms(TransportChannel channel) throws Exception {
+        channel.confirmSelect();
+        channel.addConfirmListener(
+            (deliveryTag, multiple) -> tanganiConfirm(deliveryTag, multiple, true),
+            (deliveryTag, multiple) -> tanganiConfirm(deliveryTag, multiple, false)
+        );
+        logger.info("Publisher confirms asinkronus aktif, batas waktu konfirmasi {} ms",
+            config.getConfirmTimeoutMs());
+    }
+    
+    /**
+     * Mengirim satu pesan dan mencatat isinya sebagai pesanan yang menunggu konfirmasi broker
+     * @param channel Channel RabbitMQ dengan mode confirm aktif
+     * @param pesanan Pesanan di dalam pesan, lebih dari satu jika pesan berupa amplop batch
+     * @param routingKey Routing key shard pesanan
+     * @param props Properti pesan beserta header pelacakan
+     * @param body Isi pesan yang sudah dikonversi sesuai content-type
+     */
+    private void kirimDenganConfirm(TransportChannel channel, List<Pesanan> pesanan, String routingKey,
+                                    AMQP.BasicProperties props, byte[] body) throws Exception {
+        // Delivery tag dicatat sebelum publish karena ack dari broker bisa datang sangat cepat
+        long deliveryTag = channel.getNextPublishSeqNo();
+        if (deliveryTag <= tagTerakhir) {
+            // Nomor urut mulai lagi dari 1 setelah channel dipulihkan, konfirmasi tag lama tidak akan datang
+            // dan tag-nya akan dipakai ulang sehingga pesanan yang masih menunggu dikirim ulang sekarang
+            kirimUlangSemuaTertunda();
+        }
+        tagTerakhir = deliveryTag;
+        outstandingConfirms.put(deliveryTag, new PesananTertunda(pesanan, System.nanoTime()));
+        
+        try {
+            channel.basicPublish(
+                RabbitMQUtil.EXCHANGE_PESANAN,
+                routingKey,
+                props,
+                body
+            );
+        } catch (Exception e) {
+            // Publish gagal sehingga konfirmasinya tidak akan datang; pesanannya dikembalikan
+            // ke queue lokal oleh producer thread bersama sisa batch
+            outstandingConfirms.remove(deliveryTag);
+            throw e;
+        }
+    }
+    
+    /**
+     * Menangani ack/nack dari broker
+     * Jika multiple bernilai true, semua delivery tag sampai dengan deliveryTag ikut dikonfirmasi
+     * @param deliveryTag Delivery tag yang dikonfirmasi broker
+     * @param multiple true jika konfirmasi berlaku untuk semua tag sampai deliveryTag
+     * @param ack true untuk ack, false untuk nack
+     */
+    private void tanganiConfirm(long deliveryTag, boolean multiple, boolean ack) {
+        if (multiple) {
+            ConcurrentNavigableMap<Long, PesananTertunda> terkonfirmasi = outstandingConfirms.headMap(deliveryTag, true);
+            if (ack) {
+                terkonfirmasi.clear();
+            } else {
+                // remove() per entry agar tidak bentrok dengan pemeriksaan timeout di producer thread
+                for (Long tag : terkonfirmasi.keySet()) {
+                    PesananTertunda tertunda = outstandingConfirms.remove(tag);
+                    if (tertunda != null) {
+                        kembalikanKeQueue(tertunda, "nack dari broker");
+                    }
+                }
+            }
+        } else {
+            PesananTertunda tertunda = outstandingConfirms.remove(deliveryTag);
+            if (!ack && tertunda != null) {
+                kembalikanKeQueue(tertunda, "nack dari broker");
+            }
+        }
+        logger.debug("Konfirmasi broker diterima: tag={}, multiple={}, ack={}, menunggu={}",
+            deliveryTag, multiple, ack, outstandingConfirms.size());
+    }
+    
+    /**
+     * Mengirim ulang pesanan yang belum dikonfirmasi melewati batas waktu
+     * Map diurutkan berdasarkan delivery tag sehingga pemeriksaan berhenti pada entry pertama
+     * yang belum kedaluwarsa
+     */
+    private void kirimUlangConfirmKedaluwarsa() {
+        long batasNanos = TimeUnit.MILLISECONDS.toNanos(config.getConfirmTimeoutMs());
+        long sekarang = System.nanoTime();
+        
+        for (Map.Entry<Long, PesananTertunda> entry : outstandingConfirms.entrySet()) {
+            if (sekarang - entry.getValue().waktuKirimNanos < batasNanos) {
+                break;
+            }
+            // remove(key, value) memastikan pesanan tidak dikembalikan dua kali jika nack datang bersamaan
+            if (outstandingConfirms.remove(entry.getKey(), entry.getValue())) {
+                kembalikanKeQueue(entry.getValue(), "konfirmasi kedaluwarsa");
+            }
+        }
+    }
+    
+    /**
+     * Mengirim ulang semua pesanan yang belum dikonfirmasi, dipanggil setelah channel dipulihkan
+     */
+    private void kirimUlangSemuaTertunda() {
+        for (Map.Entry<Long, PesananTertunda> entry : outstandingConfirms.entrySet()) {
+            if (outstandingConfirms.remove(entry.getKey(), entry.getValue())) {
+                kembalikanKeQueue(entry.getValue(), "channel dipulihkan");
+            }
+        }
+    }
+    
+    /**
+     * Mengembalikan semua pesanan di dalam satu pesan yang gagal atau tidak dikonfirmasi ke queue lokal
+     */
+    private void kembalikanKeQueue(PesananTertunda tertunda, String alasan) {
+        for (Pesanan pesanan : tertunda.pesanan) {
+            kembalikanKeQueue(pesanan, alasan);
+        }
+    }
+    
+    /**
+     * Mengembalikan pesanan ke queue lokal untuk dikirim ulang (at-least-once)
+     * Jika queue lokal penuh, pesanan disimpan di antrean kiriman ulang yang diambil lebih dulu
+     */
+    private void kembalikanKeQueue(Pesanan pesanan, String alasan) {
+        logger.warn("Pesanan dikirim ulang karena {}: ID={}", alasan, pesanan.getId());
+        if (!pesananQueue.offer(pesanan)) {
+            antreanKirimUlang.offer(pesanan);
+        }
+    }
+    
     /**
      * Metode untuk menambahkan pesanan ke queue lokal
      * Dipanggil oleh aplikasi utama untuk mengirim pesanan baru
+     * Jika queue lokal berkapasitas tetap penuh, tindakan mengikuti kebijakanPenuh pada ProducerConfig
      * @param pesanan Objek pesanan yang akan dikirim
+     * @throws IllegalStateException jika queue lokal penuh dengan kebijakan TOLAK
+     * @throws UncheckedIOException jika pesanan gagal ditulis ke file tumpahan
      */
     public void tambahkanPesanan(Pesanan pesanan) {
         if (pesanan == null) {
             logger.error("Gagal menambahkan pesanan ke queue: pesanan adalah null");
             return;
         }
-
+        
         try {
-            logger.info("Menambahkan pesanan ke queue local: ID={}, Pelanggan={}", 
-                pesanan.getId(), pesanan.getNamaPelanggan());
-            
-            // put() akan menambahkan pesanan ke queue
-            // Jika queue penuh, thread akan diblokir sampai ada ruang kosong
-            pesananQueue.put(pesanan);
+            masukkanKeQueue(pesanan);
             
-            logger.info("Pesanan berhasil ditambahkan ke queue local: ID={}, ukuran queue={}", 
-                pesanan.getId(), pesananQueue.size());
+            if (logger.isDebugEnabled()) {
+                logger.debug("Pesanan berhasil ditambahkan ke queue local: ID={}, ukuran queue={}",
+                    pesanan.getId(), pesananQueue.size());
+            }
         } catch (InterruptedException e) {
             // Menangani interupsi thread
             Thread.currentThread().interrupt();
@@ -160,6 +627,47 @@ public class PesananProducer {
         }
     }
     
+    private void masukkanKeQueue(Pesanan pesanan) throws InterruptedException {
+        switch (config.getKebijakanPenuh()) {
+            case TOLAK:
+                if (!pesananQueue.offer(pesanan)) {
+                    throw new IllegalStateException("Queue lokal producer penuh, pesanan ditolak: ID=" + pesanan.getId());
+                }
+                break;
+            case TUMPAH:
+                // Selama file tumpahan berisi, pesanan baru ikut ditumpahkan agar urutan tetap terjaga
+                if (tumpahan == null || (tumpahan.isEmpty() && pesananQueue.offer(pesanan))) {
+                    break;
+                }
+                try {
+                    tumpahan.tambahkan(pesanan);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Gagal menulis pesanan ke file tumpahan: ID=" + pesanan.getId(), e);
+                }
+                break;
+            default:
+                // put() akan menambahkan pesanan ke queue
+                // Jika queue penuh, thread akan diblokir sampai ada ruang kosong
+                pesananQueue.put(pesanan);
+        }
+    }
+    
+    /**
+     * Jumlah pesan (pesanan tunggal atau amplop batch) yang sudah dikirim tetapi belum dikonfirmasi broker
+     * @return Jumlah pesan yang menunggu konfirmasi
+     */
+    public int getJumlahMenungguKonfirmasi() {
+        return outstandingConfirms.size();
+    }
+    
+    /**
+     * Statistik ukuran batch yang sudah dikirim producer
+     * @return Objek statistik batch
+     */
+    public StatistikBatch getStatistikBatch() {
+        return statistikBatch;
+    }
+    
     /**
      * Metode untuk menghentikan producer thread
      * Dipanggil ketika aplikasi berakhir untuk mengakhiri thread dengan bersih
@@ -170,5 +678,48 @@ public class PesananProducer {
         
         // Mengirim interupsi ke producer thread (jika sedang memblokir di take())
         producerThread.interrupt();
+        
+        logger.info("Producer pesanan berhenti, {}", statistikBatch);
+        if (tumpahan != null) {
+            if (!tumpahan.isEmpty()) {
+                logger.warn("{} pesanan tersisa di file tumpahan dan dikirim setelah producer dimulai lagi",
+                    tumpahan.getJumlah());
+            }
+            try {
+                tumpahan.close();
+            } catch (IOException e) {
+                logger.error("Gagal menutup file tumpahan: {}", e.getMessage(), e);
+            }
+        }
+        if (!outstandingConfirms.isEmpty()) {
+            logger.warn("Producer dihentikan dengan {} pesanan yang belum dikonfirmasi broker",
+                outstandingConfirms.size());
+        }
+    }
+    
+    /**
+     * Properti dan body satu pesanan di dalam amplop batch
+     */
+    private static final class RecordAmplop {
+        private final AMQP.BasicProperties properties;
+        private final byte[] body;
+        
+        private RecordAmplop(AMQP.BasicProperties properties, byte[] body) {
+            this.properties = properties;
+            this.body = body;
+        }
+    }
+    
+    /**
+     * Pesanan di dalam satu pesan yang sudah dikirim ke broker beserta waktu pengirimannya
+     */
+    private static final class PesananTertunda {
+        private final List<Pesanan> pesanan;
+        private final long waktuKirimNanos;
+        
+        private PesananTertunda(List<Pesanan> pesanan, long waktuKirimNanos) {
+            this.pesanan = pesanan;
+            this.waktuKirimNanos = waktuKirimNanos;
+        }
     }
 } 
\ No newline at end of file
@@ -1,18 +1,34 @@
 package com.ecommerce.pesanan.service;
 
+import com.ecommerce.pesanan.config.ConsumerConfig;
 import com.ecommerce.pesanan.model.Pesanan;
+import com.ecommerce.pesanan.model.StatusPengiriman;
+import com.ecommerce.pesanan.util.AckCoalescer;
+import com.ecommerce.pesanan.util.AmplopBatch;
+import com.ecommerce.pesanan.util.CodecUtil;
+import com.ecommerce.pesanan.util.EksekusiUtil;
+import com.ecommerce.pesanan.util.JendelaDedup;
+import com.ecommerce.pesanan.util.KompresiUtil;
+import com.ecommerce.pesanan.util.PenanganGagal;
 import com.ecommerce.pesanan.util.RabbitMQUtil;
-import com.rabbitmq.client.Channel;
-import com.rabbitmq.client.Connection;
+import com.ecommerce.pesanan.util.TabelPesanan;
+import com.ecommerce.pesanan.util.TracingUtil;
+import com.ecommerce.pesanan.util.Transport;
+import com.ecommerce.pesanan.util.TransportChannel;
+import com.rabbitmq.client.AMQP;
 import com.rabbitmq.client.DeliverCallback;
+import com.rabbitmq.client.Delivery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Kelas Consumer untuk menerima update status pengiriman dari LayananPengiriman
@@ -23,22 +39,62 @@ public class PesananStatusConsumer implements Runnable {
     // Logger untuk mencatat aktivitas consumer
     private static final Logger logger = LoggerFactory.getLogger(PesananStatusConsumer.class);
     
-    // Koneksi ke server RabbitMQ
-    private final Connection connection;
+    // Transport pesan (RabbitMQ atau di dalam proses)
+    private final Transport transport;
     
-    // Flag untuk menandakan apakah consumer thread masih berjalan
-    private volatile boolean running = true;
+    // Pengaturan prefetch dan penggabungan acknowledge
+    private final ConsumerConfig config;
     
-    // Map untuk menyimpan daftar pesanan yang diproses
-    // Menggunakan HashMap yang disinkronisasi secara manual untuk thread-safety
-    private final Map<Integer, Pesanan> daftarPesanan = new HashMap<>();
+    // Dilepas oleh stop() untuk mengakhiri consumer thread
+    private final CountDownLatch berhenti = new CountDownLatch(1);
+    
+    // Tabel untuk menyimpan daftar pesanan yang diproses
+    // Kunci long primitif dan kolom array primitif/off-heap agar jutaan pesanan tidak membebani GC;
+    // update status atomik per segmen dan pembaca memakai optimistic read sehingga tidak menahan penulis
+    private final TabelPesanan daftarPesanan;
+    
+    // ID pesan yang sudah diterima dalam jendela deduplikasi, null jika deduplikasi tidak aktif
+    private final JendelaDedup dedup;
+    
+    // Transport untuk kiriman ulang pesan yang gagal diproses, null berarti memakai transport consumer
+    private volatile Transport transportRetry;
+    
+    // Penangan pesan yang gagal diproses (queue tunda dan queue parkir), dibuat saat consumer berjalan
+    private volatile PenanganGagal penanganGagal;
+    
+    // Pendengar yang dipanggil setiap kali status pesanan diperbarui, null jika tidak ada
+    private volatile Consumer<Pesanan> pendengarStatus;
+    
+    /**
+     * Konstruktor untuk inisialisasi consumer dengan pengaturan default
+     * @param transport Transport pesan yang sudah dibuat
+     */
+    public PesananStatusConsumer(Transport transport) {
+        this(transport, new ConsumerConfig());
+    }
     
     /**
      * Konstruktor untuk inisialisasi consumer
-     * @param connection Koneksi RabbitMQ yang sudah dibuat
+     * @param transport Transport pesan yang sudah dibuat
+     * @param config Pengaturan prefetch dan penggabungan acknowledge
+     */
+    public PesananStatusConsumer(Transport transport, ConsumerConfig config) {
+        this(transport, config, new TabelPesanan());
+    }
+    
+    /**
+     * Konstruktor untuk inisialisasi consumer dengan tabel pesanan yang sudah ada
+     * @param transport Transport pesan yang sudah dibuat
+     * @param config Pengaturan prefetch dan penggabungan acknowledge
+     * @param daftarPesanan Tabel pesanan, misalnya dari PenyimpananPesanan agar perubahan tersimpan di disk
      */
-    public PesananStatusConsumer(Connection connection) {
-        this.connection = connection;
+    public PesananStatusConsumer(Transport transport, ConsumerConfig config, TabelPesanan daftarPesanan) {
+        this.transport = transport;
+        this.config = config;
+        this.daftarPesanan = daftarPesanan;
+        this.dedup = config.getJendelaDedupMs() > 0
+            ? new JendelaDedup(config.getJendelaDedupMs(), config.getKapasitasDedup())
+            : null;
     }
     
     /**
@@ -47,134 +103,310 @@ public class PesananStatusConsumer implements Runnable {
      */
     @Override
     public void run() {
+        // Scheduler untuk mengirim ack gabungan yang tertunda berdasarkan waktu
+        ScheduledExecutorService ackScheduler = null;
+        AckCoalescer ackCoalescer = null;
+        
+        // Pada mode VIRTUAL setiap pesan diproses di virtual thread sendiri, selain itu langsung
+        // di thread dispatch RabbitMQ client. Jumlah pesan yang diproses bersamaan dibatasi prefetchCount
+        ExecutorService workerExecutor = config.getModeEksekusi() == EksekusiUtil.ModeEksekusi.VIRTUAL
+            ? EksekusiUtil.buatExecutorVirtual("pesanan-status-vt-")
+            : null;
+        
+        penanganGagal = new PenanganGagal(transportRetry != null ? transportRetry : transport,
+            RabbitMQUtil.QUEUE_PESANAN_STATUS_PARKIR, config.getMaksPercobaan());
+        
         // try-with-resources untuk otomatis menutup channel ketika selesai
-        try (Channel channel = connection.createChannel()) {
+        try (TransportChannel channel = transport.createChannel()) {
+            // Batasi jumlah pesan yang belum di-ack jika diatur
+            // Pada RabbitMQ batas ini berlaku untuk setiap consumer, yaitu per shard
+            if (config.getPrefetchCount() > 0) {
+                channel.basicQos(config.getPrefetchCount());
+            }
+            
+            // Mode penggabungan ack: beberapa pesan di-ack sekaligus dengan basicAck(tag, true)
+            if (config.getAckBatchSize() > 1) {
+                ackScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "pesanan-status-ack");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                ackCoalescer = new AckCoalescer(channel, config.getAckBatchSize(),
+                    config.getAckIntervalMs(), ackScheduler);
+                logger.info("Penggabungan ack aktif: setiap {} pesan atau {} ms",
+                    config.getAckBatchSize(), config.getAckIntervalMs());
+            }
+            final AckCoalescer coalescer = ackCoalescer;
+            
             // Membuat callback untuk menerima pesan
-            // DeliverCallback adalah functional interface dari RabbitMQ client
+            // DeliverCallback adalah functional interface dari RabbitMQ client, dipakai oleh semua transport
+            final ExecutorService worker = workerExecutor;
             DeliverCallback deliverCallback = (consumerTag, delivery) -> {
-                // Mengkonversi body pesan dari byte array ke String
-                String message = new String(delivery.getBody(), StandardCharsets.UTF_8);
-                logger.info("Menerima update status pengiriman: {}", message);
-                
+                if (worker == null) {
+                    prosesDelivery(channel, coalescer, delivery);
+                    return;
+                }
                 try {
-                    // Proses pesan status pengiriman
-                    processPengirimanStatus(message);
-                } catch (Exception e) {
-                    // Menangani error yang mungkin terjadi saat memproses pesan
-                    logger.error("Gagal memproses pesan: {}", e.getMessage(), e);
-                } finally {
-                    // Konfirmasi pesan telah diproses (acknowledge)
-                    // Parameter false berarti hanya acknowledge satu pesan ini saja
-                    channel.basicAck(delivery.getEnvelope().getDeliveryTag(), false);
+                    worker.execute(() -> prosesDelivery(channel, coalescer, delivery));
+                } catch (RejectedExecutionException e) {
+                    // Executor sudah dihentikan, kembalikan pesan ke queue
+                    channel.basicNack(delivery.getEnvelope().getDeliveryTag(), false, true);
                 }
             };
             
-            // Mendaftar sebagai consumer untuk queue status pengiriman
+            // Mendaftar sebagai consumer untuk setiap shard queue status pengiriman pada channel yang sama
             // Parameter false = manual acknowledgment untuk memastikan pesan diproses
-            channel.basicConsume(RabbitMQUtil.QUEUE_PESANAN_STATUS, false, deliverCallback, consumerTag -> {});
+            for (String queue : RabbitMQUtil.namaShard(RabbitMQUtil.QUEUE_PESANAN_STATUS, config.getShard())) {
+                channel.basicConsume(queue, false, deliverCallback);
+            }
             
-            // Tetap running sampai aplikasi di-stop
-            while (running) {
-                try {
-                    // Tidur 1 detik untuk mengurangi penggunaan CPU
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    // Menangani interupsi thread
-                    Thread.currentThread().interrupt();
-                    break;
+            // Tetap berjalan sampai aplikasi di-stop, thread menunggu tanpa bangun berkala
+            try {
+                berhenti.await();
+            } catch (InterruptedException e) {
+                // Menangani interupsi thread
+                Thread.currentThread().interrupt();
+            }
+            
+            // Tunggu pesan yang sedang diproses, lalu kirim ack yang masih tertunda sebelum channel ditutup
+            if (workerExecutor != null) {
+                workerExecutor.shutdown();
+                if (!workerExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                    logger.warn("Sebagian pesan status masih diproses saat consumer dihentikan");
                 }
             }
+            if (ackCoalescer != null) {
+                ackCoalescer.close();
+            }
         } catch (Exception e) {
             // Menangani error pada consumer thread
             logger.error("Kesalahan pada consumer status pengiriman: {}", e.getMessage(), e);
+        } finally {
+            if (workerExecutor != null) {
+                workerExecutor.shutdownNow();
+            }
+            if (ackScheduler != null) {
+                ackScheduler.shutdownNow();
+            }
+            penanganGagal.close();
         }
     }
     
     /**
-     * Memproses pesan update status pengiriman yang diterima dari RabbitMQ
-     * @param message Pesan JSON yang berisi informasi status pengiriman
+     * Memproses satu pesan status lalu mengirim atau mencatat acknowledge
+     * Body dengan content-encoding deflate didekompresi lebih dulu. Amplop batch dibuka dan setiap
+     * status di dalamnya diproses sebagai record tersendiri;
+     * amplop baru di-ack setelah semua record selesai diproses atau diteruskan ke queue tunda.
+     * Jika satu record tidak dapat diteruskan, amplop dikembalikan ke queue dengan nack dan record
+     * yang sudah selesai dikenali sebagai duplikat saat amplop diterima lagi
+     * @param channel Channel tempat pesan diterima
+     * @param coalescer Penggabung ack, atau null jika setiap pesan di-ack sendiri
+     * @param delivery Pesan yang diterima dari transport
      */
-    private void processPengirimanStatus(String message) {
-        // Parse pesan sebagai JSONObject
-        // Menggunakan library org.json untuk parsing
-        org.json.JSONObject statusObj = new org.json.JSONObject(message);
-        
-        // Mengambil data dari JSON object
-        int idPesanan = statusObj.getInt("idPesanan");
-        String statusPengiriman = statusObj.getString("statusPengiriman");
-        
-        // Update status pesanan
-        // synchronized untuk thread-safety karena daftarPesanan dapat diakses dari thread lain
-        synchronized (daftarPesanan) {
-            // Mencari pesanan di daftar berdasarkan ID
-            Pesanan pesanan = daftarPesanan.get(idPesanan);
-            
-            if (pesanan == null) {
-                // Jika pesanan tidak ditemukan, buat pesanan baru
-                // Biasanya terjadi jika status pengiriman datang sebelum pesanan disimpan
-                pesanan = new Pesanan();
-                pesanan.setId(idPesanan);
-                
-                // Menyimpan informasi tambahan dari pesan jika ada
-                if (statusObj.has("namaPelanggan")) {
-                    pesanan.setNamaPelanggan(statusObj.getString("namaPelanggan"));
+    private void prosesDelivery(TransportChannel channel, AckCoalescer coalescer, Delivery delivery) {
+        boolean ack = true;
+        try {
+            Delivery pesan = KompresiUtil.dekompres(delivery);
+            if (AmplopBatch.isAmplop(pesan.getProperties().getContentType())) {
+                for (Delivery record : AmplopBatch.buka(pesan)) {
+                    if (!prosesRecord(record)) {
+                        ack = false;
+                        break;
+                    }
                 }
-                
-                if (statusObj.has("alamatPengiriman")) {
-                    pesanan.setAlamatPengiriman(statusObj.getString("alamatPengiriman"));
+            } else {
+                ack = prosesRecord(pesan);
+            }
+        } catch (Exception e) {
+            // Body terkompresi atau amplop yang rusak tidak dapat dibuka, pesan asal dicoba lagi lalu diparkir
+            logger.error("Gagal membuka pesan: {}", e.getMessage(), e);
+            ack = penanganGagal.tangani(delivery, e);
+        } finally {
+            long deliveryTag = delivery.getEnvelope().getDeliveryTag();
+            try {
+                if (!ack) {
+                    // Kembalikan pesan ke queue, pada mode penggabungan lewat coalescer agar
+                    // ack multiple berikutnya tidak tertahan oleh tag ini
+                    if (coalescer != null) {
+                        coalescer.tolak(deliveryTag);
+                    } else {
+                        channel.basicNack(deliveryTag, false, true);
+                    }
+                } else if (coalescer != null) {
+                    // Ack dikumpulkan dan dikirim sebagai satu ack multiple
+                    coalescer.selesai(deliveryTag);
+                } else {
+                    // Konfirmasi pesan telah diproses (acknowledge)
+                    // Parameter false berarti hanya acknowledge satu pesan ini saja
+                    channel.basicAck(deliveryTag, false);
                 }
+            } catch (Exception e) {
+                logger.error("Gagal mengirim acknowledge: {}", e.getMessage(), e);
             }
-            
-            // Map status pengiriman ke status pesanan
-            // Konversi nama status dari format pengiriman ke format pesanan
-            String statusPesanan;
-            switch (statusPengiriman) {
-                case "DIKEMAS":
-                    statusPesanan = "SEDANG_DIKEMAS";
-                    break;
-                case "DIKIRIM":
-                    statusPesanan = "SEDANG_DIKIRIM";
-                    break;
-                case "TERKIRIM":
-                    statusPesanan = "SELESAI";
-                    break;
-                default:
-                    statusPesanan = "DIPROSES";
+        }
+    }
+    
+    /**
+     * Memproses satu status, baik pesan tunggal maupun record dari amplop batch
+     * Status yang gagal diproses dikirim ke queue tunda atau queue parkir
+     * @param delivery Status beserta properti dan header pelacakannya
+     * @return true jika status selesai (diproses, duplikat, atau sudah diteruskan ke queue tunda),
+     *         false jika status harus dikembalikan ke queue
+     */
+    private boolean prosesRecord(Delivery delivery) {
+        // Body pesan di-parse langsung dari byte array sesuai content-type pesan
+        if (logger.isDebugEnabled() && !CodecUtil.isBinary(delivery.getProperties().getContentType())) {
+            logger.debug("Menerima update status pengiriman: {}",
+                new String(delivery.getBody(), StandardCharsets.UTF_8));
+        }
+        
+        try {
+            // Status yang sudah pernah diterima hanya di-ack tanpa diproses lagi
+            if (isDuplikat(delivery)) {
+                return true;
             }
             
-            // Update status pesanan dan simpan ke daftar
-            pesanan.setStatus(statusPesanan);
-            daftarPesanan.put(idPesanan, pesanan);
+            // Catat latensi antar layanan dari header pelacakan
+            catatLatensiPesan(delivery.getProperties());
             
-            logger.info("Status pesanan diperbarui: ID={}, Status={}", idPesanan, statusPesanan);
+            // Proses pesan status pengiriman
+            processPengirimanStatus(delivery.getBody(), delivery.getProperties().getContentType());
+            return true;
+        } catch (Exception e) {
+            // Menangani error yang mungkin terjadi saat memproses pesan
+            logger.error("Gagal memproses pesan: {}", e.getMessage(), e);
+            if (penanganGagal.tangani(delivery, e)) {
+                return true;
+            }
+            // Status akan diterima lagi, ID dilepas dari jendela agar tidak dianggap duplikat
+            String kunci = kunciDedup(delivery);
+            if (kunci != null) {
+                dedup.lupakan(kunci);
+            }
+            return false;
+        }
+    }
+    
+    /**
+     * Memeriksa ID pesan terhadap jendela deduplikasi dan mencatatnya jika belum pernah diterima
+     * Pesan tanpa message-id selalu diproses. Kiriman ulang dari queue tunda dicatat dengan nomor
+     * percobaannya agar tidak dianggap duplikat pesan asal
+     * @param delivery Pesan yang diterima dari transport
+     * @return true jika pesan sudah pernah diterima dalam jendela deduplikasi
+     */
+    private boolean isDuplikat(Delivery delivery) {
+        String kunci = kunciDedup(delivery);
+        if (kunci == null || dedup.tandai(kunci)) {
+            return false;
+        }
+        logger.info("Status pengiriman duplikat diabaikan: messageId={}, redeliver={}",
+            delivery.getProperties().getMessageId(), delivery.getEnvelope().isRedeliver());
+        return true;
+    }
+    
+    /**
+     * Kunci jendela deduplikasi: message-id, ditambah nomor percobaan untuk kiriman ulang dari queue tunda
+     * @return Kunci deduplikasi, atau null jika deduplikasi tidak aktif atau pesan tanpa message-id
+     */
+    private String kunciDedup(Delivery delivery) {
+        String idPesan = delivery.getProperties().getMessageId();
+        if (dedup == null || idPesan == null) {
+            return null;
+        }
+        int percobaan = RabbitMQUtil.getPercobaan(delivery.getProperties());
+        return percobaan == 0 ? idPesan : idPesan + "#" + percobaan;
+    }
+    
+    /**
+     * Mencatat latensi tahap-tahap antar layanan berdasarkan header waktu pada pesan status
+     * @param properties Properti pesan status yang diterima
+     */
+    private void catatLatensiPesan(AMQP.BasicProperties properties) {
+        long diterima = TracingUtil.sekarangMikro();
+        long statusDikirim = TracingUtil.bacaWaktu(properties, TracingUtil.HEADER_WAKTU_STATUS);
+        TracingUtil.catatSelisih(TracingUtil.TAHAP_STATUS_DI_BROKER, statusDikirim, diterima);
+        TracingUtil.catatSelisih(TracingUtil.TAHAP_DI_PENGIRIMAN,
+            TracingUtil.bacaWaktu(properties, TracingUtil.HEADER_WAKTU_DITERIMA), statusDikirim);
+        TracingUtil.catatSelisih(TracingUtil.TAHAP_END_TO_END,
+            TracingUtil.bacaWaktu(properties, TracingUtil.HEADER_WAKTU_DIBUAT), diterima);
+    }
+    
+    /**
+     * Memproses pesan update status pengiriman yang diterima dari RabbitMQ
+     * @param body Body pesan yang berisi informasi status pengiriman
+     * @param contentType Content-type pesan, menentukan format JSON atau biner
+     */
+    private void processPengirimanStatus(byte[] body, String contentType) {
+        // Parse pesan langsung dari body sesuai content-type, JSON jika tidak ada content-type
+        long mulaiDecode = System.nanoTime();
+        StatusPengiriman statusObj = CodecUtil.decodeStatusPengiriman(body, contentType);
+        long mulaiUpdate = System.nanoTime();
+        TracingUtil.catat(TracingUtil.TAHAP_DESERIALISASI, (mulaiUpdate - mulaiDecode) / 1000);
+        
+        // Mengambil data dari pesan status
+        long idPesanan = statusObj.getIdPesanan();
+        String statusPengiriman = statusObj.getStatusPengiriman();
+        
+        // Map status pengiriman ke status pesanan
+        String statusPesanan = mapStatusPesanan(statusPengiriman);
+        
+        // Update status pesanan secara atomik per ID
+        // Jika pesanan belum ada (status datang sebelum pesanan disimpan), pesanan dibuat
+        // dengan informasi tambahan dari pesan
+        daftarPesanan.perbaruiStatus(idPesanan, statusPesanan,
+            statusObj.getNamaPelanggan(), statusObj.getAlamatPengiriman());
+        
+        logger.info("Status pesanan diperbarui: ID={}, Status={}", idPesanan, statusPesanan);
+        TracingUtil.catat(TracingUtil.TAHAP_UPDATE_DAFTAR, (System.nanoTime() - mulaiUpdate) / 1000);
+        
+        // Pendengar dipanggil di luar lock dengan salinan pesanan terbaru
+        Consumer<Pesanan> pendengar = pendengarStatus;
+        if (pendengar != null) {
+            Pesanan pesanan = daftarPesanan.ambil(idPesanan);
+            if (pesanan != null) {
+                pendengar.accept(pesanan);
+            }
+        }
+    }
+    
+    /**
+     * Memetakan status pengiriman ke status pesanan
+     * Konversi nama status dari format pengiriman ke format pesanan
+     */
+    private static String mapStatusPesanan(String statusPengiriman) {
+        switch (statusPengiriman) {
+            case "DIKEMAS":
+                return "SEDANG_DIKEMAS";
+            case "DIKIRIM":
+                return "SEDANG_DIKIRIM";
+            case "TERKIRIM":
+                return "SELESAI";
+            default:
+                return "DIPROSES";
         }
     }
     
     /**
      * Menampilkan daftar pesanan dengan status terbaru
      * Metode ini dapat dipanggil dari thread aplikasi utama
+     * Iterasi weakly consistent: tidak menahan update status, pesanan yang berubah selama
+     * pencetakan mungkin tampil dengan status lama atau baru
      */
     public void tampilkanDaftarPesanan() {
-        // synchronized untuk thread-safety saat membaca daftarPesanan
-        synchronized (daftarPesanan) {
-            // Konversi nilai map ke list untuk diproses
-            List<Pesanan> pesananList = new ArrayList<>(daftarPesanan.values());
-            
-            if (pesananList.isEmpty()) {
-                System.out.println("\nTidak ada pesanan yang sedang diproses");
-                return;
-            }
-            
-            // Menampilkan informasi pesanan dalam format yang mudah dibaca
-            System.out.println("\n=== Daftar Pesanan ===");
-            for (Pesanan pesanan : pesananList) {
-                System.out.println("ID: " + pesanan.getId());
-                System.out.println("Pelanggan: " + pesanan.getNamaPelanggan());
-                System.out.println("Alamat: " + pesanan.getAlamatPengiriman());
-                System.out.println("Status: " + pesanan.getStatus());
-                System.out.println("-------------------------");
-            }
+        if (daftarPesanan.isEmpty()) {
+            System.out.println("\nTidak ada pesanan yang sedang diproses");
+            return;
         }
+        
+        // Menampilkan informasi pesanan dalam format yang mudah dibaca
+        System.out.println("\n=== Daftar Pesanan ===");
+        daftarPesanan.forEach(pesanan -> {
+            System.out.println("ID: " + pesanan.getId());
+            System.out.println("Pelanggan: " + pesanan.getNamaPelanggan());
+            System.out.println("Alamat: " + pesanan.getAlamatPengiriman());
+            System.out.println("Status: " + pesanan.getStatus());
+            System.out.println("-------------------------");
+        });
     }
     
     /**
@@ -183,11 +415,40 @@ public class PesananStatusConsumer implements Runnable {
      * @param pesanan Objek pesanan baru yang akan ditambahkan
      */
     public void tambahkanPesanan(Pesanan pesanan) {
-        // synchronized untuk thread-safety saat menulis ke daftarPesanan
-        synchronized (daftarPesanan) {
-            daftarPesanan.put(pesanan.getId(), pesanan);
-            logger.info("Pesanan baru ditambahkan ke daftar: ID={}", pesanan.getId());
-        }
+        daftarPesanan.simpan(pesanan);
+        logger.info("Pesanan baru ditambahkan ke daftar: ID={}", pesanan.getId());
+    }
+    
+    /**
+     * Mendaftarkan pendengar perubahan status pesanan, misalnya untuk mengukur latensi
+     * @param pendengarStatus Pendengar yang dipanggil setelah status diperbarui, atau null untuk melepas
+     */
+    public void setPendengarStatus(Consumer<Pesanan> pendengarStatus) {
+        this.pendengarStatus = pendengarStatus;
+    }
+    
+    /**
+     * Jumlah status pengiriman duplikat yang diabaikan consumer
+     */
+    public long getJumlahDuplikat() {
+        return dedup != null ? dedup.getJumlahDuplikat() : 0;
+    }
+    
+    /**
+     * Mengatur transport untuk kiriman ulang pesan yang gagal, sebaiknya transport publish
+     * Harus dipanggil sebelum consumer thread dijalankan
+     * @param transportRetry Transport kiriman ulang, atau null untuk memakai transport consumer
+     */
+    public void setTransportRetry(Transport transportRetry) {
+        this.transportRetry = transportRetry;
+    }
+    
+    /**
+     * Jumlah status pengiriman yang dipindahkan ke queue parkir setelah semua percobaan gagal
+     */
+    public long getJumlahDiparkir() {
+        PenanganGagal penangan = penanganGagal;
+        return penangan != null ? penangan.getJumlahDiparkir() : 0;
     }
     
     /**
@@ -195,7 +456,7 @@ public class PesananStatusConsumer implements Runnable {
      * Dipanggil ketika aplikasi berakhir untuk mengakhiri thread dengan bersih
      */
     public void stop() {
-        // Mengubah flag running menjadi false, thread akan berakhir setelah iterasi berikutnya
-        this.running = false;
+        // Melepas consumer thread yang menunggu, channel lalu ditutup
+        berhenti.countDown();
     }
 } 
\ No newline at end of file
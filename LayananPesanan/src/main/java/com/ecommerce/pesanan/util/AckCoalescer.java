@@ -0,0 +1,139 @@
+package com.ecommerce.pesanan.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.TreeSet;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kelas utilitas untuk menggabungkan acknowledge beberapa pesan menjadi satu basicAck(tag, true)
+ * 
+ * Delivery tag pada satu channel selalu berurutan mulai dari 1. Kelas ini mencatat delivery tag
+ * tertinggi yang semua tag sebelumnya sudah selesai diproses, sehingga ack multiple tidak pernah
+ * meng-ack pesan yang masih diproses walaupun pemrosesan berjalan paralel atau tidak berurutan.
+ * Ack dikirim ketika jumlah pesan selesai mencapai ambang atau ketika interval waktu habis.
+ * Pesan yang dikembalikan ke queue lewat tolak() dihitung selesai, tetapi ack multiple tidak pernah
+ * dikirim tepat pada tag pesan tersebut karena broker menolak ack untuk tag yang sudah di-nack.
+ */
+public class AckCoalescer implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(AckCoalescer.class);
+    
+    // Channel tempat pesan diterima, ack harus dikirim pada channel yang sama
+    private final TransportChannel channel;
+    
+    // Jumlah pesan selesai yang memicu pengiriman ack
+    private final int ambangJumlah;
+    
+    // Delivery tag tertinggi yang semua tag sebelumnya sudah selesai diproses
+    private long tagBerurutan;
+    
+    // Delivery tag terakhir yang sudah di-ack ke broker
+    private long tagTerakhirDiAck;
+    
+    // Delivery tag yang sudah selesai tetapi masih ada tag lebih kecil yang belum selesai
+    private final TreeSet<Long> selesaiTidakBerurutan = new TreeSet<>();
+    
+    // Delivery tag yang sudah di-nack tetapi belum dilewati ack multiple
+    private final TreeSet<Long> ditolak = new TreeSet<>();
+    
+    // Tugas periodik untuk mengirim ack yang tertunda
+    private final ScheduledFuture<?> tugasFlush;
+    
+    /**
+     * Konstruktor AckCoalescer
+     * @param channel Channel tempat pesan diterima
+     * @param ambangJumlah Jumlah pesan selesai sebelum ack dikirim
+     * @param ambangWaktuMs Interval maksimum (milidetik) ack tertunda sebelum dikirim
+     * @param scheduler Scheduler untuk pengiriman ack berdasarkan waktu
+     */
+    public AckCoalescer(TransportChannel channel, int ambangJumlah, long ambangWaktuMs, ScheduledExecutorService scheduler) {
+        this.channel = channel;
+        this.ambangJumlah = ambangJumlah;
+        this.tugasFlush = scheduler.scheduleWithFixedDelay(
+            this::flushDiam, ambangWaktuMs, ambangWaktuMs, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Menandai satu pesan selesai diproses
+     * Dapat dipanggil dari thread mana pun dan dalam urutan apa pun
+     * @param deliveryTag Delivery tag pesan yang sudah selesai
+     */
+    public synchronized void selesai(long deliveryTag) throws Exception {
+        if (deliveryTag == tagBerurutan + 1) {
+            tagBerurutan = deliveryTag;
+            // Majukan batas berurutan melewati tag yang sebelumnya selesai lebih dulu
+            while (!selesaiTidakBerurutan.isEmpty() && selesaiTidakBerurutan.first() == tagBerurutan + 1) {
+                tagBerurutan = selesaiTidakBerurutan.pollFirst();
+            }
+        } else if (deliveryTag > tagBerurutan) {
+            selesaiTidakBerurutan.add(deliveryTag);
+        }
+        
+        if (tagBerurutan - tagTerakhirDiAck >= ambangJumlah) {
+            flush();
+        }
+    }
+    
+    /**
+     * Mengembalikan satu pesan ke queue (nack dengan requeue) lalu menandainya selesai
+     * @param deliveryTag Delivery tag pesan yang dikembalikan
+     */
+    public synchronized void tolak(long deliveryTag) throws Exception {
+        channel.basicNack(deliveryTag, false, true);
+        ditolak.add(deliveryTag);
+        selesai(deliveryTag);
+    }
+    
+    /**
+     * Mengirim ack multiple untuk semua pesan berurutan yang sudah selesai
+     */
+    public synchronized void flush() throws Exception {
+        if (tagBerurutan > tagTerakhirDiAck && channel.isOpen()) {
+            // Ack multiple berhenti di tag terakhir yang tidak di-nack
+            long tagAck = tagBerurutan;
+            while (tagAck > tagTerakhirDiAck && ditolak.contains(tagAck)) {
+                tagAck--;
+            }
+            if (tagAck > tagTerakhirDiAck) {
+                channel.basicAck(tagAck, true);
+                logger.debug("Ack gabungan dikirim sampai delivery tag {} ({} pesan)",
+                    tagAck, tagAck - tagTerakhirDiAck);
+            }
+            tagTerakhirDiAck = tagBerurutan;
+            ditolak.headSet(tagBerurutan, true).clear();
+        }
+    }
+    
+    /**
+     * Versi flush() untuk scheduler dan close(), error hanya dicatat ke log
+     */
+    private void flushDiam() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.error("Gagal mengirim ack gabungan: {}", e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Jumlah pesan yang sudah selesai tetapi belum di-ack ke broker
+     * @return Jumlah ack yang tertunda
+     */
+    public synchronized long getJumlahTertunda() {
+        return (tagBerurutan - tagTerakhirDiAck) + selesaiTidakBerurutan.size();
+    }
+    
+    /**
+     * Menghentikan tugas periodik dan mengirim ack yang masih tertunda
+     * Jika ack gagal dikirim, error hanya dicatat ke log; pesan yang belum di-ack dikirim ulang
+     * broker setelah channel ditutup
+     */
+    @Override
+    public void close() {
+        tugasFlush.cancel(false);
+        flushDiam();
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,178 @@
+package com.ecommerce.pesanan.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * Antrean FIFO di file untuk item yang tidak muat di queue lokal producer (kebijakan TUMPAH)
+ *
+ * Setiap item disimpan sebagai panjang (int32), CRC32 (int32), lalu hasil encoder. Item dibaca
+ * dari depan file; setelah semua item terbaca file dipotong kembali ke nol sehingga ukurannya
+ * hanya sebesar tumpukan saat broker lambat. Isi file dari proses sebelumnya dibaca kembali saat
+ * dibuka, rekaman terakhir yang terpotong saat crash diabaikan. Posisi baca tidak disimpan, sehingga
+ * item yang sudah diambil sebelum file dipotong akan diambil lagi setelah restart (at-least-once).
+ *
+ * Semua operasi disinkronisasi; jalur ini hanya dipakai ketika queue lokal penuh.
+ *
+ * @param <E> Tipe item
+ */
+public class AntreanTumpahan<E> implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(AntreanTumpahan.class);
+    
+    // Panjang header rekaman: panjang isi dan CRC32
+    private static final int PANJANG_HEADER = 8;
+    
+    // Batas ukuran satu item, melindungi dari panjang rusak
+    private static final int MAKS_ISI = 16 * 1024 * 1024;
+    
+    private final Path file;
+    private final FileChannel channel;
+    private final Function<E, byte[]> encoder;
+    private final Function<byte[], E> decoder;
+    private final ByteBuffer header = ByteBuffer.allocate(PANJANG_HEADER);
+    private final CRC32 crc = new CRC32();
+    
+    private long posisiBaca;
+    private long posisiTulis;
+    
+    // Jumlah item yang belum dibaca, volatile agar isEmpty() bisa dipanggil tanpa lock
+    private volatile long jumlah;
+    
+    /**
+     * Membuka file tumpahan, item yang tersisa dari proses sebelumnya akan dibaca lebih dulu
+     * @param file Lokasi file, direktori induk dibuat jika belum ada
+     * @param encoder Pengubah item ke byte
+     * @param decoder Pengubah byte ke item
+     */
+    public AntreanTumpahan(Path file, Function<E, byte[]> encoder, Function<byte[], E> decoder) throws IOException {
+        this.file = file;
+        this.encoder = encoder;
+        this.decoder = decoder;
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        pulihkan();
+    }
+    
+    /**
+     * Menambahkan item ke akhir antrean
+     */
+    public synchronized void tambahkan(E item) throws IOException {
+        byte[] isi = encoder.apply(item);
+        crc.reset();
+        crc.update(isi);
+        header.clear();
+        header.putInt(isi.length).putInt((int) crc.getValue()).flip();
+        ByteBuffer[] rekaman = {header, ByteBuffer.wrap(isi)};
+        channel.position(posisiTulis);
+        while (rekaman[0].hasRemaining() || rekaman[1].hasRemaining()) {
+            channel.write(rekaman);
+        }
+        posisiTulis += PANJANG_HEADER + isi.length;
+        jumlah++;
+    }
+    
+    /**
+     * Mengambil item terdepan
+     * @return Item terdepan, atau null jika antrean kosong
+     */
+    public synchronized E ambil() throws IOException {
+        if (jumlah == 0) {
+            return null;
+        }
+        byte[] isi = bacaRekaman(posisiBaca);
+        if (isi == null) {
+            throw new IOException("File tumpahan rusak pada posisi " + posisiBaca + ": " + file);
+        }
+        posisiBaca += PANJANG_HEADER + isi.length;
+        if (--jumlah == 0) {
+            // Semua item sudah terbaca, file dipotong agar tidak terus membesar
+            channel.truncate(0);
+            posisiBaca = 0;
+            posisiTulis = 0;
+        }
+        return decoder.apply(isi);
+    }
+    
+    public boolean isEmpty() {
+        return jumlah == 0;
+    }
+    
+    /**
+     * Jumlah item yang belum dibaca
+     */
+    public long getJumlah() {
+        return jumlah;
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+    
+    private void pulihkan() throws IOException {
+        long posisi = 0;
+        long ukuran = channel.size();
+        byte[] isi;
+        while (posisi < ukuran && (isi = bacaRekaman(posisi)) != null) {
+            posisi += PANJANG_HEADER + isi.length;
+            jumlah++;
+        }
+        if (posisi < ukuran) {
+            logger.warn("Ekor file tumpahan {} terpotong, {} byte diabaikan", file, ukuran - posisi);
+            channel.truncate(posisi);
+        }
+        posisiTulis = posisi;
+        if (jumlah > 0) {
+            logger.info("{} item dari file tumpahan {} akan dikirim ulang", jumlah, file);
+        }
+    }
+    
+    /**
+     * Membaca isi satu rekaman dan memeriksa CRC32-nya
+     * @return Isi rekaman, atau null jika rekaman terpotong atau rusak
+     */
+    private byte[] bacaRekaman(long posisi) throws IOException {
+        header.clear();
+        if (bacaPenuh(header, posisi) < PANJANG_HEADER) {
+            return null;
+        }
+        header.flip();
+        int panjang = header.getInt();
+        int checksum = header.getInt();
+        if (panjang < 0 || panjang > MAKS_ISI) {
+            return null;
+        }
+        byte[] isi = new byte[panjang];
+        if (bacaPenuh(ByteBuffer.wrap(isi), posisi + PANJANG_HEADER) < panjang) {
+            return null;
+        }
+        crc.reset();
+        crc.update(isi);
+        return (int) crc.getValue() == checksum ? isi : null;
+    }
+    
+    private int bacaPenuh(ByteBuffer tujuan, long posisi) throws IOException {
+        int total = 0;
+        while (tujuan.hasRemaining()) {
+            int dibaca = channel.read(tujuan, posisi + total);
+            if (dibaca < 0) {
+                break;
+            }
+            total += dibaca;
+        }
+        return total;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.ecommerce.pesanan.util;
+
+import com.ecommerce.pesanan.model.Pesanan;
+import com.ecommerce.pesanan.model.StatusPengiriman;
+
+/**
+ * Kelas utilitas untuk memilih format pesan berdasarkan content-type AMQP
+ * JSON tetap menjadi format default, termasuk untuk pesan tanpa content-type dari versi lama
+ */
+public class CodecUtil {
+    public static final String CONTENT_TYPE_JSON = "application/json";
+    public static final String CONTENT_TYPE_BINARY = "application/x-ecommerce-binary";
+    
+    /**
+     * Memeriksa apakah content-type menandakan format biner
+     * Parameter tambahan seperti "; charset=utf-8" diabaikan
+     */
+    public static boolean isBinary(String contentType) {
+        return contentType != null && contentType.startsWith(CONTENT_TYPE_BINARY);
+    }
+    
+    /**
+     * Memastikan content-type didukung untuk pengiriman pesan
+     * @return Content-type yang sudah divalidasi
+     */
+    public static String validasiContentType(String contentType) {
+        if (CONTENT_TYPE_JSON.equals(contentType) || CONTENT_TYPE_BINARY.equals(contentType)) {
+            return contentType;
+        }
+        throw new IllegalArgumentException("Content-type tidak didukung: " + contentType);
+    }
+    
+    /**
+     * Mengkonversi pesanan ke body pesan sesuai content-type
+     */
+    public static byte[] encode(Pesanan pesanan, String contentType) {
+        return isBinary(contentType) ? BinaryUtil.toBinary(pesanan) : JSONUtil.toJSONBytes(pesanan);
+    }
+    
+    /**
+     * Mengkonversi body pesan status pengiriman sesuai content-type yang dikirim producer
+     */
+    public static StatusPengiriman decodeStatusPengiriman(byte[] body, String contentType) {
+        return isBinary(contentType) ? BinaryUtil.toStatusPengiriman(body) : JSONUtil.toStatusPengiriman(body);
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,150 @@
+package com.ecommerce.pesanan.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Kelas utilitas untuk memilih thread platform atau virtual thread sebagai pemroses pesan
+ *
+ * Kode tetap dikompilasi untuk Java 11, sehingga API virtual thread (Java 21) dipanggil lewat
+ * refleksi dan hanya dipakai jika JVM yang berjalan mendukungnya. Mode bawaan dibaca dari
+ * eksekusi.properties yang diisi saat build: PLATFORM secara default, VIRTUAL jika dibangun dengan
+ * profil Maven virtual-threads. Property sistem eksekusi.mode mengganti nilai dari file tersebut.
+ */
+public final class EksekusiUtil {
+    private static final Logger logger = LoggerFactory.getLogger(EksekusiUtil.class);
+    
+    // Nama property sistem dan file properti yang menentukan mode bawaan
+    public static final String PROPERTI_MODE = "eksekusi.mode";
+    private static final String FILE_PROPERTI = "/eksekusi.properties";
+    
+    /**
+     * Jenis thread yang menjalankan pemrosesan pesan
+     */
+    public enum ModeEksekusi {
+        // Thread platform: thread dispatch RabbitMQ client atau pool worker berukuran tetap
+        PLATFORM,
+        // Satu virtual thread per pesan, operasi blocking tidak menahan thread carrier
+        VIRTUAL
+    }
+    
+    // Thread.ofVirtual(), null jika JVM belum mendukung virtual thread
+    private static final Method OF_VIRTUAL = cariOfVirtual();
+    
+    private static final ModeEksekusi MODE_BAWAAN = bacaModeBawaan();
+    
+    private EksekusiUtil() {
+    }
+    
+    /**
+     * Memeriksa apakah JVM yang berjalan mendukung virtual thread (Java 21 atau lebih baru)
+     */
+    public static boolean isVirtualThreadTersedia() {
+        return OF_VIRTUAL != null;
+    }
+    
+    /**
+     * Mode eksekusi dari property sistem eksekusi.mode atau eksekusi.properties
+     * @return Mode bawaan, PLATFORM jika tidak diatur atau virtual thread tidak tersedia
+     */
+    public static ModeEksekusi getModeBawaan() {
+        return MODE_BAWAAN;
+    }
+    
+    /**
+     * Membuat executor yang menjalankan setiap tugas pada virtual thread baru
+     * @param awalanNama Awalan nama thread, diikuti nomor urut
+     * @return Executor virtual thread
+     * @throws IllegalStateException jika JVM tidak mendukung virtual thread
+     */
+    public static ExecutorService buatExecutorVirtual(String awalanNama) {
+        try {
+            Object builder = builderVirtual();
+            Class<?> jenisBuilder = Class.forName("java.lang.Thread$Builder");
+            builder = jenisBuilder.getMethod("name", String.class, long.class).invoke(builder, awalanNama, 0L);
+            ThreadFactory factory = (ThreadFactory) jenisBuilder.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                .invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Gagal membuat executor virtual thread: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Membuat thread yang belum dijalankan sesuai mode eksekusi
+     * Virtual thread selalu berupa daemon thread
+     * @param mode Mode eksekusi
+     * @param nama Nama thread
+     * @param tugas Tugas yang dijalankan thread
+     * @return Thread yang belum dijalankan
+     */
+    public static Thread buatThread(ModeEksekusi mode, String nama, Runnable tugas) {
+        if (mode != ModeEksekusi.VIRTUAL) {
+            return new Thread(tugas, nama);
+        }
+        try {
+            Object builder = builderVirtual();
+            Class<?> jenisBuilder = Class.forName("java.lang.Thread$Builder");
+            builder = jenisBuilder.getMethod("name", String.class).invoke(builder, nama);
+            return (Thread) jenisBuilder.getMethod("unstarted", Runnable.class).invoke(builder, tugas);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Gagal membuat virtual thread: " + e.getMessage(), e);
+        }
+    }
+    
+    private static Object builderVirtual() throws ReflectiveOperationException {
+        if (OF_VIRTUAL == null) {
+            throw new IllegalStateException("Virtual thread membutuhkan Java 21 atau lebih baru, JVM saat ini "
+                + System.getProperty("java.version"));
+        }
+        return OF_VIRTUAL.invoke(null);
+    }
+    
+    private static Method cariOfVirtual() {
+        try {
+            return Thread.class.getMethod("ofVirtual");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+    
+    private static ModeEksekusi bacaModeBawaan() {
+        String nilai = System.getProperty(PROPERTI_MODE);
+        if (nilai == null) {
+            Properties properti = new Properties();
+            try (InputStream in = EksekusiUtil.class.getResourceAsStream(FILE_PROPERTI)) {
+                if (in != null) {
+                    properti.load(in);
+                }
+            } catch (IOException e) {
+                logger.warn("Gagal membaca {}: {}", FILE_PROPERTI, e.getMessage());
+            }
+            nilai = properti.getProperty("mode");
+        }
+        if (nilai == null || nilai.trim().isEmpty()) {
+            return ModeEksekusi.PLATFORM;
+        }
+        
+        ModeEksekusi mode;
+        try {
+            mode = ModeEksekusi.valueOf(nilai.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Mode eksekusi tidak dikenal: {}, memakai PLATFORM", nilai);
+            return ModeEksekusi.PLATFORM;
+        }
+        if (mode == ModeEksekusi.VIRTUAL && !isVirtualThreadTersedia()) {
+            logger.warn("Mode eksekusi VIRTUAL membutuhkan Java 21 atau lebih baru, memakai PLATFORM pada Java {}",
+                System.getProperty("java.version"));
+            return ModeEksekusi.PLATFORM;
+        }
+        return mode;
+    }
+} 
\ No newline at end of file
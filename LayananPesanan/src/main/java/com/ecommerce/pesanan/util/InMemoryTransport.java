@@ -0,0 +1,445 @@
+package com.ecommerce.pesanan.util;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.ConfirmCallback;
+import com.rabbitmq.client.DeliverCallback;
+import com.rabbitmq.client.Delivery;
+import com.rabbitmq.client.Envelope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Implementasi Transport di dalam proses tanpa broker RabbitMQ
+ * 
+ * Setiap queue adalah LinkedTransferQueue (lock-free) berisi Delivery. Binding exchange disimpan
+ * pada map yang sama dengan kunci "exchange + '\0' + routingKey" yang menunjuk ke objek queue tujuan,
+ * sehingga seluruh keadaan broker cukup diwakili satu ConcurrentMap bertipe JDK/amqp-client.
+ * Map tersebut dapat diberikan ke InMemoryTransport milik LayananPengiriman agar kedua layanan
+ * bertukar pesan dalam satu JVM, misalnya untuk benchmark dan pengujian integrasi.
+ * 
+ * Semantik yang didukung: exchange direct dengan satu queue per routing key, default exchange (""),
+ * manual ack/nack dengan requeue, prefetch per channel, dan publisher confirms. Pesan yang belum
+ * di-ack dikembalikan ke queue ketika channel ditutup. Pesan tidak disimpan ke disk. Dari argumen
+ * queue hanya pasangan x-message-ttl dan x-dead-letter-exchange yang didukung (queue tunda retry):
+ * thread pemindah menahan setiap pesan selama TTL sejak diambil dari queue lalu mengirimnya ke
+ * exchange dead-letter dengan routing key aslinya. Argumen lain diabaikan.
+ */
+public class InMemoryTransport implements Transport {
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryTransport.class);
+    
+    // Pemisah nama exchange dan routing key pada kunci binding
+    private static final char PEMISAH_BINDING = '\0';
+    
+    // Interval thread dispatcher memeriksa apakah channel sudah ditutup
+    private static final long INTERVAL_POLL_MS = 100;
+    
+    // Queue dan binding broker, dapat dipakai bersama oleh beberapa transport
+    private final ConcurrentMap<String, BlockingQueue<Delivery>> broker;
+    
+    // Thread pemindah pesan kedaluwarsa per queue ber-TTL, berhenti ketika transport ditutup
+    private final ConcurrentMap<String, Thread> pemindahTtl = new ConcurrentHashMap<>();
+    
+    // Channel yang masih terbuka, ditutup bersama transport
+    private final Set<ChannelMemori> channels = ConcurrentHashMap.newKeySet();
+    
+    // Nomor untuk nama thread dispatcher dan consumer tag
+    private final AtomicInteger nomorConsumer = new AtomicInteger(1);
+    
+    private volatile boolean open = true;
+    
+    /**
+     * Konstruktor InMemoryTransport dengan broker baru yang kosong
+     */
+    public InMemoryTransport() {
+        this(new ConcurrentHashMap<>());
+    }
+    
+    /**
+     * Konstruktor InMemoryTransport yang memakai broker bersama
+     * @param broker Map queue dan binding, biasanya diambil dari getBroker() transport lain
+     */
+    public InMemoryTransport(ConcurrentMap<String, BlockingQueue<Delivery>> broker) {
+        this.broker = broker;
+    }
+    
+    /**
+     * Map queue dan binding broker, berikan ke transport lain untuk berbagi broker yang sama
+     */
+    public ConcurrentMap<String, BlockingQueue<Delivery>> getBroker() {
+        return broker;
+    }
+    
+    @Override
+    public TransportChannel createChannel() throws IOException {
+        if (!open) {
+            throw new IOException("Transport sudah ditutup");
+        }
+        ChannelMemori channel = new ChannelMemori();
+        channels.add(channel);
+        return channel;
+    }
+    
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        open = false;
+        for (ChannelMemori channel : channels) {
+            channel.close();
+        }
+    }
+    
+    private static String kunciBinding(String exchange, String routingKey) {
+        return exchange + PEMISAH_BINDING + routingKey;
+    }
+    
+    /**
+     * Menjalankan thread pemindah untuk queue dengan TTL dan dead-letter exchange jika belum ada
+     */
+    private void mulaiPemindahTtl(String queue, Map<String, Object> arguments) {
+        if (arguments == null || !(arguments.get("x-message-ttl") instanceof Number)
+                || !(arguments.get("x-dead-letter-exchange") instanceof String)) {
+            return;
+        }
+        long ttlMs = ((Number) arguments.get("x-message-ttl")).longValue();
+        String exchangeDeadLetter = (String) arguments.get("x-dead-letter-exchange");
+        BlockingQueue<Delivery> sumber = broker.get(queue);
+        pemindahTtl.computeIfAbsent(queue, nama -> {
+            Thread thread = new Thread(() -> jalankanPemindahTtl(sumber, ttlMs, exchangeDeadLetter),
+                "pemindah-ttl-" + nama);
+            thread.setDaemon(true);
+            thread.start();
+            return thread;
+        });
+    }
+    
+    /**
+     * Loop pemindah pesan kedaluwarsa, berjalan sampai transport ditutup
+     * Semua pesan di satu queue memiliki TTL yang sama sehingga pesan yang ditahan kedaluwarsa berurutan
+     */
+    private void jalankanPemindahTtl(BlockingQueue<Delivery> sumber, long ttlMs, String exchangeDeadLetter) {
+        // Pesan yang sedang ditahan beserta batas waktunya (nanoTime)
+        ArrayDeque<Delivery> ditahan = new ArrayDeque<>();
+        ArrayDeque<Long> batasWaktu = new ArrayDeque<>();
+        try {
+            while (open) {
+                long tungguMs = INTERVAL_POLL_MS;
+                if (!batasWaktu.isEmpty()) {
+                    long sisaMs = TimeUnit.NANOSECONDS.toMillis(batasWaktu.peekFirst() - System.nanoTime());
+                    tungguMs = Math.max(0, Math.min(tungguMs, sisaMs));
+                }
+                Delivery pesan = sumber.poll(tungguMs, TimeUnit.MILLISECONDS);
+                if (pesan != null) {
+                    ditahan.addLast(pesan);
+                    batasWaktu.addLast(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMs));
+                }
+                while (!batasWaktu.isEmpty() && batasWaktu.peekFirst() - System.nanoTime() <= 0) {
+                    batasWaktu.pollFirst();
+                    Delivery kedaluwarsa = ditahan.pollFirst();
+                    String routingKey = kedaluwarsa.getEnvelope().getRoutingKey();
+                    BlockingQueue<Delivery> tujuan = broker.get(kunciBinding(exchangeDeadLetter, routingKey));
+                    if (tujuan != null) {
+                        tujuan.offer(new Delivery(new Envelope(0, false, exchangeDeadLetter, routingKey),
+                            kedaluwarsa.getProperties(), kedaluwarsa.getBody()));
+                    } else {
+                        logger.debug("Pesan kedaluwarsa tidak dapat dirutekan: exchange={}, routing key={}",
+                            exchangeDeadLetter, routingKey);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Pesan yang belum kedaluwarsa dikembalikan ke queue untuk transport lain yang memakai broker ini
+            for (Delivery pesan : ditahan) {
+                sumber.offer(pesan);
+            }
+        }
+    }
+    
+    /**
+     * Channel pada broker di dalam proses
+     */
+    private final class ChannelMemori implements TransportChannel {
+        // Pesan yang sudah dikirim ke consumer tetapi belum di-ack, diurutkan berdasarkan delivery tag
+        private final ConcurrentNavigableMap<Long, PesanTertunda> belumDiAck = new ConcurrentSkipListMap<>();
+        
+        // Delivery tag terakhir yang dipakai pada channel ini
+        private final AtomicLong deliveryTag = new AtomicLong();
+        
+        // Nomor urut publish berikutnya dalam mode confirm
+        private final AtomicLong nomorPublish = new AtomicLong(1);
+        
+        // Thread dispatcher untuk setiap consumer pada channel ini
+        private final List<Thread> dispatchers = new CopyOnWriteArrayList<>();
+        
+        // Izin prefetch, null berarti tidak dibatasi
+        private volatile Semaphore izinPrefetch;
+        
+        private volatile boolean confirmMode;
+        private volatile ConfirmCallback ackCallback;
+        private volatile boolean open = true;
+        
+        @Override
+        public void exchangeDeclare(String exchange, String type, boolean durable) throws IOException {
+            if (!"direct".equals(type)) {
+                throw new IOException("InMemoryTransport hanya mendukung exchange direct: " + type);
+            }
+        }
+        
+        @Override
+        public void queueDeclare(String queue, boolean durable, boolean exclusive, boolean autoDelete,
+                                 Map<String, Object> arguments) throws IOException {
+            broker.computeIfAbsent(queue, nama -> new LinkedTransferQueue<>());
+            mulaiPemindahTtl(queue, arguments);
+        }
+        
+        @Override
+        public void queueBind(String queue, String exchange, String routingKey) throws IOException {
+            broker.put(kunciBinding(exchange, routingKey), cariQueue(queue));
+        }
+        
+        @Override
+        public long messageCount(String queue) throws IOException {
+            return cariQueue(queue).size();
+        }
+        
+        @Override
+        public void basicPublish(String exchange, String routingKey, AMQP.BasicProperties properties, byte[] body)
+                throws IOException {
+            pastikanTerbuka();
+            
+            // Default exchange ("") mengirim langsung ke queue dengan nama routing key
+            BlockingQueue<Delivery> tujuan = broker.get(exchange.isEmpty() ? routingKey : kunciBinding(exchange, routingKey));
+            if (tujuan != null) {
+                tujuan.offer(new Delivery(new Envelope(0, false, exchange, routingKey), properties, body));
+            } else {
+                // Sama seperti RabbitMQ, pesan yang tidak dapat dirutekan dibuang tetapi tetap di-ack
+                logger.debug("Pesan tidak dapat dirutekan: exchange={}, routing key={}", exchange, routingKey);
+            }
+            
+            // Pesan sudah berada di queue saat offer() selesai, jadi konfirmasi dapat dikirim langsung
+            if (confirmMode) {
+                long nomor = nomorPublish.getAndIncrement();
+                ConfirmCallback callback = ackCallback;
+                if (callback != null) {
+                    callback.handle(nomor, false);
+                }
+            }
+        }
+        
+        @Override
+        public String basicConsume(String queue, boolean autoAck, DeliverCallback deliverCallback) throws IOException {
+            pastikanTerbuka();
+            BlockingQueue<Delivery> sumber = cariQueue(queue);
+            String consumerTag = "memori-" + nomorConsumer.getAndIncrement();
+            
+            Thread dispatcher = new Thread(() -> jalankanDispatcher(sumber, autoAck, consumerTag, deliverCallback),
+                "dispatcher-" + consumerTag);
+            dispatcher.setDaemon(true);
+            dispatchers.add(dispatcher);
+            dispatcher.start();
+            return consumerTag;
+        }
+        
+        /**
+         * Loop pengiriman pesan dari queue ke consumer, berjalan sampai channel ditutup
+         */
+        private void jalankanDispatcher(BlockingQueue<Delivery> sumber, boolean autoAck, String consumerTag,
+                                        DeliverCallback deliverCallback) {
+            try {
+                while (open) {
+                    // Tunggu sampai jumlah pesan yang belum di-ack di bawah batas prefetch
+                    Semaphore izin = autoAck ? null : izinPrefetch;
+                    if (izin != null && !izin.tryAcquire(INTERVAL_POLL_MS, TimeUnit.MILLISECONDS)) {
+                        continue;
+                    }
+                    Delivery pesan = sumber.poll(INTERVAL_POLL_MS, TimeUnit.MILLISECONDS);
+                    if (pesan == null || !open) {
+                        if (pesan != null) {
+                            sumber.offer(pesan);
+                        }
+                        if (izin != null) {
+                            izin.release();
+                        }
+                        continue;
+                    }
+                    
+                    long tag = deliveryTag.incrementAndGet();
+                    Envelope asal = pesan.getEnvelope();
+                    if (!autoAck) {
+                        belumDiAck.put(tag, new PesanTertunda(sumber, pesan, izin));
+                    }
+                    try {
+                        deliverCallback.handle(consumerTag, new Delivery(
+                            new Envelope(tag, asal.isRedeliver(), asal.getExchange(), asal.getRoutingKey()),
+                            pesan.getProperties(), pesan.getBody()));
+                    } catch (Exception e) {
+                        logger.error("Consumer {} gagal menangani pesan: {}", consumerTag, e.getMessage(), e);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        @Override
+        public void basicQos(int prefetchCount) throws IOException {
+            izinPrefetch = prefetchCount > 0 ? new Semaphore(prefetchCount) : null;
+        }
+        
+        @Override
+        public void basicAck(long deliveryTag, boolean multiple) throws IOException {
+            selesaikan(deliveryTag, multiple, false);
+        }
+        
+        @Override
+        public void basicNack(long deliveryTag, boolean multiple, boolean requeue) throws IOException {
+            selesaikan(deliveryTag, multiple, requeue);
+        }
+        
+        /**
+         * Menghapus pesan dari daftar belum di-ack, dan mengembalikannya ke queue jika requeue
+         */
+        private void selesaikan(long deliveryTag, boolean multiple, boolean requeue) throws IOException {
+            if (!multiple) {
+                PesanTertunda tertunda = belumDiAck.remove(deliveryTag);
+                if (tertunda == null) {
+                    throw new IOException("Delivery tag tidak dikenal: " + deliveryTag);
+                }
+                tertunda.lepaskan(requeue);
+                return;
+            }
+            for (Long tag : belumDiAck.headMap(deliveryTag, true).keySet()) {
+                PesanTertunda tertunda = belumDiAck.remove(tag);
+                if (tertunda != null) {
+                    tertunda.lepaskan(requeue);
+                }
+            }
+        }
+        
+        @Override
+        public void confirmSelect() throws IOException {
+            confirmMode = true;
+        }
+        
+        @Override
+        public void addConfirmListener(ConfirmCallback ackCallback, ConfirmCallback nackCallback) {
+            // Broker di dalam proses tidak pernah mengirim nack
+            this.ackCallback = ackCallback;
+        }
+        
+        @Override
+        public long getNextPublishSeqNo() {
+            return confirmMode ? nomorPublish.get() : 0;
+        }
+        
+        @Override
+        public boolean waitForConfirms(long timeoutMs) {
+            if (!confirmMode) {
+                throw new IllegalStateException("Channel tidak dalam mode confirm");
+            }
+            // Setiap publish sudah dikonfirmasi secara sinkron
+            return true;
+        }
+        
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            if (!open) {
+                return;
+            }
+            open = false;
+            channels.remove(this);
+            
+            // Tunggu dispatcher berhenti agar tidak ada pesan baru yang dikirim ke consumer
+            for (Thread dispatcher : dispatchers) {
+                if (dispatcher != Thread.currentThread()) {
+                    try {
+                        dispatcher.join(INTERVAL_POLL_MS * 5);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+            
+            // Sama seperti RabbitMQ, pesan yang belum di-ack dikembalikan ke queue
+            List<Long> tags = new ArrayList<>(belumDiAck.keySet());
+            for (Long tag : tags) {
+                PesanTertunda tertunda = belumDiAck.remove(tag);
+                if (tertunda != null) {
+                    tertunda.lepaskan(true);
+                }
+            }
+        }
+        
+        private BlockingQueue<Delivery> cariQueue(String queue) throws IOException {
+            BlockingQueue<Delivery> hasil = broker.get(queue);
+            if (hasil == null) {
+                throw new IOException("Queue tidak ditemukan: " + queue);
+            }
+            return hasil;
+        }
+        
+        private void pastikanTerbuka() throws IOException {
+            if (!open) {
+                throw new IOException("Channel sudah ditutup");
+            }
+        }
+    }
+    
+    /**
+     * Pesan yang sudah dikirim ke consumer beserta queue asalnya
+     */
+    private static final class PesanTertunda {
+        private final BlockingQueue<Delivery> sumber;
+        private final Delivery pesan;
+        private final Semaphore izin;
+        
+        private PesanTertunda(BlockingQueue<Delivery> sumber, Delivery pesan, Semaphore izin) {
+            this.sumber = sumber;
+            this.pesan = pesan;
+            this.izin = izin;
+        }
+        
+        /**
+         * Melepas izin prefetch dan mengembalikan pesan ke queue jika requeue
+         */
+        private void lepaskan(boolean requeue) {
+            if (requeue) {
+                Envelope asal = pesan.getEnvelope();
+                sumber.offer(new Delivery(new Envelope(0, true, asal.getExchange(), asal.getRoutingKey()),
+                    pesan.getProperties(), pesan.getBody()));
+            }
+            if (izin != null) {
+                izin.release();
+            }
+        }
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,356 @@
+package com.ecommerce.pesanan.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Pembaca JSON streaming yang mem-parsing langsung dari array byte UTF-8
+ *
+ * Dipakai untuk membaca body pesan RabbitMQ tanpa mengubahnya dulu menjadi String
+ * dan tanpa membangun pohon objek seperti org.json.JSONObject.
+ * Mendukung objek datar dengan field yang dicocokkan berdasarkan indeks nama;
+ * nilai bersarang pada field yang tidak dikenal akan dilewati.
+ * Instance tidak thread-safe, gunakan satu instance per thread.
+ */
+public final class JSONReader {
+    // Data JSON yang sedang dibaca
+    private byte[] data;
+    
+    // Posisi baca saat ini dan batas akhir data
+    private int posisi;
+    private int akhir;
+    
+    // true jika belum ada field yang dibaca pada objek saat ini
+    private boolean fieldPertama;
+    
+    /**
+     * Mulai membaca array byte baru
+     */
+    public JSONReader reset(byte[] data) {
+        return reset(data, 0, data.length);
+    }
+    
+    /**
+     * Mulai membaca sebagian array byte
+     */
+    public JSONReader reset(byte[] data, int offset, int panjang) {
+        this.data = data;
+        this.posisi = offset;
+        this.akhir = offset + panjang;
+        return this;
+    }
+    
+    /**
+     * Mengubah nama-nama field menjadi byte UTF-8 untuk dipakai pada nextField()
+     */
+    public static byte[][] namaField(String... nama) {
+        byte[][] hasil = new byte[nama.length][];
+        for (int i = 0; i < nama.length; i++) {
+            hasil[i] = nama[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return hasil;
+    }
+    
+    public void beginObject() {
+        harus('{');
+        fieldPertama = true;
+    }
+    
+    /**
+     * Memeriksa apakah masih ada field pada objek saat ini
+     * @return false jika sudah mencapai '}'
+     */
+    public boolean hasNextField() {
+        lewatiSpasi();
+        if (posisi < akhir && data[posisi] == '}') {
+            posisi++;
+            return false;
+        }
+        if (!fieldPertama) {
+            harus(',');
+        }
+        fieldPertama = false;
+        return true;
+    }
+    
+    /**
+     * Membaca nama field berikutnya beserta tanda ':'
+     * @param daftarNama Nama-nama field yang dikenali (lihat namaField())
+     * @return Indeks nama yang cocok, atau -1 jika field tidak dikenal
+     */
+    public int nextField(byte[][] daftarNama) {
+        lewatiSpasi();
+        harus('"');
+        int awal = posisi;
+        boolean adaEscape = cariAkhirString();
+        int panjang = posisi - awal;
+        posisi++;
+        harus(':');
+        
+        if (adaEscape) {
+            // Nama field dengan escape jarang terjadi, cocokkan setelah di-decode
+            byte[] nama = decodeString(awal, panjang).getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i < daftarNama.length; i++) {
+                if (Arrays.equals(daftarNama[i], nama)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        for (int i = 0; i < daftarNama.length; i++) {
+            byte[] kandidat = daftarNama[i];
+            if (kandidat.length == panjang && samaDengan(kandidat, awal)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Memeriksa apakah nilai berikutnya adalah null, dan melewatinya jika benar
+     */
+    public boolean nextNull() {
+        lewatiSpasi();
+        if (posisi + 4 <= akhir && data[posisi] == 'n' && data[posisi + 1] == 'u'
+                && data[posisi + 2] == 'l' && data[posisi + 3] == 'l') {
+            posisi += 4;
+            return true;
+        }
+        return false;
+    }
+    
+    public String nextString() {
+        lewatiSpasi();
+        if (posisi >= akhir || data[posisi] != '"') {
+            throw error("diharapkan string");
+        }
+        posisi++;
+        int awal = posisi;
+        boolean adaEscape = cariAkhirString();
+        int panjang = posisi - awal;
+        posisi++;
+        return adaEscape ? decodeString(awal, panjang) : new String(data, awal, panjang, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Membaca angka bulat, angka pecahan dibulatkan ke bawah seperti JSONObject.getInt
+     */
+    public int nextInt() {
+        return (int) nextLong();
+    }
+    
+    public long nextLong() {
+        lewatiSpasi();
+        if (posisi < akhir && data[posisi] == '"') {
+            // org.json juga menerima angka yang ditulis sebagai string
+            String teks = nextString().trim();
+            try {
+                return Long.parseLong(teks);
+            } catch (NumberFormatException e) {
+                return (long) parseDouble(teks);
+            }
+        }
+        int awal = posisi;
+        boolean negatif = false;
+        if (posisi < akhir && data[posisi] == '-') {
+            negatif = true;
+            posisi++;
+        }
+        // Nilai dikumpulkan sebagai bilangan negatif agar Long.MIN_VALUE juga terbaca tepat
+        long batas = negatif ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long nilai = 0;
+        int digit = 0;
+        boolean meluap = false;
+        while (posisi < akhir && data[posisi] >= '0' && data[posisi] <= '9') {
+            int d = data[posisi++] - '0';
+            if (nilai < (batas + d) / 10) {
+                meluap = true;
+            } else {
+                nilai = nilai * 10 - d;
+            }
+            digit++;
+        }
+        if (digit == 0) {
+            throw error("diharapkan angka");
+        }
+        if (meluap || (posisi < akhir && isBagianAngka(data[posisi]))) {
+            // Angka pecahan, eksponen, atau di luar jangkauan long: gunakan parsing lengkap
+            posisi = awal;
+            return (long) nextDouble();
+        }
+        return negatif ? nilai : -nilai;
+    }
+    
+    public double nextDouble() {
+        lewatiSpasi();
+        if (posisi < akhir && data[posisi] == '"') {
+            return parseDouble(nextString().trim());
+        }
+        int awal = posisi;
+        boolean hanyaDigit = true;
+        while (posisi < akhir && (isBagianAngka(data[posisi]) || data[posisi] == '-'
+                || (data[posisi] >= '0' && data[posisi] <= '9'))) {
+            if (isBagianAngka(data[posisi]) || (data[posisi] == '-' && posisi != awal)) {
+                hanyaDigit = false;
+            }
+            posisi++;
+        }
+        int panjang = posisi - awal;
+        if (panjang == 0) {
+            throw error("diharapkan angka");
+        }
+        boolean negatif = data[awal] == '-';
+        if (hanyaDigit && panjang <= 18 && panjang > (negatif ? 1 : 0)) {
+            long nilai = 0;
+            int i = negatif ? awal + 1 : awal;
+            for (; i < posisi; i++) {
+                nilai = nilai * 10 + (data[i] - '0');
+            }
+            return negatif ? -nilai : nilai;
+        }
+        return parseDouble(new String(data, awal, panjang, StandardCharsets.ISO_8859_1));
+    }
+    
+    /**
+     * Melewati satu nilai apa pun, termasuk objek dan array bersarang
+     */
+    public void skipValue() {
+        lewatiSpasi();
+        if (posisi >= akhir) {
+            throw error("nilai tidak lengkap");
+        }
+        byte b = data[posisi];
+        if (b == '"') {
+            posisi++;
+            cariAkhirString();
+            posisi++;
+        } else if (b == '{' || b == '[') {
+            int kedalaman = 0;
+            while (posisi < akhir) {
+                byte c = data[posisi];
+                if (c == '"') {
+                    posisi++;
+                    cariAkhirString();
+                } else if (c == '{' || c == '[') {
+                    kedalaman++;
+                } else if (c == '}' || c == ']') {
+                    kedalaman--;
+                    if (kedalaman == 0) {
+                        posisi++;
+                        return;
+                    }
+                }
+                posisi++;
+            }
+            throw error("objek atau array tidak ditutup");
+        } else {
+            // Angka, true, false, atau null
+            while (posisi < akhir && data[posisi] != ',' && data[posisi] != '}' && data[posisi] != ']'
+                    && !isSpasi(data[posisi])) {
+                posisi++;
+            }
+        }
+    }
+    
+    /**
+     * Memajukan posisi sampai tanda kutip penutup string
+     * @return true jika string mengandung karakter escape
+     */
+    private boolean cariAkhirString() {
+        boolean adaEscape = false;
+        while (posisi < akhir) {
+            byte b = data[posisi];
+            if (b == '"') {
+                return adaEscape;
+            }
+            if (b == '\\') {
+                adaEscape = true;
+                posisi++;
+            }
+            posisi++;
+        }
+        throw error("string tidak ditutup");
+    }
+    
+    private String decodeString(int awal, int panjang) {
+        StringBuilder hasil = new StringBuilder(panjang);
+        int i = awal;
+        int batas = awal + panjang;
+        int awalSegmen = i;
+        while (i < batas) {
+            if (data[i] != '\\') {
+                i++;
+                continue;
+            }
+            // Salin segmen UTF-8 sebelum escape apa adanya
+            if (i > awalSegmen) {
+                hasil.append(new String(data, awalSegmen, i - awalSegmen, StandardCharsets.UTF_8));
+            }
+            char c = (char) data[i + 1];
+            switch (c) {
+                case 'b': hasil.append('\b'); break;
+                case 'f': hasil.append('\f'); break;
+                case 'n': hasil.append('\n'); break;
+                case 'r': hasil.append('\r'); break;
+                case 't': hasil.append('\t'); break;
+                case 'u':
+                    if (i + 6 > batas) {
+                        throw error("escape unicode tidak lengkap");
+                    }
+                    hasil.append((char) Integer.parseInt(new String(data, i + 2, 4, StandardCharsets.ISO_8859_1), 16));
+                    i += 4;
+                    break;
+                default: hasil.append(c);
+            }
+            i += 2;
+            awalSegmen = i;
+        }
+        if (batas > awalSegmen) {
+            hasil.append(new String(data, awalSegmen, batas - awalSegmen, StandardCharsets.UTF_8));
+        }
+        return hasil.toString();
+    }
+    
+    private boolean samaDengan(byte[] kandidat, int awal) {
+        for (int i = 0; i < kandidat.length; i++) {
+            if (data[awal + i] != kandidat[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private void harus(char c) {
+        lewatiSpasi();
+        if (posisi >= akhir || data[posisi] != c) {
+            throw error("diharapkan '" + c + "'");
+        }
+        posisi++;
+    }
+    
+    private void lewatiSpasi() {
+        while (posisi < akhir && isSpasi(data[posisi])) {
+            posisi++;
+        }
+    }
+    
+    private static boolean isSpasi(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+    
+    private static boolean isBagianAngka(byte b) {
+        return b == '.' || b == 'e' || b == 'E' || b == '+';
+    }
+    
+    private double parseDouble(String teks) {
+        try {
+            return Double.parseDouble(teks);
+        } catch (NumberFormatException e) {
+            throw error("angka tidak valid: " + teks);
+        }
+    }
+    
+    private IllegalArgumentException error(String pesan) {
+        return new IllegalArgumentException("JSON tidak valid pada posisi " + posisi + ": " + pesan);
+    }
+} 
\ No newline at end of file
@@ -1,41 +1,158 @@
 package com.ecommerce.pesanan.util;
 
 import com.ecommerce.pesanan.model.Pesanan;
-import org.json.JSONObject;
+import com.ecommerce.pesanan.model.StatusPengiriman;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
 
 /**
  * Kelas utilitas untuk konversi objek ke/dari JSON
+ * Menggunakan JSONWriter dan JSONReader sehingga JSON ditulis langsung ke byte UTF-8
+ * dan dibaca langsung dari body pesan tanpa membangun pohon JSONObject
  */
 public class JSONUtil {
-
+    // Writer dan reader dipakai ulang per thread agar tidak ada alokasi buffer per pesan
+    private static final ThreadLocal<JSONWriter> WRITER = ThreadLocal.withInitial(() -> new JSONWriter(256));
+    private static final ThreadLocal<JSONReader> READER = ThreadLocal.withInitial(JSONReader::new);
+    
+    // Nama field pesan pesanan, urutan sesuai konstanta indeks di bawahnya
+    private static final byte[][] FIELD_PESANAN = JSONReader.namaField(
+        "id", "namaPelanggan", "alamatPengiriman", "totalHarga", "tanggalPesanan", "status");
+    private static final int PESANAN_ID = 0;
+    private static final int PESANAN_NAMA = 1;
+    private static final int PESANAN_ALAMAT = 2;
+    private static final int PESANAN_TOTAL = 3;
+    private static final int PESANAN_TANGGAL = 4;
+    private static final int PESANAN_STATUS = 5;
+    
+    // Nama field pesan status pengiriman yang dibutuhkan LayananPesanan
+    private static final byte[][] FIELD_STATUS = JSONReader.namaField(
+        "idPesanan", "statusPengiriman", "namaPelanggan", "alamatPengiriman");
+    private static final int STATUS_ID_PESANAN = 0;
+    private static final int STATUS_STATUS = 1;
+    private static final int STATUS_NAMA = 2;
+    private static final int STATUS_ALAMAT = 3;
+    
     /**
      * Mengkonversi objek Pesanan menjadi JSON string
      */
     public static String toJSON(Pesanan pesanan) {
-        JSONObject jsonObject = new JSONObject();
-        jsonObject.put("id", pesanan.getId());
-        jsonObject.put("namaPelanggan", pesanan.getNamaPelanggan());
-        jsonObject.put("alamatPengiriman", pesanan.getAlamatPengiriman());
-        jsonObject.put("totalHarga", pesanan.getTotalHarga());
-        jsonObject.put("tanggalPesanan", pesanan.getTanggalPesanan().getTime());
-        jsonObject.put("status", pesanan.getStatus());
-        
-        return jsonObject.toString();
+        JSONWriter writer = tulisPesanan(pesanan);
+        return new String(writer.buffer(), 0, writer.size(), StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Mengkonversi objek Pesanan menjadi JSON dalam bentuk byte UTF-8 yang siap dikirim
+     */
+    public static byte[] toJSONBytes(Pesanan pesanan) {
+        return tulisPesanan(pesanan).toByteArray();
+    }
+    
+    private static JSONWriter tulisPesanan(Pesanan pesanan) {
+        return WRITER.get().reset()
+            .beginObject()
+            .field("id", pesanan.getId())
+            .field("namaPelanggan", pesanan.getNamaPelanggan())
+            .field("alamatPengiriman", pesanan.getAlamatPengiriman())
+            .field("totalHarga", pesanan.getTotalHarga())
+            .field("tanggalPesanan", pesanan.getTanggalPesanan().getTime())
+            .field("status", pesanan.getStatus())
+            .endObject();
     }
     
     /**
      * Mengkonversi JSON string menjadi objek Pesanan
      */
     public static Pesanan toPesanan(String jsonString) {
-        JSONObject jsonObject = new JSONObject(jsonString);
-        
+        return toPesanan(jsonString.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Mengkonversi JSON dalam bentuk byte UTF-8 menjadi objek Pesanan
+     */
+    public static Pesanan toPesanan(byte[] json) {
+        JSONReader reader = READER.get().reset(json);
         Pesanan pesanan = new Pesanan();
-        pesanan.setId(jsonObject.getInt("id"));
-        pesanan.setNamaPelanggan(jsonObject.getString("namaPelanggan"));
-        pesanan.setAlamatPengiriman(jsonObject.getString("alamatPengiriman"));
-        pesanan.setTotalHarga(jsonObject.getDouble("totalHarga"));
-        pesanan.setStatus(jsonObject.getString("status"));
+        int fieldDitemukan = 0;
         
+        reader.beginObject();
+        while (reader.hasNextField()) {
+            int field = reader.nextField(FIELD_PESANAN);
+            switch (field) {
+                case PESANAN_ID:
+                    pesanan.setId(reader.nextLong());
+                    break;
+                case PESANAN_NAMA:
+                    pesanan.setNamaPelanggan(reader.nextString());
+                    break;
+                case PESANAN_ALAMAT:
+                    pesanan.setAlamatPengiriman(reader.nextString());
+                    break;
+                case PESANAN_TOTAL:
+                    pesanan.setTotalHarga(reader.nextDouble());
+                    break;
+                case PESANAN_TANGGAL:
+                    // Opsional untuk pesan lama, jika tidak ada tetap memakai waktu pembuatan objek
+                    pesanan.setTanggalPesanan(new Date(reader.nextLong()));
+                    break;
+                case PESANAN_STATUS:
+                    pesanan.setStatus(reader.nextString());
+                    break;
+                default:
+                    reader.skipValue();
+                    continue;
+            }
+            fieldDitemukan |= 1 << field;
+        }
+        
+        periksaFieldWajib(fieldDitemukan, FIELD_PESANAN,
+            PESANAN_ID, PESANAN_NAMA, PESANAN_ALAMAT, PESANAN_TOTAL, PESANAN_STATUS);
         return pesanan;
     }
+    
+    /**
+     * Mengkonversi pesan update status pengiriman dari LayananPengiriman
+     * Field namaPelanggan dan alamatPengiriman bersifat opsional
+     */
+    public static StatusPengiriman toStatusPengiriman(byte[] json) {
+        JSONReader reader = READER.get().reset(json);
+        StatusPengiriman status = new StatusPengiriman();
+        int fieldDitemukan = 0;
+        
+        reader.beginObject();
+        while (reader.hasNextField()) {
+            int field = reader.nextField(FIELD_STATUS);
+            switch (field) {
+                case STATUS_ID_PESANAN:
+                    status.setIdPesanan(reader.nextLong());
+                    break;
+                case STATUS_STATUS:
+                    status.setStatusPengiriman(reader.nextString());
+                    break;
+                case STATUS_NAMA:
+                    status.setNamaPelanggan(reader.nextNull() ? null : reader.nextString());
+                    break;
+                case STATUS_ALAMAT:
+                    status.setAlamatPengiriman(reader.nextNull() ? null : reader.nextString());
+                    break;
+                default:
+                    reader.skipValue();
+                    continue;
+            }
+            fieldDitemukan |= 1 << field;
+        }
+        
+        periksaFieldWajib(fieldDitemukan, FIELD_STATUS, STATUS_ID_PESANAN, STATUS_STATUS);
+        return status;
+    }
+    
+    private static void periksaFieldWajib(int fieldDitemukan, byte[][] namaField, int... wajib) {
+        for (int field : wajib) {
+            if ((fieldDitemukan & (1 << field)) == 0) {
+                throw new IllegalArgumentException("Field JSON wajib tidak ditemukan: "
+                    + new String(namaField[field], StandardCharsets.UTF_8));
+            }
+        }
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,376 @@
+package com.ecommerce.pesanan.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Kamus string off-heap: setiap string unik disimpan satu kali sebagai UTF-8 di luar heap Java
+ * dan diwakili oleh kode int
+ *
+ * Data ditulis ke chunk direct ByteBuffer berukuran 1 MiB dengan format panjang (uint16) diikuti
+ * isinya, kode adalah nomor chunk dan offset di dalam chunk. String yang sama (misalnya nama
+ * pelanggan yang berulang) mendapat kode yang sama.
+ *
+ * Indeks pencarian dibagi menjadi beberapa stripe berdasarkan hash string, masing-masing dengan
+ * lock sendiri, dan string yang sudah ada ditemukan tanpa lock sama sekali. Penyisipan dari banyak
+ * segmen tabel sekaligus hanya bertemu di lock tulis chunk, yang dipegang sebatas menyalin byte
+ * string baru. Pembacaan kode yang sudah diterbitkan tidak memakai lock.
+ */
+public final class KamusString {
+    // Kode untuk nilai null
+    public static final int KODE_NULL = -1;
+    
+    // Ukuran chunk 1 MiB, kode = (nomor chunk << BIT_OFFSET) | offset
+    private static final int BIT_OFFSET = 20;
+    private static final int UKURAN_CHUNK = 1 << BIT_OFFSET;
+    private static final int MAKS_CHUNK = 1 << (31 - BIT_OFFSET);
+    private static final int MAKS_PANJANG = 0xFFFF;
+    
+    // Jumlah stripe indeks pencarian (pangkat dua) dan ukuran awal indeks setiap stripe
+    private static final int BIT_STRIPE = 4;
+    private static final int JUMLAH_STRIPE = 1 << BIT_STRIPE;
+    private static final int UKURAN_AWAL_STRIPE = 64;
+    
+    // Chunk data, array diganti (copy-on-write) saat chunk baru ditambahkan
+    private volatile ByteBuffer[] chunk = new ByteBuffer[0];
+    
+    // Posisi tulis pada chunk terakhir, dijaga monitor kamus (lock tulis chunk)
+    private int posisiTulis = UKURAN_CHUNK;
+    
+    // Jumlah byte terpakai pada chunk yang sudah penuh, chunk terakhir memakai posisiTulis
+    private int[] terpakai = new int[0];
+    
+    // Indeks pencarian string yang sudah ada, dibagi per stripe
+    private final Stripe[] daftarStripe = new Stripe[JUMLAH_STRIPE];
+    
+    public KamusString() {
+        for (int i = 0; i < JUMLAH_STRIPE; i++) {
+            daftarStripe[i] = new Stripe(UKURAN_AWAL_STRIPE);
+        }
+    }
+    
+    /**
+     * Satu bagian indeks open addressing (linear probing)
+     * Setiap slot berisi satu long: hash di 32 bit atas dan kode + 1 di 32 bit bawah, 0 berarti
+     * slot kosong. Entri ditulis dengan lazySet setelah isi string ada di chunk, sehingga pembaca
+     * tanpa lock yang melihat entri juga melihat datanya. Penulisan dijaga monitor stripe.
+     */
+    private static final class Stripe {
+        // Diganti dengan array yang lebih besar saat penuh; pembaca yang masih memegang array lama
+        // paling banyak melewatkan string yang baru saja ditambahkan lalu memeriksa ulang di bawah lock
+        volatile AtomicLongArray entri;
+        int jumlah;
+        
+        Stripe(int ukuran) {
+            this.entri = new AtomicLongArray(ukuran);
+        }
+    }
+    
+    /**
+     * Menyimpan string ke kamus
+     * @param teks String yang disimpan, boleh null
+     * @return Kode string, sama untuk string yang sama, atau KODE_NULL untuk null
+     */
+    public int simpan(String teks) {
+        if (teks == null) {
+            return KODE_NULL;
+        }
+        byte[] utf8 = teks.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length > MAKS_PANJANG) {
+            throw new IllegalArgumentException("String terlalu panjang untuk kamus: " + utf8.length + " byte");
+        }
+        int hash = sebar(Arrays.hashCode(utf8));
+        Stripe stripe = stripeUntuk(hash);
+        // Jalur cepat tanpa lock untuk string yang sudah ada, kasus paling umum
+        int kode = cariDi(stripe, utf8, hash);
+        if (kode != KODE_NULL) {
+            return kode;
+        }
+        synchronized (stripe) {
+            // Periksa ulang: string yang sama mungkin baru disimpan thread lain pada stripe ini
+            kode = cariDi(stripe, utf8, hash);
+            if (kode == KODE_NULL) {
+                kode = tulis(utf8);
+                tambahKe(stripe, hash, kode);
+            }
+            return kode;
+        }
+    }
+    
+    /**
+     * Mengambil string berdasarkan kode
+     * @param kode Kode dari simpan()
+     * @return String asli, atau null untuk KODE_NULL
+     */
+    public String ambil(int kode) {
+        if (kode == KODE_NULL) {
+            return null;
+        }
+        ByteBuffer data = chunk[kode >>> BIT_OFFSET].duplicate();
+        int offset = kode & (UKURAN_CHUNK - 1);
+        int panjang = data.getShort(offset) & 0xFFFF;
+        byte[] utf8 = new byte[panjang];
+        data.position(offset + 2);
+        data.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Jumlah string unik di dalam kamus
+     */
+    public int getJumlah() {
+        int total = 0;
+        for (Stripe s : daftarStripe) {
+            synchronized (s) {
+                total += s.jumlah;
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * Jumlah memori off-heap yang dialokasikan dalam byte
+     */
+    public long getUkuranOffHeap() {
+        return (long) chunk.length * UKURAN_CHUNK;
+    }
+    
+    /**
+     * Menulis isi kamus ke snapshot: jumlah chunk lalu byte terpakai setiap chunk
+     * Aman dipanggil bersamaan dengan simpan() karena data yang sudah ditulis tidak pernah berubah;
+     * kode yang diterbitkan sebelum pemanggilan ini pasti ikut tertulis
+     */
+    void tulisKe(PenulisSnapshot out) throws IOException {
+        int[] panjang = panjangChunk();
+        out.tulisInt(panjang.length);
+        for (int i = 0; i < panjang.length; i++) {
+            ByteBuffer data = lihatChunk(i);
+            data.limit(panjang[i]);
+            out.tulisInt(panjang[i]);
+            out.tulisBuffer(data);
+        }
+    }
+    
+    /**
+     * Memuat kamus dari snapshot dengan pembacaan bulk ke chunk baru, kode string tetap sama
+     */
+    static KamusString bacaDari(PembacaSnapshot in) throws IOException {
+        int jumlahChunk = in.bacaInt();
+        if (jumlahChunk < 0 || jumlahChunk > MAKS_CHUNK) {
+            throw new IOException("Jumlah chunk kamus tidak valid: " + jumlahChunk);
+        }
+        ByteBuffer[] daftar = new ByteBuffer[jumlahChunk];
+        int[] panjang = new int[jumlahChunk];
+        for (int i = 0; i < jumlahChunk; i++) {
+            panjang[i] = in.bacaInt();
+            if (panjang[i] < 0 || panjang[i] > UKURAN_CHUNK) {
+                throw new IOException("Ukuran chunk kamus tidak valid: " + panjang[i]);
+            }
+            daftar[i] = chunkBaru();
+            ByteBuffer data = daftar[i].duplicate();
+            data.limit(panjang[i]);
+            in.bacaKe(data);
+        }
+        return dariChunk(daftar, panjang);
+    }
+    
+    /**
+     * Jumlah byte terpakai setiap chunk saat ini, panjang array sama dengan jumlah chunk
+     * Isi chunk sampai batas ini tidak akan berubah lagi sehingga boleh dibaca tanpa lock
+     */
+    synchronized int[] panjangChunk() {
+        int[] panjang = Arrays.copyOf(terpakai, chunk.length);
+        if (panjang.length > 0) {
+            panjang[panjang.length - 1] = posisiTulis;
+        }
+        return panjang;
+    }
+    
+    /**
+     * View baca untuk chunk ke-nomor, posisi 0 dan limit sebesar chunk
+     */
+    ByteBuffer lihatChunk(int nomor) {
+        ByteBuffer data = chunk[nomor].duplicate();
+        data.clear();
+        return data;
+    }
+    
+    /**
+     * Chunk kosong berukuran UKURAN_CHUNK untuk diisi lalu diberikan ke dariChunk()
+     */
+    static ByteBuffer chunkBaru() {
+        return ByteBuffer.allocateDirect(UKURAN_CHUNK);
+    }
+    
+    /**
+     * Membangun kamus dari chunk yang sudah diisi, kode string sama dengan kamus asalnya
+     * Indeks pencarian dibangun ulang dari isi chunk tanpa membuat objek String
+     * @param daftar Chunk dari chunkBaru()
+     * @param panjang Jumlah byte terpakai setiap chunk, dari panjangChunk() kamus asal
+     */
+    static KamusString dariChunk(ByteBuffer[] daftar, int[] panjang) throws IOException {
+        if (daftar.length != panjang.length || daftar.length > MAKS_CHUNK) {
+            throw new IOException("Jumlah chunk kamus tidak valid: " + daftar.length);
+        }
+        KamusString kamus = new KamusString();
+        synchronized (kamus) {
+            kamus.chunk = daftar;
+            kamus.terpakai = panjang.clone();
+            kamus.posisiTulis = daftar.length > 0 ? panjang[daftar.length - 1] : UKURAN_CHUNK;
+            kamus.bangunIndeks();
+        }
+        return kamus;
+    }
+    
+    private void bangunIndeks() throws IOException {
+        ByteBuffer[] daftar = chunk;
+        
+        // Hitung jumlah string dulu agar indeks langsung berukuran akhir
+        int total = 0;
+        for (int i = 0; i < daftar.length; i++) {
+            if (terpakai[i] < 0 || terpakai[i] > UKURAN_CHUNK || daftar[i].capacity() != UKURAN_CHUNK) {
+                throw new IOException("Ukuran chunk kamus tidak valid: " + terpakai[i]);
+            }
+            for (int offset = 0; offset < terpakai[i]; ) {
+                int panjang = offset + 2 <= terpakai[i] ? daftar[i].getShort(offset) & 0xFFFF : 0;
+                if (offset + 2 + panjang > terpakai[i]) {
+                    throw new IOException("Isi kamus rusak pada chunk " + i + " offset " + offset);
+                }
+                offset += 2 + panjang;
+                total++;
+            }
+        }
+        // Hash tersebar rata ke stripe; stripe yang kebagian lebih banyak membesar sendiri
+        int ukuran = UKURAN_AWAL_STRIPE;
+        while (total / JUMLAH_STRIPE > ukuran / 2) {
+            ukuran *= 2;
+        }
+        for (Stripe s : daftarStripe) {
+            s.entri = new AtomicLongArray(ukuran);
+            s.jumlah = 0;
+        }
+        
+        byte[] utf8 = new byte[MAKS_PANJANG];
+        for (int i = 0; i < daftar.length; i++) {
+            ByteBuffer data = daftar[i].duplicate();
+            for (int offset = 0; offset < terpakai[i]; ) {
+                int panjang = data.getShort(offset) & 0xFFFF;
+                data.position(offset + 2);
+                data.get(utf8, 0, panjang);
+                // Sama dengan Arrays.hashCode(byte[]) yang dipakai simpan()
+                int hash = 1;
+                for (int b = 0; b < panjang; b++) {
+                    hash = 31 * hash + utf8[b];
+                }
+                hash = sebar(hash);
+                tambahKe(stripeUntuk(hash), hash, (i << BIT_OFFSET) | offset);
+                offset += 2 + panjang;
+            }
+        }
+    }
+    
+    /**
+     * Menyalin string baru ke chunk terakhir, satu-satunya bagian penyisipan yang memakai lock bersama
+     */
+    private synchronized int tulis(byte[] utf8) {
+        ByteBuffer[] daftar = chunk;
+        if (posisiTulis + 2 + utf8.length > UKURAN_CHUNK) {
+            if (daftar.length == MAKS_CHUNK) {
+                throw new IllegalStateException("Kamus string penuh");
+            }
+            // Chunk baru diterbitkan lewat field volatile sebelum kodenya dipakai pembaca
+            if (daftar.length > 0) {
+                terpakai = Arrays.copyOf(terpakai, daftar.length);
+                terpakai[daftar.length - 1] = posisiTulis;
+            }
+            daftar = Arrays.copyOf(daftar, daftar.length + 1);
+            daftar[daftar.length - 1] = ByteBuffer.allocateDirect(UKURAN_CHUNK);
+            chunk = daftar;
+            posisiTulis = 0;
+        }
+        int nomorChunk = daftar.length - 1;
+        ByteBuffer data = daftar[nomorChunk].duplicate();
+        int offset = posisiTulis;
+        data.putShort(offset, (short) utf8.length);
+        data.position(offset + 2);
+        data.put(utf8);
+        posisiTulis = offset + 2 + utf8.length;
+        return (nomorChunk << BIT_OFFSET) | offset;
+    }
+    
+    private boolean samaDengan(int kode, byte[] utf8) {
+        ByteBuffer data = chunk[kode >>> BIT_OFFSET];
+        int offset = kode & (UKURAN_CHUNK - 1);
+        if ((data.getShort(offset) & 0xFFFF) != utf8.length) {
+            return false;
+        }
+        for (int i = 0; i < utf8.length; i++) {
+            if (data.get(offset + 2 + i) != utf8[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Stripe untuk hash; bit atas diambil setelah perkalian agar string pendek (kurir, status) yang
+     * hash-nya kecil tetap tersebar
+     */
+    private Stripe stripeUntuk(int hash) {
+        return daftarStripe[(hash * 0x9E3779B9) >>> (32 - BIT_STRIPE)];
+    }
+    
+    /**
+     * Mencari kode string di stripe tanpa lock
+     * @return Kode string, atau KODE_NULL jika belum ada di array entri yang sedang terbit
+     */
+    private int cariDi(Stripe s, byte[] utf8, int hash) {
+        AtomicLongArray entri = s.entri;
+        int mask = entri.length() - 1;
+        int slot = hash & mask;
+        long e;
+        while ((e = entri.get(slot)) != 0) {
+            int kode = (int) e - 1;
+            if ((int) (e >>> 32) == hash && samaDengan(kode, utf8)) {
+                return kode;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return KODE_NULL;
+    }
+    
+    /**
+     * Mencatat kode baru di stripe, pemanggil memegang monitor stripe
+     */
+    private void tambahKe(Stripe s, int hash, int kode) {
+        if (s.jumlah + 1 > s.entri.length() * 3 / 4) {
+            AtomicLongArray lama = s.entri;
+            AtomicLongArray baru = new AtomicLongArray(lama.length() * 2);
+            for (int i = 0; i < lama.length(); i++) {
+                long e = lama.get(i);
+                if (e != 0) {
+                    sisipkan(baru, (int) (e >>> 32), (int) e - 1);
+                }
+            }
+            s.entri = baru;
+        }
+        sisipkan(s.entri, hash, kode);
+        s.jumlah++;
+    }
+    
+    private static void sisipkan(AtomicLongArray entri, int hash, int kode) {
+        int mask = entri.length() - 1;
+        int slot = hash & mask;
+        while (entri.get(slot) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        entri.lazySet(slot, ((long) hash << 32) | (kode + 1L));
+    }
+    
+    private static int sebar(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,135 @@
+package com.ecommerce.pesanan.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Histogram latensi dengan bucket log-linear seperti HdrHistogram
+ * 
+ * Setiap rentang pangkat dua dibagi menjadi beberapa sub-bucket linear, sehingga galat relatif
+ * persentil selalu di bawah 1% untuk nilai kecil maupun besar dengan ukuran array tetap.
+ * Pencatatan lock-free dan aman dipanggil dari banyak thread sekaligus. Satuan nilai ditentukan
+ * pemanggil (misalnya mikrodetik), histogram hanya menyimpan bilangan bulat non-negatif.
+ */
+public class LatencyHistogram {
+    // Jumlah bit presisi: 2^8 sub-bucket untuk nilai kecil, 2^7 sub-bucket per oktaf berikutnya
+    private static final int BIT_PRESISI = 8;
+    private static final int JUMLAH_SUB_BUCKET = 1 << BIT_PRESISI;
+    private static final int SETENGAH_SUB_BUCKET = JUMLAH_SUB_BUCKET / 2;
+    
+    // Cukup untuk seluruh rentang long positif
+    private static final int JUMLAH_BUCKET = (64 - BIT_PRESISI + 1) * SETENGAH_SUB_BUCKET + JUMLAH_SUB_BUCKET;
+    
+    private final AtomicLongArray jumlahPerBucket = new AtomicLongArray(JUMLAH_BUCKET);
+    private final AtomicLong jumlah = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final LongAccumulator minimum = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator maksimum = new LongAccumulator(Math::max, 0);
+    
+    /**
+     * Mencatat satu nilai, nilai negatif dianggap 0
+     * @param nilai Nilai latensi dalam satuan pilihan pemanggil
+     */
+    public void catat(long nilai) {
+        if (nilai < 0) {
+            nilai = 0;
+        }
+        jumlahPerBucket.incrementAndGet(indeksBucket(nilai));
+        jumlah.incrementAndGet();
+        total.addAndGet(nilai);
+        minimum.accumulate(nilai);
+        maksimum.accumulate(nilai);
+    }
+    
+    public long getJumlah() {
+        return jumlah.get();
+    }
+    
+    public long getMinimum() {
+        return jumlah.get() == 0 ? 0 : minimum.get();
+    }
+    
+    public long getMaksimum() {
+        return maksimum.get();
+    }
+    
+    public double getRataRata() {
+        long n = jumlah.get();
+        return n == 0 ? 0 : (double) total.get() / n;
+    }
+    
+    /**
+     * Menghitung nilai persentil
+     * @param persentil Persentil antara 0 dan 100, misalnya 99.9
+     * @return Batas atas bucket yang memuat persentil tersebut, tidak melebihi nilai maksimum
+     */
+    public long getPersentil(double persentil) {
+        if (persentil < 0 || persentil > 100) {
+            throw new IllegalArgumentException("Persentil harus di antara 0 dan 100: " + persentil);
+        }
+        long n = jumlah.get();
+        if (n == 0) {
+            return 0;
+        }
+        long peringkat = Math.max(1, (long) Math.ceil(persentil / 100.0 * n));
+        long kumulatif = 0;
+        for (int i = 0; i < JUMLAH_BUCKET; i++) {
+            kumulatif += jumlahPerBucket.get(i);
+            if (kumulatif >= peringkat) {
+                return Math.min(batasAtasBucket(i), getMaksimum());
+            }
+        }
+        return getMaksimum();
+    }
+    
+    /**
+     * Mengosongkan histogram
+     * Tidak atomik terhadap pencatatan yang berjalan bersamaan
+     */
+    public void reset() {
+        for (int i = 0; i < JUMLAH_BUCKET; i++) {
+            jumlahPerBucket.set(i, 0);
+        }
+        jumlah.set(0);
+        total.set(0);
+        minimum.reset();
+        maksimum.reset();
+    }
+    
+    /**
+     * Ringkasan histogram dalam satu baris
+     * @param satuan Nama satuan nilai untuk ditampilkan, misalnya "us"
+     */
+    public String ringkasan(String satuan) {
+        return String.format("n=%d, min=%d%s, rata-rata=%.1f%s, p50=%d%s, p90=%d%s, p99=%d%s, p99.9=%d%s, maks=%d%s",
+            getJumlah(), getMinimum(), satuan, getRataRata(), satuan,
+            getPersentil(50), satuan, getPersentil(90), satuan, getPersentil(99), satuan,
+            getPersentil(99.9), satuan, getMaksimum(), satuan);
+    }
+    
+    @Override
+    public String toString() {
+        return "LatencyHistogram{" + ringkasan("") + "}";
+    }
+    
+    private static int indeksBucket(long nilai) {
+        if (nilai < JUMLAH_SUB_BUCKET) {
+            return (int) nilai;
+        }
+        // Geser sehingga sisa nilai berada pada rentang [SETENGAH_SUB_BUCKET, JUMLAH_SUB_BUCKET)
+        int geser = 63 - Long.numberOfLeadingZeros(nilai) - (BIT_PRESISI - 1);
+        int sub = (int) (nilai >>> geser);
+        return geser * SETENGAH_SUB_BUCKET + sub;
+    }
+    
+    private static long batasAtasBucket(int indeks) {
+        if (indeks < JUMLAH_SUB_BUCKET) {
+            return indeks;
+        }
+        int geser = (indeks - SETENGAH_SUB_BUCKET) / SETENGAH_SUB_BUCKET;
+        long sub = indeks - (long) geser * SETENGAH_SUB_BUCKET;
+        long atas = ((sub + 1) << geser) - 1;
+        return atas < 0 ? Long.MAX_VALUE : atas;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,137 @@
+package com.ecommerce.pesanan.util;
+
+import com.rabbitmq.client.Delivery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Penangan pesan yang gagal diproses consumer
+ *
+ * Pesan dikirim ke queue tunda berikutnya atau ke queue parkir lewat RabbitMQUtil.kirimUlangAtauParkir
+ * pada channel tersendiri dalam mode confirm. Pemanggil baru boleh meng-ack pesan asal jika tangani()
+ * mengembalikan true, yaitu setelah broker mengonfirmasi kiriman ulang, sehingga pesan tidak hilang
+ * walaupun broker mati di antaranya. Jika kiriman ulang gagal, pemanggil mengembalikan pesan ke queue
+ * (nack dengan requeue) setelah jeda singkat agar pesan tidak berputar cepat di queue utama.
+ *
+ * Channel dipakai bergantian oleh semua thread pemroses di bawah lock; jalur ini hanya dilewati
+ * pesan yang gagal. Sebaiknya channel dibuat dari transport publish agar flow control broker pada
+ * kiriman ulang tidak menahan koneksi consumer.
+ */
+public class PenanganGagal implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(PenanganGagal.class);
+    
+    // Batas waktu menunggu konfirmasi broker untuk satu kiriman ulang
+    private static final long BATAS_KONFIRMASI_MS = 5000;
+    
+    // Jeda sebelum pesan dikembalikan ke queue ketika kiriman ulang gagal
+    private static final long JEDA_GAGAL_MS = 1000;
+    
+    private final Transport transport;
+    private final String queueParkir;
+    private final int maksPercobaan;
+    
+    // Channel kiriman ulang, dibuat saat pertama dibutuhkan dan dibuat lagi setelah gagal
+    private TransportChannel channel;
+    
+    // Setelah close() tidak ada channel baru yang dibuat, pesan yang gagal dikembalikan ke queue
+    private boolean ditutup;
+    
+    // Jumlah pesan yang dikirim ke queue tunda dan ke queue parkir
+    private final AtomicLong jumlahDiulang = new AtomicLong();
+    private final AtomicLong jumlahDiparkir = new AtomicLong();
+    
+    /**
+     * @param transport Transport untuk kiriman ulang
+     * @param queueParkir Queue parkir aliran pesan yang ditangani
+     * @param maksPercobaan Jumlah percobaan maksimum termasuk pengiriman pertama
+     */
+    public PenanganGagal(Transport transport, String queueParkir, int maksPercobaan) {
+        if (maksPercobaan < 1) {
+            throw new IllegalArgumentException("maksPercobaan minimal 1: " + maksPercobaan);
+        }
+        this.transport = transport;
+        this.queueParkir = queueParkir;
+        this.maksPercobaan = maksPercobaan;
+    }
+    
+    /**
+     * Mengirim pesan yang gagal ke queue tunda atau queue parkir dan menunggu konfirmasi broker
+     * @param delivery Pesan yang gagal diproses
+     * @param penyebab Kegagalan pemrosesan
+     * @return true jika pesan asal boleh di-ack, false jika pesan asal harus dikembalikan ke queue
+     */
+    public boolean tangani(Delivery delivery, Exception penyebab) {
+        try {
+            String tujuan;
+            synchronized (this) {
+                if (ditutup) {
+                    return false;
+                }
+                if (channel == null || !channel.isOpen()) {
+                    channel = transport.createChannel();
+                    channel.confirmSelect();
+                }
+                tujuan = RabbitMQUtil.kirimUlangAtauParkir(channel, delivery, queueParkir, maksPercobaan, penyebab);
+                if (!channel.waitForConfirms(BATAS_KONFIRMASI_MS)) {
+                    throw new IllegalStateException("Broker menolak kiriman ulang ke " + tujuan);
+                }
+            }
+            if (queueParkir.equals(tujuan)) {
+                jumlahDiparkir.incrementAndGet();
+                logger.error("Pesan dipindahkan ke {} setelah {} percobaan: messageId={}", tujuan,
+                    RabbitMQUtil.getPercobaan(delivery.getProperties()) + 1, delivery.getProperties().getMessageId());
+            } else {
+                jumlahDiulang.incrementAndGet();
+                logger.warn("Pesan akan dicoba lagi lewat {}: messageId={}", tujuan,
+                    delivery.getProperties().getMessageId());
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            logger.error("Gagal mengirim ulang pesan yang gagal diproses: {}", e.getMessage(), e);
+            tutupChannel();
+            try {
+                Thread.sleep(JEDA_GAGAL_MS);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+    }
+    
+    /**
+     * Jumlah pesan yang dikirim ke queue tunda untuk dicoba lagi
+     */
+    public long getJumlahDiulang() {
+        return jumlahDiulang.get();
+    }
+    
+    /**
+     * Jumlah pesan yang dipindahkan ke queue parkir
+     */
+    public long getJumlahDiparkir() {
+        return jumlahDiparkir.get();
+    }
+    
+    private synchronized void tutupChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (Exception e) {
+                logger.debug("Gagal menutup channel kiriman ulang: {}", e.getMessage());
+            }
+            channel = null;
+        }
+    }
+    
+    @Override
+    public synchronized void close() {
+        ditutup = true;
+        tutupChannel();
+    }
+} 
\ No newline at end of file
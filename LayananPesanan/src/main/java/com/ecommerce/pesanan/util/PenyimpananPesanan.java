@@ -0,0 +1,237 @@
+package com.ecommerce.pesanan.util;
+
+import com.ecommerce.pesanan.config.PersistensiConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Penyimpanan persisten untuk daftar pesanan: TabelPesanan di memori, jurnal perubahan yang
+ * di-memory-map, dan snapshot terkompaksi berkala
+ *
+ * Saat dibuka, snapshot terbaru dimuat lalu segmen jurnal setelahnya diputar ulang, kemudian
+ * jurnal baru dipasang ke tabel. Snapshot dibuat dengan memulai segmen jurnal baru lalu menulis
+ * isi tabel secara berurutan; snapshot yang selesai menggantikan snapshot dan segmen jurnal lama.
+ * Isi tabel yang ikut berubah selama snapshot ditulis tetap benar karena rekaman jurnal setelah
+ * snapshot diputar ulang berurutan dan setiap rekaman menimpa nilai yang diubahnya.
+ *
+ * Format snapshot: magic, versi, nomor segmen jurnal pertama yang belum tercakup, lalu kolom
+ * mentah setiap segmen TabelPesanan, chunk KamusString, ID terbesar, dan CRC32 seluruh isi file
+ * sebelumnya. Snapshot dimuat dengan pembacaan bulk berurutan tanpa membuat objek per pesanan,
+ * sehingga waktu pemulihan terutama ditentukan oleh kecepatan baca disk.
+ */
+public class PenyimpananPesanan implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(PenyimpananPesanan.class);
+    
+    private static final int MAGIC_SNAPSHOT = 0x50534E50;
+    private static final byte VERSI_SNAPSHOT = 2;
+    private static final String AWALAN_SNAPSHOT = "snapshot-";
+    private static final String AKHIRAN_SNAPSHOT = ".dat";
+    private static final String AKHIRAN_SEMENTARA = ".tmp";
+    
+    private final PersistensiConfig config;
+    private final Path direktori;
+    private final TabelPesanan tabel;
+    private final JurnalPesanan jurnal;
+    private final ScheduledExecutorService penjadwal;
+    
+    private PenyimpananPesanan(PersistensiConfig config, Path direktori, TabelPesanan tabel, JurnalPesanan jurnal) {
+        this.config = config;
+        this.direktori = direktori;
+        this.tabel = tabel;
+        this.jurnal = jurnal;
+        this.penjadwal = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "persistensi-pesanan");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Membuka penyimpanan dan memulihkan daftar pesanan dari snapshot dan jurnal
+     * @param config Pengaturan direktori, ukuran segmen, dan interval snapshot
+     * @return Penyimpanan yang siap dipakai
+     */
+    public static PenyimpananPesanan buka(PersistensiConfig config) throws IOException {
+        long mulai = System.nanoTime();
+        Path direktori = Paths.get(config.getDirektori());
+        Files.createDirectories(direktori);
+        hapusFile(direktori, AWALAN_SNAPSHOT + "*" + AKHIRAN_SEMENTARA, Long.MAX_VALUE);
+        
+        // Muat snapshot terbaru
+        TabelPesanan tabel = new TabelPesanan();
+        long segmenAwal = 0;
+        Path snapshot = snapshotTerbaru(direktori);
+        if (snapshot != null) {
+            segmenAwal = nomorSnapshot(snapshot);
+            tabel = muatSnapshot(snapshot);
+        }
+        long jumlahSnapshot = tabel.getJumlah();
+        
+        // Putar ulang segmen jurnal setelah snapshot, segmen lama sisa crash saat kompaksi dihapus
+        long jumlahJurnal = 0;
+        long segmenTerakhir = segmenAwal;
+        for (Path segmen : JurnalPesanan.daftarSegmen(direktori)) {
+            long nomor = JurnalPesanan.nomorSegmen(segmen);
+            if (nomor < segmenAwal) {
+                Files.deleteIfExists(segmen);
+                continue;
+            }
+            jumlahJurnal += JurnalPesanan.putarUlang(segmen, tabel);
+            segmenTerakhir = nomor + 1;
+        }
+        
+        // Jurnal baru selalu ditulis ke segmen baru, ekor segmen lama yang terpotong tidak disentuh
+        JurnalPesanan jurnal = new JurnalPesanan(direktori, config.getUkuranSegmenJurnal(), Math.max(1, segmenTerakhir));
+        tabel.setJurnal(jurnal);
+        
+        logger.info("Daftar pesanan dipulihkan dari {}: {} pesanan dari snapshot, {} rekaman jurnal, {} pesanan, {} ms",
+            direktori.toAbsolutePath(), jumlahSnapshot, jumlahJurnal, tabel.getJumlah(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - mulai));
+        
+        PenyimpananPesanan penyimpanan = new PenyimpananPesanan(config, direktori, tabel, jurnal);
+        penyimpanan.mulaiPenjadwal();
+        return penyimpanan;
+    }
+    
+    /**
+     * Tabel pesanan yang perubahannya dicatat ke jurnal
+     */
+    public TabelPesanan getTabel() {
+        return tabel;
+    }
+    
+    /**
+     * ID pesanan terbesar yang sudah tersimpan, untuk melanjutkan penomoran setelah restart
+     */
+    public long getIdTerbesar() {
+        return tabel.getIdTerbesar();
+    }
+    
+    /**
+     * Membuat snapshot isi tabel lalu menghapus snapshot dan segmen jurnal yang sudah tercakup
+     */
+    public synchronized void buatSnapshot() throws IOException {
+        long mulai = System.nanoTime();
+        long segmen = jurnal.gulirkan();
+        
+        Path sementara = direktori.resolve(namaSnapshot(segmen) + AKHIRAN_SEMENTARA);
+        tulisSnapshot(sementara, segmen);
+        Path snapshot = direktori.resolve(namaSnapshot(segmen));
+        Files.move(sementara, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        
+        hapusFile(direktori, AWALAN_SNAPSHOT + "*" + AKHIRAN_SNAPSHOT, segmen);
+        jurnal.hapusSebelum(segmen);
+        logger.info("Snapshot daftar pesanan dibuat: {} pesanan, segmen jurnal {}, {} ms",
+            tabel.getJumlah(), segmen, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - mulai));
+    }
+    
+    /**
+     * Menghentikan penjadwal, membuat snapshot terakhir, dan menutup jurnal
+     * Perubahan tabel setelah ditutup hanya tersimpan di memori
+     */
+    @Override
+    public void close() throws IOException {
+        penjadwal.shutdown();
+        try {
+            penjadwal.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            buatSnapshot();
+        } finally {
+            tabel.setJurnal(null);
+            jurnal.close();
+        }
+    }
+    
+    private void mulaiPenjadwal() {
+        long intervalSnapshot = config.getIntervalSnapshotDetik();
+        penjadwal.scheduleWithFixedDelay(() -> {
+            try {
+                buatSnapshot();
+            } catch (Exception e) {
+                logger.error("Gagal membuat snapshot daftar pesanan: {}", e.getMessage(), e);
+            }
+        }, intervalSnapshot, intervalSnapshot, TimeUnit.SECONDS);
+        
+        if (config.getIntervalForceMs() > 0) {
+            penjadwal.scheduleWithFixedDelay(() -> {
+                try {
+                    jurnal.force();
+                } catch (Exception e) {
+                    logger.error("Gagal menulis jurnal pesanan ke disk: {}", e.getMessage(), e);
+                }
+            }, config.getIntervalForceMs(), config.getIntervalForceMs(), TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    private void tulisSnapshot(Path file, long segmen) throws IOException {
+        try (PenulisSnapshot out = new PenulisSnapshot(file)) {
+            out.tulisInt(MAGIC_SNAPSHOT);
+            out.tulisByte(VERSI_SNAPSHOT);
+            out.tulisLong(segmen);
+            tabel.tulisKe(out);
+            out.selesai();
+        }
+    }
+    
+    /**
+     * Memuat snapshot dengan pembacaan berurutan langsung ke kolom tabel dan chunk kamus
+     */
+    private static TabelPesanan muatSnapshot(Path file) throws IOException {
+        try (PembacaSnapshot in = new PembacaSnapshot(file)) {
+            int magic = in.bacaInt();
+            byte versi = in.bacaByte();
+            if (magic != MAGIC_SNAPSHOT || versi != VERSI_SNAPSHOT) {
+                throw new IOException("Format snapshot tidak dikenal: " + file);
+            }
+            in.bacaLong();
+            TabelPesanan tabel = TabelPesanan.bacaDari(in);
+            in.periksaChecksum();
+            return tabel;
+        }
+    }
+    
+    private static Path snapshotTerbaru(Path direktori) throws IOException {
+        Path terbaru = null;
+        try (DirectoryStream<Path> isi = Files.newDirectoryStream(direktori, AWALAN_SNAPSHOT + "*" + AKHIRAN_SNAPSHOT)) {
+            for (Path file : isi) {
+                if (terbaru == null || nomorSnapshot(file) > nomorSnapshot(terbaru)) {
+                    terbaru = file;
+                }
+            }
+        }
+        return terbaru;
+    }
+    
+    private static void hapusFile(Path direktori, String pola, long batasNomor) throws IOException {
+        try (DirectoryStream<Path> isi = Files.newDirectoryStream(direktori, pola)) {
+            for (Path file : isi) {
+                if (nomorSnapshot(file) < batasNomor) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+    
+    private static long nomorSnapshot(Path file) {
+        String nama = file.getFileName().toString();
+        return Long.parseLong(nama.substring(AWALAN_SNAPSHOT.length(), nama.indexOf('.')));
+    }
+    
+    private static String namaSnapshot(long segmen) {
+        return String.format("%s%016d%s", AWALAN_SNAPSHOT, segmen, AKHIRAN_SNAPSHOT);
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,265 @@
+package com.ecommerce.pesanan.util;
+
+import com.ecommerce.pesanan.config.RabbitMQConfig;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmCallback;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.DeliverCallback;
+import com.rabbitmq.client.Recoverable;
+import com.rabbitmq.client.ShutdownSignalException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Implementasi Transport yang meneruskan semua operasi ke koneksi RabbitMQ
+ *
+ * Channel diambil dari pool berukuran tetap: paling banyak maksChannel channel terbuka bersamaan
+ * pada koneksi ini, dan createChannel() menunggu channel dikembalikan jika semuanya sedang dipakai.
+ * close() pada channel mengembalikannya ke pool untuk dipakai ulang, kecuali channel yang sudah
+ * diubah keadaannya (consumer terdaftar, basicQos, atau mode confirm) atau sudah tertutup; channel
+ * seperti itu benar-benar ditutup agar peminjam berikutnya selalu mendapat channel yang bersih.
+ */
+public class RabbitMQTransport implements Transport {
+    // Koneksi ke server RabbitMQ
+    private final Connection connection;
+    
+    // Izin membuka channel, satu izin untuk setiap channel yang sedang dipinjam
+    private final Semaphore izinChannel;
+    private final int maksChannel;
+    private final long tungguChannelMs;
+    
+    // Channel bersih yang sudah dikembalikan dan siap dipinjam lagi
+    private final Deque<Channel> channelMenganggur = new ConcurrentLinkedDeque<>();
+    
+    private volatile boolean ditutup;
+    
+    /**
+     * Konstruktor RabbitMQTransport dengan ukuran pool channel default
+     * @param connection Koneksi RabbitMQ yang sudah dibuat
+     */
+    public RabbitMQTransport(Connection connection) {
+        this(connection, RabbitMQConfig.DEFAULT_MAKS_CHANNEL, RabbitMQConfig.DEFAULT_TUNGGU_CHANNEL_MS);
+    }
+    
+    /**
+     * Konstruktor RabbitMQTransport
+     * @param connection Koneksi RabbitMQ yang sudah dibuat
+     * @param maksChannel Jumlah maksimum channel terbuka bersamaan
+     * @param tungguChannelMs Lama menunggu channel dari pool yang penuh sebelum createChannel() gagal
+     */
+    public RabbitMQTransport(Connection connection, int maksChannel, long tungguChannelMs) {
+        if (maksChannel < 1) {
+            throw new IllegalArgumentException("maksChannel minimal 1: " + maksChannel);
+        }
+        this.connection = connection;
+        this.maksChannel = maksChannel;
+        this.tungguChannelMs = tungguChannelMs;
+        this.izinChannel = new Semaphore(maksChannel, true);
+    }
+    
+    /**
+     * Koneksi RabbitMQ yang dibungkus transport ini
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+    
+    /**
+     * Meminjam channel dari pool, membuka channel baru jika tidak ada channel menganggur
+     * @throws IOException jika pool tetap penuh setelah tungguChannelMs atau broker menolak channel baru
+     */
+    @Override
+    public TransportChannel createChannel() throws IOException {
+        boolean dapat;
+        try {
+            dapat = izinChannel.tryAcquire(tungguChannelMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Diinterupsi saat menunggu channel RabbitMQ dari pool");
+        }
+        if (!dapat) {
+            throw new IOException("Pool channel RabbitMQ penuh: " + maksChannel + " channel masih dipakai setelah "
+                + tungguChannelMs + " ms");
+        }
+        try {
+            Channel channel;
+            while ((channel = channelMenganggur.pollFirst()) != null && !channel.isOpen()) {
+                // Channel menganggur yang tertutup bersama koneksi dibuang
+            }
+            if (channel == null) {
+                channel = connection.createChannel();
+                if (channel == null) {
+                    throw new IOException("Broker menolak membuka channel baru (channel_max tercapai)");
+                }
+            }
+            return new ChannelRabbitMQ(channel);
+        } catch (IOException | RuntimeException e) {
+            izinChannel.release();
+            throw e;
+        }
+    }
+    
+    /**
+     * Jumlah channel yang sedang dipinjam
+     */
+    public int getChannelDipakai() {
+        return maksChannel - izinChannel.availablePermits();
+    }
+    
+    @Override
+    public boolean isOpen() {
+        return connection.isOpen();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        ditutup = true;
+        channelMenganggur.clear();
+        if (connection.isOpen()) {
+            connection.close();
+        }
+    }
+    
+    /**
+     * Mengembalikan channel pinjaman ke pool atau menutupnya
+     */
+    private void kembalikan(Channel channel, boolean bersih) throws IOException {
+        try {
+            if (bersih && !ditutup && channel.isOpen()) {
+                channelMenganggur.offerFirst(channel);
+                return;
+            }
+            if (channel.isOpen()) {
+                channel.close();
+            }
+        } catch (TimeoutException e) {
+            throw new IOException("Waktu habis saat menutup channel RabbitMQ", e);
+        } catch (ShutdownSignalException e) {
+            // Channel atau koneksi sudah tertutup di antara pemeriksaan dan close()
+        } finally {
+            izinChannel.release();
+        }
+    }
+    
+    /**
+     * TransportChannel yang meneruskan setiap pemanggilan ke com.rabbitmq.client.Channel
+     */
+    private final class ChannelRabbitMQ implements TransportChannel {
+        private final Channel channel;
+        
+        // true jika keadaan channel sudah diubah sehingga tidak boleh dipinjamkan lagi
+        private volatile boolean diubah;
+        
+        private final AtomicBoolean dikembalikan = new AtomicBoolean();
+        
+        private ChannelRabbitMQ(Channel channel) {
+            this.channel = channel;
+        }
+        
+        @Override
+        public void exchangeDeclare(String exchange, String type, boolean durable) throws IOException {
+            channel.exchangeDeclare(exchange, type, durable);
+        }
+        
+        @Override
+        public void queueDeclare(String queue, boolean durable, boolean exclusive, boolean autoDelete,
+                                 Map<String, Object> arguments) throws IOException {
+            channel.queueDeclare(queue, durable, exclusive, autoDelete, arguments);
+        }
+        
+        @Override
+        public void queueBind(String queue, String exchange, String routingKey) throws IOException {
+            channel.queueBind(queue, exchange, routingKey);
+        }
+        
+        @Override
+        public long messageCount(String queue) throws IOException {
+            // queueDeclarePassive menghasilkan exception (dan menutup channel) jika queue tidak ada
+            return channel.queueDeclarePassive(queue).getMessageCount();
+        }
+        
+        @Override
+        public void basicPublish(String exchange, String routingKey, AMQP.BasicProperties properties, byte[] body)
+                throws IOException {
+            channel.basicPublish(exchange, routingKey, properties, body);
+        }
+        
+        @Override
+        public String basicConsume(String queue, boolean autoAck, DeliverCallback deliverCallback) throws IOException {
+            diubah = true;
+            return channel.basicConsume(queue, autoAck, deliverCallback, consumerTag -> {});
+        }
+        
+        @Override
+        public void basicQos(int prefetchCount) throws IOException {
+            diubah = true;
+            channel.basicQos(prefetchCount);
+        }
+        
+        @Override
+        public void basicAck(long deliveryTag, boolean multiple) throws IOException {
+            channel.basicAck(deliveryTag, multiple);
+        }
+        
+        @Override
+        public void basicNack(long deliveryTag, boolean multiple, boolean requeue) throws IOException {
+            channel.basicNack(deliveryTag, multiple, requeue);
+        }
+        
+        @Override
+        public void confirmSelect() throws IOException {
+            diubah = true;
+            channel.confirmSelect();
+        }
+        
+        @Override
+        public void addConfirmListener(ConfirmCallback ackCallback, ConfirmCallback nackCallback) {
+            diubah = true;
+            channel.addConfirmListener(ackCallback, nackCallback);
+        }
+        
+        @Override
+        public long getNextPublishSeqNo() {
+            return channel.getNextPublishSeqNo();
+        }
+        
+        @Override
+        public boolean waitForConfirms(long timeoutMs) throws InterruptedException, TimeoutException {
+            return channel.waitForConfirms(timeoutMs);
+        }
+        
+        /**
+         * Channel yang terputus karena koneksi hilang tetap dianggap terbuka selama koneksi sedang
+         * dipulihkan: setelah pulih, channel yang sama dapat dipakai lagi beserta consumer dan mode
+         * confirm-nya, sehingga pemakai channel tidak perlu berhenti
+         */
+        @Override
+        public boolean isOpen() {
+            if (dikembalikan.get()) {
+                return false;
+            }
+            if (channel.isOpen()) {
+                return true;
+            }
+            ShutdownSignalException alasan = channel.getCloseReason();
+            return !ditutup && channel instanceof Recoverable && alasan != null
+                && alasan.isHardError() && !alasan.isInitiatedByApplication();
+        }
+        
+        @Override
+        public void close() throws IOException {
+            if (dikembalikan.compareAndSet(false, true)) {
+                kembalikan(channel, !diubah);
+            }
+        }
+    }
+} 
\ No newline at end of file
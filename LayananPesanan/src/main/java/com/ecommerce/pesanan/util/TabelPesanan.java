@@ -0,0 +1,433 @@
+package com.ecommerce.pesanan.util;
+
+import com.ecommerce.pesanan.model.Pesanan;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * Tabel pesanan dengan kunci long primitif untuk jutaan pesanan yang sedang berjalan
+ *
+ * Field berukuran tetap (id, totalHarga, tanggalPesanan, kode status) disimpan dalam array
+ * primitif per kolom, sedangkan nama pelanggan dan alamat disimpan sebagai kode KamusString
+ * (UTF-8 off-heap). Tidak ada objek per pesanan di heap sehingga GC hanya melihat beberapa
+ * array besar, bukan jutaan Integer, Pesanan, Date, dan String.
+ *
+ * Tabel dibagi menjadi beberapa segmen open addressing (linear probing) dengan StampedLock
+ * masing-masing. Penulis hanya mengunci segmen dari ID yang diubah, pembaca memakai optimistic
+ * read dan hanya mengambil read lock jika bertabrakan dengan penulis. Objek Pesanan yang
+ * dikembalikan adalah salinan; perubahan harus disimpan kembali lewat simpan().
+ *
+ * Jika jurnal dipasang, setiap perubahan dicatat ke jurnal di dalam lock segmen sebelum tabel
+ * diubah, sehingga urutan rekaman jurnal untuk satu ID sama dengan urutan perubahan di tabel.
+ */
+public class TabelPesanan {
+    // Jumlah segmen = 2^BIT_SEGMEN
+    private static final int BIT_SEGMEN = 6;
+    
+    // Kode status 0 menandakan slot kosong
+    private static final byte SLOT_KOSONG = 0;
+    
+    private final Segmen[] segmen;
+    private final KamusString kamus;
+    
+    // ID pesanan terbesar yang pernah disimpan, untuk melanjutkan penomoran setelah restart
+    private final AtomicLong idTerbesar = new AtomicLong();
+    
+    // Jurnal perubahan, null jika tabel hanya di memori
+    private volatile JurnalPesanan jurnal;
+    
+    public TabelPesanan() {
+        this(1024);
+    }
+    
+    /**
+     * @param kapasitasAwal Perkiraan jumlah pesanan, dibagi rata ke semua segmen
+     */
+    public TabelPesanan(int kapasitasAwal) {
+        int perSegmen = Math.max(16, (kapasitasAwal >> BIT_SEGMEN) * 4 / 3 + 1);
+        int kapasitasSegmen = Integer.highestOneBit(perSegmen - 1) << 1;
+        this.segmen = new Segmen[1 << BIT_SEGMEN];
+        for (int i = 0; i < segmen.length; i++) {
+            segmen[i] = new Segmen(kapasitasSegmen);
+        }
+        this.kamus = new KamusString();
+    }
+    
+    private TabelPesanan(Segmen[] segmen, KamusString kamus) {
+        this.segmen = segmen;
+        this.kamus = kamus;
+    }
+    
+    /**
+     * Menyimpan atau mengganti pesanan
+     * @param pesanan Pesanan dengan status yang dikenal BinaryUtil
+     */
+    public void simpan(Pesanan pesanan) {
+        long tanggal = pesanan.getTanggalPesanan() != null ? pesanan.getTanggalPesanan().getTime() : 0;
+        simpanMentah(pesanan.getId(), tanggal, pesanan.getTotalHarga(), kodeStatus(pesanan.getStatus()),
+            pesanan.getNamaPelanggan(), pesanan.getAlamatPengiriman());
+    }
+    
+    /**
+     * Mengubah status pesanan secara atomik, pesanan dibuat jika belum ada
+     * @param id ID pesanan
+     * @param status Status baru
+     * @param namaJikaBaru Nama pelanggan untuk pesanan yang belum ada, boleh null
+     * @param alamatJikaBaru Alamat untuk pesanan yang belum ada, boleh null
+     */
+    public void perbaruiStatus(long id, String status, String namaJikaBaru, String alamatJikaBaru) {
+        perbaruiStatusMentah(id, kodeStatus(status), namaJikaBaru, alamatJikaBaru);
+    }
+    
+    void simpanMentah(long id, long tanggal, double totalHarga, byte status, String namaPelanggan,
+                      String alamatPengiriman) {
+        int nama = kamus.simpan(namaPelanggan);
+        int alamat = kamus.simpan(alamatPengiriman);
+        
+        int hash = sebar(id);
+        Segmen seg = segmen[hash >>> (32 - BIT_SEGMEN)];
+        long stamp = seg.kunci.writeLock();
+        try {
+            JurnalPesanan j = jurnal;
+            if (j != null) {
+                j.catatSimpan(id, tanggal, totalHarga, status, namaPelanggan, alamatPengiriman);
+            }
+            int slot = seg.slotUntukDitulis(id, hash);
+            Blok blok = seg.blok;
+            blok.tanggal[slot] = tanggal;
+            blok.totalHarga[slot] = totalHarga;
+            blok.nama[slot] = nama;
+            blok.alamat[slot] = alamat;
+            blok.status[slot] = status;
+        } finally {
+            seg.kunci.unlockWrite(stamp);
+        }
+        idTerbesar.accumulateAndGet(id, Math::max);
+    }
+    
+    void perbaruiStatusMentah(long id, byte status, String namaJikaBaru, String alamatJikaBaru) {
+        int hash = sebar(id);
+        Segmen seg = segmen[hash >>> (32 - BIT_SEGMEN)];
+        long stamp = seg.kunci.writeLock();
+        try {
+            JurnalPesanan j = jurnal;
+            if (j != null) {
+                j.catatStatus(id, status, namaJikaBaru, alamatJikaBaru);
+            }
+            int slot = seg.cari(seg.blok, id, hash);
+            if (slot < 0) {
+                // Pesanan belum ada, misalnya status datang sebelum pesanan disimpan
+                long sekarang = System.currentTimeMillis();
+                int nama = kamus.simpan(namaJikaBaru);
+                int alamat = kamus.simpan(alamatJikaBaru);
+                slot = seg.slotUntukDitulis(id, hash);
+                Blok blok = seg.blok;
+                blok.tanggal[slot] = sekarang;
+                blok.totalHarga[slot] = 0;
+                blok.nama[slot] = nama;
+                blok.alamat[slot] = alamat;
+                idTerbesar.accumulateAndGet(id, Math::max);
+            }
+            seg.blok.status[slot] = status;
+        } finally {
+            seg.kunci.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * Mengambil salinan pesanan
+     * @param id ID pesanan
+     * @return Salinan pesanan, atau null jika tidak ada
+     */
+    public Pesanan ambil(long id) {
+        int hash = sebar(id);
+        Segmen seg = segmen[hash >>> (32 - BIT_SEGMEN)];
+        Baris baris = new Baris();
+        
+        long stamp = seg.kunci.tryOptimisticRead();
+        Blok blok = seg.blok;
+        boolean ada = baris.baca(blok, seg.cari(blok, id, hash));
+        if (!seg.kunci.validate(stamp)) {
+            stamp = seg.kunci.readLock();
+            try {
+                blok = seg.blok;
+                ada = baris.baca(blok, seg.cari(blok, id, hash));
+            } finally {
+                seg.kunci.unlockRead(stamp);
+            }
+        }
+        return ada ? baris.toPesanan(id) : null;
+    }
+    
+    /**
+     * Iterasi weakly consistent atas semua pesanan, tidak menahan penulis selama callback berjalan
+     * Pesanan yang berubah selama iterasi mungkin tampil dengan nilai lama atau baru
+     * @param aksi Callback untuk salinan setiap pesanan
+     */
+    public void forEach(Consumer<Pesanan> aksi) {
+        Baris baris = new Baris();
+        for (Segmen seg : segmen) {
+            Blok blok = seg.blok;
+            for (int slot = 0; slot < blok.id.length; slot++) {
+                long stamp = seg.kunci.tryOptimisticRead();
+                long id = blok.id[slot];
+                boolean ada = baris.baca(blok, slot);
+                if (!seg.kunci.validate(stamp)) {
+                    stamp = seg.kunci.readLock();
+                    try {
+                        id = blok.id[slot];
+                        ada = baris.baca(blok, slot);
+                    } finally {
+                        seg.kunci.unlockRead(stamp);
+                    }
+                }
+                if (ada) {
+                    aksi.accept(baris.toPesanan(id));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Jumlah pesanan di dalam tabel
+     */
+    public int getJumlah() {
+        int total = 0;
+        for (Segmen seg : segmen) {
+            total += seg.jumlah;
+        }
+        return total;
+    }
+    
+    public boolean isEmpty() {
+        return getJumlah() == 0;
+    }
+    
+    /**
+     * ID pesanan terbesar yang pernah disimpan, 0 jika tabel kosong
+     */
+    public long getIdTerbesar() {
+        return idTerbesar.get();
+    }
+    
+    /**
+     * Memasang jurnal yang mencatat setiap perubahan berikutnya
+     * @param jurnal Jurnal perubahan, atau null untuk berhenti mencatat
+     */
+    void setJurnal(JurnalPesanan jurnal) {
+        this.jurnal = jurnal;
+    }
+    
+    /**
+     * Menulis isi tabel ke snapshot: kolom mentah setiap segmen lalu kamus string
+     * Setiap segmen ditulis di bawah read lock sehingga konsisten per segmen; kamus ditulis
+     * terakhir agar semua kode string yang dirujuk segmen ikut tersimpan
+     */
+    void tulisKe(PenulisSnapshot out) throws IOException {
+        out.tulisInt(segmen.length);
+        for (Segmen seg : segmen) {
+            long stamp = seg.kunci.readLock();
+            try {
+                Blok blok = seg.blok;
+                out.tulisInt(blok.id.length);
+                out.tulisInt(seg.jumlah);
+                out.tulisArray(blok.id);
+                out.tulisArray(blok.tanggal);
+                out.tulisArray(blok.totalHarga);
+                out.tulisArray(blok.nama);
+                out.tulisArray(blok.alamat);
+                out.tulisArray(blok.status);
+            } finally {
+                seg.kunci.unlockRead(stamp);
+            }
+        }
+        kamus.tulisKe(out);
+        out.tulisLong(idTerbesar.get());
+    }
+    
+    /**
+     * Memuat tabel dari snapshot yang ditulis tulisKe() dengan pembacaan bulk per kolom
+     */
+    static TabelPesanan bacaDari(PembacaSnapshot in) throws IOException {
+        int jumlahSegmen = in.bacaInt();
+        if (jumlahSegmen != 1 << BIT_SEGMEN) {
+            throw new IOException("Jumlah segmen snapshot tidak cocok: " + jumlahSegmen);
+        }
+        Segmen[] segmen = new Segmen[jumlahSegmen];
+        for (int i = 0; i < jumlahSegmen; i++) {
+            int kapasitas = in.bacaInt();
+            int jumlah = in.bacaInt();
+            if (kapasitas < 16 || Integer.bitCount(kapasitas) != 1 || jumlah < 0 || jumlah > kapasitas * 3 / 4) {
+                throw new IOException("Ukuran segmen snapshot tidak valid: " + kapasitas + "/" + jumlah);
+            }
+            Segmen seg = new Segmen(kapasitas);
+            Blok blok = seg.blok;
+            in.bacaArray(blok.id);
+            in.bacaArray(blok.tanggal);
+            in.bacaArray(blok.totalHarga);
+            in.bacaArray(blok.nama);
+            in.bacaArray(blok.alamat);
+            in.bacaArray(blok.status);
+            seg.jumlah = jumlah;
+            segmen[i] = seg;
+        }
+        TabelPesanan tabel = new TabelPesanan(segmen, KamusString.bacaDari(in));
+        tabel.idTerbesar.set(in.bacaLong());
+        return tabel;
+    }
+    
+    static byte kodeStatus(String status) {
+        for (int kode = 1; kode < BinaryUtil.STATUS_PESANAN.length; kode++) {
+            if (BinaryUtil.STATUS_PESANAN[kode].equals(status)) {
+                return (byte) kode;
+            }
+        }
+        throw new IllegalArgumentException("Status pesanan tidak dikenal: " + status);
+    }
+    
+    /**
+     * Kamus string untuk nama dan alamat, misalnya untuk memantau pemakaian memori off-heap
+     */
+    public KamusString getKamus() {
+        return kamus;
+    }
+    
+    /**
+     * ID dilipat menjadi 32 bit sebelum diacak; snapshot menyimpan posisi slot apa adanya, sehingga
+     * fungsi ini tidak boleh berubah tanpa menaikkan versi snapshot
+     */
+    private static int sebar(long id) {
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+    
+    /**
+     * Kolom-kolom satu segmen, diganti seluruhnya saat segmen diperbesar
+     */
+    private static final class Blok {
+        final long[] id;
+        final long[] tanggal;
+        final double[] totalHarga;
+        final int[] nama;
+        final int[] alamat;
+        final byte[] status;
+        
+        Blok(int kapasitas) {
+            id = new long[kapasitas];
+            tanggal = new long[kapasitas];
+            totalHarga = new double[kapasitas];
+            nama = new int[kapasitas];
+            alamat = new int[kapasitas];
+            status = new byte[kapasitas];
+        }
+    }
+    
+    private static final class Segmen {
+        final StampedLock kunci = new StampedLock();
+        volatile Blok blok;
+        volatile int jumlah;
+        
+        Segmen(int kapasitas) {
+            blok = new Blok(kapasitas);
+        }
+        
+        /**
+         * Mencari slot ID, aman dipanggil tanpa lock karena jumlah probe dibatasi kapasitas blok
+         * @return Indeks slot, atau -1 jika tidak ada
+         */
+        int cari(Blok b, long id, int hash) {
+            int mask = b.id.length - 1;
+            int slot = hash & mask;
+            for (int i = 0; i <= mask && b.status[slot] != SLOT_KOSONG; i++) {
+                if (b.id[slot] == id) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+        
+        /**
+         * Mencari slot ID atau menyiapkan slot kosong untuknya, dipanggil dengan write lock
+         * Slot baru sudah berisi ID, status diisi terakhir oleh pemanggil
+         */
+        int slotUntukDitulis(long id, int hash) {
+            int slot = cari(blok, id, hash);
+            if (slot >= 0) {
+                return slot;
+            }
+            if (jumlah + 1 > blok.id.length * 3 / 4) {
+                perbesar();
+            }
+            Blok b = blok;
+            int mask = b.id.length - 1;
+            slot = hash & mask;
+            while (b.status[slot] != SLOT_KOSONG) {
+                slot = (slot + 1) & mask;
+            }
+            b.id[slot] = id;
+            jumlah++;
+            return slot;
+        }
+        
+        private void perbesar() {
+            Blok lama = blok;
+            Blok baru = new Blok(lama.id.length * 2);
+            int mask = baru.id.length - 1;
+            for (int i = 0; i < lama.id.length; i++) {
+                if (lama.status[i] == SLOT_KOSONG) {
+                    continue;
+                }
+                int slot = sebar(lama.id[i]) & mask;
+                while (baru.status[slot] != SLOT_KOSONG) {
+                    slot = (slot + 1) & mask;
+                }
+                baru.id[slot] = lama.id[i];
+                baru.tanggal[slot] = lama.tanggal[i];
+                baru.totalHarga[slot] = lama.totalHarga[i];
+                baru.nama[slot] = lama.nama[i];
+                baru.alamat[slot] = lama.alamat[i];
+                baru.status[slot] = lama.status[i];
+            }
+            blok = baru;
+        }
+    }
+    
+    /**
+     * Penampung nilai mentah satu baris; string baru di-decode setelah bacaan tervalidasi
+     */
+    private final class Baris {
+        long tanggal;
+        double totalHarga;
+        int nama;
+        int alamat;
+        byte status;
+        
+        boolean baca(Blok blok, int slot) {
+            if (slot < 0 || blok.status[slot] == SLOT_KOSONG) {
+                return false;
+            }
+            tanggal = blok.tanggal[slot];
+            totalHarga = blok.totalHarga[slot];
+            nama = blok.nama[slot];
+            alamat = blok.alamat[slot];
+            status = blok.status[slot];
+            return true;
+        }
+        
+        Pesanan toPesanan(long id) {
+            Pesanan pesanan = new Pesanan();
+            pesanan.setId(id);
+            pesanan.setNamaPelanggan(kamus.ambil(nama));
+            pesanan.setAlamatPengiriman(kamus.ambil(alamat));
+            pesanan.setTotalHarga(totalHarga);
+            pesanan.setTanggalPesanan(new Date(tanggal));
+            pesanan.setStatus(BinaryUtil.STATUS_PESANAN[status]);
+            return pesanan;
+        }
+    }
+} 
\ No newline at end of file
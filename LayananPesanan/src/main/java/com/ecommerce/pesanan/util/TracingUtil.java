@@ -0,0 +1,107 @@
+package com.ecommerce.pesanan.util;
+
+import com.rabbitmq.client.AMQP;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Kelas utilitas untuk pelacakan latensi pesan antar layanan
+ * 
+ * Setiap pesan membawa waktu-waktu penting sebagai header AMQP dalam mikrodetik sejak epoch:
+ * pesanan dibuat, dikirim LayananPesanan, diterima LayananPengiriman, dan status dikirim
+ * LayananPengiriman. Selisih antar header memakai jam sistem sehingga hanya akurat jika jam kedua
+ * host tersinkronisasi; tahap di dalam satu proses diukur dengan System.nanoTime oleh pemanggil.
+ * Nama header harus sama dengan TracingUtil di LayananPengiriman.
+ */
+public class TracingUtil {
+    public static final String HEADER_WAKTU_DIBUAT = "x-waktu-dibuat";
+    public static final String HEADER_WAKTU_DIKIRIM = "x-waktu-dikirim";
+    public static final String HEADER_WAKTU_DITERIMA = "x-waktu-diterima";
+    public static final String HEADER_WAKTU_STATUS = "x-waktu-status";
+    
+    // Tahap-tahap yang diukur oleh LayananPesanan
+    public static final String TAHAP_ANTREAN_PRODUCER = "antrean producer (dibuat -> dikirim)";
+    public static final String TAHAP_DI_PENGIRIMAN = "di LayananPengiriman (diterima -> status dikirim)";
+    public static final String TAHAP_STATUS_DI_BROKER = "status di broker (status dikirim -> diterima)";
+    public static final String TAHAP_DESERIALISASI = "deserialisasi status";
+    public static final String TAHAP_UPDATE_DAFTAR = "update daftarPesanan";
+    public static final String TAHAP_END_TO_END = "end-to-end (dibuat -> status diterima)";
+    
+    // Histogram per tahap dalam mikrodetik, urutan sesuai alur pesan
+    private static final Map<String, LatencyHistogram> HISTOGRAM = buatHistogram(
+        TAHAP_ANTREAN_PRODUCER, TAHAP_DI_PENGIRIMAN, TAHAP_STATUS_DI_BROKER,
+        TAHAP_DESERIALISASI, TAHAP_UPDATE_DAFTAR, TAHAP_END_TO_END);
+    
+    private static Map<String, LatencyHistogram> buatHistogram(String... tahap) {
+        Map<String, LatencyHistogram> hasil = new LinkedHashMap<>();
+        for (String nama : tahap) {
+            hasil.put(nama, new LatencyHistogram());
+        }
+        return Collections.unmodifiableMap(hasil);
+    }
+    
+    /**
+     * Waktu sekarang dalam mikrodetik sejak epoch
+     */
+    public static long sekarangMikro() {
+        Instant sekarang = Instant.now();
+        return sekarang.getEpochSecond() * 1_000_000L + sekarang.getNano() / 1_000;
+    }
+    
+    /**
+     * Membaca header waktu dari properti pesan
+     * @return Nilai header dalam mikrodetik, atau 0 jika header tidak ada
+     */
+    public static long bacaWaktu(AMQP.BasicProperties properties, String header) {
+        if (properties == null || properties.getHeaders() == null) {
+            return 0;
+        }
+        Object nilai = properties.getHeaders().get(header);
+        return nilai instanceof Number ? ((Number) nilai).longValue() : 0;
+    }
+    
+    /**
+     * Mencatat durasi satu tahap
+     * @param tahap Nama tahap (konstanta TAHAP_*)
+     * @param mikrodetik Durasi dalam mikrodetik
+     */
+    public static void catat(String tahap, long mikrodetik) {
+        HISTOGRAM.get(tahap).catat(mikrodetik);
+    }
+    
+    /**
+     * Mencatat selisih dua waktu header, dilewati jika salah satu waktu tidak diketahui
+     */
+    public static void catatSelisih(String tahap, long awalMikro, long akhirMikro) {
+        if (awalMikro > 0 && akhirMikro > 0) {
+            catat(tahap, akhirMikro - awalMikro);
+        }
+    }
+    
+    public static LatencyHistogram getHistogram(String tahap) {
+        return HISTOGRAM.get(tahap);
+    }
+    
+    /**
+     * Menampilkan ringkasan histogram semua tahap
+     */
+    public static void tampilkanStatistik() {
+        System.out.println("\n=== Statistik Latensi per Tahap (mikrodetik) ===");
+        for (Map.Entry<String, LatencyHistogram> entry : HISTOGRAM.entrySet()) {
+            System.out.println(entry.getKey() + ":");
+            System.out.println("  " + entry.getValue().ringkasan("us"));
+        }
+    }
+    
+    /**
+     * Mengosongkan histogram semua tahap
+     */
+    public static void resetStatistik() {
+        for (LatencyHistogram histogram : HISTOGRAM.values()) {
+            histogram.reset();
+        }
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.ecommerce.pesanan.util;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.ConfirmCallback;
+import com.rabbitmq.client.DeliverCallback;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Channel pada sebuah Transport untuk deklarasi, publish, consume, dan acknowledge pesan
+ * 
+ * Nama dan perilaku metode mengikuti com.rabbitmq.client.Channel agar kode service tetap
+ * mudah dibandingkan dengan dokumentasi RabbitMQ. Properti dan pesan yang diterima memakai
+ * tipe dari amqp-client (AMQP.BasicProperties, Delivery) untuk semua implementasi.
+ */
+public interface TransportChannel extends AutoCloseable {
+    
+    /**
+     * Mendeklarasikan exchange
+     * @param exchange Nama exchange
+     * @param type Tipe exchange, misalnya "direct"
+     * @param durable true jika exchange tetap ada setelah broker restart
+     */
+    void exchangeDeclare(String exchange, String type, boolean durable) throws IOException;
+    
+    /**
+     * Mendeklarasikan queue, tidak melakukan apa pun jika queue sudah ada
+     * @param queue Nama queue
+     * @param durable true jika queue tetap ada setelah broker restart
+     * @param exclusive true jika queue hanya untuk koneksi ini
+     * @param autoDelete true jika queue dihapus ketika tidak ada consumer
+     * @param arguments Argumen tambahan queue, boleh null
+     */
+    void queueDeclare(String queue, boolean durable, boolean exclusive, boolean autoDelete,
+                      Map<String, Object> arguments) throws IOException;
+    
+    /**
+     * Menghubungkan queue ke exchange dengan routing key tertentu
+     */
+    void queueBind(String queue, String exchange, String routingKey) throws IOException;
+    
+    /**
+     * Mengambil jumlah pesan yang menunggu di queue tanpa membuat queue
+     * @param queue Nama queue
+     * @return Jumlah pesan yang siap dikirim ke consumer
+     * @throws IOException Jika queue tidak ada
+     */
+    long messageCount(String queue) throws IOException;
+    
+    /**
+     * Mengirim pesan ke exchange
+     * @param exchange Nama exchange
+     * @param routingKey Routing key pesan
+     * @param properties Properti pesan, boleh null
+     * @param body Isi pesan
+     */
+    void basicPublish(String exchange, String routingKey, AMQP.BasicProperties properties, byte[] body)
+            throws IOException;
+    
+    /**
+     * Mendaftarkan consumer pada queue
+     * @param queue Nama queue
+     * @param autoAck true jika pesan dianggap di-ack begitu dikirim ke consumer
+     * @param deliverCallback Callback yang dipanggil untuk setiap pesan
+     * @return Consumer tag
+     */
+    String basicConsume(String queue, boolean autoAck, DeliverCallback deliverCallback) throws IOException;
+    
+    /**
+     * Membatasi jumlah pesan yang belum di-ack pada channel ini
+     * @param prefetchCount Jumlah maksimum pesan yang belum di-ack, 0 berarti tidak dibatasi
+     */
+    void basicQos(int prefetchCount) throws IOException;
+    
+    void basicAck(long deliveryTag, boolean multiple) throws IOException;
+    
+    void basicNack(long deliveryTag, boolean multiple, boolean requeue) throws IOException;
+    
+    /**
+     * Mengaktifkan mode publisher confirms pada channel ini
+     */
+    void confirmSelect() throws IOException;
+    
+    /**
+     * Mendaftarkan callback untuk ack dan nack publisher confirms
+     */
+    void addConfirmListener(ConfirmCallback ackCallback, ConfirmCallback nackCallback);
+    
+    /**
+     * Nomor urut (delivery tag) yang akan dipakai untuk publish berikutnya dalam mode confirm
+     */
+    long getNextPublishSeqNo();
+    
+    /**
+     * Menunggu konfirmasi broker untuk semua pesan yang sudah dikirim sejak pemanggilan sebelumnya
+     * @param timeoutMs Batas waktu menunggu dalam milidetik
+     * @return true jika semua pesan di-ack, false jika ada yang di-nack
+     */
+    boolean waitForConfirms(long timeoutMs) throws InterruptedException, TimeoutException;
+    
+    boolean isOpen();
+    
+    @Override
+    void close() throws IOException;
+} 
\ No newline at end of file